@@ -0,0 +1,206 @@
+package citadels;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput benchmarks for the hot paths of the game engine.
+ * Run with {@code gradle jmh} or {@code mvn -Pjmh verify exec:exec}; both add the
+ * GC profiler so allocation rate per operation is reported next to throughput.
+ * Every game is seeded, so runs are reproducible.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmarks {
+    /** Seed of the game the single-step benchmarks work on, the same in every iteration */
+    private static final long STEP_SEED = 20240531L;
+    /** Seed of the first game, incremented for every new game */
+    private long seed = 20240601L;
+    /** Engine used to create and play headless games */
+    private GameEngine engine;
+    /** Game that the round benchmark plays on */
+    private Game game;
+    /** Game whose state the single-step benchmarks work on, new for every iteration */
+    private Game stepGame;
+    /** Player with a full city for scoring */
+    private Player scoringPlayer;
+    /** AI player with a hand of cards and gold for choosing a district */
+    private AIPlayer buildingPlayer;
+    /** State of a game a few rounds in, for the state copy benchmarks */
+    private GameState midGameState;
+    /** Reused buffer for the state copy benchmarks */
+    private GameState scratchState;
+    /** Game that states are restored into */
+    private Game scratchGame;
+    /** Samples worlds from one player's view of the mid-game state */
+    private Determinizer determinizer;
+    /** Generator for the sampled worlds */
+    private GameRandom sampleRandom;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new GameEngine(5);
+        game = engine.newGame(seed++);
+
+        List<DistrictCard> cards = CardCatalog.getInstance().newDistrictDeck();
+        scoringPlayer = new Player(1, false);
+        scoringPlayer.addGold(100);
+        for (int i = 0; i < 8; i++) {
+            DistrictCard card = cards.get(i * 8);
+            scoringPlayer.addToHand(card);
+            scoringPlayer.buildDistrict(card);
+        }
+
+        Game midGame = engine.newGame(seed++);
+        for (int i = 0; i < 4; i++) {
+            midGame.playRound();
+        }
+        midGameState = GameState.capture(midGame);
+        determinizer = new Determinizer(midGame, midGame.getPlayers().get(0));
+        sampleRandom = new GameRandom(seed);
+        scratchState = new GameState();
+        scratchGame = engine.newGame(seed++);
+
+        buildingPlayer = new AIPlayer(2, new GameRandom(seed));
+        buildingPlayer.addGold(4);
+        for (int i = 0; i < 6; i++) {
+            buildingPlayer.addToHand(cards.get(i * 11));
+        }
+    }
+
+    /**
+     * Starts every iteration of the single-step benchmarks from the same fresh game,
+     * so their numbers do not drift as earlier iterations empty the deck.
+     */
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        stepGame = engine.newGame(STEP_SEED);
+    }
+
+    @Benchmark
+    public int calculateScore() {
+        return scoringPlayer.calculateScore();
+    }
+
+    /**
+     * Splits a typical command line and parses its numeric arguments.
+     */
+    @Benchmark
+    public Command parseCommand() {
+        return Command.parse("action destroy 2 3");
+    }
+
+    /**
+     * Parses and dispatches a command that only reads game state.
+     */
+    @Benchmark
+    public void processCommand() {
+        stepGame.processCommand("gold 2", null);
+    }
+
+    /**
+     * Builds the cards of a new game's district deck from the shared catalog.
+     */
+    @Benchmark
+    public DistrictDeck loadDistrictCards() {
+        DistrictDeck deck = new DistrictDeck();
+        CardCatalog.getInstance().fillDeck(deck);
+        return deck;
+    }
+
+    /**
+     * Parses the card file, which now happens once per JVM.
+     */
+    @Benchmark
+    public CardCatalog parseCardCatalog() {
+        return CardCatalog.load();
+    }
+
+    @Benchmark
+    public DistrictCard chooseDistrictToBuild() {
+        return buildingPlayer.chooseDistrictToBuild();
+    }
+
+    /**
+     * Draws two cards and keeps one, then puts the kept card back so the deck and hand
+     * stay the same size, and drops the recorded event so the journal does not grow.
+     */
+    @Benchmark
+    public int drawAndChooseCardAI() {
+        Player player = stepGame.getPlayers().get(1);
+        stepGame.drawAndChooseCardAI(player);
+        List<DistrictCard> hand = player.getHand();
+        stepGame.getDistrictDeck().putBottom(hand.remove(hand.size() - 1));
+        stepGame.getJournal().clear();
+        return hand.size();
+    }
+
+    /**
+     * Plays one round of an AI-only game: character selection and every turn.
+     * A new game is started when the current one ends; that cost is spread over the game's rounds.
+     */
+    @Benchmark
+    public int playRound() {
+        if (game.isGameEnded()) {
+            game = engine.newGame(seed++);
+        }
+        game.playRound();
+        return game.getCurrentRound();
+    }
+
+    /**
+     * Copies a mid-game state into a reused buffer, as a search does before each rollout.
+     */
+    @Benchmark
+    public GameState copyState() {
+        scratchState.copyFrom(midGameState);
+        return scratchState;
+    }
+
+    /**
+     * Captures a game's state into a reused buffer.
+     */
+    @Benchmark
+    public GameState captureState() {
+        stepGame.captureState(scratchState);
+        return scratchState;
+    }
+
+    /**
+     * Restores a mid-game state into an existing game.
+     */
+    @Benchmark
+    public Game restoreState() {
+        scratchGame.restoreState(midGameState);
+        return scratchGame;
+    }
+
+    /**
+     * Samples a world from one player's view of a mid-game state.
+     */
+    @Benchmark
+    public Game determinize() {
+        determinizer.sample(scratchGame, sampleRandom);
+        return scratchGame;
+    }
+
+    @Benchmark
+    public GameResult playGame() {
+        return engine.playGame(seed++);
+    }
+}
@@ -7,14 +7,36 @@ import java.util.List;
  * Extends the Player class and adds AI-specific decision making.
  */
 public class AIPlayer extends Player {
+    /** Source of this player's random decisions */
+    private final GameRandom random;
     
     /**
-     * Creates a new AI player.
+     * Creates a new AI player with an unseeded generator.
      *
      * @param playerNumber The player's number
      */
     public AIPlayer(int playerNumber) {
+        this(playerNumber, new GameRandom());
+    }
+
+    /**
+     * Creates a new AI player whose decisions come from the given generator.
+     *
+     * @param playerNumber The player's number
+     * @param random The generator for this player's random decisions
+     */
+    public AIPlayer(int playerNumber, GameRandom random) {
         super(playerNumber, false);
+        this.random = random;
+    }
+
+    /**
+     * Gets the generator for this player's random decisions, so its state can be saved.
+     *
+     * @return The generator
+     */
+    GameRandom getRandom() {
+        return random;
     }
 
     /**
@@ -26,10 +48,33 @@ public class AIPlayer extends Player {
      */
     public CharacterCard chooseCharacter(List<CharacterCard> availableCharacters) {
         // Basic AI: Choose randomly
-        int choice = (int) (Math.random() * availableCharacters.size());
+        int choice = random.nextInt(availableCharacters.size());
         return availableCharacters.get(choice);
     }
 
+    /**
+     * Chooses a character during the selection phase of a game.
+     * The default picks like {@link #chooseCharacter(List)}; players that look ahead override this.
+     *
+     * @param game The game being played
+     * @param availableCharacters The characters still available, not to be changed
+     * @return The chosen character card, one of the available ones
+     */
+    public CharacterCard chooseCharacter(Game game, List<CharacterCard> availableCharacters) {
+        return chooseCharacter(availableCharacters);
+    }
+
+    /**
+     * Decides whether to take 2 gold or draw cards at the start of a turn.
+     * The default uses the game's standard heuristic.
+     *
+     * @param game The game being played
+     * @return True to take gold, false to draw cards
+     */
+    public boolean chooseTakeGold(Game game) {
+        return game.shouldAITakeGold(this);
+    }
+
     /**
      * Makes a decision about which district to build.
      * Basic implementation builds the most expensive district it can afford.
@@ -1,8 +1,10 @@
 package citadels;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
@@ -22,9 +24,20 @@ public class App {
 
 	/**
 	 * Main method to start the application.
-	 * @param args Command line arguments (not used)
+	 * @param args Command line arguments: {@code --server [port]} hosts games over TCP
+	 *             with a {@link GameServer} and {@code --http [port]} serves them over
+	 *             HTTP with a {@link GameApiServer}, instead of playing one on the console
+	 * @throws IOException if the server port cannot be opened
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		if (args.length > 0 && args[0].equals("--server")) {
+			GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if (args.length > 0 && args[0].equals("--http")) {
+			GameApiServer.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 		App app = new App();
 		app.start();
 	}
@@ -0,0 +1,149 @@
+package citadels;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes game snapshots to a save file in the background, so a slow disk never
+ * holds up the game.
+ * <p>
+ * The game thread hands over each snapshot with {@link #submit}, which returns at
+ * once. Every autosave writer shares one daemon thread, so many games running at
+ * once do not start a thread each. Only the latest snapshot waiting to be written
+ * for a save file is kept: if the disk falls behind, older snapshots are skipped
+ * rather than queued. Each snapshot is written to a temporary file next to the save
+ * file, flushed to the disk and then renamed over it, so the save file always holds
+ * a complete snapshot, even if the process or the machine dies mid-write.
+ */
+final class AutosaveWriter implements AutoCloseable {
+    /** The thread all autosave writers write on */
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "citadels-autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The save file */
+    private final Path target;
+    /** File each snapshot is written to before it replaces the save file */
+    private final Path temp;
+    /** The latest snapshot that has not been written yet, or null */
+    private final AtomicReference<SaveFile.Writer> pending = new AtomicReference<>();
+    /** True while a task that writes this writer's snapshots is waiting or running */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    /** True once no more snapshots will be submitted */
+    private volatile boolean closed;
+    /** Number of snapshots written to the save file */
+    private volatile int writeCount;
+    /** The error of the last failed write, or null */
+    private volatile IOException lastError;
+
+    /**
+     * Creates an autosave writer.
+     * @param target The save file, replaced by each snapshot
+     */
+    AutosaveWriter(Path target) {
+        this.target = target.toAbsolutePath();
+        this.temp = this.target.resolveSibling(this.target.getFileName() + ".tmp");
+    }
+
+    /**
+     * Hands a snapshot to the writer thread, replacing any snapshot still waiting.
+     * @param snapshot The encoded game state; it must not be changed afterwards
+     * @throws IllegalStateException if the writer has been closed
+     */
+    void submit(SaveFile.Writer snapshot) {
+        if (closed) {
+            throw new IllegalStateException("Autosave writer is closed");
+        }
+        pending.set(snapshot);
+        if (scheduled.compareAndSet(false, true)) {
+            WRITER.execute(this::drain);
+        }
+    }
+
+    /**
+     * Waits until the last submitted snapshot has been written, if it was still waiting.
+     * No more snapshots can be submitted afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        boolean interrupted = false;
+        synchronized (this) {
+            while (scheduled.get()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the save file.
+     * @return The absolute path of the save file
+     */
+    Path getTarget() {
+        return target;
+    }
+
+    /**
+     * Gets the number of snapshots written so far.
+     * @return The number of writes
+     */
+    int getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * Gets the error of the last write that failed.
+     * @return The error, or null if no write has failed
+     */
+    IOException getLastError() {
+        return lastError;
+    }
+
+    private void drain() {
+        while (true) {
+            SaveFile.Writer snapshot = pending.getAndSet(null);
+            if (snapshot != null) {
+                write(snapshot);
+                continue;
+            }
+            scheduled.set(false);
+            // A snapshot submitted after the check above found the task still scheduled
+            if (pending.get() == null || !scheduled.compareAndSet(false, true)) {
+                break;
+            }
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    private void write(SaveFile.Writer snapshot) {
+        try {
+            snapshot.writeTo(temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            writeCount++;
+        } catch (IOException e) {
+            lastError = e;
+        }
+    }
+}
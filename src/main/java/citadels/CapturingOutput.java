@@ -0,0 +1,82 @@
+package citadels;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Game output that keeps everything printed in memory, so tests can check what
+ * the players were shown.
+ */
+public class CapturingOutput implements GameOutput {
+    /** Text printed so far */
+    private final StringBuilder text = new StringBuilder();
+    /** Errors reported so far */
+    private final List<String> errors = new ArrayList<>();
+
+    @Override
+    public void print(String text) {
+        this.text.append(text);
+    }
+
+    @Override
+    public void println(String text) {
+        this.text.append(text).append('\n');
+    }
+
+    @Override
+    public void error(String message) {
+        errors.add(message);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Gets everything printed so far, with lines separated by '\n'.
+     * @return The captured text
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Gets the lines printed so far.
+     * @return The captured lines
+     */
+    public List<String> getLines() {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    /**
+     * Gets the errors reported so far.
+     * @return The error messages, oldest first
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Discards the captured text and errors.
+     */
+    public void clear() {
+        text.setLength(0);
+        errors.clear();
+    }
+}
@@ -0,0 +1,211 @@
+package citadels;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The set of all district and character cards, shared by every game in the JVM.
+ * The card file is parsed once, the first time the catalog is used. Cards are
+ * immutable, so games hold references to the catalog's card instances instead
+ * of creating their own copies; a new game only copies the array of references
+ * that makes up a full district deck.
+ * <p>
+ * Every district card type has a compact int ID that players use to store their
+ * hand and city. The types in the card file get IDs 0 to n-1 in file order, and
+ * the catalog never changes after it is loaded. Cards created elsewhere with
+ * {@link DistrictCard}'s public constructor get IDs from n on from {@link CustomCards},
+ * so equal cards always share an ID.
+ */
+public final class CardCatalog {
+    /** Resource path of the district card file */
+    private static final String CARDS_RESOURCE = "/citadels/cards.tsv";
+
+    /** One instance of each district card type, in file order */
+    private final List<DistrictCard> districtCards;
+    /** District card types by name */
+    private final Map<String, DistrictCard> districtsByName;
+    /** Every district card type, indexed by ID */
+    private final DistrictCard[] cardsById;
+    /** District card types by their full description */
+    private final Map<String, DistrictCard> cardsByKey;
+    /** Every card of a full deck: each type repeated by its quantity, in file order */
+    private final DistrictCard[] deckTemplate;
+    /** The eight character cards, in turn order */
+    private final List<CharacterCard> characterCards;
+
+    private CardCatalog(List<DistrictCard> districtCards, DistrictCard[] deckTemplate,
+                        List<CharacterCard> characterCards) {
+        this.districtCards = Collections.unmodifiableList(districtCards);
+        this.deckTemplate = deckTemplate;
+        this.characterCards = Collections.unmodifiableList(characterCards);
+        Map<String, DistrictCard> byName = new HashMap<>();
+        Map<String, DistrictCard> byKey = new HashMap<>();
+        for (DistrictCard card : districtCards) {
+            byName.put(card.getName(), card);
+            byKey.put(key(card.getName(), card.getColor(), card.getCost(), card.getSpecialAbility()), card);
+        }
+        this.districtsByName = byName;
+        this.cardsByKey = byKey;
+        this.cardsById = districtCards.toArray(new DistrictCard[0]);
+    }
+
+    /**
+     * Gets the catalog, loading it on first use.
+     * @return The shared catalog
+     */
+    public static CardCatalog getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Gets one instance of each district card type.
+     * @return An unmodifiable list of district cards, in file order
+     */
+    public List<DistrictCard> getDistrictCards() {
+        return districtCards;
+    }
+
+    /**
+     * Finds a district card type by name.
+     * @param name The district name
+     * @return The shared card, or null if there is no district with that name
+     */
+    public DistrictCard findDistrict(String name) {
+        return districtsByName.get(name);
+    }
+
+    /**
+     * Gets a district card type by ID.
+     * @param id The card ID
+     * @return The shared card with that ID, from the card file or from {@link CustomCards}
+     */
+    public DistrictCard getCard(int id) {
+        return id < cardsById.length ? cardsById[id] : CustomCards.get(id);
+    }
+
+    /**
+     * Gets the number of district card types in the card file; their IDs are below this.
+     * @return The number of catalog card IDs
+     */
+    public int getCardCount() {
+        return cardsById.length;
+    }
+
+    /**
+     * Finds a district card type in the card file by its full description.
+     * @param name The district name
+     * @param color The district color
+     * @param cost The district cost
+     * @param specialAbility The special ability text
+     * @return The shared card, or null if the card file has no such card
+     */
+    DistrictCard find(String name, String color, int cost, String specialAbility) {
+        return cardsByKey.get(key(name, color, cost, specialAbility));
+    }
+
+    static String key(String name, String color, int cost, String specialAbility) {
+        return name + '\t' + color + '\t' + cost + '\t' + specialAbility;
+    }
+
+    /**
+     * Gets the character cards.
+     * @return An unmodifiable list of the eight characters, in turn order
+     */
+    public List<CharacterCard> getCharacterCards() {
+        return characterCards;
+    }
+
+    /**
+     * Gets the character card for a role.
+     * @param role The character role
+     * @return The shared character card
+     */
+    public CharacterCard getCharacterCard(CharacterRole role) {
+        return characterCards.get(role.ordinal());
+    }
+
+    /**
+     * Gets the number of cards in a full district deck.
+     * @return The deck size
+     */
+    public int getDeckSize() {
+        return deckTemplate.length;
+    }
+
+    /**
+     * Creates the cards of a new, unshuffled district deck.
+     * @return A new list of shared card references, one per copy in the full deck
+     */
+    public List<DistrictCard> newDistrictDeck() {
+        return new ArrayList<>(Arrays.asList(deckTemplate));
+    }
+
+    /**
+     * Adds the cards of a full, unshuffled district deck to the bottom of a deck.
+     * @param deck The deck to fill
+     */
+    public void fillDeck(DistrictDeck deck) {
+        for (DistrictCard card : deckTemplate) {
+            deck.putBottom(card);
+        }
+    }
+
+    /**
+     * Parses the card file into a new catalog.
+     * @return The loaded catalog, with no district cards if the file could not be read
+     */
+    static CardCatalog load() {
+        List<DistrictCard> types = new ArrayList<>();
+        List<DistrictCard> deck = new ArrayList<>();
+        try (InputStream is = CardCatalog.class.getResourceAsStream(CARDS_RESOURCE);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+            String line;
+            reader.readLine(); // Skip header
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                String name = parts[0];
+                int quantity = Integer.parseInt(parts[1]);
+                String color = parts[2];
+                int cost = Integer.parseInt(parts[3]);
+                String specialAbility = parts.length > 4 ? parts[4] : "";
+
+                DistrictCard card = new DistrictCard(types.size(), name, color, cost, specialAbility);
+                types.add(card);
+                for (int i = 0; i < quantity; i++) {
+                    deck.add(card);
+                }
+            }
+        } catch (IOException | NullPointerException e) {
+            System.err.println("Error loading district cards: " + e.getMessage());
+        }
+        return new CardCatalog(types, deck.toArray(new DistrictCard[0]), createCharacterCards());
+    }
+
+    private static List<CharacterCard> createCharacterCards() {
+        return Arrays.asList(
+            new CharacterCard("Assassin", 1, "Select another character to kill"),
+            new CharacterCard("Thief", 2, "Select another character to rob"),
+            new CharacterCard("Magician", 3, "Exchange hand or redraw cards"),
+            new CharacterCard("King", 4, "Gain gold for yellow districts"),
+            new CharacterCard("Bishop", 5, "Gain gold for blue districts"),
+            new CharacterCard("Merchant", 6, "Gain gold for green districts"),
+            new CharacterCard("Architect", 7, "Draw extra cards, build up to 3 districts"),
+            new CharacterCard("Warlord", 8, "Gain gold for red districts, destroy districts"));
+    }
+
+    /**
+     * Lazily loads the catalog the first time it is requested.
+     */
+    private static final class Holder {
+        static final CardCatalog INSTANCE = load();
+    }
+}
@@ -0,0 +1,207 @@
+package citadels;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of district cards stored as catalog IDs in a primitive int array.
+ * Players keep their hand and city in card lists; the list also counts how many
+ * copies of each card type it holds, so membership tests are constant time.
+ * As a {@link java.util.List} it presents the shared catalog card for each ID,
+ * and every change made through the list interface updates the IDs and counts.
+ * Subclasses can override {@link #onAdded(int)} and {@link #onRemoved(int)} to
+ * keep their own totals up to date.
+ */
+class CardList extends AbstractList<DistrictCard> implements RandomAccess {
+    /** Initial capacity, enough for a typical hand or city */
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /** Card IDs in list order */
+    private int[] ids = new int[DEFAULT_CAPACITY];
+    /** Number of cards in the list */
+    private int size;
+    /** Number of copies of each card ID in the list */
+    private int[] counts = new int[CardCatalog.getInstance().getCardCount()];
+
+    /**
+     * Gets the ID of the card at a position.
+     * @param index The position in the list
+     * @return The card ID
+     */
+    int idAt(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    /**
+     * Gets the number of copies of a card type in the list.
+     * @param id The card ID
+     * @return The number of copies
+     */
+    int count(int id) {
+        return id < counts.length ? counts[id] : 0;
+    }
+
+    /**
+     * Returns true if the list holds at least one card with the given ID.
+     * @param id The card ID
+     * @return True if present
+     */
+    boolean containsId(int id) {
+        return count(id) > 0;
+    }
+
+    /**
+     * Appends a card by ID.
+     * @param id The card ID
+     */
+    void addId(int id) {
+        insertId(size, id);
+    }
+
+    /**
+     * Removes the card at a position.
+     * @param index The position in the list
+     * @return The ID of the removed card
+     */
+    int removeAt(int index) {
+        checkIndex(index);
+        int id = ids[index];
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(ids, index + 1, ids, index, moved);
+        }
+        size--;
+        counts[id]--;
+        modCount++;
+        onRemoved(id);
+        return id;
+    }
+
+    /**
+     * Removes the first card with the given ID.
+     * @param id The card ID
+     * @return True if a card was removed
+     */
+    boolean removeId(int id) {
+        if (!containsId(id)) {
+            return false;
+        }
+        removeAt(indexOfId(id));
+        return true;
+    }
+
+    /**
+     * Finds the first position of a card ID.
+     * @param id The card ID
+     * @return The position, or -1 if the ID is not in the list
+     */
+    int indexOfId(int id) {
+        if (!containsId(id)) {
+            return -1;
+        }
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public DistrictCard get(int index) {
+        return CardCatalog.getInstance().getCard(idAt(index));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public DistrictCard set(int index, DistrictCard card) {
+        DistrictCard old = get(index);
+        counts[ids[index]]--;
+        onRemoved(ids[index]);
+        ensureCountCapacity(card.getId());
+        ids[index] = card.getId();
+        counts[card.getId()]++;
+        onAdded(card.getId());
+        return old;
+    }
+
+    @Override
+    public void add(int index, DistrictCard card) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        insertId(index, card.getId());
+    }
+
+    @Override
+    public DistrictCard remove(int index) {
+        return CardCatalog.getInstance().getCard(removeAt(index));
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof DistrictCard && removeId(((DistrictCard) o).getId());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof DistrictCard && containsId(((DistrictCard) o).getId());
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof DistrictCard ? indexOfId(((DistrictCard) o).getId()) : -1;
+    }
+
+    @Override
+    public void clear() {
+        while (size > 0) {
+            removeAt(size - 1);
+        }
+    }
+
+    private void insertId(int index, int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ensureCountCapacity(id);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+        counts[id]++;
+        modCount++;
+        onAdded(id);
+    }
+
+    /**
+     * Called after a card has been added to the list.
+     * @param id The ID of the added card
+     */
+    void onAdded(int id) {
+    }
+
+    /**
+     * Called after a card has been removed from the list.
+     * @param id The ID of the removed card
+     */
+    void onRemoved(int id) {
+    }
+
+    private void ensureCountCapacity(int id) {
+        if (id >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(id + 1, CardCatalog.getInstance().getCardCount()));
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -3,14 +3,19 @@ package citadels;
 /**
  * Represents a character card in the Citadels game.
  * Each character has a name, a unique number, and a special ability.
+ * The number determines the card's {@link CharacterRole}, which the game uses to
+ * decide what the character does.
+ * Cards are immutable, so the instances in the {@link CardCatalog} are shared by all games.
  */
 public class CharacterCard {
     /** The name of the character */
-    private String name;
+    private final String name;
     /** The unique number of the character (1-8) */
-    private int number;
+    private final int number;
     /** The special ability text for the character */
-    private String specialAbility;
+    private final String specialAbility;
+    /** The role with this character's number, or null if the number is out of range */
+    private final CharacterRole role;
 
     /**
      * Constructs a new CharacterCard.
@@ -22,6 +27,7 @@ public class CharacterCard {
         this.name = name;
         this.number = number;
         this.specialAbility = specialAbility;
+        this.role = CharacterRole.fromNumber(number);
     }
 
     /**
@@ -40,6 +46,14 @@ public class CharacterCard {
         return number;
     }
 
+    /**
+     * Gets the role of the character.
+     * @return The role, or null if the character number is not 1-8
+     */
+    public CharacterRole getRole() {
+        return role;
+    }
+
     /**
      * Gets the special ability text for the character.
      * @return The special ability text
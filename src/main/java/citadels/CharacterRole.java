@@ -0,0 +1,87 @@
+package citadels;
+
+/**
+ * The eight characters, in turn order. A role's ordinal is its character number
+ * minus one, so looking a role up by number is an array access.
+ */
+public enum CharacterRole {
+    /** Kills another character */
+    ASSASSIN("Assassin", null),
+    /** Robs another character */
+    THIEF("Thief", null),
+    /** Swaps hands or redraws cards */
+    MAGICIAN("Magician", null),
+    /** Takes the crown and gains gold for yellow districts */
+    KING("King", DistrictColor.YELLOW),
+    /** Gains gold for blue districts */
+    BISHOP("Bishop", DistrictColor.BLUE),
+    /** Gains gold for green districts */
+    MERCHANT("Merchant", DistrictColor.GREEN),
+    /** Builds up to three districts */
+    ARCHITECT("Architect", null),
+    /** Gains gold for red districts and destroys districts */
+    WARLORD("Warlord", DistrictColor.RED);
+
+    /** Every role, indexed by character number minus one */
+    private static final CharacterRole[] VALUES = values();
+
+    /** The character's name as shown to players */
+    private final String displayName;
+    /** The color that earns this character gold, or null */
+    private final DistrictColor incomeColor;
+
+    CharacterRole(String displayName, DistrictColor incomeColor) {
+        this.displayName = displayName;
+        this.incomeColor = incomeColor;
+    }
+
+    /**
+     * Gets the role with a character number.
+     * @param number The character number (1-8)
+     * @return The role, or null if the number is out of range
+     */
+    public static CharacterRole fromNumber(int number) {
+        return number >= 1 && number <= VALUES.length ? VALUES[number - 1] : null;
+    }
+
+    /**
+     * Gets the role with a display name, ignoring case.
+     * @param name The character's name, as typed by a player
+     * @return The role, or null if no character has that name
+     */
+    public static CharacterRole fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (CharacterRole role : VALUES) {
+            if (role.displayName.equalsIgnoreCase(name)) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the character number of this role.
+     * @return The character number (1-8)
+     */
+    public int getNumber() {
+        return ordinal() + 1;
+    }
+
+    /**
+     * Gets the character's name as shown to players.
+     * @return The display name
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Gets the district color that earns this character gold at the start of its turn.
+     * @return The income color, or null if the character has no district income
+     */
+    public DistrictColor getIncomeColor() {
+        return incomeColor;
+    }
+}
@@ -0,0 +1,144 @@
+package citadels;
+
+/**
+ * A command line typed by a player, split into a lower-case verb and its arguments.
+ * The line is split at whitespace by a simple scan rather than a regular
+ * expression, and arguments that are whole numbers are parsed once here so the
+ * command handlers do not have to.
+ */
+final class Command {
+    /** Returned by {@link #intArg(int)} for an argument that is missing or not a number */
+    static final int NOT_A_NUMBER = Integer.MIN_VALUE;
+
+    /** The command verb in lower case, or an empty string for a blank line */
+    private final String verb;
+    /** The arguments after the verb */
+    private final String[] args;
+    /** The value of each argument, or NOT_A_NUMBER if it is not a number */
+    private final int[] ints;
+
+    private Command(String verb, String[] args, int[] ints) {
+        this.verb = verb;
+        this.args = args;
+        this.ints = ints;
+    }
+
+    /**
+     * Splits a command line into a command.
+     * @param line The command line
+     * @return The parsed command
+     */
+    static Command parse(String line) {
+        int tokens = 0;
+        for (int i = 0; i < line.length(); ) {
+            i = skipWhitespace(line, i);
+            if (i < line.length()) {
+                tokens++;
+                i = tokenEnd(line, i);
+            }
+        }
+        if (tokens == 0) {
+            return new Command("", new String[0], new int[0]);
+        }
+        String verb = null;
+        String[] args = new String[tokens - 1];
+        int[] ints = new int[tokens - 1];
+        int token = 0;
+        for (int i = skipWhitespace(line, 0); i < line.length(); i = skipWhitespace(line, i)) {
+            int end = tokenEnd(line, i);
+            if (token == 0) {
+                verb = line.substring(i, end).toLowerCase();
+            } else {
+                args[token - 1] = line.substring(i, end);
+                ints[token - 1] = parseInt(line, i, end);
+            }
+            token++;
+            i = end;
+        }
+        return new Command(verb, args, ints);
+    }
+
+    /**
+     * Gets the command verb.
+     * @return The verb in lower case, or an empty string for a blank line
+     */
+    String getVerb() {
+        return verb;
+    }
+
+    /**
+     * Gets the number of arguments after the verb.
+     * @return The argument count
+     */
+    int argCount() {
+        return args.length;
+    }
+
+    /**
+     * Gets an argument.
+     * @param index The 0-based index of the argument after the verb
+     * @return The argument text
+     */
+    String arg(int index) {
+        return args[index];
+    }
+
+    /**
+     * Returns true if an argument is present and is a whole number.
+     * @param index The 0-based index of the argument after the verb
+     * @return True if the argument is a number
+     */
+    boolean isInt(int index) {
+        return intArg(index) != NOT_A_NUMBER;
+    }
+
+    /**
+     * Gets the numeric value of an argument.
+     * @param index The 0-based index of the argument after the verb
+     * @return The value, or NOT_A_NUMBER if the argument is missing or not a number
+     */
+    int intArg(int index) {
+        return index < ints.length ? ints[index] : NOT_A_NUMBER;
+    }
+
+    private static int skipWhitespace(String line, int i) {
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int tokenEnd(String line, int i) {
+        while (i < line.length() && !Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Parses a decimal int with an optional sign, like Integer.parseInt but without exceptions.
+     */
+    private static int parseInt(String line, int start, int end) {
+        boolean negative = false;
+        if (line.charAt(start) == '-' || line.charAt(start) == '+') {
+            negative = line.charAt(start) == '-';
+            start++;
+        }
+        if (start == end || end - start > 10) {
+            return NOT_A_NUMBER;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + (c - '0');
+        }
+        value = negative ? -value : value;
+        if (value <= Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return NOT_A_NUMBER;
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,93 @@
+package citadels;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps command verbs to the handlers that carry them out.
+ * The game builds its registries once, so handling a command is a single map
+ * lookup on the verb.
+ */
+final class CommandRegistry {
+    /**
+     * Carries out one kind of command.
+     */
+    @FunctionalInterface
+    interface Handler {
+        /**
+         * Handles a command.
+         * @param game The game the command is for
+         * @param command The parsed command
+         * @param player The player who entered the command, or null if not during a turn
+         */
+        void handle(Game game, Command command, Player player);
+    }
+
+    /** Handlers by verb */
+    private final Map<String, Handler> handlers = new HashMap<>();
+    /** Verbs that can only be used by a player during a turn */
+    private final Set<String> playerVerbs = new HashSet<>();
+
+    /**
+     * Registers a handler for one or more verbs.
+     * @param handler The handler
+     * @param verbs The lower-case verbs it handles
+     * @return This registry
+     */
+    CommandRegistry register(Handler handler, String... verbs) {
+        for (String verb : verbs) {
+            handlers.put(verb, handler);
+        }
+        return this;
+    }
+
+    /**
+     * Registers a handler for verbs that need a current player.
+     * @param handler The handler
+     * @param verbs The lower-case verbs it handles
+     * @return This registry
+     */
+    CommandRegistry registerForPlayer(Handler handler, String... verbs) {
+        register(handler, verbs);
+        for (String verb : verbs) {
+            playerVerbs.add(verb);
+        }
+        return this;
+    }
+
+    /**
+     * Creates a registry with the same handlers except for some verbs.
+     * @param verbs The lower-case verbs to leave out
+     * @return A new registry
+     */
+    CommandRegistry without(String... verbs) {
+        CommandRegistry copy = new CommandRegistry();
+        copy.handlers.putAll(handlers);
+        copy.playerVerbs.addAll(playerVerbs);
+        for (String verb : verbs) {
+            copy.handlers.remove(verb);
+            copy.playerVerbs.remove(verb);
+        }
+        return copy;
+    }
+
+    /**
+     * Finds the handler for a verb.
+     * @param verb The lower-case verb
+     * @return The handler, or null if the verb is unknown
+     */
+    Handler find(String verb) {
+        return handlers.get(verb);
+    }
+
+    /**
+     * Returns true if a verb can only be used by a player during a turn.
+     * @param verb The lower-case verb
+     * @return True if the command needs a current player
+     */
+    boolean needsPlayer(String verb) {
+        return playerVerbs.contains(verb);
+    }
+}
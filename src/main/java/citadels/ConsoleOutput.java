@@ -0,0 +1,61 @@
+package citadels;
+
+import java.io.PrintStream;
+
+/**
+ * Game output for a terminal. Text is collected in a buffer and written to the
+ * stream in one piece when the game flushes, which it does at the end of each
+ * phase and before reading input. Errors go straight to standard error, after
+ * any buffered text.
+ */
+public class ConsoleOutput implements GameOutput {
+    /** Buffered text is written out early once it grows past this many characters */
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    /** The stream that buffered text is written to */
+    private final PrintStream stream;
+    /** Text printed since the last flush */
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Creates an output that writes to a stream.
+     * @param stream The stream to write to, usually System.out
+     */
+    public ConsoleOutput(PrintStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public void print(String text) {
+        buffer.append(text);
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    @Override
+    public void println(String text) {
+        print(text);
+        print(System.lineSeparator());
+    }
+
+    @Override
+    public void error(String message) {
+        flush();
+        System.err.println(message);
+    }
+
+    @Override
+    public void flush() {
+        if (buffer.length() > 0) {
+            stream.print(buffer);
+            buffer.setLength(0);
+        }
+        stream.flush();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
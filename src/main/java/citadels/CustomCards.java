@@ -0,0 +1,68 @@
+package citadels;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * District card types created in code with {@link DistrictCard}'s public constructor
+ * that are not in the card file, for example by tests or custom decks.
+ * <p>
+ * Each such type gets the next free ID after the {@link CardCatalog}'s cards, so
+ * equal cards share an ID and hands and cities can store them like catalog cards.
+ * The table is kept apart from the catalog, which never changes once loaded.
+ * Only code adds types here: save files may refer to a type that has already been
+ * created, but cannot add new ones.
+ */
+final class CustomCards {
+    /** Custom card types, indexed by ID minus the catalog's card count */
+    private static DistrictCard[] cards = new DistrictCard[0];
+    /** Custom card types by their full description */
+    private static final Map<String, DistrictCard> cardsByKey = new HashMap<>();
+
+    private CustomCards() {
+    }
+
+    /**
+     * Gets the ID of a custom card type, creating the type if it is not known yet.
+     * @param name The district name
+     * @param color The district color
+     * @param cost The district cost
+     * @param specialAbility The special ability text
+     * @return The card type's ID
+     */
+    static synchronized int idFor(String name, String color, int cost, String specialAbility) {
+        String key = CardCatalog.key(name, color, cost, specialAbility);
+        DistrictCard card = cardsByKey.get(key);
+        if (card == null) {
+            card = new DistrictCard(CardCatalog.getInstance().getCardCount() + cards.length,
+                name, color, cost, specialAbility);
+            cards = Arrays.copyOf(cards, cards.length + 1);
+            cards[cards.length - 1] = card;
+            cardsByKey.put(key, card);
+        }
+        return card.getId();
+    }
+
+    /**
+     * Finds a custom card type that has already been created.
+     * @param name The district name
+     * @param color The district color
+     * @param cost The district cost
+     * @param specialAbility The special ability text
+     * @return The card, or null if no such type has been created
+     */
+    static synchronized DistrictCard find(String name, String color, int cost, String specialAbility) {
+        return cardsByKey.get(CardCatalog.key(name, color, cost, specialAbility));
+    }
+
+    /**
+     * Gets a custom card type by ID.
+     * @param id The card ID, at least the catalog's card count
+     * @return The card with that ID
+     * @throws IndexOutOfBoundsException if no custom card has that ID
+     */
+    static synchronized DistrictCard get(int id) {
+        return cards[id - CardCatalog.getInstance().getCardCount()];
+    }
+}
@@ -0,0 +1,311 @@
+package citadels;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Samples games that look the same as a real game from one player's seat.
+ * <p>
+ * A player can see every city, every player's gold and hand size, the characters
+ * removed face up, the characters whose turn has come, and their own hand and
+ * character. They cannot see the other hands, the order of the deck, the
+ * face-down character or the characters chosen by players whose turn has not
+ * come yet. A search AI that looked at those would be cheating, so it searches
+ * sampled worlds instead (information set determinization): each world is the
+ * game as the player sees it, with everything hidden redrawn at random in a way
+ * that fits what they saw.
+ * <ul>
+ *   <li>The deck and the other players' hands are shuffled together and dealt
+ *       back, so every hand keeps its size.</li>
+ *   <li>Hidden characters are drawn from the characters that no one has shown.
+ *       A player who chose before the observer took a character that was gone
+ *       when the observer chose, and a player who chose after took one of the
+ *       characters the observer left. During the turn phase a hidden character
+ *       is one whose turn has not come yet, or the killed character, since the
+ *       game never shows who holds it.</li>
+ *   <li>While characters are chosen, the face-down character is drawn too and the
+ *       characters left to choose from follow from the sample.</li>
+ *   <li>The game's and the AI players' generators get fresh states, since their
+ *       states decide the future shuffles.</li>
+ * </ul>
+ * What the player saw is read once, when the determinizer is created; sampling
+ * then only restores the captured state into a world game and redraws the hidden
+ * parts in place, so a decision can afford tens of thousands of samples. The
+ * determinizer is immutable and can be shared by threads that each sample into
+ * their own world.
+ */
+public final class Determinizer {
+    /** The game's state when the determinizer was created */
+    private final GameState root;
+
+    /** Number of players */
+    private final int playerCount;
+
+    /** Seat of the player whose view is sampled */
+    private final int observerSeat;
+
+    /** Seats whose character is hidden from the observer */
+    private final int[] hiddenSeats;
+
+    /** Characters each hidden seat could hold, one bit per character number */
+    private final int[] allowed;
+
+    /** True while characters are chosen, so the face-down character is sampled too */
+    private final boolean selecting;
+
+    /** Characters the face-down card could be */
+    private final int faceDownAllowed;
+
+    /** Characters that are neither removed face up nor held by the observer */
+    private final int openMask;
+
+    /**
+     * Reads what a player can see of a game.
+     *
+     * @param game The game
+     * @param observer The player whose view is sampled, seated in the game
+     * @throws IllegalArgumentException if the player is not in the game
+     */
+    public Determinizer(Game game, Player observer) {
+        List<Player> players = game.getPlayers();
+        this.playerCount = players.size();
+        this.observerSeat = observer.getPlayerNumber() - 1;
+        if (observerSeat < 0 || observerSeat >= playerCount || players.get(observerSeat) != observer) {
+            throw new IllegalArgumentException("Player " + observer.getPlayerNumber() + " is not in this game");
+        }
+        this.root = GameState.capture(game);
+
+        int turn = game.getTurnCharacter();
+        int faceUpMask = Game.characterMask(game.getFaceUpRemoved());
+        int ownMask = game.getPickMask(observerSeat) != 0 ? characterBit(observer.getCharacter()) : 0;
+        int killedBit = characterBit(game.getKilledCharacter());
+        this.selecting = turn == 0 && (anyPicked(game) || game.getAvailableMask() != 0);
+
+        // The characters the observer saw when choosing, if they have chosen or are choosing
+        int start = game.getSelectionStart();
+        int seen = game.getPickMask(observerSeat);
+        if (seen == 0 && selecting && (start + game.getSelectionPick()) % playerCount == observerSeat) {
+            seen = game.getAvailableMask();
+        }
+
+        int revealedMask = 0;
+        int hiddenCount = 0;
+        for (int seat = 0; seat < playerCount; seat++) {
+            if (seat == observerSeat || game.getPickMask(seat) == 0) {
+                continue;
+            }
+            int bit = characterBit(players.get(seat).getCharacter());
+            if (isRevealed(bit, turn, killedBit)) {
+                revealedMask |= bit;
+            } else {
+                hiddenCount++;
+            }
+        }
+
+        // Characters whose turn has come were shown, or nobody holds them, except the killed one
+        int notCalled = ~((2 << turn) - 1) | killedBit;
+        int common = game.getCharacterDeckMask() & ~faceUpMask & ~ownMask & ~revealedMask & notCalled;
+        int observerOrder = (observerSeat - start + playerCount) % playerCount;
+        this.hiddenSeats = new int[hiddenCount];
+        this.allowed = new int[hiddenCount];
+        int k = 0;
+        for (int seat = 0; seat < playerCount; seat++) {
+            if (seat == observerSeat || game.getPickMask(seat) == 0) {
+                continue;
+            }
+            int bit = characterBit(players.get(seat).getCharacter());
+            if (isRevealed(bit, turn, killedBit)) {
+                continue;
+            }
+            int options = common;
+            if (seen != 0) {
+                boolean choseBefore = (seat - start + playerCount) % playerCount < observerOrder;
+                options &= choseBefore ? ~seen : seen;
+            }
+            hiddenSeats[k] = seat;
+            allowed[k] = options;
+            k++;
+        }
+        this.faceDownAllowed = seen != 0 ? common & ~seen : common;
+        this.openMask = game.getCharacterDeckMask() & ~faceUpMask & ~ownMask;
+    }
+
+    /**
+     * Gets the number of players of the sampled game.
+     *
+     * @return The number of players
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Gets the seat of the player whose view is sampled.
+     *
+     * @return The 0-based seat
+     */
+    public int getObserverSeat() {
+        return observerSeat;
+    }
+
+    /**
+     * Turns a game into a sampled world: the state the observer saw is restored into
+     * it and everything hidden from them is redrawn.
+     *
+     * @param world A game with the same number of players; its state is replaced
+     * @param random The generator the hidden information is drawn from
+     */
+    public void sample(Game world, GameRandom random) {
+        world.restoreState(root);
+        world.reseed(random);
+        List<Player> players = world.getPlayers();
+        CardCatalog catalog = CardCatalog.getInstance();
+
+        int used = 0;
+        for (int k = 0; k < hiddenSeats.length; k++) {
+            int number = pick(allowed[k] & ~used, random);
+            used |= 1 << number;
+            players.get(hiddenSeats[k]).setCharacter(catalog.getCharacterCard(CharacterRole.fromNumber(number)));
+        }
+        if (selecting) {
+            int faceDown = 1 << pick(faceDownAllowed & ~used, random);
+            world.setAvailableMask(openMask & ~used & ~faceDown);
+        }
+
+        // Shuffle the deck and the other hands as one run of cards
+        DistrictDeck deck = world.getDistrictDeck();
+        int total = deck.size();
+        for (int seat = 0; seat < playerCount; seat++) {
+            if (seat != observerSeat) {
+                total += players.get(seat).getHand().size();
+            }
+        }
+        for (int i = total - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            DistrictCard card = setCard(deck, players, i, cardAt(deck, players, j));
+            setCard(deck, players, j, card);
+        }
+    }
+
+    /**
+     * Evaluates sampled worlds in parallel batches and averages the results. Each
+     * batch samples into its own world game with its own generator split from the
+     * given one, so the result only depends on that generator.
+     *
+     * @param worlds The number of worlds to sample, must be positive
+     * @param evaluator Scores one sampled world; it may play the world on
+     * @param random The generator the batches' generators are split from
+     * @return The mean score
+     */
+    public double evaluate(int worlds, ToDoubleFunction<Game> evaluator, GameRandom random) {
+        if (worlds < 1) {
+            throw new IllegalArgumentException("Number of worlds must be positive");
+        }
+        int batches = Math.min(SearchThreads.COUNT, worlds);
+        List<Callable<Double>> tasks = new ArrayList<>(batches);
+        for (int b = 0; b < batches; b++) {
+            int count = worlds / batches + (b < worlds % batches ? 1 : 0);
+            GameRandom batchRandom = random.split();
+            tasks.add(() -> {
+                Game world = new Game(playerCount, null, SilentOutput.INSTANCE, AIPlayer::new, batchRandom.split());
+                double sum = 0;
+                for (int i = 0; i < count; i++) {
+                    sample(world, batchRandom);
+                    sum += evaluator.applyAsDouble(world);
+                }
+                return sum;
+            });
+        }
+        double total = 0;
+        try {
+            for (Future<Double> result : SearchThreads.POOL.invokeAll(tasks)) {
+                total += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating worlds", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Evaluating a world failed", e.getCause());
+        }
+        return total / worlds;
+    }
+
+    private static boolean anyPicked(Game game) {
+        for (int seat = 0; seat < game.getPlayers().size(); seat++) {
+            if (game.getPickMask(seat) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether the observer has seen who holds a character: its turn has come
+     * and it was not killed, since a killed character's turn is skipped unseen.
+     */
+    private static boolean isRevealed(int bit, int turn, int killedBit) {
+        return bit != 0 && bit != killedBit && Integer.numberOfTrailingZeros(bit) <= turn;
+    }
+
+    private static int characterBit(CharacterCard character) {
+        return character != null ? 1 << character.getNumber() : 0;
+    }
+
+    /**
+     * Picks one character number out of a bit set.
+     */
+    private static int pick(int options, GameRandom random) {
+        if (options == 0) {
+            throw new IllegalStateException("No character fits what the player saw");
+        }
+        int skip = random.nextInt(Integer.bitCount(options));
+        for (; skip > 0; skip--) {
+            options &= options - 1;
+        }
+        return Integer.numberOfTrailingZeros(options);
+    }
+
+    /**
+     * Gets a card of the run formed by the deck followed by the hands of every seat but the observer's.
+     */
+    private DistrictCard cardAt(DistrictDeck deck, List<Player> players, int index) {
+        if (index < deck.size()) {
+            return deck.get(index);
+        }
+        index -= deck.size();
+        for (int seat = 0; ; seat++) {
+            if (seat == observerSeat) {
+                continue;
+            }
+            List<DistrictCard> hand = players.get(seat).getHand();
+            if (index < hand.size()) {
+                return hand.get(index);
+            }
+            index -= hand.size();
+        }
+    }
+
+    /**
+     * Replaces a card of the run read by {@link #cardAt} and returns the card it replaced.
+     */
+    private DistrictCard setCard(DistrictDeck deck, List<Player> players, int index, DistrictCard card) {
+        if (index < deck.size()) {
+            return deck.set(index, card);
+        }
+        index -= deck.size();
+        for (int seat = 0; ; seat++) {
+            if (seat == observerSeat) {
+                continue;
+            }
+            List<DistrictCard> hand = players.get(seat).getHand();
+            if (index < hand.size()) {
+                return hand.set(index, card);
+            }
+            index -= hand.size();
+        }
+    }
+}
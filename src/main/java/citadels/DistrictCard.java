@@ -3,31 +3,68 @@ package citadels;
 /**
  * Represents a district card in the Citadels game.
  * Each district card has a name, color, cost, and may have a special ability.
+ * Cards are immutable, so the instances in the {@link CardCatalog} are shared by all games.
+ * Each card type has an int ID from the catalog; cards with the same ID are equal.
  */
 public class DistrictCard {
+    /** The catalog ID of this card type */
+    private final int id;
+    /** The parsed color, or null for an unknown color */
+    private final DistrictColor districtColor;
+    /** The special ability of the district, or null if it has none */
+    private final PurpleAbility purpleAbility;
     /** The name of the district */
-    private String name;
+    private final String name;
     /** The color of the district (yellow, blue, green, red, purple) */
-    private String color;
+    private final String color;
     /** The cost to build the district */
-    private int cost;
+    private final int cost;
     /** The special ability text for the district, if any */
-    private String specialAbility;
+    private final String specialAbility;
 
     /**
-     * Constructs a new DistrictCard.
+     * Constructs a new DistrictCard. A card that matches one in the card file gets
+     * that card's ID; any other card is a {@link CustomCards} type.
      * @param name The name of the district
      * @param color The color of the district
      * @param cost The cost to build the district
      * @param specialAbility The special ability text (may be empty)
      */
     public DistrictCard(String name, String color, int cost, String specialAbility) {
+        this(idFor(name, color, cost, specialAbility), name, color, cost, specialAbility);
+    }
+
+    /**
+     * Constructs a DistrictCard with a known catalog ID.
+     * @param id The catalog ID of the card type
+     * @param name The name of the district
+     * @param color The color of the district
+     * @param cost The cost to build the district
+     * @param specialAbility The special ability text (may be empty)
+     */
+    DistrictCard(int id, String name, String color, int cost, String specialAbility) {
+        this.id = id;
+        this.districtColor = DistrictColor.parse(color);
+        this.purpleAbility = PurpleAbility.forDistrict(name);
         this.name = name;
         this.color = color;
         this.cost = cost;
         this.specialAbility = specialAbility;
     }
 
+    private static int idFor(String name, String color, int cost, String specialAbility) {
+        DistrictCard card = CardCatalog.getInstance().find(name, color, cost, specialAbility);
+        return card != null ? card.getId() : CustomCards.idFor(name, color, cost, specialAbility);
+    }
+
+    /**
+     * Gets the catalog ID of this card type.
+     * @return The card ID
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Gets the name of the district.
      * @return The district name
@@ -44,6 +81,22 @@ public class DistrictCard {
         return color;
     }
 
+    /**
+     * Gets the parsed color of the district.
+     * @return The district color, or null if the color text is not a known color
+     */
+    public DistrictColor getDistrictColor() {
+        return districtColor;
+    }
+
+    /**
+     * Gets the special ability the district gives its owner.
+     * @return The ability, or null if the district has none
+     */
+    public PurpleAbility getPurpleAbility() {
+        return purpleAbility;
+    }
+
     /**
      * Gets the cost to build the district.
      * @return The district cost
@@ -62,6 +115,8 @@ public class DistrictCard {
 
     /**
      * Checks if this district card is equal to another object.
+     * Cards are equal when they have the same catalog ID, which means the same
+     * name, color, cost and special ability.
      * @param obj The object to compare
      * @return True if equal, false otherwise
      */
@@ -69,11 +124,7 @@ public class DistrictCard {
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
-        DistrictCard other = (DistrictCard) obj;
-        return cost == other.cost && 
-               name.equals(other.name) && 
-               color.equals(other.color) && 
-               specialAbility.equals(other.specialAbility);
+        return id == ((DistrictCard) obj).id;
     }
 
     /**
@@ -82,11 +133,7 @@ public class DistrictCard {
      */
     @Override
     public int hashCode() {
-        int result = name.hashCode();
-        result = 31 * result + color.hashCode();
-        result = 31 * result + cost;
-        result = 31 * result + specialAbility.hashCode();
-        return result;
+        return id;
     }
 
     /**
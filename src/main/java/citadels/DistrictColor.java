@@ -0,0 +1,54 @@
+package citadels;
+
+/**
+ * The five district colors. The card file may use either the color name or the
+ * district type (noble, religious, trade, military, special); both parse to the
+ * same color.
+ */
+public enum DistrictColor {
+    /** Noble districts */
+    YELLOW("noble"),
+    /** Religious districts */
+    BLUE("religious"),
+    /** Trade districts */
+    GREEN("trade"),
+    /** Military districts */
+    RED("military"),
+    /** Special districts, which usually have an ability */
+    PURPLE("special");
+
+    /** Every color, in ordinal order */
+    private static final DistrictColor[] VALUES = values();
+
+    /** The district type name accepted as an alias for the color */
+    private final String alias;
+
+    DistrictColor(String alias) {
+        this.alias = alias;
+    }
+
+    /**
+     * Gets the number of colors.
+     * @return The number of colors
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * Parses a color from the card file, ignoring case.
+     * @param text The color or district type name
+     * @return The color, or null if the text is not a known color
+     */
+    public static DistrictColor parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        for (DistrictColor color : VALUES) {
+            if (color.name().equalsIgnoreCase(text) || color.alias.equalsIgnoreCase(text)) {
+                return color;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,194 @@
+package citadels;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+
+/**
+ * The district deck, stored as a circular array so cards can be drawn from or
+ * put on either end in constant time. The top of the deck is the end cards are
+ * drawn from; cards that are returned after a draw go to the bottom, which is
+ * what the Observatory and the basic draw rules require. The deck is only
+ * shuffled when {@link #shuffle(GameRandom)} is called.
+ */
+public class DistrictDeck {
+    /** Initial capacity, enough for the full card set */
+    private static final int DEFAULT_CAPACITY = 128;
+
+    /** Card storage; the length is always a power of two */
+    private DistrictCard[] cards;
+    /** Index of the top card */
+    private int head;
+    /** Number of cards in the deck */
+    private int size;
+
+    /**
+     * Constructs an empty deck.
+     */
+    public DistrictDeck() {
+        this.cards = new DistrictCard[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Gets the number of cards in the deck.
+     * @return The deck size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the deck has no cards left.
+     * @return True if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets a card without removing it.
+     * @param index Position from the top of the deck, 0 is the top card
+     * @return The card at that position
+     */
+    public DistrictCard get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return cards[(head + index) & (cards.length - 1)];
+    }
+
+    /**
+     * Replaces a card without changing the deck's size.
+     * @param index Position from the top of the deck, 0 is the top card
+     * @param card The new card
+     * @return The card that was at that position
+     */
+    DistrictCard set(int index, DistrictCard card) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int slot = (head + index) & (cards.length - 1);
+        DistrictCard old = cards[slot];
+        cards[slot] = card;
+        return old;
+    }
+
+    /**
+     * Removes and returns the top card of the deck.
+     * @return The top card
+     * @throws NoSuchElementException if the deck is empty
+     */
+    public DistrictCard drawTop() {
+        if (size == 0) {
+            throw new NoSuchElementException("The district deck is empty");
+        }
+        DistrictCard card = cards[head];
+        cards[head] = null;
+        head = (head + 1) & (cards.length - 1);
+        size--;
+        return card;
+    }
+
+    /**
+     * Removes and returns the bottom card of the deck.
+     * @return The bottom card
+     * @throws NoSuchElementException if the deck is empty
+     */
+    public DistrictCard drawBottom() {
+        if (size == 0) {
+            throw new NoSuchElementException("The district deck is empty");
+        }
+        int tail = (head + size - 1) & (cards.length - 1);
+        DistrictCard card = cards[tail];
+        cards[tail] = null;
+        size--;
+        return card;
+    }
+
+    /**
+     * Puts a card on top of the deck, so it is the next card drawn.
+     * @param card The card to add
+     */
+    public void putTop(DistrictCard card) {
+        ensureCapacity(size + 1);
+        head = (head - 1) & (cards.length - 1);
+        cards[head] = card;
+        size++;
+    }
+
+    /**
+     * Puts a card at the bottom of the deck.
+     * @param card The card to add
+     */
+    public void putBottom(DistrictCard card) {
+        ensureCapacity(size + 1);
+        cards[(head + size) & (cards.length - 1)] = card;
+        size++;
+    }
+
+    /**
+     * Puts cards at the bottom of the deck, in the order given.
+     * @param newCards The cards to add
+     */
+    public void putAllBottom(Collection<DistrictCard> newCards) {
+        ensureCapacity(size + newCards.size());
+        for (DistrictCard card : newCards) {
+            putBottom(card);
+        }
+    }
+
+    /**
+     * Removes every card from the deck.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            cards[(head + i) & (cards.length - 1)] = null;
+        }
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Shuffles the deck in place with a Fisher-Yates shuffle.
+     * @param random The generator to shuffle with
+     */
+    public void shuffle(GameRandom random) {
+        compact();
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            DistrictCard tmp = cards[i];
+            cards[i] = cards[j];
+            cards[j] = tmp;
+        }
+    }
+
+    /**
+     * Moves the cards to the start of the array so they occupy indices [0, size).
+     */
+    private void compact() {
+        if (head == 0) {
+            return;
+        }
+        DistrictCard[] copy = new DistrictCard[cards.length];
+        for (int i = 0; i < size; i++) {
+            copy[i] = cards[(head + i) & (cards.length - 1)];
+        }
+        cards = copy;
+        head = 0;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= cards.length) {
+            return;
+        }
+        int capacity = cards.length;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        DistrictCard[] copy = new DistrictCard[capacity];
+        for (int i = 0; i < size; i++) {
+            copy[i] = cards[(head + i) & (cards.length - 1)];
+        }
+        cards = copy;
+        head = 0;
+    }
+}
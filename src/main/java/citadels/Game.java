@@ -4,23 +4,17 @@
 */
 package citadels;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
 /**
  * Main game class for Citadels, a strategic card game where players build districts in their city.
@@ -41,6 +35,40 @@ import org.json.simple.parser.ParseException;
  * @version 1.0
  */
 public class Game {
+    /** Handlers for the commands a player can type */
+    private static final CommandRegistry COMMANDS = new CommandRegistry()
+        .registerForPlayer(Game::commandHand, "hand")
+        .register(Game::commandGold, "gold")
+        .registerForPlayer(Game::commandBuild, "build")
+        .register(Game::commandCity, "citadel", "list", "city")
+        .registerForPlayer(Game::commandAction, "action")
+        .register(Game::commandInfo, "info")
+        .register((game, command, player) -> game.showAllPlayers(), "all")
+        .register(Game::commandSave, "save")
+        .register(Game::commandLoad, "load")
+        .registerForPlayer(Game::commandEnd, "end")
+        .register((game, command, player) -> game.showHelp(), "help")
+        .register(Game::commandDebug, "debug")
+        .register(Game::commandTurn, "t");
+
+    /**
+     * Commands for a player connected over the network, who must not reach the
+     * server's files or see the AI players' hands
+     */
+    private static final CommandRegistry REMOTE_COMMANDS = COMMANDS.without("save", "load", "debug");
+
+    /** Handlers for the sub-commands of the action command */
+    private static final CommandRegistry ACTIONS = new CommandRegistry()
+        .register(Game::actionSwap, "swap")
+        .register(Game::actionRedraw, "redraw")
+        .register(Game::actionKill, "kill")
+        .register(Game::actionSteal, "steal")
+        .register(Game::actionDestroy, "destroy")
+        .register(Game::actionMuseum, "museum")
+        .register(Game::actionArmory, "armory")
+        .register(Game::actionLaboratory, "laboratory")
+        .register(Game::actionSmithy, "smithy");
+
     /** Storage for cards under the Museum purple district */
     private Map<Player, List<DistrictCard>> museumStorage = new HashMap<>();
     
@@ -54,7 +82,7 @@ public class Game {
     private List<Player> players;
     
     /** Deck of district cards available for drawing */
-    private List<DistrictCard> districtDeck;
+    private DistrictDeck districtDeck;
     
     /** Pile of discarded district cards */
     private List<DistrictCard> discardPile;
@@ -71,8 +99,41 @@ public class Game {
     /** Flag indicating if the game has ended */
     private boolean gameEnded;
     
-    /** Scanner for reading user input */
-    private Scanner scanner;
+    /** Source of the commands typed by human players */
+    private PlayerInput input;
+
+    /** Sink that all game output is written to */
+    private final GameOutput out;
+
+    /** True if at least one seat is human, so the game may pause for input */
+    private final boolean interactive;
+
+    /** Source of every random decision in this game */
+    private GameRandom random;
+
+    /** Round after which the game is stopped, or 0 for no limit */
+    private int maxRounds = 0;
+
+    /** Seat of the player who chooses a character first this round */
+    private int selectionStart;
+
+    /** Number of players who chose a character before the one choosing now */
+    private int selectionPick;
+
+    /** Number of the character whose turn is being played, or 0 while characters are chosen */
+    private int turnCharacter;
+
+    /** Characters removed face up this round, which every player can see */
+    private final List<CharacterCard> faceUpRemoved = new ArrayList<>();
+
+    /**
+     * Characters that were left when each seat chose this round, one bit per character
+     * number, or 0 for seats that have not chosen yet
+     */
+    private int[] pickMasks;
+
+    /** Writes a snapshot at the end of each round, or null if autosave is off */
+    private AutosaveWriter autosave;
     
     /** Character that was killed by the Assassin in current round */
     private CharacterCard killedCharacter;
@@ -80,6 +141,9 @@ public class Game {
     /** Character that was robbed by the Thief in current round */
     private CharacterCard robbedCharacter;
     
+    /** The commands the human player can use */
+    private CommandRegistry commands = COMMANDS;
+
     /** Flag for enabling debug mode to show AI information */
     private boolean debugMode = false;
 
@@ -94,6 +158,27 @@ public class Game {
     /** Smithy used map */
     private Map<Player, Boolean> smithyUsed = new HashMap<>();
 
+    /** Every state change made since the game was created or the journal was last cut */
+    private final GameJournal journal = new GameJournal();
+
+    /** The state the journal starts from, or null if it starts when the game was created */
+    private GameState journalBase;
+
+    /**
+     * Seeds of the generators as the journal last recorded them: the game's first,
+     * then one per seat, or 0 for seats without a generator
+     */
+    private long[] journaledSeeds;
+
+    /** Listeners told about each event */
+    private final List<GameEventListener> listeners = new ArrayList<>();
+
+    /** Seed of the game's generator before it was first used */
+    private final long initialSeed;
+
+    /** Seed increment of the game's generator */
+    private final long initialGamma;
+
     /**
      * Constructs a new Game instance with the specified number of players and a custom Scanner (for testability).
      * @param numPlayers The number of players in the game (must be between 4 and 7)
@@ -101,36 +186,80 @@ public class Game {
      * @throws IllegalArgumentException if numPlayers is not between 4 and 7
      */
     public Game(int numPlayers, Scanner scanner) {
+        this(numPlayers, new ScannerInput(scanner));
+    }
+
+    /**
+     * Constructs a new Game instance whose human player reads commands from the given input,
+     * for example a {@link ScriptedInput} replaying a recorded session.
+     * @param numPlayers The number of players in the game (must be between 4 and 7)
+     * @param input The source of the human player's commands
+     * @throws IllegalArgumentException if numPlayers is not between 4 and 7
+     */
+    public Game(int numPlayers, PlayerInput input) {
+        this(numPlayers, input, new ConsoleOutput(System.out));
+    }
+
+    /**
+     * Constructs a new Game instance whose human player reads commands from the given input
+     * and whose text goes to the given output instead of the console, for example a
+     * connection to a remote player.
+     * @param numPlayers The number of players in the game (must be between 4 and 7)
+     * @param input The source of the human player's commands
+     * @param out The sink that game output is written to
+     * @throws IllegalArgumentException if numPlayers is not between 4 and 7
+     */
+    public Game(int numPlayers, PlayerInput input, GameOutput out) {
+        this(numPlayers, input, out, Game::defaultSeat, new GameRandom());
+    }
+
+    /**
+     * Constructs a new Game instance with custom output and seating.
+     * Used by {@link GameEngine} to run games without a console.
+     *
+     * @param numPlayers The number of players in the game (must be between 4 and 7)
+     * @param input The source of human players' commands, may be null if no seat is human
+     * @param out The sink that game output is written to
+     * @param seatFactory Creates the player for each 1-based seat number
+     * @param random The generator for all random decisions, seeded to make the game reproducible
+     * @throws IllegalArgumentException if numPlayers is not between 4 and 7
+     */
+    Game(int numPlayers, PlayerInput input, GameOutput out, SeatFactory seatFactory, GameRandom random) {
         if (numPlayers < 4 || numPlayers > 7) {
             throw new IllegalArgumentException("Number of players must be between 4 and 7");
         }
         
         this.players = new ArrayList<>();
-        this.districtDeck = new ArrayList<>();
+        this.districtDeck = new DistrictDeck();
         this.discardPile = new ArrayList<>();
         this.characterDeck = new ArrayList<>();
         this.availableCharacters = new ArrayList<>();
         this.currentRound = 1;
         this.gameEnded = false;
-        this.scanner = scanner;
-
-        System.out.println("\nInitial Setup");
-        System.out.println("Shuffling deck...");
+        this.input = input;
+        this.out = out;
+        this.random = random;
+        this.initialSeed = random.getSeed();
+        this.initialGamma = random.getGamma();
+
+        out.println("\nInitial Setup");
+        out.println("Shuffling deck...");
         // Initialize players
+        boolean anyHuman = false;
         for (int i = 0; i < numPlayers; i++) {
-            if (i == 0) {
-                players.add(new Player(i + 1, true)); // Player 1 is human
-            } else {
-                players.add(new AIPlayer(i + 1)); // All others are AIPlayer
-            }
+            Player player = seatFactory.create(i + 1, random.split());
+            anyHuman |= player.isHuman();
+            players.add(player);
         }
+        this.interactive = anyHuman;
+        this.pickMasks = new int[numPlayers];
 
         // Set initial crown holder (random)
-        int crownedPlayer = (int)(Math.random() * numPlayers);
+        int crownedPlayer = random.nextInt(numPlayers);
         players.get(crownedPlayer).setHasCrown(true);
-        System.out.println("Player " + (crownedPlayer + 1) + " has been randomly chosen to hold the crown.");
+        out.println("Player " + (crownedPlayer + 1) + " has been randomly chosen to hold the crown.");
 
-        System.out.println("Adding characters...");
+        out.println("Adding characters...");
         // Load district cards
         loadDistrictCards();
 
@@ -138,12 +267,26 @@ public class Game {
         initializeCharacterCards();
 
         // Shuffle decks
-        Collections.shuffle(districtDeck);
-        Collections.shuffle(characterDeck);
+        districtDeck.shuffle(random);
+        random.shuffle(characterDeck);
 
-        System.out.println("Dealing cards and gold...");
+        out.println("Dealing cards and gold...");
         // Deal initial cards and gold
         dealInitialCards();
+
+        // Everything so far follows from the seed, so the journal starts here
+        this.journaledSeeds = new long[numPlayers + 1];
+        markSeedsJournaled();
+        for (Player player : players) {
+            record(GameJournal.SEAT, seatOf(player), player.isHuman() ? 1 : 0, 0);
+        }
+    }
+
+    /**
+     * Creates the default seating: player 1 is human, all others are AI.
+     */
+    static Player defaultSeat(int playerNumber, GameRandom random) {
+        return playerNumber == 1 ? new Player(playerNumber, true) : new AIPlayer(playerNumber, random);
     }
 
     /**
@@ -158,45 +301,18 @@ public class Game {
     }
 
     /**
-     * Loads district cards from the resource file and initializes the district deck.
-     * Cards are loaded from a TSV file containing card information.
+     * Fills the district deck from the shared card catalog.
      */
     private void loadDistrictCards() {
-        try (InputStream is = getClass().getResourceAsStream("/citadels/cards.tsv");
-             BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-            String line;
-            reader.readLine(); // Skip header
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\t");
-                String name = parts[0];
-                int quantity = Integer.parseInt(parts[1]);
-                String color = parts[2];
-                int cost = Integer.parseInt(parts[3]);
-                String specialAbility = parts.length > 4 ? parts[4] : "";
-
-                for (int i = 0; i < quantity; i++) {
-                    districtDeck.add(new DistrictCard(name, color, cost, specialAbility));
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading district cards: " + e.getMessage());
-            e.printStackTrace();
-        }
+        CardCatalog.getInstance().fillDeck(districtDeck);
     }
 
     /**
-     * Initializes the character deck with all available character cards.
+     * Initializes the character deck with the catalog's character cards.
      * Each character has a unique number and special ability.
      */
     private void initializeCharacterCards() {
-        characterDeck.add(new CharacterCard("Assassin", 1, "Select another character to kill"));
-        characterDeck.add(new CharacterCard("Thief", 2, "Select another character to rob"));
-        characterDeck.add(new CharacterCard("Magician", 3, "Exchange hand or redraw cards"));
-        characterDeck.add(new CharacterCard("King", 4, "Gain gold for yellow districts"));
-        characterDeck.add(new CharacterCard("Bishop", 5, "Gain gold for blue districts"));
-        characterDeck.add(new CharacterCard("Merchant", 6, "Gain gold for green districts"));
-        characterDeck.add(new CharacterCard("Architect", 7, "Draw extra cards, build up to 3 districts"));
-        characterDeck.add(new CharacterCard("Warlord", 8, "Gain gold for red districts, destroy districts"));
+        characterDeck.addAll(CardCatalog.getInstance().getCharacterCards());
     }
 
     /**
@@ -212,7 +328,7 @@ public class Game {
             // Deal 4 district cards
             for (int i = 0; i < 4; i++) {
                 if (!districtDeck.isEmpty()) {
-                    player.addToHand(districtDeck.remove(0));
+                    player.addToHand(districtDeck.drawTop());
                 }
             }
         }
@@ -224,46 +340,113 @@ public class Game {
      */
     public void startGame() {
         
-        System.out.println("\nStarting Citadels with " + players.size() + " players...");
-        System.out.println("You are player 1");
+        out.println("\nStarting Citadels with " + players.size() + " players...");
+        out.println("You are player 1");
+        resumeGame();
+    }
 
+    /**
+     * Plays the game from the start of the current round to the end. A game loaded
+     * from a snapshot taken between rounds continues with this, as does a new game
+     * once it has been introduced.
+     */
+    void resumeGame() {
         while (!gameEnded) {
-            System.out.println("\n================================");
-            System.out.println("ROUND " + currentRound);
-            System.out.println("================================");
-            
-            // Character Selection Phase
-            System.out.println("\n================================");
-            System.out.println("SELECTION PHASE");
-            System.out.println("================================");
-            
-            try {
-                characterSelectionPhase();
-            } catch (Exception e) {
-                System.err.println("Error in character selection phase: " + e.getMessage());
-                gameEnded = true;
-                break;
-            }
-            
-            // Turn Phase
-            System.out.println("\nTURN PHASE");
-            try {
-                turnPhase();
-            } catch (Exception e) {
-                System.err.println("Error in turn phase: " + e.getMessage());
-                gameEnded = true;
-                break;
-            }
-            
-            // Check for game end
-            checkGameEnd();
-            
-            if (!gameEnded) {
-                currentRound++;
+            playRound();
+            if (autosave != null) {
+                autosave.submit(snapshot());
+                cutJournal();
             }
         }
 
         endGame();
+        stopAutosave();
+        out.flush();
+    }
+
+    /**
+     * Turns on saving the game at the end of every round. The state is captured on
+     * the game thread and written to the file in the background, so a crash loses
+     * at most the round in progress. The last save is finished when the game ends.
+     *
+     * @param filename The file to save to, or null to turn autosave off
+     */
+    public void setAutosave(String filename) {
+        stopAutosave();
+        if (filename != null) {
+            autosave = new AutosaveWriter(Paths.get(filename));
+        }
+    }
+
+    /**
+     * Waits for the pending autosave to be written and stops the autosave thread.
+     */
+    private void stopAutosave() {
+        if (autosave == null) {
+            return;
+        }
+        autosave.close();
+        IOException error = autosave.getLastError();
+        if (error != null) {
+            out.error("Error autosaving game: " + error.getMessage());
+        }
+        autosave = null;
+    }
+
+    /**
+     * Plays one round: character selection, every character's turn and the end-of-round checks.
+     * Ends the game if a phase fails or the game's end condition or round limit is reached.
+     */
+    void playRound() {
+        out.println("\n================================");
+        if (out.isEnabled()) {
+            out.println("ROUND " + currentRound);
+        }
+        out.println("================================");
+        
+        // Character Selection Phase
+        out.println("\n================================");
+        out.println("SELECTION PHASE");
+        out.println("================================");
+        
+        try {
+            characterSelectionPhase();
+        } catch (Exception e) {
+            out.error("Error in character selection phase: " + e.getMessage());
+            recordGameEnd();
+            return;
+        }
+        out.flush();
+        finishRound(1);
+    }
+
+    /**
+     * Plays the turns of a round from the given character on, then does the end-of-round checks.
+     * Ends the game if a turn fails or the game's end condition or round limit is reached.
+     *
+     * @param firstCharacter The number of the first character whose turn is played
+     */
+    void finishRound(int firstCharacter) {
+        // Turn Phase
+        out.println("\nTURN PHASE");
+        try {
+            turnPhase(firstCharacter);
+        } catch (Exception e) {
+            out.error("Error in turn phase: " + e.getMessage());
+            recordGameEnd();
+            return;
+        }
+        out.flush();
+        
+        // Check for game end
+        checkGameEnd();
+        if (maxRounds > 0 && currentRound >= maxRounds) {
+            recordGameEnd();
+        }
+        
+        if (!gameEnded) {
+            record(GameJournal.ROUND_END, -1, currentRound, 0);
+        }
     }
 
     /**
@@ -273,9 +456,11 @@ public class Game {
     private void characterSelectionPhase() {
         
         // Reset available characters
+        turnCharacter = 0;
         availableCharacters.clear();
         availableCharacters.addAll(characterDeck);
-        Collections.shuffle(availableCharacters);
+        random.shuffle(availableCharacters);
+        record(GameJournal.SELECTION, -1, characterOrder(availableCharacters), availableCharacters.size());
         
         int numPlayers = players.size();
         int faceUpToRemove = 0;
@@ -301,9 +486,10 @@ public class Game {
         List<CharacterCard> faceDownCards = new ArrayList<>();
         for (int i = 0; i < faceDownToRemove; i++) {
             if (!availableCharacters.isEmpty()) {
-                CharacterCard faceDown = availableCharacters.remove(0);
+                CharacterCard faceDown = availableCharacters.get(0);
+                record(GameJournal.REMOVE, -1, faceDown.getNumber(), 0);
                 faceDownCards.add(faceDown);
-                System.out.println("A mystery character was removed.");
+                out.println("A mystery character was removed.");
                 waitForContinue();
             }
         }
@@ -315,15 +501,19 @@ public class Game {
                 boolean validRemoval = false;
                 
                 do {
-                    removed = availableCharacters.remove(0);
-                    if (removed.getName().equals("King")) {
-                        System.out.println("The King cannot be visibly removed, trying again..");
-                        availableCharacters.add(removed);
-                        Collections.shuffle(availableCharacters);
+                    removed = availableCharacters.get(0);
+                    if (removed.getRole() == CharacterRole.KING) {
+                        out.println("The King cannot be visibly removed, trying again..");
+                        availableCharacters.add(availableCharacters.remove(0));
+                        random.shuffle(availableCharacters);
+                        record(GameJournal.SHUFFLE, -1, characterOrder(availableCharacters), availableCharacters.size());
                         waitForContinue();
                     } else {
                         validRemoval = true;
-                        System.out.println(removed.getName() + " was removed.");
+                        record(GameJournal.REMOVE, -1, removed.getNumber(), 1);
+                        if (out.isEnabled()) {
+                            out.println(removed.getName() + " was removed.");
+                        }
                     }
                 } while (!validRemoval);
                 waitForContinue();
@@ -335,78 +525,255 @@ public class Game {
         for (int i = 0; i < players.size(); i++) {
             if (players.get(i).hasCrown()) {
                 startIndex = i;
-                System.out.println("Player " + (i + 1) + " is the crowned player and goes first.");
+                if (out.isEnabled()) {
+                    out.println("Player " + (i + 1) + " is the crowned player and goes first.");
+                }
                 waitForContinue();
                 break;
             }
         }
         
-        // Let players choose characters in order
-        for (int i = 0; i < players.size(); i++) {
+        pickCharacters(startIndex, 0);
+    }
+
+    /**
+     * Lets players choose their characters in seat order from the crowned player,
+     * then pays out the Throne Room.
+     *
+     * @param startIndex The seat of the player who chooses first
+     * @param firstPick The number of players who have already chosen, usually 0
+     */
+    void pickCharacters(int startIndex, int firstPick) {
+        selectionStart = startIndex;
+        for (int i = firstPick; i < players.size(); i++) {
+            selectionPick = i;
             int playerIndex = (startIndex + i) % players.size();
             Player player = players.get(playerIndex);
             
             if (player.isHuman()) {
-                System.out.println("\nChoose your character. Available characters:");
+                out.println("\nChoose your character. Available characters:");
                 for (CharacterCard card : availableCharacters) {
-                    System.out.print(card.getName() + ", ");
+                    out.print(card.getName() + ", ");
                 }
-                System.out.println();
+                out.println();
                 
                 String choice = "king"; // Default to king if input fails
                 try {
                     do {
-                        choice = scanner.next().toLowerCase();
-                        CharacterCard chosen = null;
-                        for (CharacterCard card : availableCharacters) {
-                            if (card.getName().toLowerCase().equals(choice)) {
-                                chosen = card;
-                                break;
-                            }
-                        }
-                        if (chosen != null) {
-                            availableCharacters.remove(chosen);
-                            player.setCharacter(chosen);
-                            System.out.println("Player " + player.getPlayerNumber() + " chose a character.");
+                        choice = input().next().toLowerCase();
+                        CharacterRole role = CharacterRole.fromName(choice);
+                        CharacterCard chosen = role != null ? findCharacterCard(role) : null;
+                        if (chosen != null && availableCharacters.contains(chosen)) {
+                            takeCharacter(player, chosen);
+                            out.println("Player " + player.getPlayerNumber() + " chose a character.");
                             break;
                         } else {
-                            System.out.println("Invalid character choice. Try again.");
+                            out.println("Invalid character choice. Try again.");
                         }
                     } while (true);
                 } catch (Exception e) {
                     // If we get an exception, pick the first available character
                     if (!availableCharacters.isEmpty()) {
-                        CharacterCard chosen = availableCharacters.remove(0);
-                        player.setCharacter(chosen);
-                        System.out.println("Player " + player.getPlayerNumber() + " chose a character (fallback).");
+                        takeCharacter(player, availableCharacters.get(0));
+                        out.println("Player " + player.getPlayerNumber() + " chose a character (fallback).");
                     }
                 }
             } else {
                 // AI character selection
-                int choice = (int) (Math.random() * availableCharacters.size());
-                CharacterCard chosen = availableCharacters.remove(choice);
-                player.setCharacter(chosen);
-                System.out.println("Player " + player.getPlayerNumber() + " chose a character.");
+                CharacterCard chosen = player instanceof AIPlayer
+                        ? ((AIPlayer) player).chooseCharacter(this, availableCharacters)
+                        : availableCharacters.get(random.nextInt(availableCharacters.size()));
+                takeCharacter(player, chosen);
+                if (out.isEnabled()) {
+                    out.println("Player " + player.getPlayerNumber() + " chose a character.");
+                }
             }
             waitForContinue();
         }
 
         // After setting new crown holder, for each player with Throne Room, add 1 gold and print message
         for (Player p : players) {
-            if (p.getCity().stream().anyMatch(c -> c.getName().equals("Throne Room"))) {
-                p.addGold(1);
-                System.out.println("Throne Room: Player " + p.getPlayerNumber() + " receives 1 gold for crown switch.");
+            if (p.hasAbility(PurpleAbility.THRONE_ROOM)) {
+                PurpleAbility.THRONE_ROOM.onCrownChange(this, p);
+            }
+        }
+    }
+
+    /**
+     * Gives a player one of the characters still available this round.
+     *
+     * @param player The player
+     * @param character The character, which must be available
+     */
+    void takeCharacter(Player player, CharacterCard character) {
+        record(GameJournal.PICK, seatOf(player), character.getNumber(), 0);
+    }
+
+    /**
+     * Gets the seat of the player who chose a character first in the current or last selection phase.
+     *
+     * @return The 0-based seat
+     */
+    int getSelectionStart() {
+        return selectionStart;
+    }
+
+    /**
+     * Gets how many players had chosen a character before the player who is choosing now.
+     *
+     * @return The number of earlier picks this round
+     */
+    int getSelectionPick() {
+        return selectionPick;
+    }
+
+    /**
+     * Gets the number of the character whose turn is being played, or was played last,
+     * or 0 while characters are being chosen.
+     *
+     * @return The character number
+     */
+    int getTurnCharacter() {
+        return turnCharacter;
+    }
+
+    /**
+     * Gets the characters removed face up this round. Every player can see them.
+     *
+     * @return An unmodifiable view of the removed characters
+     */
+    public List<CharacterCard> getFaceUpRemoved() {
+        return Collections.unmodifiableList(faceUpRemoved);
+    }
+
+    /**
+     * Gets the characters that were left when a seat chose its character this round.
+     *
+     * @param seat The 0-based seat
+     * @return One bit per character number, or 0 if the seat has not chosen yet this round
+     */
+    int getPickMask(int seat) {
+        return pickMasks[seat];
+    }
+
+    /**
+     * Gets the characters in play this game, one bit per character number.
+     *
+     * @return The bit set of character numbers
+     */
+    int getCharacterDeckMask() {
+        return characterMask(characterDeck);
+    }
+
+    /**
+     * Gets the Zobrist hash of the position: the round, the number of cards left in
+     * the deck, the characters left to choose from, the killed and robbed characters,
+     * and each player's gold, hand, city, character and crown. The players keep their
+     * part up to date as they change, so reading the hash only adds a few keys.
+     * Positions reached by different moves have the same hash when these facts agree.
+     *
+     * @return The hash
+     */
+    long getHash() {
+        long hash = Zobrist.round(currentRound) + Zobrist.deckSize(districtDeck.size())
+            + Zobrist.killed(characterNumber(killedCharacter)) + Zobrist.robbed(characterNumber(robbedCharacter));
+        for (int i = 0; i < availableCharacters.size(); i++) {
+            hash += Zobrist.available(availableCharacters.get(i).getNumber());
+        }
+        for (int i = 0; i < players.size(); i++) {
+            hash += players.get(i).getHash();
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the hash of the position as one player knows it: like {@link #getHash()},
+     * but the other players' hands only count by their size. Worlds sampled for
+     * that player by a {@link Determinizer} that agree on everything else share
+     * this hash.
+     *
+     * @param observerSeat The 0-based seat of the player
+     * @return The hash
+     */
+    long getHash(int observerSeat) {
+        long hash = getHash();
+        for (int seat = 0; seat < players.size(); seat++) {
+            if (seat != observerSeat) {
+                Player player = players.get(seat);
+                hash += Zobrist.handSize(seat, player.getHand().size()) - player.getHandHash();
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the characters that are left to choose from, one bit per character number.
+     *
+     * @return The bit set of character numbers
+     */
+    int getAvailableMask() {
+        return characterMask(availableCharacters);
+    }
+
+    /**
+     * Replaces the characters that are left to choose from.
+     *
+     * @param mask The characters, one bit per character number
+     */
+    void setAvailableMask(int mask) {
+        availableCharacters.clear();
+        for (int i = 0; i < characterDeck.size(); i++) {
+            CharacterCard character = characterDeck.get(i);
+            if ((mask & (1 << character.getNumber())) != 0) {
+                availableCharacters.add(character);
             }
         }
     }
 
+    /**
+     * Flushes pending output so the player can see the prompt, then returns the player input.
+     */
+    private PlayerInput input() {
+        out.flush();
+        return input;
+    }
+
+    /**
+     * Reads the rest of the current input line for an optional choice.
+     *
+     * @return The line, or an empty string if the input has run out, which counts as no choice
+     */
+    private String readLineOrEmpty() {
+        try {
+            return input().nextLine();
+        } catch (NoSuchElementException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Reads the next input token for an optional choice.
+     *
+     * @return The token, or an empty string if the input has run out, which counts as no choice
+     */
+    private String readTokenOrEmpty() {
+        try {
+            return input().next();
+        } catch (NoSuchElementException e) {
+            return "";
+        }
+    }
+
     /**
      * Waits for user input to continue the game.
      * Processes any commands entered by the user.
      */
     private void waitForContinue() {
-        System.out.print("> ");
-        String commandLine = scanner.nextLine().trim();
+        if (!interactive) {
+            return;
+        }
+        out.print("> ");
+        String commandLine = input().nextLine().trim();
         
         if (commandLine.isEmpty() || commandLine.equalsIgnoreCase("t")) {
             return;
@@ -419,14 +786,15 @@ public class Game {
      * Handles the turn phase of each round.
      * Processes turns for each character in numerical order.
      */
-    private void turnPhase() {
+    private void turnPhase(int firstCharacter) {
         
-        System.out.println("\nCharacter choosing is over, action round will now begin.");
-        System.out.println("\n================================");
-        System.out.println("TURN PHASE");
-        System.out.println("================================");
+        out.println("\nCharacter choosing is over, action round will now begin.");
+        out.println("\n================================");
+        out.println("TURN PHASE");
+        out.println("================================");
         
-        for (int i = 1; i <= 8; i++) {
+        for (int i = firstCharacter; i <= 8; i++) {
+            turnCharacter = i;
             boolean characterFound = false;
             Player characterPlayer = null;
             
@@ -438,9 +806,13 @@ public class Game {
                 }
             }
             
-            System.out.println(i + ": " + getCharacterName(i));
+            if (out.isEnabled()) {
+                out.println(i + ": " + getCharacterName(i));
+            }
             if (!characterFound) {
-                System.out.println("No one is the " + getCharacterName(i));
+                if (out.isEnabled()) {
+                    out.println("No one is the " + getCharacterName(i));
+                }
                 try {
                     waitForContinueWithDebug();
                 } catch (Exception e) {
@@ -450,33 +822,38 @@ public class Game {
                 continue;
             }
             
+            // The killed character is skipped without showing who holds it
+            if (!isSameRole(characterPlayer.getCharacter(), killedCharacter)) {
+                publish(GameJournal.REVEAL, seatOf(characterPlayer), i, 0);
+            }
+
             // Only reveal effects when the affected character's turn comes up
-            if (characterPlayer.getCharacter() == killedCharacter) {
-                boolean hasHospital = characterPlayer.getCity().stream().anyMatch(c -> c.getName().equals("Hospital"));
+            if (isSameRole(characterPlayer.getCharacter(), killedCharacter)) {
+                boolean hasHospital = characterPlayer.hasAbility(PurpleAbility.HOSPITAL);
                 if (hasHospital) {
-                    System.out.println("You were assassinated, but Hospital lets you take a basic action (no build or power).");
+                    out.println("You were assassinated, but Hospital lets you take a basic action (no build or power).");
                     // Only allow gold/cards choice
-                    System.out.println("Collect 2 gold or draw two cards and pick one [gold/cards].");
+                    out.println("Collect 2 gold or draw two cards and pick one [gold/cards].");
                     String choice = "gold";
                     try {
-                        choice = scanner.next().toLowerCase();
-                        scanner.nextLine();
+                        choice = input().next().toLowerCase();
+                        input().nextLine();
                     } catch (Exception e) {}
                     if (choice.equals("gold")) {
-                        characterPlayer.addGold(2);
-                        System.out.println("Player " + characterPlayer.getPlayerNumber() + " received 2 gold.");
+                        gainGold(characterPlayer, 2);
+                        out.println("Player " + characterPlayer.getPlayerNumber() + " received 2 gold.");
                     } else if (choice.equals("cards")) {
                         try {
                             drawAndChooseCard(characterPlayer);
                         } catch (Exception e) {
-                            System.err.println("Error drawing cards: " + e.getMessage());
+                            out.error("Error drawing cards: " + e.getMessage());
                         }
                     }
                     try { waitForContinueWithDebug(); } catch (Exception e) {}
                     continue;
                 }
                 if (characterPlayer.isHuman()) {
-                    System.out.println("You have been killed by the Assassin! Your turn is skipped.");
+                    out.println("You have been killed by the Assassin! Your turn is skipped.");
                 }
                 try {
                     waitForContinueWithDebug();
@@ -486,15 +863,15 @@ public class Game {
                 }
                 continue;
             }
-            if (characterPlayer.getCharacter() == robbedCharacter) {
+            if (isSameRole(characterPlayer.getCharacter(), robbedCharacter)) {
                 // Find the thief and transfer gold
                 for (Player p : players) {
-                    if (p.getCharacter() != null && p.getCharacter().getName().equals("Thief")) {
+                    if (roleOf(p) == CharacterRole.THIEF) {
                         int goldStolen = characterPlayer.getGold();
-                        p.addGold(goldStolen);
-                        characterPlayer.addGold(-goldStolen);
+                        gainGold(p, goldStolen);
+                        gainGold(characterPlayer, -goldStolen);
                         if (characterPlayer.isHuman()) {
-                            System.out.println("You have been robbed by the Thief! " + goldStolen + " gold stolen.");
+                            out.println("You have been robbed by the Thief! " + goldStolen + " gold stolen.");
                         }
                         break;
                     }
@@ -508,25 +885,28 @@ public class Game {
                     processAITurn(characterPlayer);
                 }
             } catch (Exception e) {
-                System.err.println("Error processing turn: " + e.getMessage());
+                out.error("Error processing turn: " + e.getMessage());
                 // Continue to next turn
             }
         }
     }
 
     private void waitForContinueWithDebug() {
+        if (!interactive) {
+            return;
+        }
         try {
             if (debugMode) {
                 showAllAIPlayers();
             }
-            System.out.print("> ");
-            String commandLine = scanner.nextLine().trim();
+            out.print("> ");
+            String commandLine = input().nextLine().trim();
             
             if (commandLine.toLowerCase().equals("t")) {
                 return;
-            } else if (commandLine.toLowerCase().equals("debug")) {
+            } else if (commandLine.toLowerCase().equals("debug") && !isRemote()) {
                 debugMode = !debugMode;
-                System.out.println("Debug mode is now " + (debugMode ? "ON" : "OFF"));
+                out.println("Debug mode is now " + (debugMode ? "ON" : "OFF"));
             } else {
                 processCommand(commandLine, null);
             }
@@ -540,28 +920,19 @@ public class Game {
     private void showAllAIPlayers() {
         for (Player player : players) {
             if (!player.isHuman()) {
-                System.out.println("Player " + player.getPlayerNumber() + " (" + (player.getCharacter() != null ? player.getCharacter().getName() : "No character") + ")");
-                System.out.println("  Gold: " + player.getGold());
-                System.out.println("  Hand:");
+                out.println("Player " + player.getPlayerNumber() + " (" + (player.getCharacter() != null ? player.getCharacter().getName() : "No character") + ")");
+                out.println("  Gold: " + player.getGold());
+                out.println("  Hand:");
                 for (DistrictCard card : player.getHand()) {
-                    System.out.println("    - " + card);
+                    out.println("    - " + card);
                 }
             }
         }
     }
 
     private String getCharacterName(int number) {
-        switch (number) {
-            case 1: return "Assassin";
-            case 2: return "Thief";
-            case 3: return "Magician";
-            case 4: return "King";
-            case 5: return "Bishop";
-            case 6: return "Merchant";
-            case 7: return "Architect";
-            case 8: return "Warlord";
-            default: return "Unknown";
-        }
+        CharacterRole role = CharacterRole.fromNumber(number);
+        return role != null ? role.getDisplayName() : "Unknown";
     }
 
     /**
@@ -572,22 +943,44 @@ public class Game {
      */
     private void processAITurn(Player player) {
         // AI decision making for basic turn action
-        if (shouldAITakeGold(player)) {
-            player.addGold(2);
+        boolean takeGold = player instanceof AIPlayer
+                ? ((AIPlayer) player).chooseTakeGold(this)
+                : shouldAITakeGold(player);
+        takeBasicActionAI(player, takeGold);
+        completeAITurn(player);
+    }
+
+    /**
+     * Takes an AI player's basic action: 2 gold, or drawing two cards and keeping one.
+     *
+     * @param player The AI player
+     * @param takeGold True to take gold, false to draw cards
+     */
+    void takeBasicActionAI(Player player, boolean takeGold) {
+        if (takeGold) {
+            gainGold(player, 2);
         } else {
             drawAndChooseCardAI(player);
         }
-        
+    }
+
+    /**
+     * Plays the rest of an AI player's turn after the basic action: building and special abilities.
+     *
+     * @param player The AI player
+     */
+    void completeAITurn(Player player) {
         // AI decision making for building
-        int maxBuilds = player.getCharacter().getName().equals("Architect") ? 3 : 1;
+        int maxBuilds = roleOf(player) == CharacterRole.ARCHITECT ? 3 : 1;
         int buildsThisTurn = 0;
         while (buildsThisTurn < maxBuilds) {
             DistrictCard bestCard = findBestCardToBuild(player);
             if (bestCard != null && player.getGold() >= bestCard.getCost()) {
-                player.buildDistrict(bestCard);
-                player.getHand().remove(bestCard);
+                record(GameJournal.BUILD, seatOf(player), player.getHand().indexOf(bestCard), bestCard.getId());
                 // Always show built districts (public info)
-                System.out.println("Player " + player.getPlayerNumber() + " built " + bestCard);
+                if (out.isEnabled()) {
+                    out.println("Player " + player.getPlayerNumber() + " built " + bestCard);
+                }
                 buildsThisTurn++;
             } else {
                 break;
@@ -602,105 +995,79 @@ public class Game {
 
     // Human start-of-turn abilities
     private void handleStartOfTurnAbilitiesHuman(Player player) {
-        String characterName = player.getCharacter().getName();
-        if (characterName.equals("Assassin")) {
-            System.out.println("Choose a character to kill (2-8):");
-            String input = scanner.nextLine();
+        CharacterRole role = roleOf(player);
+        if (role == CharacterRole.ASSASSIN) {
+            out.println("Choose a character to kill (2-8):");
+            String line = input().nextLine();
             try {
-                int choice = Integer.parseInt(input);
+                int choice = Integer.parseInt(line);
                 if (choice >= 2 && choice <= 8) {
-                    String targetCharacter = getCharacterName(choice);
-                    killedCharacter = findCharacterCard(targetCharacter);
+                    record(GameJournal.KILL, seatOf(player), choice, 0);
                 }
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. No character was killed.");
+                out.println("Invalid input. No character was killed.");
             }
         }
-        if (characterName.equals("Thief")) {
-            System.out.println("Choose a character to rob (3-8):");
-            String input = scanner.nextLine();
+        if (role == CharacterRole.THIEF) {
+            out.println("Choose a character to rob (3-8):");
+            String line = input().nextLine();
             try {
-                int choice = Integer.parseInt(input);
+                int choice = Integer.parseInt(line);
                 if (choice >= 3 && choice <= 8) {
-                    String targetCharacter = getCharacterName(choice);
-                    robbedCharacter = findCharacterCard(targetCharacter);
+                    record(GameJournal.ROB, seatOf(player), choice, 0);
                 }
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. No character was robbed.");
+                out.println("Invalid input. No character was robbed.");
             }
         }
         // Handle district-based gold bonuses (only after first turn)
         if (currentRound > 1) {
-            int bonusGold = 0;
-            switch (characterName) {
-                case "King":
-                    bonusGold = countDistrictsByColor(player, "yellow");
-                    break;
-                case "Bishop":
-                    bonusGold = countDistrictsByColor(player, "blue");
-                    break;
-                case "Merchant":
-                    bonusGold = countDistrictsByColor(player, "green") + 1; // +1 for merchant bonus
-                    break;
-                case "Warlord":
-                    bonusGold = countDistrictsByColor(player, "red");
-                    break;
-            }
+            int bonusGold = characterIncome(player, role);
             if (bonusGold > 0) {
-                player.addGold(bonusGold);
-                System.out.println("You received " + bonusGold + " gold from your character's ability.");
+                gainGold(player, bonusGold);
+                out.println("You received " + bonusGold + " gold from your character's ability.");
             }
         }
     }
 
     private void drawAndChooseCard(Player player) {
-        boolean hasObservatory = player.getCity().stream().anyMatch(c -> c.getName().equals("Observatory"));
-        boolean hasLibrary = player.getCity().stream().anyMatch(c -> c.getName().equals("Library"));
+        boolean hasObservatory = player.hasAbility(PurpleAbility.OBSERVATORY);
+        boolean hasLibrary = player.hasAbility(PurpleAbility.LIBRARY);
         int numToDraw = hasObservatory ? 3 : 2;
+        // Look at the cards first; they leave the deck once the choice is recorded
         List<DistrictCard> drawnCards = new ArrayList<>();
-        for (int i = 0; i < numToDraw; i++) {
-            if (!districtDeck.isEmpty()) {
-                drawnCards.add(districtDeck.remove(0));
-            }
+        for (int i = 0; i < numToDraw && i < districtDeck.size(); i++) {
+            drawnCards.add(districtDeck.get(i));
         }
-        System.out.println("Drawn cards:");
+        out.println("Drawn cards:");
         for (int i = 0; i < drawnCards.size(); i++) {
-            System.out.println((i + 1) + ". " + drawnCards.get(i));
+            out.println((i + 1) + ". " + drawnCards.get(i));
         }
         if (hasLibrary && drawnCards.size() == 2) {
+            record(GameJournal.DRAW_CHOICE, seatOf(player), 2, -1);
             for (DistrictCard card : drawnCards) {
-                player.addToHand(card);
-                System.out.println("You kept " + card);
+                out.println("You kept " + card);
             }
             return;
         }
-        System.out.println("Choose a card to keep [1-" + drawnCards.size() + "]:");
+        out.println("Choose a card to keep [1-" + drawnCards.size() + "]:");
         int choice = 0; // Default to first card if input fails
         try {
             do {
-                while (!scanner.hasNextInt()) {
-                    System.out.println("Please enter a valid number.");
-                    scanner.next();
+                while (!input().hasNextInt()) {
+                    out.println("Please enter a valid number.");
+                    input().next();
                 }
-                choice = scanner.nextInt() - 1;
-                scanner.nextLine(); // Consume the newline
+                choice = input().nextInt() - 1;
+                input().nextLine(); // Consume the newline
             } while (choice < 0 || choice >= drawnCards.size());
         } catch (Exception e) {
             choice = 0;
         }
-        player.addToHand(drawnCards.get(choice));
-        System.out.println("You kept " + drawnCards.get(choice));
-        // Return other card(s) to deck (bottom if Observatory)
-        for (int i = 0; i < drawnCards.size(); i++) {
-            if (i != choice) {
-                if (hasObservatory) {
-                    districtDeck.add(drawnCards.get(i)); // bottom
-                } else {
-                    districtDeck.add(0, drawnCards.get(i)); // top
-                }
-            }
-        }
-        Collections.shuffle(districtDeck);
+        DistrictCard kept = drawnCards.get(choice);
+        // The other card(s) go to the bottom of the deck
+        record(GameJournal.DRAW_CHOICE, seatOf(player), drawnCards.size(), choice);
+        out.println("You kept " + kept);
     }
 
     /**
@@ -711,47 +1078,47 @@ public class Game {
      */
     public void processHumanTurn(Player player) {
         
-        System.out.println("Your turn.");
+        out.println("Your turn.");
         
         // Handle character-specific start of turn abilities (human)
         try {
             handleStartOfTurnAbilitiesHuman(player);
         } catch (Exception e) {
-            System.err.println("Error in start of turn abilities: " + e.getMessage());
+            out.error("Error in start of turn abilities: " + e.getMessage());
         }
         
         // Basic turn actions (gold or cards)
-        System.out.println("Collect 2 gold or draw two cards and pick one [gold/cards].");
+        out.println("Collect 2 gold or draw two cards and pick one [gold/cards].");
         String choice = "gold"; // Default to gold if input fails
         try {
-            choice = scanner.next().toLowerCase();
-            scanner.nextLine(); // Consume the newline
+            choice = input().next().toLowerCase();
+            input().nextLine(); // Consume the newline
         } catch (Exception e) {
             // If we get an exception, use default value
         }
         
         if (choice.equals("gold")) {
-            player.addGold(2);
-            System.out.println("Player " + player.getPlayerNumber() + " received 2 gold.");
+            gainGold(player, 2);
+            out.println("Player " + player.getPlayerNumber() + " received 2 gold.");
         } else if (choice.equals("cards")) {
             try {
                 drawAndChooseCard(player);
             } catch (Exception e) {
-                System.err.println("Error drawing cards: " + e.getMessage());
+                out.error("Error drawing cards: " + e.getMessage());
             }
         }
         
         boolean turnEnded = false;
         while (!turnEnded) {
             try {
-                System.out.print("> ");
-                String commandLine = scanner.nextLine().trim();
+                out.print("> ");
+                String commandLine = input().nextLine().trim();
                 if (commandLine.isEmpty()) {
-                    commandLine = scanner.nextLine().trim();
+                    commandLine = input().nextLine().trim();
                 }
                 
                 if (commandLine.toLowerCase().equals("end")) {
-                    System.out.println("You ended your turn.");
+                    out.println("You ended your turn.");
                     turnEnded = true;
                 } else {
                     processCommand(commandLine, player);
@@ -764,21 +1131,9 @@ public class Game {
 
         // At the end of processHumanTurn (before turnEnded = true):
         if (turnEnded) {
-            // Poor House
-            boolean hasPoorHouse = player.getCity().stream().anyMatch(c -> c.getName().equals("Poor House"));
-            if (hasPoorHouse && player.getGold() == 0) {
-                player.addGold(1);
-                System.out.println("Poor House: You had no gold, so you receive 1 gold.");
-            }
-            // Park
-            boolean hasPark = player.getCity().stream().anyMatch(c -> c.getName().equals("Park"));
-            if (hasPark && player.getHand().isEmpty()) {
-                for (int i = 0; i < 2; i++) {
-                    if (!districtDeck.isEmpty()) {
-                        player.addToHand(districtDeck.remove(0));
-                    }
-                }
-                System.out.println("Park: You had no cards, so you draw 2 cards.");
+            // Poor House, Park
+            for (PurpleAbility ability : player.getAbilities()) {
+                ability.onTurnEnd(this, player);
             }
         }
     }
@@ -790,414 +1145,402 @@ public class Game {
      * @param currentPlayer The player who entered the command, or null if not during a turn
      */
     public void processCommand(String commandLine, Player currentPlayer) {
-        String[] parts = commandLine.split("\\s+");
-        String command = parts[0].toLowerCase();
+        processCommand(Command.parse(commandLine), currentPlayer);
+    }
 
+    /**
+     * Processes a command that has already been parsed.
+     *
+     * @param command The command
+     * @param currentPlayer The player who entered the command, or null if not during a turn
+     */
+    void processCommand(Command command, Player currentPlayer) {
         // Null check for commands that require a player
-        if (currentPlayer == null && (
-            command.equals("hand") || command.equals("build") || command.equals("action") || command.equals("end")
-        )) {
-            System.out.println("No player context for this command.");
+        if (currentPlayer == null && commands.needsPlayer(command.getVerb())) {
+            out.println("No player context for this command.");
             return;
         }
-        
-        switch (command) {
-            case "hand":
-                if (currentPlayer != null && currentPlayer.isHuman()) {
-                    showHand(currentPlayer);
-                } else {
-                    System.out.println("You can only view your own hand.");
-                }
-                break;
-            case "gold":
-                if (parts.length > 1) {
-                    int p = parsePlayerNumber(parts[1]);
-                    if (p != -1) {
-                        System.out.println("Player " + p + " has " + players.get(p-1).getGold() + " gold.");
-                    }
-                } else if (currentPlayer != null && currentPlayer.isHuman()) {
-                    System.out.println("You have " + currentPlayer.getGold() + " gold.");
-                }
-                break;
-            case "build":
-                if (currentPlayer != null && currentPlayer.isHuman()) {
-                    if (parts.length > 1) {
-                        int buildIndex = Integer.parseInt(parts[1]) - 1;
-                        if (buildIndex >= 0 && buildIndex < currentPlayer.getHand().size()) {
-                            buildDistrictWithDuplicateCheck(currentPlayer, buildIndex);
-                        }
-                    }
-                } else {
-                    System.out.println("You can only build during your turn.");
-                }
-                break;
-            case "citadel":
-            case "list":
-            case "city":
-                int cityPlayer = 1;
-                if (parts.length > 1) {
-                    int p = parsePlayerNumber(parts[1]);
-                    if (p != -1) cityPlayer = p;
-                }
-                showCity(players.get(cityPlayer-1));
-                break;
-            case "action":
-                if (currentPlayer != null && currentPlayer.isHuman()) {
-                    if (parts.length < 2) {
-                        showActionInfo(currentPlayer);
-                    } else {
-                        String subCommand = parts[1].toLowerCase();
-                        switch (subCommand) {
-                            case "swap":
-                                if (!currentPlayer.getCharacter().getName().equals("Magician")) {
-                                    System.out.println("Only the Magician can swap hands.");
-                                    break;
-                                }
-                                if (parts.length < 3) {
-                                    System.out.println("Usage: action swap <player number>");
-                                } else {
-                                    int targetPlayerNum = parsePlayerNumber(parts[2]);
-                                    if (targetPlayerNum != -1 && targetPlayerNum != currentPlayer.getPlayerNumber()) {
-                                        Player targetPlayer = players.get(targetPlayerNum - 1);
-                                        List<DistrictCard> tempHand = new ArrayList<>(currentPlayer.getHand());
-                                        currentPlayer.getHand().clear();
-                                        currentPlayer.getHand().addAll(targetPlayer.getHand());
-                                        targetPlayer.getHand().clear();
-                                        targetPlayer.getHand().addAll(tempHand);
-                                        System.out.println("Swapped hands with Player " + targetPlayerNum);
-                                    } else {
-                                        System.out.println("Invalid player number or cannot swap with yourself.");
-                                    }
-                                }
-                                break;
-                            case "redraw":
-                                if (!currentPlayer.getCharacter().getName().equals("Magician")) {
-                                    System.out.println("Only the Magician can redraw cards.");
-                                    break;
-                                }
-                                if (parts.length < 3) {
-                                    System.out.println("Usage: action redraw <id1,id2,id3,...>");
-                                } else {
-                                    String[] cardIds = parts[2].split(",");
-                                    List<Integer> indices = new ArrayList<>();
-                                    for (String id : cardIds) {
-                                        try {
-                                            int index = Integer.parseInt(id.trim()) - 1;
-                                            if (index >= 0 && index < currentPlayer.getHand().size()) {
-                                                indices.add(index);
-                                            }
-                                        } catch (NumberFormatException e) {
-                                            System.out.println("Invalid card ID: " + id);
-                                        }
-                                    }
-                                    if (!indices.isEmpty()) {
-                                        indices.sort((a, b) -> b - a);
-                                        for (int index : indices) {
-                                            if (!districtDeck.isEmpty()) {
-                                                currentPlayer.getHand().remove(index);
-                                                currentPlayer.addToHand(districtDeck.remove(0));
-                                            }
-                                        }
-                                        System.out.println("Redrew " + indices.size() + " cards.");
-                                    }
-                                }
-                                break;
-                            case "kill":
-                                if (!currentPlayer.getCharacter().getName().equals("Assassin")) {
-                                    System.out.println("Only the Assassin can kill characters.");
-                                    break;
-                                }
-                                if (parts.length < 3) {
-                                    System.out.println("Usage: action kill <character number>");
-                                } else {
-                                    try {
-                                        int targetChar = Integer.parseInt(parts[2]);
-                                        if (targetChar >= 2 && targetChar <= 8) {
-                                            killedCharacter = findCharacterCard(getCharacterName(targetChar));
-                                            System.out.println("You chose to kill the " + killedCharacter.getName());
-                                        } else {
-                                            System.out.println("Invalid character number. Choose between 2 and 8.");
-                                        }
-                                    } catch (NumberFormatException e) {
-                                        System.out.println("Invalid character number.");
-                                    }
-                                }
-                                break;
-                            case "steal":
-                                if (!currentPlayer.getCharacter().getName().equals("Thief")) {
-                                    System.out.println("Only the Thief can steal from characters.");
-                                    break;
-                                }
-                                if (parts.length < 3) {
-                                    System.out.println("Usage: action steal <character number>");
-                                } else {
-                                    try {
-                                        int targetChar = Integer.parseInt(parts[2]);
-                                        if (targetChar >= 3 && targetChar <= 8) {
-                                            robbedCharacter = findCharacterCard(getCharacterName(targetChar));
-                                            System.out.println("You chose to steal from the " + robbedCharacter.getName());
-                                        } else {
-                                            System.out.println("Invalid character number. Choose between 3 and 8.");
-                                        }
-                                    } catch (NumberFormatException e) {
-                                        System.out.println("Invalid character number.");
-                                    }
-                                }
-                                break;
-                            case "destroy":
-                                if (!currentPlayer.getCharacter().getName().equals("Warlord")) {
-                                    System.out.println("Only the Warlord can destroy districts.");
-                                    break;
-                                }
-                                if (parts.length < 4) {
-                                    System.out.println("Usage: action destroy <player number> <district number>");
-                                    break;
-                                }
-                                try {
-                                    int targetPlayerNum = parsePlayerNumber(parts[2]);
-                                    if (targetPlayerNum != -1 && targetPlayerNum != currentPlayer.getPlayerNumber()) {
-                                        Player targetPlayer = players.get(targetPlayerNum - 1);
-                                        int districtIndex = Integer.parseInt(parts[3]) - 1;
-                                        if (districtIndex >= 0 && districtIndex < targetPlayer.getCity().size()) {
-                                            DistrictCard district = targetPlayer.getCity().get(districtIndex);
-                                            // --- Keep: cannot be destroyed ---
-                                            if (district.getName().equals("Keep")) {
-                                                System.out.println("Keep cannot be destroyed by the Warlord.");
-                                                break;
-                                            }
-                                            // --- Great Wall: +1 cost ---
-                                            boolean hasGreatWall = targetPlayer.getCity().stream().anyMatch(c -> c.getName().equals("Great Wall"));
-                                            int destroyCost = district.getCost() - 1 + (hasGreatWall ? 1 : 0);
-                                            if (currentPlayer.getGold() >= destroyCost) {
-                                                currentPlayer.addGold(-destroyCost);
-                                                targetPlayer.getCity().remove(districtIndex);
-                                                System.out.println("Destroyed " + district.getName() + " in Player " + targetPlayerNum + "'s city.");
-                                                // --- Graveyard: recover destroyed district ---
-                                                boolean hasGraveyard = targetPlayer.getCity().stream().anyMatch(c -> c.getName().equals("Graveyard"));
-                                                boolean isWarlord = targetPlayer.getCharacter() != null && targetPlayer.getCharacter().getName().equals("Warlord");
-                                                if (hasGraveyard && !isWarlord && targetPlayer.getGold() >= 1) {
-                                                    System.out.println("Player " + targetPlayerNum + " may pay 1 gold to recover the destroyed district (Graveyard). (yes/no)");
-                                                    String ans = scanner.next().trim().toLowerCase();
-                                                    if (ans.startsWith("y")) {
-                                                        targetPlayer.addGold(-1);
-                                                        targetPlayer.addToHand(district);
-                                                        System.out.println("Recovered " + district.getName() + " to hand (Graveyard).");
-                                                    }
-                                                }
-                                            } else {
-                                                System.out.println("Not enough gold to destroy this district.");
-                                            }
-                                        } else {
-                                            System.out.println("Invalid district number.");
-                                        }
-                                    } else {
-                                        System.out.println("Invalid player number or cannot destroy your own districts.");
-                                    }
-                                } catch (NumberFormatException e) {
-                                    System.out.println("Invalid player or district number.");
-                                }
-                                break;
-                            case "museum":
-                                if (parts.length < 3) {
-                                    System.out.println("Usage: action museum <card number>");
-                                } else {
-                                    try {
-                                        int cardIndex = Integer.parseInt(parts[2]) - 1;
-                                        storeCardUnderMuseum(currentPlayer, cardIndex);
-                                    } catch (NumberFormatException e) {
-                                        System.out.println("Invalid card number.");
-                                    }
-                                }
-                                break;
-                            case "armory":
-                                if (parts.length < 4) {
-                                    System.out.println("Usage: action armory <player number> <district number>");
-                                } else {
-                                    try {
-                                        int targetPlayerNum = parsePlayerNumber(parts[2]);
-                                        if (targetPlayerNum != -1 && targetPlayerNum != currentPlayer.getPlayerNumber()) {
-                                            Player targetPlayer = players.get(targetPlayerNum - 1);
-                                            int districtIndex = Integer.parseInt(parts[3]) - 1;
-                                            if (districtIndex >= 0 && districtIndex < targetPlayer.getCity().size()) {
-                                                // Find and remove the Armory from current player's city
-                                                boolean hasArmory = currentPlayer.getCity().removeIf(card -> card.getName().equals("Armory"));
-                                                if (hasArmory) {
-                                                    targetPlayer.getCity().remove(districtIndex);
-                                                    System.out.println("Used Armory to destroy a district in Player " + targetPlayerNum + "'s city.");
-                                                } else {
-                                                    System.out.println("You don't have the Armory in your city.");
-                                                }
-                                            } else {
-                                                System.out.println("Invalid district number.");
-                                            }
-                                        } else {
-                                            System.out.println("Invalid player number or cannot destroy your own districts.");
-                                        }
-                                    } catch (NumberFormatException e) {
-                                        System.out.println("Invalid player or district number.");
-                                    }
-                                }
-                                break;
-                            case "laboratory":
-                                if (!currentPlayer.getCity().stream().anyMatch(c -> c.getName().equals("Laboratory"))) {
-                                    System.out.println("You don't have the Laboratory.");
-                                    break;
-                                }
-                                if (laboratoryUsed.getOrDefault(currentPlayer, false)) {
-                                    System.out.println("You have already used Laboratory this turn.");
-                                    break;
-                                }
-                                if (parts.length < 3) {
-                                    System.out.println("Usage: action laboratory <card number>");
-                                    break;
-                                }
-                                try {
-                                    int cardIndex = Integer.parseInt(parts[2]) - 1;
-                                    if (cardIndex >= 0 && cardIndex < currentPlayer.getHand().size()) {
-                                        currentPlayer.getHand().remove(cardIndex);
-                                        currentPlayer.addGold(1);
-                                        laboratoryUsed.put(currentPlayer, true);
-                                        System.out.println("Discarded a card for 1 gold (Laboratory).");
-                                    } else {
-                                        System.out.println("Invalid card number.");
-                                    }
-                                } catch (NumberFormatException e) {
-                                    System.out.println("Invalid card number.");
-                                }
-                                break;
-                            case "smithy":
-                                if (!currentPlayer.getCity().stream().anyMatch(c -> c.getName().equals("Smithy"))) {
-                                    System.out.println("You don't have the Smithy.");
-                                    break;
-                                }
-                                if (smithyUsed.getOrDefault(currentPlayer, false)) {
-                                    System.out.println("You have already used Smithy this turn.");
-                                    break;
-                                }
-                                if (currentPlayer.getGold() < 2) {
-                                    System.out.println("Not enough gold for Smithy (need 2).");
-                                    break;
-                                }
-                                currentPlayer.addGold(-2);
-                                for (int i = 0; i < 3; i++) {
-                                    if (!districtDeck.isEmpty()) {
-                                        currentPlayer.addToHand(districtDeck.remove(0));
-                                    }
-                                }
-                                smithyUsed.put(currentPlayer, true);
-                                System.out.println("Drew 3 cards for 2 gold (Smithy).");
-                                break;
-                            default:
-                                System.out.println("Unknown action command. Available actions:");
-                                showActionInfo(currentPlayer);
-                        }
-                    }
-                } else {
-                    System.out.println("You can only use actions during your turn.");
+        CommandRegistry.Handler handler = commands.find(command.getVerb());
+        if (handler == null) {
+            out.println("Unknown command. Type 'help' for available commands.");
+            return;
+        }
+        handler.handle(this, command, currentPlayer);
+    }
+
+    private void commandHand(Command command, Player currentPlayer) {
+        if (currentPlayer != null && currentPlayer.isHuman()) {
+            showHand(currentPlayer);
+        } else {
+            out.println("You can only view your own hand.");
+        }
+    }
+
+    private void commandGold(Command command, Player currentPlayer) {
+        if (command.argCount() > 0) {
+            int p = parsePlayerNumber(command, 0);
+            if (p != -1) {
+                out.println("Player " + p + " has " + players.get(p-1).getGold() + " gold.");
+            }
+        } else if (currentPlayer != null && currentPlayer.isHuman()) {
+            out.println("You have " + currentPlayer.getGold() + " gold.");
+        }
+    }
+
+    private void commandBuild(Command command, Player currentPlayer) {
+        if (currentPlayer != null && currentPlayer.isHuman()) {
+            if (command.isInt(0)) {
+                int buildIndex = command.intArg(0) - 1;
+                if (buildIndex >= 0 && buildIndex < currentPlayer.getHand().size()) {
+                    buildDistrictWithDuplicateCheck(currentPlayer, buildIndex);
                 }
-                break;
-            case "info":
-                if (parts.length > 1) {
-                    if (currentPlayer != null && currentPlayer.isHuman()) {
-                        showInfo(currentPlayer, parts[1]);
-                    } else {
-                        System.out.println("You can only view info about your own cards.");
-                    }
+            }
+        } else {
+            out.println("You can only build during your turn.");
+        }
+    }
+
+    private void commandCity(Command command, Player currentPlayer) {
+        int cityPlayer = 1;
+        if (command.argCount() > 0) {
+            int p = parsePlayerNumber(command, 0);
+            if (p != -1) cityPlayer = p;
+        }
+        showCity(players.get(cityPlayer-1));
+    }
+
+    private void commandAction(Command command, Player currentPlayer) {
+        if (currentPlayer != null && currentPlayer.isHuman()) {
+            if (command.argCount() < 1) {
+                showActionInfo(currentPlayer);
+            } else {
+                CommandRegistry.Handler handler = ACTIONS.find(command.arg(0).toLowerCase());
+                if (handler != null) {
+                    handler.handle(this, command, currentPlayer);
                 } else {
-                    System.out.println("Usage: info <H|name>");
+                    out.println("Unknown action command. Available actions:");
+                    showActionInfo(currentPlayer);
                 }
-                break;
-            case "all":
-                showAllPlayers();
-                break;
-            case "save":
-                if (parts.length > 1) {
-                    try {
-                        saveGame(parts[1]);
-                    } catch (IOException e) {
-                        System.err.println("Error saving game: " + e.getMessage());
+            }
+        } else {
+            out.println("You can only use actions during your turn.");
+        }
+    }
+
+    private void actionSwap(Command command, Player currentPlayer) {
+        if (roleOf(currentPlayer) != CharacterRole.MAGICIAN) {
+            out.println("Only the Magician can swap hands.");
+            return;
+        }
+        if (command.argCount() < 2) {
+            out.println("Usage: action swap <player number>");
+        } else {
+            int targetPlayerNum = parsePlayerNumber(command, 1);
+            if (targetPlayerNum != -1 && targetPlayerNum != currentPlayer.getPlayerNumber()) {
+                record(GameJournal.SWAP, seatOf(currentPlayer), targetPlayerNum - 1, 0);
+                out.println("Swapped hands with Player " + targetPlayerNum);
+            } else {
+                out.println("Invalid player number or cannot swap with yourself.");
+            }
+        }
+    }
+
+    private void actionRedraw(Command command, Player currentPlayer) {
+        if (roleOf(currentPlayer) != CharacterRole.MAGICIAN) {
+            out.println("Only the Magician can redraw cards.");
+            return;
+        }
+        if (command.argCount() < 2) {
+            out.println("Usage: action redraw <id1,id2,id3,...>");
+        } else {
+            String[] cardIds = command.arg(1).split(",");
+            List<Integer> indices = new ArrayList<>();
+            for (String id : cardIds) {
+                try {
+                    int index = Integer.parseInt(id.trim()) - 1;
+                    if (index >= 0 && index < currentPlayer.getHand().size()) {
+                        indices.add(index);
                     }
-                } else {
-                    System.out.println("Usage: save <file>");
+                } catch (NumberFormatException e) {
+                    out.println("Invalid card ID: " + id);
                 }
-                break;
-            case "load":
-                if (parts.length > 1) {
-                    try {
-                        loadGame(parts[1]);
-                    } catch (IOException e) {
-                        System.err.println("Error loading game: " + e.getMessage());
+            }
+            if (!indices.isEmpty()) {
+                indices.sort((a, b) -> b - a);
+                for (int index : indices) {
+                    if (!districtDeck.isEmpty()) {
+                        record(GameJournal.REDRAW, seatOf(currentPlayer), index, 0);
                     }
-                } else {
-                    System.out.println("Usage: load <file>");
-                }
-                break;
-            case "end":
-                if (currentPlayer != null && currentPlayer.isHuman()) {
-                    System.out.println("You ended your turn.");
-                    return;
-                } else {
-                    System.out.println("You can only end your own turn.");
                 }
-                break;
-            case "help":
-                showHelp();
-                break;
-            case "debug":
-                debugMode = !debugMode;
-                System.out.println("Debug mode is now " + (debugMode ? "ON" : "OFF"));
-                break;
-            case "t":
-                if (currentPlayer != null && currentPlayer.isHuman()) {
-                    System.out.println("Your turn.");
-                } else {
-                    System.out.println("It is not your turn.");
+                out.println("Redrew " + indices.size() + " cards.");
+            }
+        }
+    }
+
+    private void actionKill(Command command, Player currentPlayer) {
+        if (roleOf(currentPlayer) != CharacterRole.ASSASSIN) {
+            out.println("Only the Assassin can kill characters.");
+            return;
+        }
+        if (command.argCount() < 2) {
+            out.println("Usage: action kill <character number>");
+        } else if (!command.isInt(1)) {
+            out.println("Invalid character number.");
+        } else {
+            int targetChar = command.intArg(1);
+            if (targetChar >= 2 && targetChar <= 8) {
+                record(GameJournal.KILL, seatOf(currentPlayer), targetChar, 0);
+                out.println("You chose to kill the " + killedCharacter.getName());
+            } else {
+                out.println("Invalid character number. Choose between 2 and 8.");
+            }
+        }
+    }
+
+    private void actionSteal(Command command, Player currentPlayer) {
+        if (roleOf(currentPlayer) != CharacterRole.THIEF) {
+            out.println("Only the Thief can steal from characters.");
+            return;
+        }
+        if (command.argCount() < 2) {
+            out.println("Usage: action steal <character number>");
+        } else if (!command.isInt(1)) {
+            out.println("Invalid character number.");
+        } else {
+            int targetChar = command.intArg(1);
+            if (targetChar >= 3 && targetChar <= 8) {
+                record(GameJournal.ROB, seatOf(currentPlayer), targetChar, 0);
+                out.println("You chose to steal from the " + robbedCharacter.getName());
+            } else {
+                out.println("Invalid character number. Choose between 3 and 8.");
+            }
+        }
+    }
+
+    private void actionDestroy(Command command, Player currentPlayer) {
+        if (roleOf(currentPlayer) != CharacterRole.WARLORD) {
+            out.println("Only the Warlord can destroy districts.");
+            return;
+        }
+        if (command.argCount() < 3) {
+            out.println("Usage: action destroy <player number> <district number>");
+            return;
+        }
+        int targetPlayerNum = parsePlayerNumber(command, 1);
+        if (targetPlayerNum == -1 || targetPlayerNum == currentPlayer.getPlayerNumber()) {
+            out.println("Invalid player number or cannot destroy your own districts.");
+            return;
+        }
+        if (!command.isInt(2)) {
+            out.println("Invalid player or district number.");
+            return;
+        }
+        Player targetPlayer = players.get(targetPlayerNum - 1);
+        int districtIndex = command.intArg(2) - 1;
+        if (districtIndex < 0 || districtIndex >= targetPlayer.getCity().size()) {
+            out.println("Invalid district number.");
+            return;
+        }
+        DistrictCard district = targetPlayer.getCity().get(districtIndex);
+        // --- Keep: cannot be destroyed ---
+        if (district.getPurpleAbility() == PurpleAbility.KEEP) {
+            out.println("Keep cannot be destroyed by the Warlord.");
+            return;
+        }
+        // --- Great Wall: +1 cost ---
+        int destroyCost = destroyCost(targetPlayer, district);
+        if (currentPlayer.getGold() >= destroyCost) {
+            gainGold(currentPlayer, -destroyCost);
+            record(GameJournal.DESTROY, targetPlayerNum - 1, districtIndex, district.getId());
+            out.println("Destroyed " + district.getName() + " in Player " + targetPlayerNum + "'s city.");
+            // --- Graveyard: recover destroyed district ---
+            offerGraveyard(targetPlayer, district);
+        } else {
+            out.println("Not enough gold to destroy this district.");
+        }
+    }
+
+    private void actionMuseum(Command command, Player currentPlayer) {
+        if (command.argCount() < 2) {
+            out.println("Usage: action museum <card number>");
+        } else if (!command.isInt(1)) {
+            out.println("Invalid card number.");
+        } else {
+            storeCardUnderMuseum(currentPlayer, command.intArg(1) - 1);
+        }
+    }
+
+    private void actionArmory(Command command, Player currentPlayer) {
+        if (command.argCount() < 3) {
+            out.println("Usage: action armory <player number> <district number>");
+            return;
+        }
+        int targetPlayerNum = parsePlayerNumber(command, 1);
+        if (targetPlayerNum == -1 || targetPlayerNum == currentPlayer.getPlayerNumber()) {
+            out.println("Invalid player number or cannot destroy your own districts.");
+            return;
+        }
+        if (!command.isInt(2)) {
+            out.println("Invalid player or district number.");
+            return;
+        }
+        Player targetPlayer = players.get(targetPlayerNum - 1);
+        int districtIndex = command.intArg(2) - 1;
+        if (districtIndex >= 0 && districtIndex < targetPlayer.getCity().size()) {
+            // Find and remove the Armory from current player's city
+            boolean hasArmory = false;
+            List<DistrictCard> city = currentPlayer.getCity();
+            for (int i = city.size() - 1; i >= 0; i--) {
+                if (city.get(i).getPurpleAbility() == PurpleAbility.ARMORY) {
+                    record(GameJournal.DESTROY, seatOf(currentPlayer), i, city.get(i).getId());
+                    hasArmory = true;
                 }
-                break;
-            default:
-                System.out.println("Unknown command. Type 'help' for available commands.");
+            }
+            if (hasArmory) {
+                record(GameJournal.DESTROY, targetPlayerNum - 1, districtIndex,
+                    targetPlayer.getCity().get(districtIndex).getId());
+                out.println("Used Armory to destroy a district in Player " + targetPlayerNum + "'s city.");
+            } else {
+                out.println("You don't have the Armory in your city.");
+            }
+        } else {
+            out.println("Invalid district number.");
         }
     }
 
-    private int parsePlayerNumber(String s) {
-        try {
-            int p = Integer.parseInt(s);
-            if (p >= 1 && p <= players.size()) return p;
-        } catch (Exception e) {}
-        System.out.println("Invalid player number.");
+    private void actionLaboratory(Command command, Player currentPlayer) {
+        if (!currentPlayer.hasAbility(PurpleAbility.LABORATORY)) {
+            out.println("You don't have the Laboratory.");
+            return;
+        }
+        if (laboratoryUsed.getOrDefault(currentPlayer, false)) {
+            out.println("You have already used Laboratory this turn.");
+            return;
+        }
+        if (command.argCount() < 2) {
+            out.println("Usage: action laboratory <card number>");
+            return;
+        }
+        if (!command.isInt(1)) {
+            out.println("Invalid card number.");
+            return;
+        }
+        int cardIndex = command.intArg(1) - 1;
+        if (cardIndex >= 0 && cardIndex < currentPlayer.getHand().size()) {
+            record(GameJournal.LABORATORY, seatOf(currentPlayer), cardIndex, 0);
+            out.println("Discarded a card for 1 gold (Laboratory).");
+        } else {
+            out.println("Invalid card number.");
+        }
+    }
+
+    private void actionSmithy(Command command, Player currentPlayer) {
+        if (!currentPlayer.hasAbility(PurpleAbility.SMITHY)) {
+            out.println("You don't have the Smithy.");
+            return;
+        }
+        if (smithyUsed.getOrDefault(currentPlayer, false)) {
+            out.println("You have already used Smithy this turn.");
+            return;
+        }
+        if (currentPlayer.getGold() < 2) {
+            out.println("Not enough gold for Smithy (need 2).");
+            return;
+        }
+        record(GameJournal.SMITHY, seatOf(currentPlayer), 0, 0);
+        out.println("Drew 3 cards for 2 gold (Smithy).");
+    }
+
+    private void commandInfo(Command command, Player currentPlayer) {
+        if (command.argCount() > 0) {
+            if (currentPlayer != null && currentPlayer.isHuman()) {
+                showInfo(currentPlayer, command.arg(0));
+            } else {
+                out.println("You can only view info about your own cards.");
+            }
+        } else {
+            out.println("Usage: info <H|name>");
+        }
+    }
+
+    private void commandSave(Command command, Player currentPlayer) {
+        if (command.argCount() > 0) {
+            try {
+                saveGame(command.arg(0));
+            } catch (IOException e) {
+                out.error("Error saving game: " + e.getMessage());
+            }
+        } else {
+            out.println("Usage: save <file>");
+        }
+    }
+
+    private void commandLoad(Command command, Player currentPlayer) {
+        if (command.argCount() > 0) {
+            try {
+                loadGame(command.arg(0));
+            } catch (IOException e) {
+                out.error("Error loading game: " + e.getMessage());
+            }
+        } else {
+            out.println("Usage: load <file>");
+        }
+    }
+
+    private void commandEnd(Command command, Player currentPlayer) {
+        if (currentPlayer != null && currentPlayer.isHuman()) {
+            out.println("You ended your turn.");
+        } else {
+            out.println("You can only end your own turn.");
+        }
+    }
+
+    private void commandDebug(Command command, Player currentPlayer) {
+        debugMode = !debugMode;
+        out.println("Debug mode is now " + (debugMode ? "ON" : "OFF"));
+    }
+
+    private void commandTurn(Command command, Player currentPlayer) {
+        if (currentPlayer != null && currentPlayer.isHuman()) {
+            out.println("Your turn.");
+        } else {
+            out.println("It is not your turn.");
+        }
+    }
+
+    private int parsePlayerNumber(Command command, int index) {
+        int p = command.intArg(index);
+        if (p >= 1 && p <= players.size()) return p;
+        out.println("Invalid player number.");
         return -1;
     }
 
     private void buildDistrictWithDuplicateCheck(Player player, int cardIndex) {
         try {
             if (cardIndex < 0 || cardIndex >= player.getHand().size()) {
-                System.out.println("Invalid card number.");
+                out.println("Invalid card number.");
                 return;
             }
 
             DistrictCard card = player.getHand().get(cardIndex);
             if (card == null) {
-                System.out.println("Invalid card (null).");
+                out.println("Invalid card (null).");
                 return;
             }
             if (player.getGold() < card.getCost()) {
-                System.out.println("Not enough gold to build this district.");
+                out.println("Not enough gold to build this district.");
                 return;
             }
 
             // Check for duplicates
-            boolean hasDuplicate = player.getCity().stream()
-                .anyMatch(c -> c.getName().equals(card.getName()));
-            if (hasDuplicate) {
-                System.out.println("You already have a " + card.getName() + " in your city.");
+            if (player.hasDistrict(card)) {
+                out.println("You already have a " + card.getName() + " in your city.");
                 return;
             }
 
             // Build the district
-            player.addGold(-card.getCost());
-            player.getHand().remove(cardIndex);
-            player.getCity().add(card);
-            System.out.println("Built " + card.getName() + " [" + card.getColor() + card.getCost() + "]");
+            record(GameJournal.BUILD, seatOf(player), cardIndex, card.getId());
+            out.println("Built " + card.getName() + " [" + card.getColor() + card.getCost() + "]");
 
             // Trigger purple card abilities
             triggerPurpleAbilityWhenBuilt(player, card);
@@ -1205,93 +1548,88 @@ public class Game {
             // Check for game end
             checkGameEnd();
         } catch (IndexOutOfBoundsException | NullPointerException e) {
-            System.out.println("Invalid build operation: " + e.getMessage());
+            out.println("Invalid build operation: " + e.getMessage());
         }
     }
 
     // Helper for storing a card under the Museum
     private void storeCardUnderMuseum(Player player, int cardIndex) {
         if (cardIndex >= 0 && cardIndex < player.getHand().size()) {
-            DistrictCard storedCard = player.getHand().remove(cardIndex);
-            museumStorage.computeIfAbsent(player, k -> new ArrayList<>()).add(storedCard);
-            System.out.println("Stored " + storedCard.getName() + " under the Museum.");
+            DistrictCard storedCard = player.getHand().get(cardIndex);
+            record(GameJournal.MUSEUM, seatOf(player), cardIndex, 0);
+            out.println("Stored " + storedCard.getName() + " under the Museum.");
         } else {
-            System.out.println("Invalid card number.");
+            out.println("Invalid card number.");
         }
     }
 
     // Update triggerPurpleAbilityWhenBuilt to use the helper
     private void triggerPurpleAbilityWhenBuilt(Player player, DistrictCard card) {
-        if (card.getName().equals("Museum")) {
+        if (card.getPurpleAbility() == PurpleAbility.MUSEUM) {
             if (player.getHand().isEmpty()) {
-                System.out.println("No cards in hand to store under the Museum.");
+                out.println("No cards in hand to store under the Museum.");
                 return;
             }
-            System.out.println("Choose a card to store under the Museum (1-" + player.getHand().size() + "):");
-            String input = scanner.nextLine();
+            out.println("Choose a card to store under the Museum (1-" + player.getHand().size() + "):");
+            String line = readLineOrEmpty();
             try {
-                int cardIndex = Integer.parseInt(input) - 1;
+                int cardIndex = Integer.parseInt(line) - 1;
                 storeCardUnderMuseum(player, cardIndex);
             } catch (NumberFormatException e) {
-                System.out.println("Invalid input. No card was stored.");
+                out.println("Invalid input. No card was stored.");
             }
         }
     }
     
     private void showActionInfo(Player player) {
         if (player == null) {
-            System.out.println("No player selected.");
+            out.println("No player selected.");
             return;
         }
 
         if (player.getCharacter() == null) {
-            System.out.println("No character selected.");
+            out.println("No character selected.");
             return;
         }
 
-        String characterName = player.getCharacter().getName();
-        System.out.println("Available actions for " + characterName + ":");
+        out.println("Available actions for " + player.getCharacter().getName() + ":");
         
         // Character-specific actions
-        switch (characterName) {
-            case "Assassin":
-                System.out.println("action kill <character#> - Kill a character (2-8)");
-                break;
-            case "Thief":
-                System.out.println("action steal <character#> - Steal from a character (3-8)");
-                break;
-            case "Magician":
-                System.out.println("action swap <player#> - Swap hands with another player");
-                System.out.println("action redraw <card#> - Discard a card and draw a new one");
-                break;
-            case "Warlord":
-                System.out.println("action destroy <player#> <district#> - Destroy a district in another player's city");
-                break;
-            default:
-                System.out.println("No special character actions available.");
-                break;
+        CharacterRole role = player.getCharacter().getRole();
+        if (role == CharacterRole.ASSASSIN) {
+            out.println("action kill <character#> - Kill a character (2-8)");
+        } else if (role == CharacterRole.THIEF) {
+            out.println("action steal <character#> - Steal from a character (3-8)");
+        } else if (role == CharacterRole.MAGICIAN) {
+            out.println("action swap <player#> - Swap hands with another player");
+            out.println("action redraw <card#> - Discard a card and draw a new one");
+        } else if (role == CharacterRole.WARLORD) {
+            out.println("action destroy <player#> <district#> - Destroy a district in another player's city");
+        } else {
+            out.println("No special character actions available.");
         }
 
         // Purple card actions
         boolean hasPurpleActions = false;
-        for (DistrictCard card : player.getCity()) {
-            if (card.getName().equals("Museum")) {
-                System.out.println("action museum <card#> - Store a card under the Museum for end-game points");
-                hasPurpleActions = true;
-            } else if (card.getName().equals("Armory")) {
-                System.out.println("action armory <player#> <district#> - Destroy the Armory and destroy a district in another player's city");
-                hasPurpleActions = true;
-            } else if (card.getName().equals("Laboratory")) {
-                System.out.println("action laboratory <card#> - Discard a card to gain 1 gold");
-                hasPurpleActions = true;
-            } else if (card.getName().equals("Smithy")) {
-                System.out.println("action smithy - Pay 2 gold to draw 3 cards");
-                hasPurpleActions = true;
-            }
+        if (player.hasAbility(PurpleAbility.MUSEUM)) {
+            out.println("action museum <card#> - Store a card under the Museum for end-game points");
+            hasPurpleActions = true;
+        }
+        if (player.hasAbility(PurpleAbility.ARMORY)) {
+            out.println("action armory <player#> <district#> - Destroy the Armory and destroy a district in another player's city");
+            hasPurpleActions = true;
+        }
+        if (player.hasAbility(PurpleAbility.LABORATORY)) {
+            out.println("action laboratory <card#> - Discard a card to gain 1 gold");
+            hasPurpleActions = true;
+        }
+        if (player.hasAbility(PurpleAbility.SMITHY)) {
+            out.println("action smithy - Pay 2 gold to draw 3 cards");
+            hasPurpleActions = true;
         }
 
         if (!hasPurpleActions) {
-            System.out.println("No special district actions available.");
+            out.println("No special district actions available.");
         }
     }
 
@@ -1302,204 +1640,538 @@ public class Game {
             List<DistrictCard> hand = player.getHand();
             if (idx >= 0 && idx < hand.size()) {
                 DistrictCard card = hand.get(idx);
-                if (card.getColor().equals("purple")) {
-                    System.out.println("Info for " + card.getName() + ": " + card.getSpecialAbility());
+                if (card.getDistrictColor() == DistrictColor.PURPLE) {
+                    out.println("Info for " + card.getName() + ": " + card.getSpecialAbility());
                 } else {
-                    System.out.println("This card has no special ability.");
+                    out.println("This card has no special ability.");
                 }
                 return;
             }
         } catch (Exception e) {}
         
         // Otherwise, treat as character name
-        for (CharacterCard c : characterDeck) {
-            if (c.getName().equalsIgnoreCase(arg)) {
-                System.out.println("Info for " + c.getName() + ": " + c.getSpecialAbility());
-                return;
-            }
+        CharacterRole role = CharacterRole.fromName(arg);
+        if (role != null) {
+            CharacterCard c = findCharacterCard(role);
+            out.println("Info for " + c.getName() + ": " + c.getSpecialAbility());
+            return;
         }
-        System.out.println("No info found for: " + arg);
+        out.println("No info found for: " + arg);
     }
 
     /**
-     * Saves the current game state to a file.
+     * Saves the current game state to a file in the binary {@link SaveFile} format.
+     * The file holds everything needed to continue the game: the players with their
+     * hands, cities and Museum cards, the deck and discard pile in order, the
+     * characters still available, this round's Assassin and Thief targets, the
+     * Laboratory and Smithy usage and the state of every random generator.
      *
      * @param filename The name of the file to save to
      * @throws IOException if there is an error writing to the file
      */
     public void saveGame(String filename) throws IOException {
         try {
-            JSONObject gameState = new JSONObject();
-            
-            // Save basic game info
-            gameState.put("currentRound", currentRound);
-            gameState.put("gameEnded", gameEnded);
-            gameState.put("debugMode", debugMode);
-            
-            // Save players
-            JSONArray playersArray = new JSONArray();
-            for (Player player : players) {
-                JSONObject playerObj = new JSONObject();
-                playerObj.put("playerNumber", player.getPlayerNumber());
-                playerObj.put("isHuman", player.isHuman());
-                playerObj.put("hasCrown", player.hasCrown());
-                playerObj.put("gold", player.getGold());
-                
-                // Save character
-                if (player.getCharacter() != null) {
-                    JSONObject characterObj = new JSONObject();
-                    characterObj.put("name", player.getCharacter().getName());
-                    characterObj.put("number", player.getCharacter().getNumber());
-                    characterObj.put("specialAbility", player.getCharacter().getSpecialAbility());
-                    playerObj.put("character", characterObj);
-                }
-                
-                // Save hand
-                JSONArray handArray = new JSONArray();
-                for (DistrictCard card : player.getHand()) {
-                    JSONObject cardObj = new JSONObject();
-                    cardObj.put("name", card.getName());
-                    cardObj.put("color", card.getColor());
-                    cardObj.put("cost", card.getCost());
-                    cardObj.put("specialAbility", card.getSpecialAbility());
-                    handArray.add(cardObj);
-                }
-                playerObj.put("hand", handArray);
-                
-                // Save city
-                JSONArray cityArray = new JSONArray();
-                for (DistrictCard card : player.getCity()) {
-                    JSONObject cardObj = new JSONObject();
-                    cardObj.put("name", card.getName());
-                    cardObj.put("color", card.getColor());
-                    cardObj.put("cost", card.getCost());
-                    cardObj.put("specialAbility", card.getSpecialAbility());
-                    cityArray.add(cardObj);
-                }
-                playerObj.put("city", cityArray);
-                
-                playersArray.add(playerObj);
-            }
-            gameState.put("players", playersArray);
-            
-            // Write to file
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-                writer.write(gameState.toJSONString());
-            }
-            
-            System.out.println("Game saved successfully to " + filename);
-            
-        } catch (IOException e) {
+            snapshot().writeTo(Paths.get(filename));
+            out.println("Game saved successfully to " + filename);
+        } catch (IOException | InvalidPathException e) {
             throw new IOException("Error saving game: " + e.getMessage());
         }
     }
 
     /**
-     * Loads a game state from a file.
+     * Encodes the current game state in memory, in the format written by {@link #saveGame}.
+     * This is cheap enough to do on the game thread; writing the result to disk can
+     * happen later on another thread.
+     *
+     * @return The encoded state, ready to be written to a file
+     */
+    SaveFile.Writer snapshot() {
+        SaveFile.Writer writer = new SaveFile.Writer();
+
+        // Save basic game info
+        writer.writeVarint(currentRound);
+        writer.writeBoolean(gameEnded);
+        writer.writeBoolean(debugMode);
+        writer.writeVarint(maxRounds);
+        writer.writeBoolean(bellTowerEarlyEnd);
+        writer.writeBoolean(bellTowerAnnounced);
+        writer.writeBoolean(crownSwitched);
+        writer.writeLong(random.getSeed());
+        writer.writeLong(random.getGamma());
+
+        // Save characters
+        writer.writeVarint(characterNumber(killedCharacter));
+        writer.writeVarint(characterNumber(robbedCharacter));
+        writer.writeVarint(characterDeck.size());
+        for (CharacterCard card : characterDeck) {
+            writer.writeVarint(card.getNumber());
+        }
+        writer.writeVarint(availableCharacters.size());
+        for (CharacterCard card : availableCharacters) {
+            writer.writeVarint(card.getNumber());
+        }
+        writer.writeVarint(faceUpRemoved.size());
+        for (CharacterCard card : faceUpRemoved) {
+            writer.writeVarint(card.getNumber());
+        }
+
+        // Save cards outside the players' hands and cities
+        writer.writeVarint(districtDeck.size());
+        for (int i = 0; i < districtDeck.size(); i++) {
+            writer.writeCard(districtDeck.get(i));
+        }
+        writer.writeCards(discardPile);
+
+        // Save players
+        writer.writeVarint(players.size());
+        for (Player player : players) {
+            writer.writeVarint(player.getPlayerNumber());
+            writer.writeBoolean(player.isHuman());
+            writer.writeBoolean(player.hasCrown());
+            writer.writeSignedVarint(player.getGold());
+            writer.writeVarint(characterNumber(player.getCharacter()));
+            writer.writeVarint(pickMasks[seatOf(player)]);
+            writer.writeCards(player.getHand());
+            writer.writeCards(player.getCity());
+            List<DistrictCard> stored = museumStorage.get(player);
+            writer.writeCards(stored != null ? stored : new ArrayList<>());
+            writer.writeBoolean(laboratoryUsed.getOrDefault(player, false));
+            writer.writeBoolean(smithyUsed.getOrDefault(player, false));
+            boolean hasRandom = player instanceof AIPlayer;
+            writer.writeBoolean(hasRandom);
+            if (hasRandom) {
+                GameRandom playerRandom = ((AIPlayer) player).getRandom();
+                writer.writeLong(playerRandom.getSeed());
+                writer.writeLong(playerRandom.getGamma());
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Loads a game state from a file written by {@link #saveGame}.
+     * The whole file is read before anything changes, so a file that cannot be
+     * read leaves the game as it was. Every seat that is not human is loaded as an
+     * {@link AIPlayer} that continues with its saved generator.
      *
      * @param filename The name of the file to load from
-     * @throws IOException if there is an error reading from the file
+     * @throws IOException if there is an error reading from the file or it is not a valid save file
      */
     public void loadGame(String filename) throws IOException {
         try {
-            JSONParser parser = new JSONParser();
-            JSONObject gameState;
-            
-            try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-                gameState = (JSONObject) parser.parse(reader);
-            } catch (ParseException e) {
-                throw new IOException("Error parsing save file: " + e.getMessage());
-            }
-            
+            SaveFile.Reader reader = SaveFile.Reader.open(Paths.get(filename));
+
             // Load basic game info
-            currentRound = ((Long) gameState.get("currentRound")).intValue();
-            gameEnded = (Boolean) gameState.get("gameEnded");
-            debugMode = (Boolean) gameState.get("debugMode");
-            
-            // Clear existing game state
-            players.clear();
-            districtDeck.clear();
-            characterDeck.clear();
-            availableCharacters.clear();
-            killedCharacter = null;
-            robbedCharacter = null;
-            
+            int loadedRound = reader.readVarint();
+            boolean loadedEnded = reader.readBoolean();
+            boolean loadedDebug = reader.readBoolean();
+            int loadedMaxRounds = reader.readVarint();
+            boolean loadedBellTowerEarlyEnd = reader.readBoolean();
+            boolean loadedBellTowerAnnounced = reader.readBoolean();
+            boolean loadedCrownSwitched = reader.readBoolean();
+            GameRandom loadedRandom = readRandom(reader);
+
+            // Load characters
+            CharacterCard loadedKilled = readCharacter(reader);
+            CharacterCard loadedRobbed = readCharacter(reader);
+            List<CharacterCard> loadedCharacters = readCharacters(reader);
+            List<CharacterCard> loadedAvailable = readCharacters(reader);
+            List<CharacterCard> loadedFaceUp = readCharacters(reader);
+
+            // Load cards outside the players' hands and cities
+            List<DistrictCard> loadedDeck = reader.readCards();
+            List<DistrictCard> loadedDiscards = reader.readCards();
+
             // Load players
-            JSONArray playersArray = (JSONArray) gameState.get("players");
-            for (Object obj : playersArray) {
-                JSONObject playerObj = (JSONObject) obj;
-                Player player = new Player(
-                    ((Long) playerObj.get("playerNumber")).intValue(),
-                    (Boolean) playerObj.get("isHuman")
-                );
-                player.setHasCrown((Boolean) playerObj.get("hasCrown"));
-                player.addGold(((Long) playerObj.get("gold")).intValue());
-                
-                // Load character
-                if (playerObj.containsKey("character")) {
-                    JSONObject characterObj = (JSONObject) playerObj.get("character");
-                    CharacterCard character = new CharacterCard(
-                        (String) characterObj.get("name"),
-                        ((Long) characterObj.get("number")).intValue(),
-                        (String) characterObj.get("specialAbility")
-                    );
-                    player.setCharacter(character);
+            int playerCount = reader.readCount();
+            if (playerCount < 4 || playerCount > 7) {
+                throw new IOException("Save file has " + playerCount + " players");
+            }
+            List<Player> loadedPlayers = new ArrayList<>(playerCount);
+            Map<Player, List<DistrictCard>> loadedMuseum = new HashMap<>();
+            Map<Player, Boolean> loadedLaboratory = new HashMap<>();
+            Map<Player, Boolean> loadedSmithy = new HashMap<>();
+            int[] loadedPickMasks = new int[playerCount];
+            for (int i = 0; i < playerCount; i++) {
+                int playerNumber = reader.readVarint();
+                boolean isHuman = reader.readBoolean();
+                boolean hasCrown = reader.readBoolean();
+                int gold = reader.readSignedVarint();
+                CharacterCard character = readCharacter(reader);
+                loadedPickMasks[i] = reader.readVarint();
+                List<DistrictCard> hand = reader.readCards();
+                List<DistrictCard> city = reader.readCards();
+                List<DistrictCard> stored = reader.readCards();
+                boolean usedLaboratory = reader.readBoolean();
+                boolean usedSmithy = reader.readBoolean();
+                GameRandom playerRandom = reader.readBoolean() ? readRandom(reader) : null;
+                if (playerNumber != i + 1) {
+                    throw new IOException("Corrupt save file");
                 }
-                
-                // Load hand
-                JSONArray handArray = (JSONArray) playerObj.get("hand");
-                for (Object cardObj : handArray) {
-                    JSONObject card = (JSONObject) cardObj;
-                    DistrictCard districtCard = new DistrictCard(
-                        (String) card.get("name"),
-                        (String) card.get("color"),
-                        ((Long) card.get("cost")).intValue(),
-                        (String) card.get("specialAbility")
-                    );
-                    player.addToHand(districtCard);
+
+                Player player;
+                if (isHuman) {
+                    player = new Player(playerNumber, true);
+                } else {
+                    player = new AIPlayer(playerNumber, playerRandom != null ? playerRandom : loadedRandom.split());
                 }
-                
-                // Load city
-                JSONArray cityArray = (JSONArray) playerObj.get("city");
-                for (Object cardObj : cityArray) {
-                    JSONObject card = (JSONObject) cardObj;
-                    DistrictCard districtCard = new DistrictCard(
-                        (String) card.get("name"),
-                        (String) card.get("color"),
-                        ((Long) card.get("cost")).intValue(),
-                        (String) card.get("specialAbility")
-                    );
-                    player.buildDistrict(districtCard);
+                player.setHasCrown(hasCrown);
+                player.addGold(gold);
+                player.setCharacter(character);
+                player.getHand().addAll(hand);
+                player.getCity().addAll(city);
+                if (!stored.isEmpty()) {
+                    loadedMuseum.put(player, stored);
                 }
-                
-                players.add(player);
+                if (usedLaboratory) {
+                    loadedLaboratory.put(player, true);
+                }
+                if (usedSmithy) {
+                    loadedSmithy.put(player, true);
+                }
+                loadedPlayers.add(player);
             }
-            
-            System.out.println("Game loaded successfully from " + filename);
-            
-        } catch (IOException e) {
+
+            // Replace the game state
+            currentRound = loadedRound;
+            gameEnded = loadedEnded;
+            debugMode = loadedDebug;
+            maxRounds = loadedMaxRounds;
+            bellTowerEarlyEnd = loadedBellTowerEarlyEnd;
+            bellTowerAnnounced = loadedBellTowerAnnounced;
+            crownSwitched = loadedCrownSwitched;
+            random = loadedRandom;
+            killedCharacter = loadedKilled;
+            robbedCharacter = loadedRobbed;
+            lastDestroyedDistrict = null;
+            lastDestroyedDistrictOwner = null;
+            characterDeck.clear();
+            characterDeck.addAll(loadedCharacters);
+            availableCharacters.clear();
+            availableCharacters.addAll(loadedAvailable);
+            faceUpRemoved.clear();
+            faceUpRemoved.addAll(loadedFaceUp);
+            pickMasks = loadedPickMasks;
+            districtDeck.clear();
+            districtDeck.putAllBottom(loadedDeck);
+            discardPile.clear();
+            discardPile.addAll(loadedDiscards);
+            players.clear();
+            players.addAll(loadedPlayers);
+            museumStorage = loadedMuseum;
+            laboratoryUsed = loadedLaboratory;
+            smithyUsed = loadedSmithy;
+            // The loaded state does not follow from this game's seed, so earlier events no longer apply
+            journal.clear();
+            journalBase = null;
+            journaledSeeds = new long[loadedPlayers.size() + 1];
+            markSeedsJournaled();
+
+            out.println("Game loaded successfully from " + filename);
+
+        } catch (IOException | InvalidPathException e) {
             throw new IOException("Error loading game: " + e.getMessage());
         }
     }
 
+    /**
+     * Gets the number of a character for saving.
+     *
+     * @return The character number, or 0 for no character
+     */
+    private static int characterNumber(CharacterCard character) {
+        return character != null ? character.getNumber() : 0;
+    }
+
+    /**
+     * Reads a character number written with {@link #characterNumber}.
+     *
+     * @return The catalog character card, or null for no character
+     * @throws IOException if the number is not a character
+     */
+    private static CharacterCard readCharacter(SaveFile.Reader reader) throws IOException {
+        int number = reader.readVarint();
+        if (number == 0) {
+            return null;
+        }
+        CharacterRole role = CharacterRole.fromNumber(number);
+        if (role == null) {
+            throw new IOException("Unknown character " + number + " in save file");
+        }
+        return CardCatalog.getInstance().getCharacterCard(role);
+    }
+
+    /**
+     * Reads a list of characters written as their count and numbers.
+     *
+     * @throws IOException if a number is not a character
+     */
+    private static List<CharacterCard> readCharacters(SaveFile.Reader reader) throws IOException {
+        int count = reader.readCount();
+        List<CharacterCard> characters = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CharacterCard card = readCharacter(reader);
+            if (card == null) {
+                throw new IOException("Corrupt save file");
+            }
+            characters.add(card);
+        }
+        return characters;
+    }
+
+    /**
+     * Reads a generator state written as its seed and gamma.
+     *
+     * @throws IOException if the gamma is not valid
+     */
+    private static GameRandom readRandom(SaveFile.Reader reader) throws IOException {
+        long seed = reader.readLong();
+        long gamma = reader.readLong();
+        if ((gamma & 1) == 0) {
+            throw new IOException("Corrupt save file");
+        }
+        return new GameRandom(seed, gamma);
+    }
+
+    /**
+     * Captures the state of this game into a flat {@link GameState}, replacing what it held.
+     * Output, input, listeners and the journal are not part of the state.
+     *
+     * @param state The state to capture into
+     */
+    void captureState(GameState state) {
+        state.clear();
+        state.add(players.size());
+        state.add(currentRound);
+        state.add((gameEnded ? 1 : 0) | (bellTowerEarlyEnd ? 2 : 0) | (bellTowerAnnounced ? 4 : 0)
+            | (crownSwitched ? 8 : 0) | (debugMode ? 16 : 0));
+        state.add(maxRounds);
+        state.add(characterNumber(killedCharacter));
+        state.add(characterNumber(robbedCharacter));
+        state.addLong(random.getSeed());
+        state.addLong(random.getGamma());
+        addCharacterNumbers(state, characterDeck);
+        addCharacterNumbers(state, availableCharacters);
+        state.add(characterMask(faceUpRemoved));
+        state.add(districtDeck.size());
+        for (int i = 0; i < districtDeck.size(); i++) {
+            state.add(districtDeck.get(i).getId());
+        }
+        addCardIds(state, discardPile);
+        for (Player player : players) {
+            state.add(player.getGold());
+            state.add((player.hasCrown() ? 1 : 0) | (laboratoryUsed.getOrDefault(player, false) ? 2 : 0)
+                | (smithyUsed.getOrDefault(player, false) ? 4 : 0));
+            state.add(characterNumber(player.getCharacter()));
+            state.add(pickMasks[seatOf(player)]);
+            GameRandom playerRandom = player instanceof AIPlayer ? ((AIPlayer) player).getRandom() : null;
+            state.addLong(playerRandom != null ? playerRandom.getSeed() : 0L);
+            state.addLong(playerRandom != null ? playerRandom.getGamma() : 0L);
+            addCardIds(state, player.getHand());
+            addCardIds(state, player.getCity());
+            List<DistrictCard> stored = museumStorage.get(player);
+            if (stored != null) {
+                addCardIds(state, stored);
+            } else {
+                state.add(0);
+            }
+        }
+    }
+
+    /**
+     * Puts this game back in a state captured with {@link #captureState}, from this
+     * game or another game with the same number of players. The players keep their
+     * seats and types; only their gold, cards, character and generator change. The
+     * journal is cleared, since the restored state does not follow from it.
+     *
+     * @param state The state to restore
+     * @throws IllegalArgumentException if the state has a different number of players
+     */
+    void restoreState(GameState state) {
+        if (state.get(0) != players.size()) {
+            throw new IllegalArgumentException("State has " + state.get(0) + " players, game has " + players.size());
+        }
+        CardCatalog catalog = CardCatalog.getInstance();
+        int pos = 1;
+        currentRound = state.get(pos++);
+        int flags = state.get(pos++);
+        gameEnded = (flags & 1) != 0;
+        bellTowerEarlyEnd = (flags & 2) != 0;
+        bellTowerAnnounced = (flags & 4) != 0;
+        crownSwitched = (flags & 8) != 0;
+        debugMode = (flags & 16) != 0;
+        maxRounds = state.get(pos++);
+        killedCharacter = characterForNumber(state.get(pos++));
+        robbedCharacter = characterForNumber(state.get(pos++));
+        random.setState(state.getLong(pos), state.getLong(pos + 2));
+        pos += 4;
+        characterDeck.clear();
+        pos = readCharacterNumbers(state, pos, characterDeck);
+        availableCharacters.clear();
+        pos = readCharacterNumbers(state, pos, availableCharacters);
+        faceUpRemoved.clear();
+        int faceUpMask = state.get(pos++);
+        for (CharacterCard character : characterDeck) {
+            if ((faceUpMask & (1 << character.getNumber())) != 0) {
+                faceUpRemoved.add(character);
+            }
+        }
+        districtDeck.clear();
+        for (int n = state.get(pos++); n > 0; n--) {
+            districtDeck.putBottom(catalog.getCard(state.get(pos++)));
+        }
+        discardPile.clear();
+        pos = readCardIds(state, pos, discardPile);
+        museumStorage.clear();
+        laboratoryUsed.clear();
+        smithyUsed.clear();
+        for (Player player : players) {
+            player.addGold(state.get(pos++) - player.getGold());
+            int playerFlags = state.get(pos++);
+            player.setHasCrown((playerFlags & 1) != 0);
+            if ((playerFlags & 2) != 0) {
+                laboratoryUsed.put(player, true);
+            }
+            if ((playerFlags & 4) != 0) {
+                smithyUsed.put(player, true);
+            }
+            player.setCharacter(characterForNumber(state.get(pos++)));
+            pickMasks[seatOf(player)] = state.get(pos++);
+            if (player instanceof AIPlayer) {
+                ((AIPlayer) player).getRandom().setState(state.getLong(pos), state.getLong(pos + 2));
+            }
+            pos += 4;
+            player.getHand().clear();
+            pos = readCardIds(state, pos, player.getHand());
+            player.getCity().clear();
+            pos = readCardIds(state, pos, player.getCity());
+            if (state.get(pos) > 0) {
+                pos = readCardIds(state, pos, museumStorage.computeIfAbsent(player, k -> new ArrayList<>()));
+            } else {
+                pos++;
+            }
+        }
+        lastDestroyedDistrict = null;
+        lastDestroyedDistrictOwner = null;
+        journal.clear();
+        journalBase = null;
+        markSeedsJournaled();
+    }
+
+    /**
+     * Gives the game's generator and every AI player's generator a new state drawn from
+     * another generator, so that a restored game plays on differently each time.
+     *
+     * @param source The generator the new states are drawn from
+     */
+    void reseed(GameRandom source) {
+        source.splitInto(random);
+        for (Player player : players) {
+            if (player instanceof AIPlayer) {
+                source.splitInto(((AIPlayer) player).getRandom());
+            }
+        }
+    }
+
+    /**
+     * Gets a set of characters as one bit per character number.
+     * @param characters The characters
+     * @return The bit set
+     */
+    static int characterMask(List<CharacterCard> characters) {
+        int mask = 0;
+        for (int i = 0; i < characters.size(); i++) {
+            mask |= 1 << characters.get(i).getNumber();
+        }
+        return mask;
+    }
+
+    /**
+     * Packs the order of up to eight characters into an int, four bits per character number
+     * starting from the lowest bits, as the selection events record it.
+     *
+     * @param characters The characters
+     * @return The packed numbers
+     */
+    static int characterOrder(List<CharacterCard> characters) {
+        int order = 0;
+        for (int i = 0; i < characters.size(); i++) {
+            order |= characters.get(i).getNumber() << (4 * i);
+        }
+        return order;
+    }
+
+    /**
+     * Replaces the characters that are left to choose from with characters in a packed order.
+     *
+     * @param order The character numbers packed by {@link #characterOrder}
+     * @param count The number of characters
+     */
+    private void setCharacterOrder(int order, int count) {
+        availableCharacters.clear();
+        for (int i = 0; i < count; i++) {
+            availableCharacters.add(findCharacterCard(CharacterRole.fromNumber((order >>> (4 * i)) & 0xF)));
+        }
+    }
+
+    private static void addCharacterNumbers(GameState state, List<CharacterCard> characters) {
+        state.add(characters.size());
+        for (int i = 0; i < characters.size(); i++) {
+            state.add(characters.get(i).getNumber());
+        }
+    }
+
+    private static int readCharacterNumbers(GameState state, int pos, List<CharacterCard> characters) {
+        for (int n = state.get(pos++); n > 0; n--) {
+            characters.add(characterForNumber(state.get(pos++)));
+        }
+        return pos;
+    }
+
+    private static void addCardIds(GameState state, List<DistrictCard> cards) {
+        state.add(cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            state.add(cards.get(i).getId());
+        }
+    }
+
+    private static int readCardIds(GameState state, int pos, List<DistrictCard> cards) {
+        CardCatalog catalog = CardCatalog.getInstance();
+        for (int n = state.get(pos++); n > 0; n--) {
+            cards.add(catalog.getCard(state.get(pos++)));
+        }
+        return pos;
+    }
+
+    /**
+     * Gets the catalog character with a number written by {@link #characterNumber}.
+     *
+     * @return The character card, or null for 0
+     */
+    private static CharacterCard characterForNumber(int number) {
+        return number != 0 ? CardCatalog.getInstance().getCharacterCard(CharacterRole.fromNumber(number)) : null;
+    }
+
     /**
      * Displays help information about available commands.
      */
     private void showHelp() {
-        System.out.println("Available commands:");
-        System.out.println("info <H|name> : show information about a character or building");
-        System.out.println("t : processes turns");
-        System.out.println("all : shows all current game info");
-        System.out.println("citadel/list/city [p] : shows districts built by a player");
-        System.out.println("hand : shows cards in hand");
-        System.out.println("gold [p] : shows gold of a player");
-        System.out.println("build <place in hand> : Builds a building into your city");
-        System.out.println("action : Gives info about your special action and how to perform it");
-        System.out.println("end : Ends your turn");
-        System.out.println("save <file> : Save the game to a file");
-        System.out.println("load <file> : Load the game from a file");
-        System.out.println("debug : Toggles debug mode");
-        System.out.println("help : show this help message");
+        out.println("Available commands:");
+        out.println("info <H|name> : show information about a character or building");
+        out.println("t : processes turns");
+        out.println("all : shows all current game info");
+        out.println("citadel/list/city [p] : shows districts built by a player");
+        out.println("hand : shows cards in hand");
+        out.println("gold [p] : shows gold of a player");
+        out.println("build <place in hand> : Builds a building into your city");
+        out.println("action : Gives info about your special action and how to perform it");
+        out.println("end : Ends your turn");
+        if (!isRemote()) {
+            out.println("save <file> : Save the game to a file");
+            out.println("load <file> : Load the game from a file");
+            out.println("debug : Toggles debug mode");
+        }
+        out.println("help : show this help message");
     }
 
     /**
@@ -1508,11 +2180,11 @@ public class Game {
      * @param player The player whose hand to display
      */
     private void showHand(Player player) {
-        System.out.println("You have " + player.getGold() + " gold. Cards in hand:");
+        out.println("You have " + player.getGold() + " gold. Cards in hand:");
         List<DistrictCard> hand = player.getHand();
         for (int i = 0; i < hand.size(); i++) {
             DistrictCard card = hand.get(i);
-            System.out.println((i + 1) + ". " + card);
+            out.println((i + 1) + ". " + card);
         }
     }
 
@@ -1522,9 +2194,9 @@ public class Game {
      * @param player The player whose city to display
      */
     private void showCity(Player player) {
-        System.out.println("Player " + player.getPlayerNumber() + " has built:");
+        out.println("Player " + player.getPlayerNumber() + " has built:");
         for (DistrictCard card : player.getCity()) {
-            System.out.println(card);
+            out.println(card.toString());
         }
     }
 
@@ -1533,15 +2205,15 @@ public class Game {
      */
     private void showAllPlayers() {
         for (Player p : players) {
-            System.out.print("Player " + p.getPlayerNumber());
+            out.print("Player " + p.getPlayerNumber());
             if (p.isHuman()) {
-                System.out.print(" (you)");
+                out.print(" (you)");
             }
-            System.out.print(": cards=" + p.getHand().size() + " gold=" + p.getGold() + " city=");
+            out.print(": cards=" + p.getHand().size() + " gold=" + p.getGold() + " city=");
             for (DistrictCard card : p.getCity()) {
-                System.out.print(card.getName() + " [" + card.getColor() + card.getCost() + "], ");
+                out.print(card.getName() + " [" + card.getColor() + card.getCost() + "], ");
             }
-            System.out.println();
+            out.println();
         }
     }
 
@@ -1551,7 +2223,7 @@ public class Game {
     public void checkGameEnd() {
         for (Player player : players) {
             if (player.getCity().size() >= 8) {
-                gameEnded = true;
+                recordGameEnd();
                 break;
             }
         }
@@ -1564,107 +2236,97 @@ public class Game {
      * Handles the end of the game, calculating and displaying final scores.
      */
     public void endGame() {
-        System.out.println("\n================================");
-        System.out.println("GAME ENDED");
-        System.out.println("================================");
+        // The scores and bonuses are only reported, so there is nothing to do without output
+        if (!out.isEnabled()) {
+            return;
+        }
+        out.println("\n================================");
+        out.println("GAME ENDED");
+        out.println("================================");
         
         // Calculate and display scores
-        int maxScore = 0;
-        Player winner = null;
-        
         for (Player player : players) {
-            int score = player.calculateScore();
-            System.out.println("Player " + player.getPlayerNumber() + " score: " + score);
-            
-            if (score > maxScore) {
-                maxScore = score;
-                winner = player;
-            }
+            out.println("Player " + player.getPlayerNumber() + " score: " + player.calculateScore());
         }
         
+        Player winner = findWinner();
         if (winner != null) {
-            System.out.println("\nPlayer " + winner.getPlayerNumber() + " wins!");
+            out.println("\nPlayer " + winner.getPlayerNumber() + " wins!");
         } else {
-            System.out.println("\nNo winner - game ended in a tie!");
+            out.println("\nNo winner - game ended in a tie!");
         }
 
         // After calculating base score
         // Add purple card end-game bonuses
         for (Player player : players) {
             int bonus = 0;
-            for (DistrictCard card : player.getCity()) {
-                switch (card.getName()) {
-                    case "Dragon Gate":
-                    case "University":
-                        bonus += 8 - card.getCost(); // Already counted cost, add extra
-                        break;
-                    case "Imperial Treasury":
-                        bonus += player.getGold();
-                        break;
-                    case "Map Room":
-                        bonus += player.getHand().size();
-                        break;
-                    case "Wishing Well":
-                        long otherPurples = player.getCity().stream().filter(c -> c.getColor().equals("purple") && !c.getName().equals("Wishing Well")).count();
-                        bonus += otherPurples;
-                        break;
-                    case "Museum":
-                        if (museumStorage.containsKey(player)) {
-                            bonus += museumStorage.get(player).size();
-                        }
-                        break;
-                    // Add more as needed
+            if (!player.getAbilities().isEmpty()) {
+                for (DistrictCard card : player.getCity()) {
+                    if (card.getPurpleAbility() != null) {
+                        bonus += card.getPurpleAbility().endGameBonus(this, player, card);
+                    }
                 }
             }
             if (bonus > 0) {
-                System.out.println("Player " + player.getPlayerNumber() + " received " + bonus + " bonus points from purple cards.");
+                out.println("Player " + player.getPlayerNumber() + " received " + bonus + " bonus points from purple cards.");
+            }
+        }
+    }
+
+    /**
+     * Finds the player with the highest score.
+     *
+     * @return The first player with the strictly highest positive score, or null if nobody scored
+     */
+    Player findWinner() {
+        int maxScore = 0;
+        Player winner = null;
+        for (Player player : players) {
+            int score = player.calculateScore();
+            if (score > maxScore) {
+                maxScore = score;
+                winner = player;
             }
         }
+        return winner;
     }
 
     // Restore missing AI and utility methods
     private void handleStartOfTurnAbilitiesAI(Player player) {
-        String characterName = player.getCharacter().getName();
-        if (characterName.equals("Assassin")) {
-            int choice = 2 + (int)(Math.random() * 7); // 2-8
-            String targetCharacter = getCharacterName(choice);
-            killedCharacter = findCharacterCard(targetCharacter);
+        CharacterRole role = roleOf(player);
+        if (role == CharacterRole.ASSASSIN) {
+            int choice = 2 + random.nextInt(7); // 2-8
+            record(GameJournal.KILL, seatOf(player), choice, 0);
         }
-        if (characterName.equals("Thief")) {
-            int choice = 3 + (int)(Math.random() * 6); // 3-8
-            String targetCharacter = getCharacterName(choice);
-            robbedCharacter = findCharacterCard(targetCharacter);
+        if (role == CharacterRole.THIEF) {
+            int choice = 3 + random.nextInt(6); // 3-8
+            record(GameJournal.ROB, seatOf(player), choice, 0);
         }
         // Handle district-based gold bonuses (only after first turn)
         if (currentRound > 1) {
-            int bonusGold = 0;
-            switch (characterName) {
-                case "King":
-                    bonusGold = countDistrictsByColor(player, "yellow");
-                    break;
-                case "Bishop":
-                    bonusGold = countDistrictsByColor(player, "blue");
-                    break;
-                case "Merchant":
-                    bonusGold = countDistrictsByColor(player, "green") + 1; // +1 for merchant bonus
-                    break;
-                case "Warlord":
-                    bonusGold = countDistrictsByColor(player, "red");
-                    break;
-            }
+            int bonusGold = characterIncome(player, role);
             if (bonusGold > 0) {
-                player.addGold(bonusGold);
+                gainGold(player, bonusGold);
             }
         }
     }
 
-    private boolean shouldAITakeGold(Player player) {
-        // AI logic: take gold if:
-        // 1. Hand is empty or almost empty
+    /**
+     * Decides whether an AI player takes gold rather than cards, with the default heuristic.
+     *
+     * @param player The AI player
+     * @return True to take gold
+     */
+    boolean shouldAITakeGold(Player player) {
+        // AI logic: draw cards if the hand is empty, otherwise take gold if:
+        // 1. Hand is almost empty
         // 2. Has expensive cards in hand
         // 3. Has less than 3 gold and no cheap cards to build
         // 4. Random chance otherwise
-        if (player.getHand().size() <= 1) {
+        if (player.getHand().isEmpty()) {
+            return false;
+        }
+        if (player.getHand().size() == 1) {
             return true;
         }
         
@@ -1678,35 +2340,21 @@ public class Game {
             return true;
         }
         
-        return Math.random() < 0.4; // 40% chance to take gold otherwise
+        return random.nextDouble() < 0.4; // 40% chance to take gold otherwise
     }
 
-    private void drawAndChooseCardAI(Player player) {
-        List<DistrictCard> drawnCards = new ArrayList<>();
-        for (int i = 0; i < 2; i++) {
-            if (!districtDeck.isEmpty()) {
-                drawnCards.add(districtDeck.remove(0));
-            }
-        }
-        // AI logic: choose the most expensive card
-        DistrictCard bestCard = null;
-        int maxCost = -1;
-        for (DistrictCard card : drawnCards) {
-            if (card.getCost() > maxCost) {
-                bestCard = card;
-                maxCost = card.getCost();
-            }
+    void drawAndChooseCardAI(Player player) {
+        if (districtDeck.isEmpty()) {
+            return;
         }
-        if (bestCard != null) {
-            player.addToHand(bestCard);
-            // Return other card to deck
-            for (DistrictCard card : drawnCards) {
-                if (card != bestCard) {
-                    districtDeck.add(card);
-                }
-            }
-            Collections.shuffle(districtDeck);
+        if (districtDeck.size() == 1) {
+            record(GameJournal.DRAW_CHOICE, seatOf(player), 1, 0);
+            return;
         }
+        DistrictCard first = districtDeck.get(0);
+        DistrictCard second = districtDeck.get(1);
+        // AI logic: keep the most expensive card, return the other to the bottom of the deck
+        record(GameJournal.DRAW_CHOICE, seatOf(player), 2, second.getCost() > first.getCost() ? 1 : 0);
     }
 
     private DistrictCard findBestCardToBuild(Player player) {
@@ -1722,51 +2370,497 @@ public class Game {
     }
 
     private boolean shouldAIUseSpecialAbility(Player player) {
-        String characterName = player.getCharacter().getName();
-        switch (characterName) {
-            case "Magician":
+        CharacterRole role = roleOf(player);
+        if (role == null) {
+            return false;
+        }
+        switch (role) {
+            case MAGICIAN:
                 // Use if hand is empty or has bad cards
                 return player.getHand().isEmpty() || player.getHand().stream().allMatch(card -> card.getCost() < 3);
-            case "Architect":
+            case ARCHITECT:
                 // Use if can build multiple districts
                 return player.getGold() >= 6;
-            case "Warlord":
+            case WARLORD:
                 // Use if has enough gold to destroy and has red districts
-                return player.getGold() >= 3 && countDistrictsByColor(player, "red") > 0;
+                return player.getGold() >= 3 && countDistrictsByColor(player, DistrictColor.RED) > 0;
             default:
                 return false;
         }
     }
 
     private void useSpecialAbilityAI(Player player) {
-        String characterName = player.getCharacter().getName();
-        switch (characterName) {
-            case "Magician":
-                // TODO: Implement AI magician ability
+        switch (roleOf(player)) {
+            case MAGICIAN:
+                useMagicianAI(player);
                 break;
-            case "Architect":
+            case ARCHITECT:
                 // Already handled in processAITurn
                 break;
-            case "Warlord":
-                // TODO: Implement AI warlord ability
+            case WARLORD:
+                useWarlordAI(player);
                 break;
         }
     }
 
-    private CharacterCard findCharacterCard(String name) {
-        for (CharacterCard card : characterDeck) {
-            if (card.getName().equals(name)) {
-                return card;
+    /**
+     * Swaps hands with the player holding the most cards if that is more than the
+     * Magician's own hand, otherwise redraws every card that costs less than 3.
+     */
+    private void useMagicianAI(Player player) {
+        Player richest = null;
+        for (Player other : players) {
+            if (other != player && (richest == null || other.getHand().size() > richest.getHand().size())) {
+                richest = other;
+            }
+        }
+        if (richest != null && richest.getHand().size() > player.getHand().size()) {
+            record(GameJournal.SWAP, seatOf(player), seatOf(richest), 0);
+            if (out.isEnabled()) {
+                out.println("Player " + player.getPlayerNumber() + " swapped hands with Player " + richest.getPlayerNumber());
+            }
+            return;
+        }
+        int redrawn = 0;
+        // Redrawn cards go to the end of the hand, so going backwards never meets them
+        for (int i = player.getHand().size() - 1; i >= 0 && !districtDeck.isEmpty(); i--) {
+            if (player.getHand().get(i).getCost() < 3) {
+                record(GameJournal.REDRAW, seatOf(player), i, 0);
+                redrawn++;
+            }
+        }
+        if (redrawn > 0 && out.isEnabled()) {
+            out.println("Player " + player.getPlayerNumber() + " redrew " + redrawn + " cards.");
+        }
+    }
+
+    /**
+     * Destroys the most expensive district the Warlord can afford in the city of the
+     * player with the highest score, looking at the next best player if none can be destroyed.
+     */
+    private void useWarlordAI(Player player) {
+        Player target = null;
+        int targetIndex = -1;
+        int targetScore = Integer.MIN_VALUE;
+        for (Player other : players) {
+            if (other == player) {
+                continue;
+            }
+            int index = -1;
+            List<DistrictCard> city = other.getCity();
+            for (int i = 0; i < city.size(); i++) {
+                DistrictCard district = city.get(i);
+                if (district.getPurpleAbility() != PurpleAbility.KEEP
+                        && destroyCost(other, district) <= player.getGold()
+                        && (index < 0 || district.getCost() > city.get(index).getCost())) {
+                    index = i;
+                }
+            }
+            int score = other.calculateScore();
+            if (index >= 0 && score > targetScore) {
+                target = other;
+                targetIndex = index;
+                targetScore = score;
+            }
+        }
+        if (target == null) {
+            return;
+        }
+        DistrictCard district = target.getCity().get(targetIndex);
+        gainGold(player, -destroyCost(target, district));
+        record(GameJournal.DESTROY, seatOf(target), targetIndex, district.getId());
+        if (out.isEnabled()) {
+            out.println("Player " + player.getPlayerNumber() + " destroyed " + district.getName()
+                + " in Player " + target.getPlayerNumber() + "'s city.");
+        }
+        offerGraveyard(target, district);
+    }
+
+    /**
+     * Gets the gold the Warlord pays to destroy a district: one less than its cost,
+     * or its full cost in a city with the Great Wall.
+     */
+    private static int destroyCost(Player owner, DistrictCard district) {
+        return district.getCost() - 1 + (owner.hasAbility(PurpleAbility.GREAT_WALL) ? 1 : 0);
+    }
+
+    /**
+     * Lets the owner of a district the Warlord destroyed pay 1 gold to take it back into
+     * their hand, if they have the Graveyard and are not the Warlord. A human owner is asked;
+     * an AI owner always takes it back.
+     */
+    private void offerGraveyard(Player owner, DistrictCard district) {
+        if (!owner.hasAbility(PurpleAbility.GRAVEYARD) || roleOf(owner) == CharacterRole.WARLORD
+                || owner.getGold() < 1) {
+            return;
+        }
+        if (owner.isHuman()) {
+            out.println("Player " + owner.getPlayerNumber() + " may pay 1 gold to recover the destroyed district (Graveyard). (yes/no)");
+            if (!readTokenOrEmpty().toLowerCase().startsWith("y")) {
+                return;
+            }
+        }
+        gainGold(owner, -1);
+        record(GameJournal.RECOVER, seatOf(owner), district.getId(), 0);
+        out.println("Recovered " + district.getName() + " to hand (Graveyard).");
+    }
+
+    private CharacterCard findCharacterCard(CharacterRole role) {
+        return CardCatalog.getInstance().getCharacterCard(role);
+    }
+
+    private static CharacterRole roleOf(Player player) {
+        return player.getCharacter() != null ? player.getCharacter().getRole() : null;
+    }
+
+    private static boolean isSameRole(CharacterCard character, CharacterCard other) {
+        return character != null && other != null && character.getRole() == other.getRole();
+    }
+
+    private int characterIncome(Player player, CharacterRole role) {
+        DistrictColor incomeColor = role != null ? role.getIncomeColor() : null;
+        if (incomeColor == null) {
+            return 0;
+        }
+        int income = countDistrictsByColor(player, incomeColor);
+        if (role == CharacterRole.MERCHANT) {
+            income++; // +1 for merchant bonus
+        }
+        return income;
+    }
+
+    /**
+     * Makes a change to the game's state: records it in the journal, applies it and
+     * tells the listeners. Every change to players, the deck or the round goes through
+     * here, so the journal is enough to replay the game.
+     *
+     * @param type The event type, one of the {@link GameJournal} constants
+     * @param seat The 0-based seat of the player the event concerns, or -1
+     * @param value The first argument
+     * @param extra The second argument
+     */
+    void record(int type, int seat, int value, int extra) {
+        journalSeeds();
+        journal.append(type, seat, value, extra);
+        apply(type, seat, value, extra);
+        publish(type, seat, value, extra);
+    }
+
+    /**
+     * Records a {@link GameJournal#RANDOM} event for every generator that has moved on
+     * since the journal last recorded it, so a replay leaves the generators where the
+     * game had them. These events are not sent to the listeners.
+     */
+    private void journalSeeds() {
+        if (random.getSeed() != journaledSeeds[0]) {
+            appendSeed(-1, random.getSeed());
+        }
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (player instanceof AIPlayer) {
+                long seed = ((AIPlayer) player).getRandom().getSeed();
+                if (seed != journaledSeeds[i + 1]) {
+                    appendSeed(i, seed);
+                }
+            }
+        }
+    }
+
+    private void appendSeed(int seat, long seed) {
+        int high = (int) (seed >>> 32);
+        int low = (int) seed;
+        journal.append(GameJournal.RANDOM, seat, high, low);
+        apply(GameJournal.RANDOM, seat, high, low);
+    }
+
+    /**
+     * Notes the generators' current seeds as recorded, after the journal was started or cleared.
+     */
+    private void markSeedsJournaled() {
+        journaledSeeds[0] = random.getSeed();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            journaledSeeds[i + 1] = player instanceof AIPlayer ? ((AIPlayer) player).getRandom().getSeed() : 0L;
+        }
+    }
+
+    /**
+     * Starts the journal again from the current state, which becomes its base, so it
+     * holds only the events since the last checkpoint instead of the whole game.
+     * {@link GameReplayer} restores the base before it applies the events.
+     */
+    void cutJournal() {
+        if (journalBase == null) {
+            journalBase = new GameState();
+        }
+        captureState(journalBase);
+        journal.clear();
+        markSeedsJournaled();
+    }
+
+    /**
+     * Gets the state the journal starts from.
+     *
+     * @return The state when the journal was last cut, or null if it starts when the game was created
+     */
+    GameState getJournalBase() {
+        return journalBase;
+    }
+
+    /**
+     * Tells the listeners about an event without recording it.
+     */
+    private void publish(int type, int seat, int value, int extra) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onEvent(this, type, seat, value, extra);
+        }
+    }
+
+    /**
+     * Makes the change described by an event.
+     *
+     * @throws IllegalArgumentException if the event type is not known
+     * @throws IllegalStateException if the event does not fit the current state
+     */
+    private void apply(int type, int seat, int value, int extra) {
+        Player player = seat >= 0 ? players.get(seat) : null;
+        switch (type) {
+            case GameJournal.PICK: {
+                CharacterCard character = findCharacterCard(CharacterRole.fromNumber(value));
+                pickMasks[seat] = characterMask(availableCharacters);
+                availableCharacters.remove(character);
+                player.setCharacter(character);
+                break;
+            }
+            case GameJournal.GOLD:
+                player.addGold(value);
+                break;
+            case GameJournal.DRAW:
+                for (int i = 0; i < value && !districtDeck.isEmpty(); i++) {
+                    player.addToHand(districtDeck.drawTop());
+                }
+                break;
+            case GameJournal.DRAW_CHOICE:
+                for (int i = 0; i < value; i++) {
+                    DistrictCard card = districtDeck.drawTop();
+                    if (extra < 0 || i == extra) {
+                        player.addToHand(card);
+                    } else {
+                        districtDeck.putBottom(card);
+                    }
+                }
+                break;
+            case GameJournal.BUILD: {
+                DistrictCard card = player.getHand().get(value);
+                if (card.getId() != extra) {
+                    throw new IllegalStateException("Card " + value + " in hand is " + card.getName()
+                        + ", not card " + extra);
+                }
+                player.addGold(-card.getCost());
+                player.getHand().remove(value);
+                player.getCity().add(card);
+                break;
+            }
+            case GameJournal.KILL:
+                killedCharacter = findCharacterCard(CharacterRole.fromNumber(value));
+                break;
+            case GameJournal.ROB:
+                robbedCharacter = findCharacterCard(CharacterRole.fromNumber(value));
+                break;
+            case GameJournal.DESTROY: {
+                DistrictCard card = player.getCity().get(value);
+                if (card.getId() != extra) {
+                    throw new IllegalStateException("District " + value + " in city is " + card.getName()
+                        + ", not card " + extra);
+                }
+                player.getCity().remove(value);
+                break;
+            }
+            case GameJournal.SWAP: {
+                Player other = players.get(value);
+                List<DistrictCard> tempHand = new ArrayList<>(player.getHand());
+                player.getHand().clear();
+                player.getHand().addAll(other.getHand());
+                other.getHand().clear();
+                other.getHand().addAll(tempHand);
+                break;
+            }
+            case GameJournal.REDRAW:
+                player.getHand().remove(value);
+                player.addToHand(districtDeck.drawTop());
+                break;
+            case GameJournal.RECOVER:
+                player.addToHand(CardCatalog.getInstance().getCard(value));
+                break;
+            case GameJournal.LABORATORY:
+                player.getHand().remove(value);
+                player.addGold(1);
+                laboratoryUsed.put(player, true);
+                break;
+            case GameJournal.SMITHY:
+                player.addGold(-2);
+                for (int i = 0; i < 3 && !districtDeck.isEmpty(); i++) {
+                    player.addToHand(districtDeck.drawTop());
+                }
+                smithyUsed.put(player, true);
+                break;
+            case GameJournal.MUSEUM:
+                museumStorage.computeIfAbsent(player, k -> new ArrayList<>()).add(player.getHand().remove(value));
+                break;
+            case GameJournal.ROUND_END:
+                currentRound++;
+                break;
+            case GameJournal.GAME_END:
+                gameEnded = true;
+                break;
+            case GameJournal.SEAT:
+                if (player.isHuman() != (value == 1)) {
+                    throw new IllegalStateException("Seat " + (seat + 1) + " is not "
+                        + (value == 1 ? "a human" : "an AI") + " player");
+                }
+                break;
+            case GameJournal.RANDOM: {
+                long seed = ((long) value << 32) | (extra & 0xFFFFFFFFL);
+                GameRandom generator = seat < 0 ? random : ((AIPlayer) player).getRandom();
+                generator.setState(seed, generator.getGamma());
+                journaledSeeds[seat + 1] = seed;
+                break;
+            }
+            case GameJournal.SELECTION:
+                faceUpRemoved.clear();
+                Arrays.fill(pickMasks, 0);
+                setCharacterOrder(value, extra);
+                break;
+            case GameJournal.SHUFFLE:
+                setCharacterOrder(value, extra);
+                break;
+            case GameJournal.REMOVE: {
+                CharacterCard character = findCharacterCard(CharacterRole.fromNumber(value));
+                availableCharacters.remove(character);
+                if (extra == 1) {
+                    faceUpRemoved.add(character);
+                }
+                break;
             }
+            default:
+                throw new IllegalArgumentException("Unknown event type: " + type);
+        }
+    }
+
+    /**
+     * Ends the game unless it has already ended.
+     */
+    private void recordGameEnd() {
+        if (!gameEnded) {
+            record(GameJournal.GAME_END, -1, 0, 0);
         }
-        return null;
     }
 
-    private int countDistrictsByColor(Player player, String color) {
-        int count = (int) player.getCity().stream().filter(card -> card.getColor().equals(color)).count();
+    /**
+     * Gets the 0-based seat of a player, as used by journal events.
+     */
+    private static int seatOf(Player player) {
+        return player.getPlayerNumber() - 1;
+    }
+
+    /**
+     * Returns the journal of every change made to this game since it was created or last loaded.
+     *
+     * @return The journal
+     */
+    public GameJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Registers a listener that is told about every event of this game.
+     *
+     * @param listener The listener
+     */
+    void addEventListener(GameEventListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addEventListener}.
+     *
+     * @param listener The listener
+     */
+    void removeEventListener(GameEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the seed the game's generator had when the game was created.
+     *
+     * @return The initial seed
+     */
+    long getInitialSeed() {
+        return initialSeed;
+    }
+
+    /**
+     * Gets the seed increment of the game's generator.
+     *
+     * @return The gamma value
+     */
+    long getInitialGamma() {
+        return initialGamma;
+    }
+
+    /**
+     * Prints a message to the game output.
+     *
+     * @param message The message
+     */
+    void announce(String message) {
+        out.println(message);
+    }
+
+    /**
+     * Returns true if game output is kept, so callers can skip building messages nobody will see.
+     *
+     * @return True if output is enabled
+     */
+    boolean isOutputEnabled() {
+        return out.isEnabled();
+    }
+
+    /**
+     * Draws cards from the top of the district deck into a player's hand.
+     *
+     * @param player The player
+     * @param count The number of cards to draw; fewer are drawn if the deck runs out
+     */
+    void drawCards(Player player, int count) {
+        record(GameJournal.DRAW, seatOf(player), count, 0);
+    }
+
+    /**
+     * Changes a player's gold.
+     *
+     * @param player The player
+     * @param amount The gold to add, negative to take gold away
+     */
+    void gainGold(Player player, int amount) {
+        record(GameJournal.GOLD, seatOf(player), amount, 0);
+    }
+
+    /**
+     * Gets the number of cards a player has stored under the Museum.
+     *
+     * @param player The player
+     * @return The number of stored cards
+     */
+    int getMuseumCount(Player player) {
+        List<DistrictCard> stored = museumStorage.get(player);
+        return stored != null ? stored.size() : 0;
+    }
+
+    private int countDistrictsByColor(Player player, DistrictColor color) {
+        int count = player.getDistrictCount(color);
         // School of Magic: counts as any color for income
-        boolean hasSchool = player.getCity().stream().anyMatch(c -> c.getName().equals("School Of Magic"));
-        if (hasSchool) count++;
+        if (player.hasAbility(PurpleAbility.SCHOOL_OF_MAGIC)) count++;
         return count;
     }
 
@@ -1801,6 +2895,15 @@ public class Game {
         return players;
     }
 
+    /**
+     * Returns the district deck.
+     *
+     * @return The district deck
+     */
+    DistrictDeck getDistrictDeck() {
+        return districtDeck;
+    }
+
     /**
      * Returns the current round number.
      *
@@ -1837,12 +2940,71 @@ public class Game {
         return robbedCharacter;
     }
 
+    /**
+     * Limits the game to a number of rounds, after which it ends even if nobody has 8 districts.
+     *
+     * @param maxRounds The last round to play, or 0 for no limit
+     */
+    public void setMaxRounds(int maxRounds) {
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Gets the last round to play.
+     *
+     * @return The round limit, or 0 for no limit
+     */
+    int getMaxRounds() {
+        return maxRounds;
+    }
+
+    /**
+     * Puts the game in remote mode, for a human player connected over the network.
+     * Remote players cannot save or load files on the server or turn on debug mode,
+     * which shows the AI players' hands.
+     *
+     * @param remote True to leave out the save, load and debug commands
+     */
+    void setRemote(boolean remote) {
+        this.commands = remote ? REMOTE_COMMANDS : COMMANDS;
+        if (remote) {
+            debugMode = false;
+        }
+    }
+
+    /**
+     * Returns true if the human player is connected over the network.
+     *
+     * @return True if the game is in remote mode
+     */
+    boolean isRemote() {
+        return commands == REMOTE_COMMANDS;
+    }
+
+    /**
+     * Returns true if debug mode, which shows the AI players' hands, is on.
+     *
+     * @return True if debug mode is on
+     */
+    boolean isDebugMode() {
+        return debugMode;
+    }
+
+    /**
+     * Turns debug mode on or off.
+     *
+     * @param debugMode True to show the AI players' hands
+     */
+    void setDebugMode(boolean debugMode) {
+        this.debugMode = debugMode;
+    }
+
     /**
      * Forces the game to end.
      * Used primarily for testing.
      */
     public void forceEndGame() {
-        this.gameEnded = true;
+        recordGameEnd();
     }
 
     /**
@@ -0,0 +1,661 @@
+package citadels;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Serves Citadels games over HTTP with JSON responses, using the JDK's built-in
+ * {@link HttpServer}.
+ * <p>
+ * Each game is a {@link GameSession} between the client, in seat 1, and AI players,
+ * kept by a {@link SessionRegistry} that moves idle games to disk.
+ * The commands the console reads have typed endpoints, so a client no longer has to
+ * read the game's console text to know what happened:
+ * <ul>
+ *   <li>{@code POST /games?players=N} creates a game and returns its id.</li>
+ *   <li>{@code POST /games/{id}/build?district=N}, {@code POST /games/{id}/action/{name}}
+ *       and {@code POST /games/{id}/end} send the {@code build}, {@code action} and
+ *       {@code end} commands. Action parameters are named: {@code character} for kill
+ *       and steal, {@code player} for swap, {@code cards} (a comma separated list) for
+ *       redraw, {@code player} and {@code district} for destroy and armory, and
+ *       {@code card} for museum and laboratory.</li>
+ *   <li>{@code POST /games/{id}/input} sends the request body as one line, for the
+ *       prompts that have no command: a character name, {@code gold} or {@code cards},
+ *       a number, {@code yes} or {@code no}, or {@code t} to continue between turns.
+ *       Any other line is refused, so the input cannot carry other commands.</li>
+ *   <li>{@code GET /games/{id}/gold[?player=N]}, {@code GET /games/{id}/hand} and
+ *       {@code GET /games/{id}/all} read the game without sending it anything.</li>
+ *   <li>{@code DELETE /games/{id}} ends a game and {@code GET /metrics} reports the
+ *       latency of each endpoint.</li>
+ * </ul>
+ * A command's response holds the lines the game printed since the previous
+ * response and the client's state, read once the game has carried out the command
+ * and waits for input again. Reads are answered by the session's worker between two
+ * of the game's reads, so they see a consistent game without locking it.
+ * <p>
+ * Responses have a length, so clients keep their connections open between requests.
+ * Handlers mostly wait for a game's worker, so on Java 21 and later each exchange
+ * runs on a virtual thread; older runtimes fall back to a cached pool of daemon threads.
+ */
+public class GameApiServer implements AutoCloseable {
+    /** Port used when none is given on the command line */
+    public static final int DEFAULT_PORT = 8080;
+
+    /** How long a request waits for a game to answer */
+    private static final long ANSWER_TIMEOUT_SECONDS = 30;
+
+    /** Longest request body read, in bytes */
+    private static final int MAX_BODY = 4096;
+
+    /** Parameters of each action, in the order the command takes them */
+    private static final Map<String, String[]> ACTION_PARAMETERS = new HashMap<>();
+
+    static {
+        ACTION_PARAMETERS.put("kill", new String[] {"character"});
+        ACTION_PARAMETERS.put("steal", new String[] {"character"});
+        ACTION_PARAMETERS.put("swap", new String[] {"player"});
+        ACTION_PARAMETERS.put("redraw", new String[] {"cards"});
+        ACTION_PARAMETERS.put("destroy", new String[] {"player", "district"});
+        ACTION_PARAMETERS.put("museum", new String[] {"card"});
+        ACTION_PARAMETERS.put("armory", new String[] {"player", "district"});
+        ACTION_PARAMETERS.put("laboratory", new String[] {"card"});
+        ACTION_PARAMETERS.put("smithy", new String[0]);
+    }
+
+    /** A comma separated list of card numbers */
+    private static final Pattern CARD_LIST = Pattern.compile("\\d+(,\\d+)*");
+
+    /** The answers to prompts that have no command, other than character names */
+    private static final Pattern PROMPT_ANSWER = Pattern.compile("(?i)(t|gold|cards|yes|no|y|n|\\d{1,3})?");
+
+    /** The HTTP server */
+    private final HttpServer server;
+
+    /** Runs the exchanges and the games */
+    private final ExecutorService executor;
+
+    /** True if exchanges and games run on virtual threads */
+    private final boolean virtualThreads;
+
+    /** Keeps the games' sessions */
+    private final SessionRegistry sessions;
+
+    /** The games by id */
+    private final Map<Long, HostedGame> games = new ConcurrentHashMap<>();
+
+    /** Latency by endpoint, named by method and path template */
+    private final Map<String, LatencyStats> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a server listening on the loopback interface. Idle games are kept in a
+     * new temporary directory.
+     *
+     * @param port The port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public GameApiServer(int port) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+            new SessionRegistry(Files.createTempDirectory("citadels-sessions"),
+                SessionRegistry.DEFAULT_MAX_RESIDENT, SessionRegistry.DEFAULT_IDLE_MILLIS).start());
+    }
+
+    /**
+     * Creates a server for the games of a registry. The server closes the registry when it is closed.
+     *
+     * @param address The address to listen on
+     * @param sessions Keeps the games' sessions
+     * @throws IOException if the address cannot be bound
+     */
+    GameApiServer(InetSocketAddress address, SessionRegistry sessions) throws IOException {
+        this.sessions = sessions;
+        this.server = HttpServer.create(address, 1024);
+        ExecutorService virtual = GameServer.newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "citadels-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts serving requests.
+     *
+     * @return This server
+     */
+    public GameApiServer start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the number of games that have not been deleted.
+     *
+     * @return The number of games
+     */
+    public int getGameCount() {
+        return games.size();
+    }
+
+    /**
+     * Returns true if exchanges and games run on virtual threads.
+     *
+     * @return True on Java 21 and later
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Stops serving requests and ends every game.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        sessions.close();
+        games.clear();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Answers one request and records its latency under its endpoint.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String endpoint = null;
+        int status;
+        String body;
+        try {
+            Request request = new Request(exchange);
+            endpoint = request.endpoint();
+            body = dispatch(request);
+            status = request.method.equals("POST") && request.parts.length == 1 ? 201 : 200;
+        } catch (ApiException e) {
+            status = e.status;
+            body = new JsonWriter().beginObject().field("error", e.getMessage()).endObject().toString();
+        } catch (RuntimeException e) {
+            status = 500;
+            body = new JsonWriter().beginObject().field("error", String.valueOf(e.getMessage())).endObject().toString();
+        }
+        try {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+            // Paths that match no endpoint share one entry, so clients cannot grow the map
+            if (endpoint == null || status == 404 || status == 405) {
+                endpoint = "unmatched";
+            }
+            metrics.computeIfAbsent(endpoint, name -> new LatencyStats()).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Routes a request to its endpoint.
+     * @return The response body
+     */
+    private String dispatch(Request request) {
+        String[] parts = request.parts;
+        if (parts.length == 1 && parts[0].equals("metrics")) {
+            request.require("GET");
+            return metricsJson();
+        }
+        if (parts.length == 0 || !parts[0].equals("games")) {
+            throw new ApiException(404, "No such endpoint");
+        }
+        if (parts.length == 1) {
+            request.require("POST");
+            return createGame(request);
+        }
+        HostedGame game = games.get(parseId(parts[1]));
+        if (game == null) {
+            throw new ApiException(404, "No such game");
+        }
+        if (parts.length == 2) {
+            request.require("DELETE");
+            games.remove(game.id);
+            sessions.remove(game.id);
+            return new JsonWriter().beginObject().field("game", game.id).field("deleted", true).endObject().toString();
+        }
+        if (parts.length == 4 && parts[2].equals("action")) {
+            request.require("POST");
+            return command(game, actionLine(parts[3], request));
+        }
+        if (parts.length == 3) {
+            switch (parts[2]) {
+                case "build":
+                    request.require("POST");
+                    return command(game, "build " + request.intParameter("district"));
+                case "end":
+                    request.require("POST");
+                    return command(game, "end");
+                case "input":
+                    request.require("POST");
+                    return command(game, inputLine(request));
+                case "gold":
+                    request.require("GET");
+                    return ask(game, g -> goldJson(g, request.optionalIntParameter("player")));
+                case "hand":
+                    request.require("GET");
+                    return ask(game, GameApiServer::handJson);
+                case "all":
+                    request.require("GET");
+                    return ask(game, GameApiServer::allJson);
+                default:
+                    break;
+            }
+        }
+        throw new ApiException(404, "No such endpoint");
+    }
+
+    private String createGame(Request request) {
+        Integer players = request.optionalIntParameter("players");
+        int numPlayers = players != null ? players : 4;
+        if (numPlayers < 4 || numPlayers > 7) {
+            throw new ApiException(400, "Number of players must be between 4 and 7");
+        }
+        HostedGame game = new HostedGame();
+        game.id = sessions.create(numPlayers, game);
+        games.put(game.id, game);
+        return new JsonWriter().beginObject()
+            .field("game", game.id)
+            .field("players", numPlayers)
+            .endObject().toString();
+    }
+
+    private static String actionLine(String name, Request request) {
+        String[] parameters = ACTION_PARAMETERS.get(name);
+        if (parameters == null) {
+            throw new ApiException(404, "No such action: " + name);
+        }
+        StringBuilder line = new StringBuilder("action ").append(name);
+        for (String parameter : parameters) {
+            if (parameter.equals("cards")) {
+                String cards = request.parameter(parameter);
+                if (cards == null || !CARD_LIST.matcher(cards).matches()) {
+                    throw new ApiException(400, "Parameter cards must be a comma separated list of card numbers");
+                }
+                line.append(' ').append(cards);
+            } else {
+                line.append(' ').append(request.intParameter(parameter));
+            }
+        }
+        return line.toString();
+    }
+
+    private static String inputLine(Request request) {
+        String line = request.body().trim();
+        if (line.indexOf('\n') >= 0 || line.indexOf('\r') >= 0) {
+            throw new ApiException(400, "Input must be a single line");
+        }
+        if (!PROMPT_ANSWER.matcher(line).matches() && CharacterRole.fromName(line) == null) {
+            throw new ApiException(400, "Input must be a character, gold, cards, a number, yes, no or t");
+        }
+        return line;
+    }
+
+    /**
+     * Sends a command line to a game and waits for the game to carry it out.
+     * @return The response body
+     */
+    private String command(HostedGame game, String line) {
+        if (sessions.isGameEnded(game.id)) {
+            throw new ApiException(409, "Game is over");
+        }
+        if (!sessions.offer(game.id, line)) {
+            throw new ApiException(503, "Game is busy");
+        }
+        return ask(game, g -> {
+            JsonWriter json = new JsonWriter().beginObject()
+                .field("game", game.id)
+                .field("command", line)
+                .name("output").beginArray();
+            for (String text : game.takeOutputLines()) {
+                json.value(text);
+            }
+            json.endArray()
+                .field("round", g.getCurrentRound())
+                .field("gameEnded", g.isGameEnded())
+                .name("player");
+            writePlayer(json, g, human(g), true);
+            return json.endObject().toString();
+        });
+    }
+
+    /**
+     * Asks a game's worker a question and waits for the answer.
+     * @return The response body
+     */
+    private String ask(HostedGame game, Function<Game, String> question) {
+        try {
+            return sessions.query(game.id, question).get(ANSWER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(503, "Interrupted");
+        } catch (UncheckedIOException e) {
+            throw new ApiException(500, e.getMessage());
+        } catch (TimeoutException e) {
+            throw new ApiException(504, "Game did not answer in time");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new ApiException(503, "Game is busy or closed");
+            }
+            if (e.getCause() instanceof ApiException) {
+                throw (ApiException) e.getCause();
+            }
+            throw new IllegalStateException("Reading the game failed", e.getCause());
+        }
+    }
+
+    private static String goldJson(Game game, Integer playerNumber) {
+        Player player = playerNumber != null ? player(game, playerNumber) : human(game);
+        return new JsonWriter().beginObject()
+            .field("player", player.getPlayerNumber())
+            .field("gold", player.getGold())
+            .endObject().toString();
+    }
+
+    private static String handJson(Game game) {
+        Player player = human(game);
+        JsonWriter json = new JsonWriter().beginObject()
+            .field("player", player.getPlayerNumber())
+            .field("gold", player.getGold())
+            .name("hand");
+        writeCards(json, player.getHand());
+        return json.endObject().toString();
+    }
+
+    private static String allJson(Game game) {
+        JsonWriter json = new JsonWriter().beginObject()
+            .field("round", game.getCurrentRound())
+            .field("gameEnded", game.isGameEnded())
+            .name("players").beginArray();
+        for (Player player : game.getPlayers()) {
+            writePlayer(json, game, player, player.isHuman());
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    /**
+     * Writes what the client may know of a player: everything public, and the
+     * character if it is the client's own, or once its turn has come unless it
+     * was killed, since a killed character's turn is skipped without showing who
+     * holds it.
+     */
+    private static void writePlayer(JsonWriter json, Game game, Player player, boolean own) {
+        CharacterCard character = player.getCharacter();
+        CharacterCard killed = game.getKilledCharacter();
+        boolean shown = character != null && (own || character.getNumber() <= game.getTurnCharacter()
+            && (killed == null || killed.getNumber() != character.getNumber()));
+        json.beginObject()
+            .field("player", player.getPlayerNumber())
+            .field("human", player.isHuman())
+            .field("crown", player.hasCrown())
+            .field("gold", player.getGold())
+            .field("cards", player.getHand().size())
+            .field("character", shown ? character.getName() : null)
+            .name("city");
+        writeCards(json, player.getCity());
+        json.endObject();
+    }
+
+    private static void writeCards(JsonWriter json, List<DistrictCard> cards) {
+        json.beginArray();
+        for (int i = 0; i < cards.size(); i++) {
+            DistrictCard card = cards.get(i);
+            json.beginObject()
+                .field("number", i + 1)
+                .field("name", card.getName())
+                .field("color", card.getColor())
+                .field("cost", card.getCost())
+                .endObject();
+        }
+        json.endArray();
+    }
+
+    private static Player human(Game game) {
+        for (Player player : game.getPlayers()) {
+            if (player.isHuman()) {
+                return player;
+            }
+        }
+        throw new ApiException(409, "Game has no human player");
+    }
+
+    private static Player player(Game game, int playerNumber) {
+        if (playerNumber < 1 || playerNumber > game.getPlayers().size()) {
+            throw new ApiException(400, "No such player: " + playerNumber);
+        }
+        return game.getPlayers().get(playerNumber - 1);
+    }
+
+    private String metricsJson() {
+        JsonWriter json = new JsonWriter().beginObject();
+        for (Map.Entry<String, LatencyStats> entry : new TreeMap<>(metrics).entrySet()) {
+            json.name(entry.getKey());
+            entry.getValue().writeTo(json);
+        }
+        return json.endObject().toString();
+    }
+
+    private static long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "No such game");
+        }
+    }
+
+    /**
+     * Gets the latency statistics of an endpoint.
+     * @param endpoint The method and path template, for example {@code GET /games/{id}/hand}
+     * @return The statistics, or null if the endpoint has had no requests
+     */
+    LatencyStats getLatency(String endpoint) {
+        return metrics.get(endpoint);
+    }
+
+    /**
+     * A game hosted by the server, which collects what the game prints.
+     */
+    private static final class HostedGame implements SessionListener {
+        /** The game's id in the registry */
+        private volatile long id;
+
+        /** Text the game printed that no response has returned yet; used only by the game's worker */
+        private final StringBuilder output = new StringBuilder();
+
+        @Override
+        public void onOutput(String text) {
+            output.append(text);
+        }
+
+        /**
+         * Takes the printed text as lines. Called on the worker.
+         */
+        private String[] takeOutputLines() {
+            if (output.length() == 0) {
+                return new String[0];
+            }
+            String[] lines = output.toString().split("\n");
+            output.setLength(0);
+            return lines;
+        }
+    }
+
+    /**
+     * The parts of an exchange that routing needs.
+     */
+    private static final class Request {
+        /** The exchange */
+        private final HttpExchange exchange;
+
+        /** The request method */
+        private final String method;
+
+        /** The path split into its non-empty segments */
+        private final String[] parts;
+
+        /** The decoded query parameters */
+        private final Map<String, String> parameters = new HashMap<>();
+
+        private Request(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String trimmed = path.replaceAll("^/+|/+$", "");
+            this.parts = trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String pair : query.split("&")) {
+                    int eq = pair.indexOf('=');
+                    if (eq > 0) {
+                        parameters.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Names the endpoint by method and path template, so the games of one
+         * endpoint share its statistics.
+         */
+        private String endpoint() {
+            StringBuilder name = new StringBuilder(method).append(' ');
+            for (int i = 0; i < parts.length; i++) {
+                name.append('/').append(i == 1 && parts[0].equals("games") ? "{id}" : parts[i]);
+            }
+            if (parts.length == 0) {
+                name.append('/');
+            }
+            return name.toString();
+        }
+
+        private void require(String expected) {
+            if (!method.equals(expected)) {
+                exchange.getResponseHeaders().set("Allow", expected);
+                throw new ApiException(405, "Use " + expected);
+            }
+        }
+
+        private String parameter(String name) {
+            return parameters.get(name);
+        }
+
+        private Integer optionalIntParameter(String name) {
+            String value = parameters.get(name);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Parameter " + name + " must be a number");
+            }
+        }
+
+        private int intParameter(String name) {
+            Integer value = optionalIntParameter(name);
+            if (value == null) {
+                throw new ApiException(400, "Missing parameter " + name);
+            }
+            return value;
+        }
+
+        private String body() {
+            try (InputStream in = exchange.getRequestBody()) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[512];
+                for (int n; (n = in.read(buffer)) > 0; ) {
+                    bytes.write(buffer, 0, n);
+                    if (bytes.size() > MAX_BODY) {
+                        throw new ApiException(413, "Body too long");
+                    }
+                }
+                return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new ApiException(400, "Could not read the body");
+            }
+        }
+
+        private static String decode(String text) {
+            try {
+                return URLDecoder.decode(text, "UTF-8");
+            } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+                throw new ApiException(400, "Malformed query");
+            }
+        }
+    }
+
+    /**
+     * A request that fails with an HTTP status.
+     */
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        /** The response status */
+        private final int status;
+
+        private ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     *
+     * @param args The port to listen on, optional
+     * @throws IOException if the port cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameApiServer server = new GameApiServer(port).start();
+        System.out.println("Citadels HTTP API listening on port " + server.getPort()
+            + (server.usesVirtualThreads() ? " (virtual threads)" : ""));
+    }
+}
@@ -0,0 +1,81 @@
+package citadels;
+
+/**
+ * Runs complete Citadels games between AI players without any console I/O.
+ * The rules are the ones in {@link Game}; the engine only seats AI players,
+ * discards all output and never waits for input, so it can be used for
+ * batch simulations. Every game is driven by its own {@link GameRandom},
+ * so a game is fully determined by its seed.
+ */
+public class GameEngine {
+    /** Default round limit so games where nobody can finish still terminate */
+    public static final int DEFAULT_MAX_ROUNDS = 100;
+
+    /** The number of AI players in each game */
+    private final int numPlayers;
+    /** The last round played before a game is stopped */
+    private int maxRounds = DEFAULT_MAX_ROUNDS;
+
+    /**
+     * Creates a new engine for games with the given number of players.
+     *
+     * @param numPlayers The number of players (between 4 and 7)
+     * @throws IllegalArgumentException if numPlayers is not between 4 and 7
+     */
+    public GameEngine(int numPlayers) {
+        if (numPlayers < 4 || numPlayers > 7) {
+            throw new IllegalArgumentException("Number of players must be between 4 and 7");
+        }
+        this.numPlayers = numPlayers;
+    }
+
+    /**
+     * Gets the number of players in each game.
+     * @return The number of players
+     */
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /**
+     * Sets the round limit for each game.
+     * @param maxRounds The last round to play, must be positive
+     */
+    public void setMaxRounds(int maxRounds) {
+        if (maxRounds < 1) {
+            throw new IllegalArgumentException("Round limit must be positive");
+        }
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Creates a new game where every seat is an AI player and output is discarded.
+     * @param seed The seed of the game's random generator
+     * @return The game, ready to be started
+     */
+    Game newGame(long seed) {
+        Game game = new Game(numPlayers, null, SilentOutput.INSTANCE,
+                AIPlayer::new, new GameRandom(seed));
+        game.setMaxRounds(maxRounds);
+        return game;
+    }
+
+    /**
+     * Plays one full game to the end with a random seed.
+     * @return The result of the game
+     */
+    public GameResult playGame() {
+        return playGame(new GameRandom().nextLong());
+    }
+
+    /**
+     * Plays one full game to the end. Playing the same seed again gives the same game.
+     * @param seed The seed of the game's random generator
+     * @return The result of the game
+     */
+    public GameResult playGame(long seed) {
+        Game game = newGame(seed);
+        game.startGame();
+        return GameResult.of(game, seed);
+    }
+}
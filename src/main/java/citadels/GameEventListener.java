@@ -0,0 +1,18 @@
+package citadels;
+
+/**
+ * Receives every event of a game as it happens, after its change has been made.
+ * The event types and arguments are those of {@link GameJournal}.
+ */
+@FunctionalInterface
+interface GameEventListener {
+    /**
+     * Called for each event.
+     * @param game The game the event happened in
+     * @param type The event type
+     * @param seat The 0-based seat of the player the event concerns, or -1
+     * @param value The first argument
+     * @param extra The second argument
+     */
+    void onEvent(Game game, int type, int seat, int value, int extra);
+}
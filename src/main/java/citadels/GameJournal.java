@@ -0,0 +1,185 @@
+package citadels;
+
+import java.util.Arrays;
+
+/**
+ * Append-only log of every change made to a game's state.
+ * <p>
+ * Each event is a type, the 0-based seat of the player it concerns (or -1) and
+ * two integer arguments, packed into one growing int array so recording an event
+ * does not allocate. The meaning of the arguments is given with each event type.
+ * The journal never stores cards directly: hand and city positions and card IDs
+ * are enough, because the district deck's order follows from the game's seed.
+ * Together with that seed, or with the state it was last cut at, the journal
+ * rebuilds the game with {@link GameReplayer}.
+ */
+public final class GameJournal {
+    /** A player took a character card; value is the character number */
+    public static final int PICK = 1;
+    /** A player's gold changed; value is the signed amount */
+    public static final int GOLD = 2;
+    /** A player drew cards from the top of the deck; value is the number of cards */
+    public static final int DRAW = 3;
+    /**
+     * A player drew cards to choose from; value is the number drawn and extra the
+     * index of the card kept, or -1 to keep them all. The others go to the bottom of the deck.
+     */
+    public static final int DRAW_CHOICE = 4;
+    /** A player built a district; value is its hand index and extra its card ID */
+    public static final int BUILD = 5;
+    /** The Assassin chose a target; value is the character number */
+    public static final int KILL = 6;
+    /** The Thief chose a target; value is the character number */
+    public static final int ROB = 7;
+    /** A district was removed from a player's city; value is its city index and extra its card ID */
+    public static final int DESTROY = 8;
+    /** The Magician swapped hands; value is the other player's seat */
+    public static final int SWAP = 9;
+    /** The Magician replaced a card with the top card of the deck; value is its hand index */
+    public static final int REDRAW = 10;
+    /** A destroyed district went back to its owner's hand (Graveyard); value is its card ID */
+    public static final int RECOVER = 11;
+    /** A card was discarded for 1 gold (Laboratory); value is its hand index */
+    public static final int LABORATORY = 12;
+    /** 2 gold were paid to draw 3 cards (Smithy) */
+    public static final int SMITHY = 13;
+    /** A card was stored under the Museum; value is its hand index */
+    public static final int MUSEUM = 14;
+    /** A round ended and the next one began; value is the round that ended */
+    public static final int ROUND_END = 15;
+    /** The game ended */
+    public static final int GAME_END = 16;
+    /**
+     * A character's turn began; value is the character number. This event is only
+     * sent to listeners and is not recorded, since it changes nothing. It is not sent
+     * for the killed character, so who held it stays hidden.
+     */
+    public static final int REVEAL = 17;
+    /** A seat was filled when the game was created; value is 1 for a human player and 0 for an AI */
+    public static final int SEAT = 18;
+    /**
+     * A random generator moved on; seat is -1 for the game's generator, and value and
+     * extra are the high and low halves of its new seed. This event is not sent to listeners.
+     */
+    public static final int RANDOM = 19;
+    /**
+     * The characters were shuffled for a new round; value is their numbers in order,
+     * four bits each starting from the lowest, and extra is how many there are
+     */
+    public static final int SELECTION = 20;
+    /** The characters left to choose from were shuffled again; value and extra as for SELECTION */
+    public static final int SHUFFLE = 21;
+    /** A character was removed before choosing; value is its number and extra is 1 if it is face up */
+    public static final int REMOVE = 22;
+
+    /** Names of the event types, indexed by type */
+    private static final String[] NAMES = {
+        null, "PICK", "GOLD", "DRAW", "DRAW_CHOICE", "BUILD", "KILL", "ROB", "DESTROY",
+        "SWAP", "REDRAW", "RECOVER", "LABORATORY", "SMITHY", "MUSEUM", "ROUND_END", "GAME_END", "REVEAL",
+        "SEAT", "RANDOM", "SELECTION", "SHUFFLE", "REMOVE"
+    };
+
+    /** Number of ints stored per event */
+    private static final int EVENT_SIZE = 4;
+
+    /** Events as consecutive groups of type, seat, value and extra */
+    private int[] events = new int[64 * EVENT_SIZE];
+
+    /** Number of events recorded */
+    private int size;
+
+    /**
+     * Appends an event.
+     * @param type The event type
+     * @param seat The 0-based seat of the player, or -1
+     * @param value The first argument
+     * @param extra The second argument
+     */
+    void append(int type, int seat, int value, int extra) {
+        int offset = size * EVENT_SIZE;
+        if (offset == events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        events[offset] = type;
+        events[offset + 1] = seat;
+        events[offset + 2] = value;
+        events[offset + 3] = extra;
+        size++;
+    }
+
+    /**
+     * Removes every event.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Gets the number of recorded events.
+     * @return The number of events
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the type of an event.
+     * @param index The event index, 0 is the first event
+     * @return The event type
+     */
+    public int type(int index) {
+        return events[offset(index)];
+    }
+
+    /**
+     * Gets the seat of the player an event concerns.
+     * @param index The event index
+     * @return The 0-based seat, or -1 if the event concerns no player
+     */
+    public int seat(int index) {
+        return events[offset(index) + 1];
+    }
+
+    /**
+     * Gets the first argument of an event.
+     * @param index The event index
+     * @return The value
+     */
+    public int value(int index) {
+        return events[offset(index) + 2];
+    }
+
+    /**
+     * Gets the second argument of an event.
+     * @param index The event index
+     * @return The extra value
+     */
+    public int extra(int index) {
+        return events[offset(index) + 3];
+    }
+
+    /**
+     * Gets the name of an event type.
+     * @param type The event type
+     * @return The name, or "UNKNOWN" if the type is not known
+     */
+    public static String typeName(int type) {
+        return type > 0 && type < NAMES.length ? NAMES[type] : "UNKNOWN";
+    }
+
+    /**
+     * Describes an event, for logs and debugging.
+     * @param index The event index
+     * @return The type name followed by the seat and arguments
+     */
+    public String describe(int index) {
+        return typeName(type(index)) + " " + seat(index) + " " + value(index) + " " + extra(index);
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return index * EVENT_SIZE;
+    }
+}
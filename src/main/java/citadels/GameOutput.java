@@ -0,0 +1,49 @@
+package citadels;
+
+/**
+ * Receives the text a game prints for its players.
+ * Implementations decide whether and when the text reaches a console:
+ * {@link ConsoleOutput} buffers it for a terminal, {@link SilentOutput} drops it
+ * and {@link CapturingOutput} keeps it for tests.
+ * <p>
+ * Callers that build a message only to print it can check {@link #isEnabled()}
+ * first, so that nothing is built when the output is discarded.
+ */
+public interface GameOutput {
+    /**
+     * Prints text without ending the line.
+     * @param text The text to print
+     */
+    void print(String text);
+
+    /**
+     * Prints a line of text.
+     * @param text The text to print
+     */
+    void println(String text);
+
+    /**
+     * Prints an empty line.
+     */
+    default void println() {
+        println("");
+    }
+
+    /**
+     * Reports an error that should be shown even if normal output is buffered.
+     * @param message The error message
+     */
+    void error(String message);
+
+    /**
+     * Writes out any buffered text. The game flushes at the end of each phase
+     * and before it waits for input.
+     */
+    void flush();
+
+    /**
+     * Returns true if printed text is kept. When this is false, printing does nothing.
+     * @return True if output is enabled
+     */
+    boolean isEnabled();
+}
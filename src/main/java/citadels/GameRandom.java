@@ -0,0 +1,177 @@
+package citadels;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splittable pseudo-random generator used for every random decision in a game.
+ * It uses the SplitMix64 algorithm, the same one as {@link java.util.SplittableRandom},
+ * but its state is exposed so a game can be saved and resumed with the exact same
+ * sequence. Each game owns one generator and hands split-off generators to its
+ * AI players, so games never contend on a shared generator and any game can be
+ * replayed from its seed.
+ */
+public class GameRandom {
+    /** Increment of the seed sequence for the root generator */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /** Source of seeds for generators created without an explicit seed */
+    private static final AtomicLong SEEDER =
+            new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+    /** Current seed, advanced by gamma on every draw */
+    private long seed;
+    /** Odd increment of this generator's seed sequence */
+    private long gamma;
+
+    /**
+     * Creates a generator with the given seed.
+     * @param seed The seed
+     */
+    public GameRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Creates a generator with an unpredictable seed.
+     */
+    public GameRandom() {
+        this(mix64(SEEDER.getAndAdd(2 * GOLDEN_GAMMA)));
+    }
+
+    /**
+     * Creates a generator with a known state, as returned by {@link #getSeed()} and {@link #getGamma()}.
+     * @param seed The current seed
+     * @param gamma The seed increment, must be odd
+     */
+    GameRandom(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Gets the current seed of this generator.
+     * @return The seed
+     */
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the seed increment of this generator.
+     * @return The gamma value
+     */
+    long getGamma() {
+        return gamma;
+    }
+
+    /**
+     * Puts this generator back in a known state, as returned by {@link #getSeed()} and {@link #getGamma()}.
+     * @param seed The current seed
+     * @param gamma The seed increment, must be odd
+     */
+    void setState(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Creates a new generator that shares no state with this one.
+     * @return The split-off generator
+     */
+    public GameRandom split() {
+        return new GameRandom(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * Puts another generator in the state that {@link #split()} would give a new one,
+     * without allocating.
+     * @param target The generator to set
+     */
+    void splitInto(GameRandom target) {
+        target.setState(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * Returns a pseudo-random long.
+     * @return The next value
+     */
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * Returns a pseudo-random int between 0 (inclusive) and bound (exclusive).
+     * @param bound The upper bound, must be positive
+     * @return The next value
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive");
+        }
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+            // Reject values from the incomplete last interval
+        }
+        return r;
+    }
+
+    /**
+     * Returns a pseudo-random double between 0 (inclusive) and 1 (exclusive).
+     * @return The next value
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Shuffles a list in place with a Fisher-Yates shuffle.
+     * @param list The list to shuffle
+     */
+    public <T> void shuffle(List<T> list) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            list.set(i, list.set(j, list.get(i)));
+        }
+    }
+
+    /**
+     * Derives the seed of one game in a series from the series' root seed.
+     * This is the index-th output of a generator seeded with the root seed, so
+     * each game's seed depends only on its index and any game can be replayed alone.
+     *
+     * @param rootSeed The seed of the series
+     * @param index The 0-based game index
+     * @return The game's seed
+     */
+    public static long seedFor(long rootSeed, long index) {
+        return mix64(rootSeed + (index + 1) * GOLDEN_GAMMA);
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
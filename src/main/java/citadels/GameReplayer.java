@@ -0,0 +1,70 @@
+package citadels;
+
+/**
+ * Rebuilds a game from its seed or last checkpoint and its journal.
+ * <p>
+ * A new game is set up with the same seats and seed, which deals the same cards and
+ * hands out the same crown, or is put in the state the journal was last cut at, and
+ * then every journal event is applied in order. The players' decisions are read from
+ * the journal, so no AI or human logic runs and no input is read. The journal also
+ * records how the characters were shuffled and removed and where the random
+ * generators got to, so the rebuilt game's {@link GameState} equals the original's.
+ * The rebuilt game has no output, and seats created by a custom seat factory are
+ * rebuilt as plain AI players.
+ */
+public final class GameReplayer {
+    private GameReplayer() {
+    }
+
+    /**
+     * Replays a game up to its latest event.
+     * @param game The game to replay; it must not have been loaded from a file
+     * @return A new game in the same state
+     */
+    public static Game replay(Game game) {
+        GameJournal journal = game.getJournal();
+        Game replayed = new Game(game.getPlayers().size(), null, SilentOutput.INSTANCE,
+            (n, random) -> game.getPlayers().get(n - 1).isHuman() ? new Player(n, true) : new AIPlayer(n, random),
+            new GameRandom(game.getInitialSeed(), game.getInitialGamma()));
+        replayed.setMaxRounds(game.getMaxRounds());
+        replayed.setDebugMode(game.isDebugMode());
+        GameState base = game.getJournalBase();
+        if (base != null) {
+            replayed.restoreState(base);
+        }
+        apply(replayed, journal, journal.size());
+        return replayed;
+    }
+
+    /**
+     * Replays the first events of a journal that starts when the game was created.
+     * @param numPlayers The number of players in the game
+     * @param seed The initial seed of the game's generator
+     * @param gamma The seed increment of the game's generator
+     * @param journal The journal to replay
+     * @param events The number of events to apply
+     * @return A new game in the state after those events
+     * @throws IllegalStateException if an event does not fit the rebuilt game
+     */
+    static Game replay(int numPlayers, long seed, long gamma, GameJournal journal, int events) {
+        boolean[] human = new boolean[numPlayers];
+        for (int i = 0; i < events; i++) {
+            if (journal.type(i) == GameJournal.SEAT && journal.seat(i) >= 0 && journal.seat(i) < numPlayers) {
+                human[journal.seat(i)] = journal.value(i) == 1;
+            }
+        }
+        Game game = new Game(numPlayers, null, SilentOutput.INSTANCE,
+            (n, random) -> human[n - 1] ? new Player(n, true) : new AIPlayer(n, random), new GameRandom(seed, gamma));
+        apply(game, journal, events);
+        return game;
+    }
+
+    private static void apply(Game game, GameJournal journal, int events) {
+        for (int i = 0; i < events; i++) {
+            // The rebuilt game recorded its seats when it was created
+            if (journal.type(i) != GameJournal.SEAT) {
+                game.record(journal.type(i), journal.seat(i), journal.value(i), journal.extra(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package citadels;
+
+import java.util.List;
+
+/**
+ * The outcome of a finished game: final scores, the winner and how long it lasted.
+ */
+public class GameResult {
+    /** Final score of each player, indexed by player number - 1 */
+    private final int[] scores;
+    /** Number of the winning player, or 0 if there was no winner */
+    private final int winner;
+    /** Number of rounds played */
+    private final int rounds;
+    /** True if a player finished their city, false if the round limit stopped the game */
+    private final boolean completed;
+    /** Seed the game was played with */
+    private final long seed;
+
+    /**
+     * Constructs a new GameResult.
+     * @param scores The final score of each player
+     * @param winner The winning player number, or 0 for no winner
+     * @param rounds The number of rounds played
+     * @param completed True if the game ended by a player building 8 districts
+     * @param seed The seed the game was played with
+     */
+    public GameResult(int[] scores, int winner, int rounds, boolean completed, long seed) {
+        this.scores = scores.clone();
+        this.winner = winner;
+        this.rounds = rounds;
+        this.completed = completed;
+        this.seed = seed;
+    }
+
+    /**
+     * Collects the result of a game that has ended.
+     * @param game The finished game
+     * @param seed The seed the game was played with
+     * @return The result
+     */
+    static GameResult of(Game game, long seed) {
+        List<Player> players = game.getPlayers();
+        int[] scores = new int[players.size()];
+        boolean completed = false;
+        for (int i = 0; i < scores.length; i++) {
+            Player player = players.get(i);
+            scores[i] = player.calculateScore();
+            completed |= player.getCitySize() >= 8;
+        }
+        Player winner = game.findWinner();
+        return new GameResult(scores, winner == null ? 0 : winner.getPlayerNumber(),
+                game.getCurrentRound(), completed, seed);
+    }
+
+    /**
+     * Gets the number of players in the game.
+     * @return The player count
+     */
+    public int getNumPlayers() {
+        return scores.length;
+    }
+
+    /**
+     * Gets the final score of a player.
+     * @param playerNumber The 1-based player number
+     * @return The player's score
+     */
+    public int getScore(int playerNumber) {
+        return scores[playerNumber - 1];
+    }
+
+    /**
+     * Gets the winning player number.
+     * @return The winner, or 0 if nobody scored
+     */
+    public int getWinner() {
+        return winner;
+    }
+
+    /**
+     * Gets the number of rounds played.
+     * @return The round count
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Gets the seed the game was played with, so it can be replayed.
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns true if a player built 8 districts before the round limit.
+     * @return True if the game was completed
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+}
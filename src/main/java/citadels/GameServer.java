@@ -0,0 +1,274 @@
+package citadels;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts Citadels games over TCP, one game per connection.
+ * <p>
+ * Each connection is a session: the player is asked for the number of players,
+ * then plays a game against AI players exactly as on the console, with the
+ * connection in place of {@code System.in} and {@code System.out}. Sessions share
+ * nothing but the read-only card catalog, so they never wait on each other.
+ * <p>
+ * A session spends nearly all its time blocked on the player's next line, so on
+ * Java 21 and later each session runs on its own virtual thread and thousands of
+ * idle games cost no OS threads. The code is compiled for Java 8, so the virtual
+ * thread executor is looked up by reflection; on older runtimes sessions fall back
+ * to a cached pool of daemon threads, one per active session.
+ */
+public class GameServer implements AutoCloseable {
+    /** Port used when none is given on the command line */
+    public static final int DEFAULT_PORT = 7777;
+
+    /** The listening socket */
+    private final ServerSocket serverSocket;
+
+    /** Runs the sessions */
+    private final ExecutorService sessions;
+
+    /** True if sessions run on virtual threads */
+    private final boolean virtualThreads;
+
+    /** Connections of the sessions that are running */
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    /** Number of sessions that are running */
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    /** Number of sessions started since the server started */
+    private final AtomicLong totalSessions = new AtomicLong();
+
+    /** Thread that accepts connections, or null before {@link #start()} */
+    private Thread acceptor;
+
+    /** Set once the server is closed */
+    private volatile boolean closed;
+
+    /**
+     * Creates a server listening on the loopback interface.
+     *
+     * @param port The port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public GameServer(int port) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Creates a server listening on the given address.
+     *
+     * @param address The address to listen on
+     * @throws IOException if the address cannot be bound
+     */
+    public GameServer(InetSocketAddress address) throws IOException {
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address, 1024);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.sessions = virtual != null ? virtual : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "citadels-session");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     *
+     * @return This server
+     */
+    public synchronized GameServer start() {
+        if (acceptor != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        acceptor = new Thread(this::acceptLoop, "citadels-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return this;
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of sessions that are running.
+     *
+     * @return The number of active sessions
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Gets the number of sessions started since the server started.
+     *
+     * @return The total number of sessions
+     */
+    public long getTotalSessions() {
+        return totalSessions.get();
+    }
+
+    /**
+     * Returns true if sessions run on virtual threads.
+     *
+     * @return True on Java 21 and later
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Stops accepting connections and ends every session by closing its connection.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        for (Socket socket : connections) {
+            closeQuietly(socket);
+        }
+        sessions.shutdown();
+        try {
+            sessions.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                continue;
+            }
+            connections.add(socket);
+            activeSessions.incrementAndGet();
+            totalSessions.incrementAndGet();
+            try {
+                sessions.execute(() -> runSession(socket));
+            } catch (RuntimeException e) {
+                endSession(socket);
+            }
+        }
+    }
+
+    /**
+     * Plays one game over a connection.
+     */
+    private void runSession(Socket socket) {
+        try {
+            socket.setTcpNoDelay(true);
+            Scanner scanner = new Scanner(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            WriterOutput out = new WriterOutput(
+                new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+            out.println("Welcome to Citadels!");
+            int numPlayers = readNumberOfPlayers(scanner, out);
+            Game game = new Game(numPlayers, new ScannerInput(scanner), out);
+            // The player is not on this machine, so they cannot use its files
+            game.setRemote(true);
+            game.startGame();
+            out.flush();
+        } catch (NoSuchElementException | UncheckedIOException | SocketException e) {
+            // The player disconnected
+        } catch (IOException e) {
+            // The connection failed
+        } finally {
+            endSession(socket);
+        }
+    }
+
+    private static int readNumberOfPlayers(Scanner scanner, GameOutput out) {
+        int numPlayers;
+        do {
+            out.print("Enter how many players [4-7]: ");
+            out.flush();
+            while (!scanner.hasNextInt()) {
+                out.println("Please enter a number between 4 and 7.");
+                out.flush();
+                scanner.next();
+            }
+            numPlayers = scanner.nextInt();
+        } while (numPlayers < 4 || numPlayers > 7);
+        return numPlayers;
+    }
+
+    private void endSession(Socket socket) {
+        if (connections.remove(socket)) {
+            activeSessions.decrementAndGet();
+        }
+        closeQuietly(socket);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task, if the runtime has them.
+     *
+     * @return The executor, or null before Java 21
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     *
+     * @param args The port to listen on, optional
+     * @throws IOException if the port cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port).start();
+        System.out.println("Citadels server listening on port " + server.getPort()
+            + (server.usesVirtualThreads() ? " (virtual threads)" : ""));
+        try {
+            server.acceptor.join();
+        } catch (InterruptedException e) {
+            server.close();
+        }
+    }
+}
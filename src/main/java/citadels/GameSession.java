@@ -0,0 +1,629 @@
+package citadels;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A game that many clients can use at once, run as an actor.
+ * <p>
+ * Only the session's worker thread touches the {@link Game}. Clients never call it
+ * directly: the player's command lines and any questions about the game go into a
+ * bounded mailbox, and the worker takes them out in order. Lines are what the game
+ * reads as the human player's input; a question is a function of the game that the
+ * worker runs when it gets to it, between two of the game's reads, and whose answer
+ * comes back through a {@link CompletableFuture}. Everything the game prints and
+ * every game event is published to {@link SessionListener}s from the worker.
+ * <p>
+ * Since a single thread owns the game, its lists and players need no locks. When
+ * the worker needs input it drains everything waiting in the mailbox at once, so a
+ * burst of commands costs one wake-up. A full mailbox refuses new messages instead
+ * of growing, which pushes back on clients that send faster than the game plays.
+ * <p>
+ * The worker also keeps a {@link Checkpoint}: a snapshot of the game taken at the
+ * start of the current round and the lines read since. A session can be closed and
+ * a new one resumed from its checkpoint, which loads the snapshot and reads the
+ * lines again without publishing what they print, so the game continues where the
+ * old session left off. {@link SessionRegistry} uses this to keep idle games on disk.
+ */
+public final class GameSession implements AutoCloseable {
+    /** Mailbox size used when none is given */
+    public static final int DEFAULT_MAILBOX_CAPACITY = 256;
+
+    /** The messages waiting for the worker: command lines and questions */
+    private final BlockingQueue<Object> mailbox;
+
+    /** The listeners, called on the worker thread */
+    private final List<SessionListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** Listeners that are also given the game, called on the worker thread */
+    private final List<GameEventListener> gameListeners = new CopyOnWriteArrayList<>();
+
+    /** The number of players */
+    private final int numPlayers;
+
+    /** Creates the player for each seat */
+    private final SeatFactory seats;
+
+    /** The game's generator */
+    private final GameRandom random;
+
+    /** Number of times the worker took a batch of messages from the mailbox */
+    private final AtomicLong batches = new AtomicLong();
+
+    /** Number of command lines the worker took from the mailbox */
+    private final AtomicLong linesTaken = new AtomicLong();
+
+    /** The game, created and used only by the worker */
+    private Game game;
+
+    /** The worker thread while it runs */
+    private volatile Thread worker;
+
+    /** Set when the session is started */
+    private volatile boolean started;
+
+    /** Set when the session is closed */
+    private volatile boolean closed;
+
+    /** Set when the game is over */
+    private volatile boolean gameEnded;
+
+    /** The snapshot to resume from, or null to start a new game */
+    private final Path resumeFrom;
+
+    /** Lines to read again after loading the snapshot, before any from the mailbox */
+    private final ArrayDeque<String> replay = new ArrayDeque<>();
+
+    /** True while the lines of {@link #replay} are read, which publishes nothing. Used only by the worker */
+    private boolean replaying;
+
+    /** The game at the start of the current round. Used only by the worker */
+    private SaveFile.Writer roundSnapshot;
+
+    /** Lines read since {@link #roundSnapshot} was taken. Used only by the worker */
+    private final List<String> roundLines = new ArrayList<>();
+
+    /**
+     * Creates a session for a game between one human player in seat 1 and AI players.
+     *
+     * @param numPlayers The number of players (between 4 and 7)
+     */
+    public GameSession(int numPlayers) {
+        this(numPlayers, Game::defaultSeat, new GameRandom(), DEFAULT_MAILBOX_CAPACITY);
+    }
+
+    /**
+     * Creates a session with custom seating.
+     *
+     * @param numPlayers The number of players (between 4 and 7)
+     * @param seats Creates the player for each seat
+     * @param random The game's generator
+     * @param capacity The number of messages the mailbox holds
+     */
+    GameSession(int numPlayers, SeatFactory seats, GameRandom random, int capacity) {
+        this(numPlayers, seats, random, capacity, null, new ArrayList<>());
+    }
+
+    private GameSession(int numPlayers, SeatFactory seats, GameRandom random, int capacity,
+                        Path resumeFrom, List<String> replayLines) {
+        if (numPlayers < 4 || numPlayers > 7) {
+            throw new IllegalArgumentException("Number of players must be between 4 and 7");
+        }
+        this.numPlayers = numPlayers;
+        this.seats = seats;
+        this.random = random;
+        this.mailbox = new ArrayBlockingQueue<>(capacity);
+        this.resumeFrom = resumeFrom;
+        this.replay.addAll(replayLines);
+    }
+
+    /**
+     * Creates a session that continues a game from a checkpoint of another session.
+     * The seats are loaded from the snapshot: the human player and {@link AIPlayer}s.
+     *
+     * @param numPlayers The number of players of the game
+     * @param snapshot The save file holding the checkpoint's snapshot
+     * @param lines The checkpoint's lines, read again once the snapshot is loaded
+     * @param capacity The number of messages the mailbox holds
+     * @return The session, not started
+     */
+    static GameSession resume(int numPlayers, Path snapshot, List<String> lines, int capacity) {
+        return new GameSession(numPlayers, Game::defaultSeat, new GameRandom(), capacity, snapshot, lines);
+    }
+
+    /**
+     * Starts the game on a new daemon thread.
+     *
+     * @return This session
+     */
+    public GameSession start() {
+        return start(runnable -> {
+            Thread thread = new Thread(runnable, "citadels-session");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Starts the game on a thread of the given executor, which it keeps until the
+     * session is closed.
+     *
+     * @param executor The executor that runs the worker
+     * @return This session
+     */
+    public synchronized GameSession start(Executor executor) {
+        if (started) {
+            throw new IllegalStateException("Session already started");
+        }
+        started = true;
+        executor.execute(this::run);
+        return this;
+    }
+
+    /**
+     * Adds a listener for the game's output and events.
+     *
+     * @param listener The listener
+     */
+    public void addListener(SessionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener The listener
+     */
+    public void removeListener(SessionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a listener for the game's events that may read the game when it is
+     * called. It is called on the worker, so it may read anything but must not
+     * change the game or keep it.
+     *
+     * @param listener The listener
+     */
+    void addGameListener(GameEventListener listener) {
+        gameListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addGameListener}.
+     *
+     * @param listener The listener
+     */
+    void removeGameListener(GameEventListener listener) {
+        gameListeners.remove(listener);
+    }
+
+    /**
+     * Sends a command line to the game without waiting.
+     *
+     * @param line The line, as the player would type it
+     * @return False if the mailbox is full or the session is closed
+     */
+    public boolean offer(String line) {
+        return !closed && mailbox.offer(line);
+    }
+
+    /**
+     * Sends a command line to the game, waiting while the mailbox is full.
+     *
+     * @param line The line, as the player would type it
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the session is closed
+     */
+    public void submit(String line) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Session is closed");
+        }
+        mailbox.put(line);
+    }
+
+    /**
+     * Asks a question about the game. The worker answers it after the messages that
+     * were sent before it, at a point where the game is waiting for input or is over.
+     *
+     * @param question A function of the game; it runs on the worker and must not keep the game
+     * @return The answer, or a future that fails with {@link RejectedExecutionException}
+     *         if the mailbox is full or the session is closed
+     */
+    public <T> CompletableFuture<T> query(Function<Game, T> question) {
+        Question<T> message = new Question<>(question);
+        if (closed || !mailbox.offer(message)) {
+            message.answer.completeExceptionally(new RejectedExecutionException("Mailbox full or session closed"));
+        }
+        return message.answer;
+    }
+
+    /**
+     * Asks for the session's checkpoint. Like any question, it is answered when the
+     * game waits for input, so the lines sent before it are part of the checkpoint.
+     *
+     * @return The checkpoint, or a future that fails if the session is closed
+     */
+    CompletableFuture<Checkpoint> checkpoint() {
+        return query(game -> new Checkpoint(roundSnapshot, new ArrayList<>(roundLines)));
+    }
+
+    /**
+     * Returns true once the game is over.
+     *
+     * @return True if the game ended
+     */
+    public boolean isGameEnded() {
+        return gameEnded;
+    }
+
+    /**
+     * Gets the number of times the worker took messages from the mailbox.
+     *
+     * @return The number of batches
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Gets the number of command lines the worker took from the mailbox.
+     *
+     * @return The number of lines
+     */
+    public long getLineCount() {
+        return linesTaken.get();
+    }
+
+    /**
+     * Ends the session. A game that is still running ends as if the player's
+     * input had run out, and messages still in the mailbox are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * The worker: plays the game, then answers questions until the session is closed.
+     */
+    private void run() {
+        worker = Thread.currentThread();
+        MailboxInput input = new MailboxInput();
+        try {
+            if (!closed) {
+                PublishingOutput output = new PublishingOutput();
+                game = new Game(numPlayers, input, output, seats, random);
+                // The lines come from clients, who must not reach the server's files
+                game.setRemote(true);
+                game.addEventListener((g, type, seat, value, extra) -> {
+                    if (type == GameJournal.ROUND_END) {
+                        takeCheckpoint(input);
+                    }
+                    if (!replaying) {
+                        for (SessionListener listener : listeners) {
+                            listener.onEvent(type, seat, value, extra);
+                        }
+                        for (GameEventListener listener : gameListeners) {
+                            listener.onEvent(g, type, seat, value, extra);
+                        }
+                    }
+                });
+                try {
+                    if (resumeFrom != null) {
+                        replaying = true;
+                        game.loadGame(resumeFrom.toString());
+                        takeCheckpoint(input);
+                        game.resumeGame();
+                    } else {
+                        takeCheckpoint(input);
+                        game.startGame();
+                    }
+                } catch (NoSuchElementException e) {
+                    // The session was closed while the game waited for input
+                } catch (IOException e) {
+                    replaying = false;
+                    output.error(e.getMessage());
+                }
+                gameEnded = game.isGameEnded();
+            }
+            // A game that ended while its lines were read again had already ended before
+            if (!replaying) {
+                for (SessionListener listener : listeners) {
+                    listener.onEnd();
+                }
+            }
+            // Lines sent after the game ended are dropped; questions are still answered
+            while (true) {
+                Object message = input.pending.poll();
+                if (message == null) {
+                    if (!input.receive()) {
+                        break;
+                    }
+                } else if (message instanceof Question) {
+                    ((Question<?>) message).ask();
+                }
+            }
+        } finally {
+            closed = true;
+            worker = null;
+            for (Object message : mailbox) {
+                if (message instanceof Question) {
+                    ((Question<?>) message).answer.completeExceptionally(
+                        new RejectedExecutionException("Session closed"));
+                }
+            }
+            mailbox.clear();
+        }
+    }
+
+    /**
+     * Starts a new checkpoint at the start of a round. A line the game has only
+     * read part of goes into it with the part that is left. The game's journal is
+     * cut at the same point, so it only holds the current round's events.
+     */
+    private void takeCheckpoint(MailboxInput input) {
+        roundSnapshot = game.snapshot();
+        game.cutJournal();
+        roundLines.clear();
+        if (input.current != null && input.position < input.current.length()) {
+            roundLines.add(input.current.substring(input.position));
+        }
+    }
+
+    /**
+     * What a session needs to continue its game elsewhere: the game at the start of
+     * the current round and the lines the game has read since.
+     */
+    static final class Checkpoint {
+        /** The game at the start of the round; it must not be changed */
+        final SaveFile.Writer snapshot;
+
+        /** The lines read since the snapshot, in order */
+        final List<String> lines;
+
+        Checkpoint(SaveFile.Writer snapshot, List<String> lines) {
+            this.snapshot = snapshot;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * A question waiting in the mailbox.
+     */
+    private final class Question<T> {
+        /** The function to run on the game */
+        private final Function<Game, T> function;
+
+        /** Completed with the function's result */
+        private final CompletableFuture<T> answer = new CompletableFuture<>();
+
+        private Question(Function<Game, T> function) {
+            this.function = function;
+        }
+
+        private void ask() {
+            try {
+                answer.complete(function.apply(game));
+            } catch (RuntimeException e) {
+                answer.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * The human player's input, read from the mailbox on the worker thread. Tokens
+     * and lines follow the rules of {@link java.util.Scanner}, as for
+     * {@link ScriptedInput}; when the game needs more input the worker blocks on the
+     * mailbox. Questions are answered when the game has read every line sent
+     * before them.
+     */
+    private final class MailboxInput implements PlayerInput {
+        /** Lines and questions taken from the mailbox but not yet reached */
+        private final ArrayDeque<Object> pending = new ArrayDeque<>();
+
+        /** Messages of the last batch, reused */
+        private final List<Object> batch = new ArrayList<>();
+
+        /** The line being read, or null */
+        private String current;
+
+        /** Position of the next unread character of the current line */
+        private int position;
+
+        @Override
+        public String next() {
+            if (!skipToToken()) {
+                throw new NoSuchElementException("Session closed");
+            }
+            int end = tokenEnd(current, position);
+            String token = current.substring(position, end);
+            position = end;
+            return token;
+        }
+
+        @Override
+        public String nextLine() {
+            if (!nextLineStarted()) {
+                throw new NoSuchElementException("Session closed");
+            }
+            String rest = current.substring(position);
+            current = null;
+            return rest;
+        }
+
+        @Override
+        public boolean hasNextInt() {
+            return skipToToken() && parseInt(current.substring(position, tokenEnd(current, position))) != null;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!skipToToken()) {
+                throw new NoSuchElementException("Session closed");
+            }
+            int end = tokenEnd(current, position);
+            Integer value = parseInt(current.substring(position, end));
+            if (value == null) {
+                // Like a scanner, leave the token unread if it is not an int
+                throw new InputMismatchException(current.substring(position, end));
+            }
+            position = end;
+            return value;
+        }
+
+        /**
+         * Makes sure a line is being read, answering questions and waiting for
+         * messages as needed.
+         * @return False if the session was closed
+         */
+        private boolean nextLineStarted() {
+            while (current == null) {
+                if (!replay.isEmpty()) {
+                    current = replay.poll();
+                    position = 0;
+                    roundLines.add(current);
+                    break;
+                }
+                // Output printed in answer to the last line read again was already published
+                replaying = false;
+                Object message = pending.poll();
+                if (message == null) {
+                    if (!receive()) {
+                        return false;
+                    }
+                } else if (message instanceof Question) {
+                    ((Question<?>) message).ask();
+                } else {
+                    current = (String) message;
+                    position = 0;
+                    roundLines.add(current);
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Moves to the start of the next token, across line breaks if needed.
+         * @return False if the session was closed
+         */
+        private boolean skipToToken() {
+            while (nextLineStarted()) {
+                while (position < current.length() && Character.isWhitespace(current.charAt(position))) {
+                    position++;
+                }
+                if (position < current.length()) {
+                    return true;
+                }
+                current = null;
+            }
+            return false;
+        }
+
+        /**
+         * Waits for messages and takes every message in the mailbox. Questions at the
+         * front, with no line before them, are answered straight away.
+         * @return False if the session was closed
+         */
+        private boolean receive() {
+            if (closed) {
+                return false;
+            }
+            try {
+                batch.add(mailbox.take());
+            } catch (InterruptedException e) {
+                return false;
+            }
+            mailbox.drainTo(batch);
+            batches.incrementAndGet();
+            for (int i = 0; i < batch.size(); i++) {
+                Object message = batch.get(i);
+                if (message instanceof Question && pending.isEmpty()) {
+                    ((Question<?>) message).ask();
+                } else {
+                    if (message instanceof String) {
+                        linesTaken.incrementAndGet();
+                    }
+                    pending.add(message);
+                }
+            }
+            batch.clear();
+            return !closed;
+        }
+
+        private int tokenEnd(String text, int start) {
+            int end = start;
+            while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+                end++;
+            }
+            return end;
+        }
+
+        private Integer parseInt(String token) {
+            try {
+                return Integer.parseInt(token);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Game output that publishes each flushed piece of text to the listeners.
+     */
+    private final class PublishingOutput implements GameOutput {
+        /** Text printed since the last flush */
+        private final StringBuilder buffer = new StringBuilder();
+
+        @Override
+        public void print(String text) {
+            buffer.append(text);
+        }
+
+        @Override
+        public void println(String text) {
+            buffer.append(text).append('\n');
+        }
+
+        @Override
+        public void error(String message) {
+            println(message);
+            flush();
+        }
+
+        @Override
+        public void flush() {
+            if (buffer.length() == 0 || listeners.isEmpty() || replaying) {
+                buffer.setLength(0);
+                return;
+            }
+            String text = buffer.toString();
+            buffer.setLength(0);
+            for (SessionListener listener : listeners) {
+                listener.onOutput(text);
+            }
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+    }
+}
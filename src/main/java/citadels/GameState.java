@@ -0,0 +1,152 @@
+package citadels;
+
+import java.util.Arrays;
+
+/**
+ * A copy of a game's state held in a single int array.
+ * <p>
+ * Search-based AI players need to copy a game thousands of times per decision.
+ * Copying the game's lists, maps and players would allocate far more than playing
+ * the game does, so the state is flattened instead: {@link Game#captureState}
+ * writes it as a sequence of ints (round and flags, generator state, the deck
+ * and every player's gold, character and card IDs) and {@link Game#restoreState}
+ * reads it back into a game with the same number of players. Copying a state is
+ * one {@code System.arraycopy}, and a state can be captured into, or copied into,
+ * an existing instance so that a search reuses a few buffers instead of
+ * allocating new ones.
+ */
+public final class GameState {
+    /** The state, of which the first {@code size} ints are used */
+    private int[] data;
+
+    /** Number of ints in use */
+    private int size;
+
+    /**
+     * Creates an empty state to capture a game into.
+     */
+    public GameState() {
+        this.data = new int[256];
+    }
+
+    private GameState(int[] data, int size) {
+        this.data = data;
+        this.size = size;
+    }
+
+    /**
+     * Captures the current state of a game.
+     * @param game The game
+     * @return A new state
+     */
+    public static GameState capture(Game game) {
+        GameState state = new GameState();
+        game.captureState(state);
+        return state;
+    }
+
+    /**
+     * Creates an independent copy of this state.
+     * @return The copy
+     */
+    public GameState copy() {
+        return new GameState(Arrays.copyOf(data, size), size);
+    }
+
+    /**
+     * Makes this state a copy of another, reusing this state's array if it is large enough.
+     * @param other The state to copy
+     */
+    public void copyFrom(GameState other) {
+        if (data.length < other.size) {
+            data = new int[other.data.length];
+        }
+        System.arraycopy(other.data, 0, data, 0, other.size);
+        size = other.size;
+    }
+
+    /**
+     * Gets the number of ints the state takes.
+     * @return The size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes everything, ready for a new capture.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Appends an int.
+     * @param value The value
+     */
+    void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[size++] = value;
+    }
+
+    /**
+     * Appends a long as two ints.
+     * @param value The value
+     */
+    void addLong(long value) {
+        add((int) (value >>> 32));
+        add((int) value);
+    }
+
+    /**
+     * Gets an int.
+     * @param index The position
+     * @return The value
+     */
+    int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return data[index];
+    }
+
+    /**
+     * Gets a long appended with {@link #addLong}.
+     * @param index The position of its first int
+     * @return The value
+     */
+    long getLong(int index) {
+        return ((long) get(index) << 32) | (get(index + 1) & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GameState)) {
+            return false;
+        }
+        GameState other = (GameState) o;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (data[i] != other.data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + data[i];
+        }
+        return hash;
+    }
+}
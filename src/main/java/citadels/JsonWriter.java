@@ -0,0 +1,204 @@
+package citadels;
+
+/**
+ * Writes JSON text into a string builder, one token at a time.
+ * <p>
+ * The writer only places commas and escapes strings; the caller is trusted to open
+ * and close objects and arrays in order and to name every value inside an object.
+ * That is all the game's responses need, and it keeps writing a response down to
+ * appending to a single buffer.
+ */
+final class JsonWriter {
+    /** The text written so far */
+    private final StringBuilder out = new StringBuilder(256);
+
+    /** True if the next value or name must be preceded by a comma */
+    private boolean needsComma;
+
+    /**
+     * Starts an object.
+     * @return This writer
+     */
+    JsonWriter beginObject() {
+        separate();
+        out.append('{');
+        needsComma = false;
+        return this;
+    }
+
+    /**
+     * Ends the current object.
+     * @return This writer
+     */
+    JsonWriter endObject() {
+        out.append('}');
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Starts an array.
+     * @return This writer
+     */
+    JsonWriter beginArray() {
+        separate();
+        out.append('[');
+        needsComma = false;
+        return this;
+    }
+
+    /**
+     * Ends the current array.
+     * @return This writer
+     */
+    JsonWriter endArray() {
+        out.append(']');
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes the name of the next value of an object.
+     * @param name The name
+     * @return This writer
+     */
+    JsonWriter name(String name) {
+        separate();
+        quote(name);
+        out.append(':');
+        needsComma = false;
+        return this;
+    }
+
+    /**
+     * Writes a string value.
+     * @param value The value, or null
+     * @return This writer
+     */
+    JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            out.append("null");
+        } else {
+            quote(value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes a number value.
+     * @param value The value
+     * @return This writer
+     */
+    JsonWriter value(long value) {
+        separate();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes a number value. JSON has no infinities or NaN, so those are written as null.
+     * @param value The value
+     * @return This writer
+     */
+    JsonWriter value(double value) {
+        separate();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append("null");
+        } else {
+            out.append(value);
+        }
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     * @param value The value
+     * @return This writer
+     */
+    JsonWriter value(boolean value) {
+        separate();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    /**
+     * Writes a named string value of an object.
+     * @param name The name
+     * @param value The value, or null
+     * @return This writer
+     */
+    JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a named number value of an object.
+     * @param name The name
+     * @param value The value
+     * @return This writer
+     */
+    JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a named boolean value of an object.
+     * @param name The name
+     * @param value The value
+     * @return This writer
+     */
+    JsonWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Gets the text written so far.
+     * @return The JSON text
+     */
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void separate() {
+        if (needsComma) {
+            out.append(',');
+        }
+    }
+
+    private void quote(String text) {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,114 @@
+package citadels;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests of one endpoint and how long they took.
+ * <p>
+ * Recording is lock free so that measuring an endpoint does not make its requests
+ * wait on each other. Latencies go into buckets by powers of two microseconds, so
+ * the percentiles are upper bounds within a factor of two, which is enough to see
+ * which endpoint is slow and whether a change made it faster.
+ */
+final class LatencyStats {
+    /** Number of buckets; the last one holds everything from about 18 minutes up */
+    private static final int BUCKETS = 31;
+
+    /** Number of requests */
+    private final LongAdder count = new LongAdder();
+
+    /** Sum of the latencies in nanoseconds */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /** Longest latency in nanoseconds */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /** Bucket i counts latencies below 2^i microseconds that are not in a lower bucket */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records one request.
+     * @param nanos How long the request took in nanoseconds
+     */
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        count.increment();
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+        long micros = nanos / 1000;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        buckets.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+    }
+
+    /**
+     * Gets the number of requests recorded.
+     * @return The count
+     */
+    long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean latency.
+     * @return The mean in microseconds, 0 if nothing was recorded
+     */
+    double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1000.0 / n;
+    }
+
+    /**
+     * Gets the longest latency.
+     * @return The maximum in microseconds
+     */
+    double getMaxMicros() {
+        return maxNanos.get() / 1000.0;
+    }
+
+    /**
+     * Gets an upper bound of a percentile of the latencies.
+     * @param percentile The percentile, between 0 and 100
+     * @return The bound in microseconds, a power of two, or 0 if nothing was recorded
+     */
+    long getPercentileMicros(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    /**
+     * Writes the statistics as a JSON object.
+     * @param json The writer
+     */
+    void writeTo(JsonWriter json) {
+        json.beginObject()
+            .field("count", getCount())
+            .name("meanMicros").value(getMeanMicros())
+            .name("maxMicros").value(getMaxMicros())
+            .field("p50Micros", getPercentileMicros(50))
+            .field("p99Micros", getPercentileMicros(99))
+            .endObject();
+    }
+}
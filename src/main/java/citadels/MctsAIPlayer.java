@@ -0,0 +1,473 @@
+package citadels;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An AI player that chooses its character, and whether to take gold or cards,
+ * by Monte Carlo tree search.
+ * <p>
+ * For each decision the player runs rollouts: a {@link Determinizer} samples a
+ * world that fits what the player can see into a private headless game, the
+ * option being tried is played, and the game goes on for a few rounds with every
+ * seat played by the standard AI heuristics. The position is then scored for this player. Options are
+ * tried in proportion to how promising they look (UCB1), and the most tried option
+ * is chosen.
+ * <p>
+ * The search runs on several cores by root parallelization: each worker searches
+ * its own tree from its own sampled worlds and the trees are added together at the end.
+ * The tree has two levels, the character to choose and then the basic action of
+ * that character's turn. After a character is chosen its subtree is kept, so the
+ * search for the gold-or-cards decision later in the round starts from what the
+ * first search learned.
+ * <p>
+ * Different orders of picks often end the draft with the same character in every
+ * seat. The player keeps a {@link TranspositionTable} of the value of positions at
+ * the end of the draft, keyed by their hash as this player knows it, and once a
+ * position has been sampled often enough a rollout that reaches it takes the
+ * stored value instead of playing the round.
+ * <p>
+ * Each decision stops after its time budget or, if one is set, after a fixed
+ * number of rollouts. Workers start no rollout in the last part of the budget, so
+ * the rollouts in progress can finish, and the decision does not wait for workers
+ * past the budget: a worker that is still busy then, for example because the
+ * shared pool started it late, is left out. With a rollout budget and one worker
+ * the search is deterministic for a given seed; with more workers the shared
+ * table makes the result depend on how the threads interleave.
+ */
+public class MctsAIPlayer extends AIPlayer {
+    /** Default time budget per decision in milliseconds */
+    public static final long DEFAULT_TIME_BUDGET_MS = 50;
+
+    /** Rounds played after the decision in each rollout before the position is scored */
+    static final int ROLLOUT_ROUNDS = 3;
+
+    /** Exploration constant of the UCB1 formula */
+    private static final double EXPLORATION = 1.4;
+
+    /** Samples of a position after the draft before its stored value replaces rollouts */
+    static final int REUSE_SAMPLES = 8;
+
+    /** Number of positions the transposition table holds */
+    private static final int TABLE_CAPACITY = 1 << 15;
+
+    /** Workers start no rollout in the last 1/FINISH_SHARE of the time budget */
+    private static final int FINISH_SHARE = 4;
+
+    /** Score difference that counts as a clear lead when scoring a rollout */
+    private static final double SCORE_SCALE = 4.0;
+
+    /** Time budget per decision in nanoseconds */
+    private long timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TIME_BUDGET_MS);
+
+    /** Rollouts per decision, or 0 to search until the time budget runs out */
+    private int rolloutBudget;
+
+    /** The search workers, each with its own scratch game */
+    private final Worker[] workers;
+
+    /** Values of positions after the draft, shared by the workers and kept between decisions */
+    private final TranspositionTable table = new TranspositionTable(TABLE_CAPACITY);
+
+    /** Subtree kept from the last character choice for the basic action decision */
+    private Node keptTree;
+
+    /** Round in which the kept subtree was searched */
+    private int keptRound;
+
+    /** Character chosen when the kept subtree was searched */
+    private int keptCharacter;
+
+    /** Total rollouts run by this player, for tests and tuning */
+    private long rolloutCount;
+
+    /**
+     * Creates an MCTS player that uses every core.
+     *
+     * @param playerNumber The player's number
+     * @param random The generator for this player's random decisions
+     */
+    public MctsAIPlayer(int playerNumber, GameRandom random) {
+        this(playerNumber, random, SearchThreads.COUNT);
+    }
+
+    /**
+     * Creates an MCTS player with a given number of search workers.
+     *
+     * @param playerNumber The player's number
+     * @param random The generator for this player's random decisions
+     * @param workerCount The number of trees searched in parallel, at least 1
+     */
+    public MctsAIPlayer(int playerNumber, GameRandom random, int workerCount) {
+        super(playerNumber, random);
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        this.workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker();
+        }
+    }
+
+    /**
+     * Sets the time budget of each decision.
+     *
+     * @param millis The budget in milliseconds, must be positive
+     */
+    public void setTimeBudget(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Time budget must be positive");
+        }
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Makes each decision run a fixed number of rollouts instead of searching until the time budget
+     * runs out. The time budget still caps the search.
+     *
+     * @param rollouts The rollouts per decision, or 0 to use only the time budget
+     */
+    public void setRolloutBudget(int rollouts) {
+        if (rollouts < 0) {
+            throw new IllegalArgumentException("Rollout budget cannot be negative");
+        }
+        this.rolloutBudget = rollouts;
+    }
+
+    /**
+     * Gets the number of rollouts run so far.
+     *
+     * @return The rollout count
+     */
+    long getRolloutCount() {
+        return rolloutCount;
+    }
+
+    /**
+     * Gets the table of positions after the draft.
+     *
+     * @return The transposition table
+     */
+    TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    @Override
+    public CharacterCard chooseCharacter(Game game, List<CharacterCard> availableCharacters) {
+        keptTree = null;
+        if (availableCharacters.size() == 1) {
+            return availableCharacters.get(0);
+        }
+        List<CharacterCard> options = new ArrayList<>(availableCharacters);
+        // Read on this thread: the workers must not touch the live game
+        int selectionStart = game.getSelectionStart();
+        int nextPick = game.getSelectionPick() + 1;
+        Node tree = search(game, Node.forCharacters(options.size()), table, 1, (scratch, me, action) -> {
+            scratch.takeCharacter(me, options.get(action));
+            scratch.pickCharacters(selectionStart, nextPick);
+        });
+        int best = tree.mostVisited();
+        keptTree = tree.children[best];
+        keptRound = game.getCurrentRound();
+        keptCharacter = options.get(best).getNumber();
+        return options.get(best);
+    }
+
+    @Override
+    public boolean chooseTakeGold(Game game) {
+        Node start = null;
+        if (keptTree != null && keptRound == game.getCurrentRound()
+                && getCharacter() != null && keptCharacter == getCharacter().getNumber()) {
+            start = keptTree;
+        }
+        keptTree = null;
+        int character = game.getTurnCharacter();
+        Node tree = search(game, start != null ? start : Node.forBasicAction(), null, character + 1, (scratch, me, action) -> {
+            scratch.takeBasicActionAI(me, action == Node.TAKE_GOLD);
+            scratch.completeAITurn(me);
+        });
+        return tree.mostVisited() == Node.TAKE_GOLD;
+    }
+
+    /**
+     * Searches a decision on all workers and adds their trees together.
+     * After the move each rollout plays the rest of the round from the given character,
+     * unless the table already knows the position it reached.
+     */
+    private Node search(Game game, Node start, TranspositionTable positions, int resumeCharacter, Move move) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        long lastStart = deadline - timeBudgetNanos / FINISH_SHARE;
+        Determinizer determinizer = new Determinizer(game, this);
+        int perWorker = rolloutBudget > 0 ? Math.max(1, (rolloutBudget + workers.length - 1) / workers.length) : 0;
+
+        List<Callable<Node>> tasks = new ArrayList<>(workers.length);
+        for (Worker worker : workers) {
+            GameRandom workerRandom = getRandom().split();
+            Node workerTree = start.copy();
+            tasks.add(() -> worker.run(determinizer, workerTree, move, positions, resumeCharacter, workerRandom, lastStart, perWorker));
+        }
+        Node merged = start.copy();
+        try {
+            List<Future<Node>> results = SearchThreads.POOL.invokeAll(tasks,
+                Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            for (Future<Node> result : results) {
+                // A worker that did not finish in time is cancelled and its tree is left out
+                if (!result.isCancelled()) {
+                    merged.addDifference(result.get(), start);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search failed", e.getCause());
+        }
+        rolloutCount += merged.totalVisits() - start.totalVisits();
+        return merged;
+    }
+
+    /**
+     * Scores the position of a seat after a rollout, between 0 and 1.
+     * The value compares the seat's points, counting gold and cards in hand as
+     * part points, with the best other player's.
+     */
+    static double evaluate(Game game, int seat) {
+        double mine = 0;
+        double bestOther = Double.NEGATIVE_INFINITY;
+        List<Player> players = game.getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            double value = player.calculateScore() + 0.5 * player.getGold() + 0.25 * player.getHand().size();
+            if (i == seat) {
+                mine = value;
+            } else if (value > bestOther) {
+                bestOther = value;
+            }
+        }
+        return 1.0 / (1.0 + Math.exp((bestOther - mine) / SCORE_SCALE));
+    }
+
+    /**
+     * Plays the option being tried in a scratch game, up to the point where the rest of the round
+     * can be played by {@link Game#finishRound}. It runs on the search workers, so it reads only the
+     * scratch game and values taken from the real game before the search started.
+     */
+    @FunctionalInterface
+    private interface Move {
+        void play(Game scratch, Player me, int action);
+    }
+
+    /**
+     * One search worker with its own scratch game, used by one thread at a time.
+     */
+    private static final class Worker {
+        /** Game that states are restored into for rollouts */
+        private Game scratch;
+
+        /** True while a search runs on this worker; a cancelled search may still be finishing */
+        private final AtomicBoolean busy = new AtomicBoolean();
+
+        /**
+         * Runs rollouts until the budget is used or the last start time has passed.
+         * If the worker is still busy with an earlier search, the tree is returned unchanged.
+         */
+        Node run(Determinizer determinizer, Node tree, Move move, TranspositionTable positions,
+                int resumeCharacter, GameRandom random, long lastStart, int rollouts) {
+            if (!busy.compareAndSet(false, true)) {
+                return tree;
+            }
+            try {
+                search(determinizer, tree, move, positions, resumeCharacter, random, lastStart, rollouts);
+            } finally {
+                busy.set(false);
+            }
+            return tree;
+        }
+
+        private void search(Determinizer determinizer, Node tree, Move move, TranspositionTable positions,
+                int resumeCharacter, GameRandom random, long lastStart, int rollouts) {
+            int players = determinizer.getPlayerCount();
+            if (scratch == null || scratch.getPlayers().size() != players) {
+                scratch = new Game(players, null, SilentOutput.INSTANCE, RolloutPlayer::new, random.split());
+            }
+            int seat = determinizer.getObserverSeat();
+            RolloutPlayer me = (RolloutPlayer) scratch.getPlayers().get(seat);
+            int done = 0;
+            while ((rollouts == 0 || done < rollouts) && System.nanoTime() < lastStart) {
+                determinizer.sample(scratch, random);
+                int action = tree.select(EXPLORATION);
+                Node child = tree.children[action];
+                me.guide = child;
+                me.guidedAction = -1;
+                double reward;
+                move.play(scratch, me, action);
+                long key = positions != null ? scratch.getHash(seat) : 0L;
+                long known = positions != null ? positions.probe(key) : TranspositionTable.MISS;
+                if (TranspositionTable.samples(known) >= REUSE_SAMPLES) {
+                    reward = TranspositionTable.value(known);
+                } else {
+                    scratch.finishRound(resumeCharacter);
+                    for (int round = 0; round < ROLLOUT_ROUNDS && !scratch.isGameEnded(); round++) {
+                        scratch.playRound();
+                    }
+                    reward = evaluate(scratch, seat);
+                    if (positions != null) {
+                        positions.addSample(key, reward);
+                    }
+                }
+                tree.update(action, reward);
+                if (child != null && me.guidedAction >= 0) {
+                    child.update(me.guidedAction, reward);
+                }
+                me.guide = null;
+                done++;
+            }
+        }
+    }
+
+    /**
+     * The player in every seat of a scratch game. It plays the standard heuristics,
+     * except that the searching player's first basic action of a rollout can be
+     * chosen by the search tree.
+     */
+    static final class RolloutPlayer extends AIPlayer {
+        /** Node that chooses the next basic action, or null to use the heuristic */
+        private Node guide;
+
+        /** The action the guide chose in this rollout, or -1 */
+        private int guidedAction = -1;
+
+        RolloutPlayer(int playerNumber, GameRandom random) {
+            super(playerNumber, random);
+        }
+
+        @Override
+        public boolean chooseTakeGold(Game game) {
+            if (guide == null) {
+                return super.chooseTakeGold(game);
+            }
+            guidedAction = guide.select(EXPLORATION);
+            guide = null;
+            return guidedAction == Node.TAKE_GOLD;
+        }
+    }
+
+    /**
+     * Statistics of the options of one decision. A character node has one child per
+     * character, each a basic action node with the options gold and cards.
+     */
+    static final class Node {
+        /** Option of a basic action node that takes gold */
+        static final int TAKE_GOLD = 0;
+
+        /** Number of rollouts that tried each option */
+        final int[] visits;
+
+        /** Sum of the rewards of each option's rollouts */
+        final double[] rewards;
+
+        /** The basic action node under each option, or null for a basic action node */
+        final Node[] children;
+
+        /**
+         * Creates a character node, with a basic action node under each character.
+         */
+        static Node forCharacters(int options) {
+            return new Node(options, true);
+        }
+
+        /**
+         * Creates a basic action node, with the options gold and cards.
+         */
+        static Node forBasicAction() {
+            return new Node(2, false);
+        }
+
+        private Node(int options, boolean withChildren) {
+            visits = new int[options];
+            rewards = new double[options];
+            children = new Node[options];
+            if (withChildren) {
+                for (int i = 0; i < options; i++) {
+                    children[i] = new Node(2, false);
+                }
+            }
+        }
+
+        /**
+         * Picks the option to try next: every option once, then by UCB1.
+         */
+        int select(double exploration) {
+            int total = 0;
+            for (int i = 0; i < visits.length; i++) {
+                if (visits[i] == 0) {
+                    return i;
+                }
+                total += visits[i];
+            }
+            double logTotal = Math.log(total);
+            int best = 0;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < visits.length; i++) {
+                double value = rewards[i] / visits[i] + exploration * Math.sqrt(logTotal / visits[i]);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        void update(int option, double reward) {
+            visits[option]++;
+            rewards[option] += reward;
+        }
+
+        int mostVisited() {
+            int best = 0;
+            for (int i = 1; i < visits.length; i++) {
+                if (visits[i] > visits[best]) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        int totalVisits() {
+            int total = 0;
+            for (int v : visits) {
+                total += v;
+            }
+            return total;
+        }
+
+        Node copy() {
+            Node copy = new Node(visits.length, false);
+            System.arraycopy(visits, 0, copy.visits, 0, visits.length);
+            System.arraycopy(rewards, 0, copy.rewards, 0, rewards.length);
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != null) {
+                    copy.children[i] = children[i].copy();
+                }
+            }
+            return copy;
+        }
+
+        /**
+         * Adds what a worker learned on top of the tree it started from.
+         */
+        void addDifference(Node worker, Node base) {
+            for (int i = 0; i < visits.length; i++) {
+                visits[i] += worker.visits[i] - base.visits[i];
+                rewards[i] += worker.rewards[i] - base.rewards[i];
+                if (children[i] != null) {
+                    children[i].addDifference(worker.children[i], base.children[i]);
+                }
+            }
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package citadels;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents a player in the Citadels game.
  * A player can be human or AI, and manages their hand, city, gold, and character.
+ * The hand and city store catalog card IDs in int arrays; {@link #getHand()} and
+ * {@link #getCity()} return list views of them. The player also keeps the number
+ * of built districts of each color, their total cost and the purple abilities in
+ * the city, updated on every change to the city, so income, scoring and ability
+ * checks do not have to walk the city. In the same way it keeps its part of the
+ * game's {@link Zobrist} hash, covering its gold, hand, city, character and crown.
  */
 public class Player {
     /** The player's number (1-based index) */
@@ -14,14 +22,26 @@ public class Player {
     private boolean isHuman;
     /** The amount of gold the player currently has */
     private int gold;
-    /** The list of district cards in the player's hand */
-    private List<DistrictCard> hand;
-    /** The list of district cards built in the player's city */
-    private List<DistrictCard> city;
+    /** The district cards in the player's hand */
+    private final CardList hand;
+    /** The district cards built in the player's city */
+    private final CardList city;
+    /** Number of built districts of each color, indexed by color ordinal */
+    private final int[] colorCounts = new int[DistrictColor.count()];
+    /** Total build cost of the districts in the city */
+    private int cityCost;
+    /** Number of built districts with each purple ability, indexed by ability ordinal */
+    private final int[] abilityCounts = new int[PurpleAbility.values().length];
+    /** The purple abilities of the districts in the city */
+    private final EnumSet<PurpleAbility> abilities = EnumSet.noneOf(PurpleAbility.class);
     /** The character card chosen by the player for the current round */
     private CharacterCard character;
     /** True if this player currently holds the crown */
     private boolean hasCrown;
+    /** Sum of the Zobrist keys of the player's gold, city, character and crown */
+    private long hash;
+    /** Sum of the Zobrist keys of the cards in the player's hand */
+    private long handHash;
 
     /**
      * Constructs a new Player.
@@ -32,10 +52,31 @@ public class Player {
         this.playerNumber = playerNumber;
         this.isHuman = isHuman;
         this.gold = 0;
-        this.hand = new ArrayList<>();
-        this.city = new ArrayList<>();
+        this.hand = new CardList() {
+            @Override
+            void onAdded(int id) {
+                handHash += Zobrist.hand(playerNumber - 1, id);
+            }
+
+            @Override
+            void onRemoved(int id) {
+                handHash -= Zobrist.hand(playerNumber - 1, id);
+            }
+        };
+        this.city = new CardList() {
+            @Override
+            void onAdded(int id) {
+                updateCityTotals(id, 1);
+            }
+
+            @Override
+            void onRemoved(int id) {
+                updateCityTotals(id, -1);
+            }
+        };
         this.character = null;
         this.hasCrown = false;
+        this.hash = Zobrist.gold(playerNumber - 1, 0) + Zobrist.character(playerNumber - 1, 0);
     }
 
     /**
@@ -67,11 +108,17 @@ public class Player {
      * @param amount The amount to add (can be negative)
      */
     public void addGold(int amount) {
-        this.gold += amount;
+        setGold(gold + amount);
+    }
+
+    private void setGold(int newGold) {
+        hash += Zobrist.gold(playerNumber - 1, newGold) - Zobrist.gold(playerNumber - 1, gold);
+        gold = newGold;
     }
 
     /**
      * Gets the player's hand of district cards.
+     * The list is a live view; changes to it change the player's hand.
      * @return The list of district cards in hand
      */
     public List<DistrictCard> getHand() {
@@ -96,27 +143,82 @@ public class Player {
 
     /**
      * Gets the list of districts built in the player's city.
+     * The list is a live view; changes to it change the player's city.
      * @return The list of built district cards
      */
     public List<DistrictCard> getCity() {
         return city;
     }
 
+    /**
+     * Returns true if the player has built a district of the given type.
+     * @param card The district card type
+     * @return True if the city contains the district
+     */
+    public boolean hasDistrict(DistrictCard card) {
+        return city.containsId(card.getId());
+    }
+
+    /**
+     * Gets the number of built districts of a color.
+     * @param color The district color
+     * @return The number of districts of that color
+     */
+    public int getDistrictCount(DistrictColor color) {
+        return colorCounts[color.ordinal()];
+    }
+
+    /**
+     * Returns true if a district in the player's city has an ability.
+     * @param ability The purple ability
+     * @return True if the city has the ability
+     */
+    public boolean hasAbility(PurpleAbility ability) {
+        return abilities.contains(ability);
+    }
+
+    /**
+     * Gets the purple abilities of the districts in the player's city.
+     * @return A live, unmodifiable view of the abilities, in declaration order
+     */
+    public Set<PurpleAbility> getAbilities() {
+        return Collections.unmodifiableSet(abilities);
+    }
+
+    private void updateCityTotals(int id, int delta) {
+        hash += delta * Zobrist.city(playerNumber - 1, id);
+        DistrictCard card = CardCatalog.getInstance().getCard(id);
+        cityCost += delta * card.getCost();
+        if (card.getDistrictColor() != null) {
+            colorCounts[card.getDistrictColor().ordinal()] += delta;
+        }
+        PurpleAbility ability = card.getPurpleAbility();
+        if (ability != null) {
+            int count = abilityCounts[ability.ordinal()] += delta;
+            if (count > 0) {
+                abilities.add(ability);
+            } else {
+                abilities.remove(ability);
+            }
+        }
+    }
+
     /**
      * Attempts to build a district in the player's city.
      * @param card The district card to build
      * @return True if the district was built, false otherwise
      */
     public boolean buildDistrict(DistrictCard card) {
-        if (!hand.contains(card)) {
+        int id = card.getId();
+        if (!hand.containsId(id)) {
             return false;
         }
         if (gold < card.getCost()) {
             return false;
         }
-        gold -= card.getCost();
-        hand.remove(card);
-        city.add(card);
+        setGold(gold - card.getCost());
+        hand.removeId(id);
+        city.addId(id);
         return true;
     }
 
@@ -133,9 +235,15 @@ public class Player {
      * @param character The character card
      */
     public void setCharacter(CharacterCard character) {
+        hash += Zobrist.character(playerNumber - 1, numberOf(character))
+            - Zobrist.character(playerNumber - 1, numberOf(this.character));
         this.character = character;
     }
 
+    private static int numberOf(CharacterCard character) {
+        return character != null ? character.getNumber() : 0;
+    }
+
     /**
      * Returns true if this player currently holds the crown.
      * @return True if the player has the crown
@@ -149,9 +257,29 @@ public class Player {
      * @param hasCrown True if the player has the crown
      */
     public void setHasCrown(boolean hasCrown) {
+        if (hasCrown != this.hasCrown) {
+            hash += hasCrown ? Zobrist.crown(playerNumber - 1) : -Zobrist.crown(playerNumber - 1);
+        }
         this.hasCrown = hasCrown;
     }
 
+    /**
+     * Gets the player's part of the game's hash, which covers their gold, hand,
+     * city, character and crown.
+     * @return The sum of the Zobrist keys of those facts
+     */
+    long getHash() {
+        return hash + handHash;
+    }
+
+    /**
+     * Gets the part of the player's hash that covers the cards in their hand.
+     * @return The sum of the Zobrist keys of the hand
+     */
+    long getHandHash() {
+        return handHash;
+    }
+
     /**
      * Gets the number of districts built in the player's city.
      * @return The city size
@@ -165,12 +293,8 @@ public class Player {
      * @return The player's score
      */
     public int calculateScore() {
-        int score = 0;
-        
         // Base score from districts
-        for (DistrictCard card : city) {
-            score += card.getCost();
-        }
+        int score = cityCost;
         
         // First to 8 districts bonus
         if (city.size() >= 8) {
@@ -178,48 +302,13 @@ public class Player {
         }
         
         // Color bonus (2 points for having all 5 colors)
-        boolean hasNoble = false;
-        boolean hasReligious = false;
-        boolean hasTrade = false;
-        boolean hasMilitary = false;
-        boolean hasSpecial = false;
-        
-        for (DistrictCard card : city) {
-            String color = card.getColor().toLowerCase();
-            switch (color) {
-                case "yellow":
-                case "noble":
-                    hasNoble = true;
-                    break;
-                case "blue":
-                case "religious":
-                    hasReligious = true;
-                    break;
-                case "green":
-                case "trade":
-                    hasTrade = true;
-                    break;
-                case "red":
-                case "military":
-                    hasMilitary = true;
-                    break;
-                case "purple":
-                case "special":
-                    hasSpecial = true;
-                    break;
+        int uniqueColors = 0;
+        for (int count : colorCounts) {
+            if (count > 0) {
+                uniqueColors++;
             }
         }
-        
-        // Count unique colors
-        int uniqueColors = 0;
-        if (hasNoble) uniqueColors++;
-        if (hasReligious) uniqueColors++;
-        if (hasTrade) uniqueColors++;
-        if (hasMilitary) uniqueColors++;
-        if (hasSpecial) uniqueColors++;
-        
-        // Add bonus for having all 5 colors
-        if (uniqueColors == 5) {
+        if (uniqueColors == colorCounts.length) {
             score += 2;
         }
         
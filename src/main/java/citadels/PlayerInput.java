@@ -0,0 +1,39 @@
+package citadels;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A source of commands typed by human players.
+ * The methods follow {@link java.util.Scanner}: tokens are separated by
+ * whitespace, and {@link #nextLine()} returns the rest of the current line.
+ * Every method throws {@link NoSuchElementException} once the input is used up.
+ */
+public interface PlayerInput {
+    /**
+     * Reads the next whitespace-separated token, skipping line breaks.
+     * @return The token
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    String next();
+
+    /**
+     * Reads the rest of the current line and moves to the start of the next one.
+     * @return The rest of the line, without the line break
+     * @throws NoSuchElementException if there are no more lines
+     */
+    String nextLine();
+
+    /**
+     * Returns true if the next token is an int, without reading it.
+     * @return True if {@link #nextInt()} would succeed
+     */
+    boolean hasNextInt();
+
+    /**
+     * Reads the next token as an int.
+     * @return The value of the token
+     * @throws NoSuchElementException if there are no more tokens
+     * @throws java.util.InputMismatchException if the token is not an int
+     */
+    int nextInt();
+}
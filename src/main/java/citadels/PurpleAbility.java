@@ -0,0 +1,181 @@
+package citadels;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The special abilities of purple districts. Every district card is linked to
+ * its ability by name when the card is created, and each player keeps the set of
+ * abilities in their city up to date as districts are built and destroyed, so
+ * the game can check for an ability in constant time.
+ * <p>
+ * Abilities that act at fixed points of the game override the hook methods;
+ * the game calls a hook only for abilities the player actually has. Abilities
+ * that change a rule, such as the Observatory or the Great Wall, are checked
+ * where that rule is applied.
+ */
+public enum PurpleAbility {
+    /** Counts as any color for victory points (not implemented) */
+    HAUNTED_CITY("Haunted City"),
+    /** Cannot be destroyed by the Warlord */
+    KEEP("Keep"),
+    /** Discard a card for 1 gold once per turn */
+    LABORATORY("Laboratory"),
+    /** Pay 2 gold to draw 3 cards once per turn */
+    SMITHY("Smithy"),
+    /** Draw 3 cards instead of 2 */
+    OBSERVATORY("Observatory"),
+    /** Pay 1 gold to recover a district destroyed by the Warlord */
+    GRAVEYARD("Graveyard"),
+    /** Worth 8 points at the end of the game */
+    DRAGON_GATE("Dragon Gate") {
+        @Override
+        int endGameBonus(Game game, Player owner, DistrictCard card) {
+            return 8 - card.getCost();
+        }
+    },
+    /** Worth 8 points at the end of the game */
+    UNIVERSITY("University") {
+        @Override
+        int endGameBonus(Game game, Player owner, DistrictCard card) {
+            return 8 - card.getCost();
+        }
+    },
+    /** Keep both drawn cards */
+    LIBRARY("Library"),
+    /** The Warlord pays 1 more gold to destroy the owner's districts */
+    GREAT_WALL("Great Wall"),
+    /** Counts as any color for income */
+    SCHOOL_OF_MAGIC("School Of Magic"),
+    /** Take any card from the deck when built (not implemented) */
+    LIGHTHOUSE("Lighthouse"),
+    /** Destroy itself to destroy a district in another city */
+    ARMORY("Armory"),
+    /** Store cards underneath for 1 point each at the end of the game */
+    MUSEUM("Museum") {
+        @Override
+        int endGameBonus(Game game, Player owner, DistrictCard card) {
+            return game.getMuseumCount(owner);
+        }
+    },
+    /** Scores 1 point per gold at the end of the game */
+    IMPERIAL_TREASURY("Imperial Treasury") {
+        @Override
+        int endGameBonus(Game game, Player owner, DistrictCard card) {
+            return owner.getGold();
+        }
+    },
+    /** Scores 1 point per card in hand at the end of the game */
+    MAP_ROOM("Map Room") {
+        @Override
+        int endGameBonus(Game game, Player owner, DistrictCard card) {
+            return owner.getHand().size();
+        }
+    },
+    /** Scores 1 point per other purple district at the end of the game */
+    WISHING_WELL("Wishing Well") {
+        @Override
+        int endGameBonus(Game game, Player owner, DistrictCard card) {
+            // The Wishing Well itself is purple, so count the others
+            return owner.getDistrictCount(DistrictColor.PURPLE) - 1;
+        }
+    },
+    /** Allows one duplicate district (not implemented) */
+    QUARRY("Quarry"),
+    /** Gain 1 gold when ending a turn with no gold */
+    POOR_HOUSE("Poor House") {
+        @Override
+        void onTurnEnd(Game game, Player owner) {
+            if (owner.getGold() == 0) {
+                game.gainGold(owner, 1);
+                game.announce("Poor House: You had no gold, so you receive 1 gold.");
+            }
+        }
+    },
+    /** Lets the game end at 7 districts (not implemented) */
+    BELL_TOWER("Bell Tower"),
+    /** Other purple districts cost 1 less (not implemented) */
+    FACTORY("Factory"),
+    /** Draw 2 cards when ending a turn with an empty hand */
+    PARK("Park") {
+        @Override
+        void onTurnEnd(Game game, Player owner) {
+            if (owner.getHand().isEmpty()) {
+                game.drawCards(owner, 2);
+                game.announce("Park: You had no cards, so you draw 2 cards.");
+            }
+        }
+    },
+    /** Take a basic action even when assassinated */
+    HOSPITAL("Hospital"),
+    /** Gain 1 gold whenever the crown changes hands */
+    THRONE_ROOM("Throne Room") {
+        @Override
+        void onCrownChange(Game game, Player owner) {
+            game.gainGold(owner, 1);
+            if (game.isOutputEnabled()) {
+                game.announce("Throne Room: Player " + owner.getPlayerNumber() + " receives 1 gold for crown switch.");
+            }
+        }
+    };
+
+    /** Abilities by district name */
+    private static final Map<String, PurpleAbility> BY_NAME = new HashMap<>();
+
+    static {
+        for (PurpleAbility ability : values()) {
+            BY_NAME.put(ability.districtName, ability);
+        }
+    }
+
+    /** The name of the district that has this ability */
+    private final String districtName;
+
+    PurpleAbility(String districtName) {
+        this.districtName = districtName;
+    }
+
+    /**
+     * Finds the ability of a district.
+     * @param districtName The district name
+     * @return The ability, or null if the district has no special ability
+     */
+    public static PurpleAbility forDistrict(String districtName) {
+        return BY_NAME.get(districtName);
+    }
+
+    /**
+     * Gets the name of the district that has this ability.
+     * @return The district name
+     */
+    public String getDistrictName() {
+        return districtName;
+    }
+
+    /**
+     * Called at the end of a human player's turn.
+     * @param game The game
+     * @param owner The player whose city has the district
+     */
+    void onTurnEnd(Game game, Player owner) {
+    }
+
+    /**
+     * Called after the crown has been handed out at the end of character selection.
+     * @param game The game
+     * @param owner The player whose city has the district
+     */
+    void onCrownChange(Game game, Player owner) {
+    }
+
+    /**
+     * Gets the extra points a district with this ability scores at the end of the game.
+     * @param game The game
+     * @param owner The player whose city has the district
+     * @param card The district card
+     * @return The bonus points
+     */
+    int endGameBonus(Game game, Player owner, DistrictCard card) {
+        return 0;
+    }
+}
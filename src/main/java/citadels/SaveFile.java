@@ -0,0 +1,368 @@
+package citadels;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The binary save file format.
+ * <p>
+ * A save file starts with a magic number and a format version, followed by the
+ * card table and then the game state. Numbers are written as varints, so small
+ * values such as gold, counts and card IDs take one byte. Cards are written as
+ * their catalog ID: IDs of the cards in the card file are written as they are,
+ * and cards created at run time are listed in the card table with their full
+ * description, since their IDs depend on the order they were created in. A save
+ * file cannot add card types: a file whose card table names a card this program
+ * has not created is rejected.
+ * <p>
+ * What the game state contains is up to {@link Game}; this class only provides
+ * the encoding and the file access.
+ */
+final class SaveFile {
+    /** The bytes "CITD", at the start of every save file */
+    static final int MAGIC = 0x43495444;
+
+    /** The current format version */
+    static final int VERSION = 2;
+
+    private SaveFile() {
+    }
+
+    /**
+     * Collects the encoded game state in memory and writes it to a file.
+     */
+    static final class Writer {
+        /** Number of card types in the card file; IDs below this are written as they are */
+        private final int baseCards = CardCatalog.getInstance().getDistrictCards().size();
+        /** Save IDs of the run-time cards written so far, indexed by catalog ID minus the base count */
+        private int[] customIds = new int[0];
+        /** Run-time cards in the order they were given save IDs */
+        private final List<DistrictCard> customCards = new ArrayList<>();
+        /** The encoded game state */
+        private ByteBuffer body = ByteBuffer.allocate(1024);
+
+        /**
+         * Writes an int that is usually small and never negative.
+         * @param value The value
+         */
+        void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                body.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            body.put((byte) value);
+        }
+
+        /**
+         * Writes an int that is usually small but may be negative.
+         * @param value The value
+         */
+        void writeSignedVarint(int value) {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        /**
+         * Writes a long as 8 bytes.
+         * @param value The value
+         */
+        void writeLong(long value) {
+            ensureCapacity(8);
+            body.putLong(value);
+        }
+
+        /**
+         * Writes a boolean as one byte.
+         * @param value The value
+         */
+        void writeBoolean(boolean value) {
+            ensureCapacity(1);
+            body.put(value ? (byte) 1 : (byte) 0);
+        }
+
+        /**
+         * Writes a card as its ID.
+         * @param card The card
+         */
+        void writeCard(DistrictCard card) {
+            writeVarint(saveId(card));
+        }
+
+        /**
+         * Writes a list of cards as its size followed by the cards.
+         * @param cards The cards
+         */
+        void writeCards(List<DistrictCard> cards) {
+            writeVarint(cards.size());
+            for (int i = 0; i < cards.size(); i++) {
+                writeCard(cards.get(i));
+            }
+        }
+
+        /**
+         * Writes the header, the card table and the game state to a file,
+         * replacing the file if it exists, and flushes the file to the disk.
+         * @param path The file
+         * @throws IOException if the file cannot be written
+         */
+        void writeTo(Path path) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(32 + customCards.size() * 64);
+            header.putInt(MAGIC);
+            putVarint(header, VERSION);
+            putVarint(header, baseCards);
+            putVarint(header, customCards.size());
+            for (DistrictCard card : customCards) {
+                header = putString(header, card.getName());
+                header = putString(header, card.getColor());
+                header = ensureCapacity(header, 5);
+                putVarint(header, card.getCost());
+                header = putString(header, card.getSpecialAbility());
+            }
+            header.flip();
+            ByteBuffer state = body.duplicate();
+            state.flip();
+            ByteBuffer[] buffers = {header, state};
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (header.hasRemaining() || state.hasRemaining()) {
+                    channel.write(buffers);
+                }
+                // Make sure the bytes are on the disk before the file can be renamed over a save
+                channel.force(true);
+            }
+        }
+
+        private int saveId(DistrictCard card) {
+            int id = card.getId();
+            if (id < baseCards) {
+                return id;
+            }
+            int index = id - baseCards;
+            if (index >= customIds.length) {
+                customIds = Arrays.copyOf(customIds, Math.max(index + 1, customIds.length * 2));
+            }
+            if (customIds[index] == 0) {
+                customCards.add(card);
+                customIds[index] = baseCards + customCards.size();
+            }
+            // Stored plus one so that 0 means no save ID yet
+            return customIds[index] - 1;
+        }
+
+        private void ensureCapacity(int needed) {
+            body = ensureCapacity(body, needed);
+        }
+
+        private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+            if (buffer.remaining() >= needed) {
+                return buffer;
+            }
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+            buffer.flip();
+            larger.put(buffer);
+            return larger;
+        }
+
+        private static void putVarint(ByteBuffer buffer, int value) {
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private static ByteBuffer putString(ByteBuffer buffer, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer = ensureCapacity(buffer, bytes.length + 5);
+            putVarint(buffer, bytes.length);
+            buffer.put(bytes);
+            return buffer;
+        }
+    }
+
+    /**
+     * Reads the game state of a save file that has been loaded into memory.
+     * Every read method throws an IOException if the file ends too early.
+     */
+    static final class Reader {
+        /** The game state, positioned after the card table */
+        private final ByteBuffer buffer;
+        /** Number of card-file card types when the file was written */
+        private final int baseCards;
+        /** Catalog IDs of the run-time cards, indexed by save ID minus the base count */
+        private final int[] customIds;
+
+        private Reader(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            if (buffer.remaining() < 4 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a Citadels save file");
+            }
+            int version = readVarint();
+            if (version != VERSION) {
+                throw new IOException("Unsupported save file version " + version);
+            }
+            CardCatalog catalog = CardCatalog.getInstance();
+            baseCards = readVarint();
+            if (baseCards > catalog.getDistrictCards().size()) {
+                throw new IOException("Save file uses " + baseCards + " district types, but only "
+                    + catalog.getDistrictCards().size() + " are known");
+            }
+            customIds = new int[readCount()];
+            for (int i = 0; i < customIds.length; i++) {
+                String name = readString();
+                String color = readString();
+                int cost = readVarint();
+                String specialAbility = readString();
+                DistrictCard card = catalog.find(name, color, cost, specialAbility);
+                if (card == null) {
+                    card = CustomCards.find(name, color, cost, specialAbility);
+                }
+                if (card == null) {
+                    throw new IOException("Unknown card " + name + " in save file");
+                }
+                customIds[i] = card.getId();
+            }
+        }
+
+        /**
+         * Reads a save file and its card table.
+         * @param path The file
+         * @return A reader positioned at the start of the game state
+         * @throws IOException if the file cannot be read or is not a save file of this version
+         */
+        static Reader open(Path path) throws IOException {
+            ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Save file is too large");
+                }
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Keep reading until the buffer is full
+                }
+            }
+            buffer.flip();
+            return new Reader(buffer);
+        }
+
+        /**
+         * Reads an int written by {@link Writer#writeVarint}.
+         * @return The value
+         * @throws IOException if the file ends too early or the value is malformed
+         */
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed number in save file");
+        }
+
+        /**
+         * Reads an int written by {@link Writer#writeSignedVarint}.
+         * @return The value
+         * @throws IOException if the file ends too early
+         */
+        int readSignedVarint() throws IOException {
+            int value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        /**
+         * Reads a count of items, which must fit in the rest of the file.
+         * @return The count
+         * @throws IOException if the count cannot be right
+         */
+        int readCount() throws IOException {
+            int count = readVarint();
+            if (count < 0 || count > buffer.remaining()) {
+                throw new IOException("Corrupt save file");
+            }
+            return count;
+        }
+
+        /**
+         * Reads a long written by {@link Writer#writeLong}.
+         * @return The value
+         * @throws IOException if the file ends too early
+         */
+        long readLong() throws IOException {
+            try {
+                return buffer.getLong();
+            } catch (BufferUnderflowException e) {
+                throw truncated();
+            }
+        }
+
+        /**
+         * Reads a boolean written by {@link Writer#writeBoolean}.
+         * @return The value
+         * @throws IOException if the file ends too early
+         */
+        boolean readBoolean() throws IOException {
+            return get() != 0;
+        }
+
+        /**
+         * Reads a card written by {@link Writer#writeCard}.
+         * @return The shared catalog card
+         * @throws IOException if the file ends too early or the card is not known
+         */
+        DistrictCard readCard() throws IOException {
+            int id = readVarint();
+            if (id >= baseCards) {
+                if (id - baseCards >= customIds.length) {
+                    throw new IOException("Unknown card " + id + " in save file");
+                }
+                id = customIds[id - baseCards];
+            }
+            return CardCatalog.getInstance().getCard(id);
+        }
+
+        /**
+         * Reads a list of cards written by {@link Writer#writeCards}.
+         * @return A new list of the cards
+         * @throws IOException if the file ends too early or a card is not known
+         */
+        List<DistrictCard> readCards() throws IOException {
+            int count = readCount();
+            List<DistrictCard> cards = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                cards.add(readCard());
+            }
+            return cards;
+        }
+
+        private String readString() throws IOException {
+            int length = readCount();
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        private byte get() throws IOException {
+            if (!buffer.hasRemaining()) {
+                throw truncated();
+            }
+            return buffer.get();
+        }
+
+        private static IOException truncated() {
+            return new IOException("Save file is truncated");
+        }
+    }
+}
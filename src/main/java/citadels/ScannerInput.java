@@ -0,0 +1,39 @@
+package citadels;
+
+import java.util.Scanner;
+
+/**
+ * Player input read through a {@link Scanner}, usually over the console.
+ */
+public class ScannerInput implements PlayerInput {
+    /** The scanner that input is read from */
+    private final Scanner scanner;
+
+    /**
+     * Creates input that reads from a scanner.
+     * @param scanner The scanner to read from
+     */
+    public ScannerInput(Scanner scanner) {
+        this.scanner = scanner;
+    }
+
+    @Override
+    public String next() {
+        return scanner.next();
+    }
+
+    @Override
+    public String nextLine() {
+        return scanner.nextLine();
+    }
+
+    @Override
+    public boolean hasNextInt() {
+        return scanner.hasNextInt();
+    }
+
+    @Override
+    public int nextInt() {
+        return scanner.nextInt();
+    }
+}
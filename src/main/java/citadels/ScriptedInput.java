@@ -0,0 +1,175 @@
+package citadels;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Player input replayed from a prepared list of lines, such as a recorded
+ * session or a test script. The lines use the same commands a player would
+ * type at the console, and are read with the same token and line rules as a
+ * {@link java.util.Scanner}, but without regular expressions or stream buffering.
+ * <p>
+ * Every line counts as ending with a line break. When the script runs out, the
+ * read methods throw {@link NoSuchElementException} just as a scanner would at
+ * the end of its input.
+ */
+public class ScriptedInput implements PlayerInput {
+    /** The lines of the script */
+    private final List<String> lines;
+    /** Index of the line being read */
+    private int line;
+    /** Position of the next unread character in the current line */
+    private int position;
+
+    /**
+     * Creates input that replays a list of lines.
+     * @param lines The lines to replay, without line breaks
+     */
+    public ScriptedInput(List<String> lines) {
+        this.lines = new ArrayList<>(lines);
+    }
+
+    /**
+     * Creates input that replays the given lines.
+     * @param lines The lines to replay, without line breaks
+     * @return The scripted input
+     */
+    public static ScriptedInput of(String... lines) {
+        return new ScriptedInput(Arrays.asList(lines));
+    }
+
+    /**
+     * Creates input that replays text, split into lines at each line break.
+     * @param text The text to replay
+     * @return The scripted input
+     */
+    public static ScriptedInput fromText(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                int end = i > start && text.charAt(i - 1) == '\r' ? i - 1 : i;
+                lines.add(text.substring(start, end));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return new ScriptedInput(lines);
+    }
+
+    /**
+     * Creates input that replays the lines of a UTF-8 text file.
+     * @param file The script file
+     * @return The scripted input
+     * @throws IOException If the file cannot be read
+     */
+    public static ScriptedInput fromFile(Path file) throws IOException {
+        return new ScriptedInput(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String next() {
+        if (!skipToToken()) {
+            throw new NoSuchElementException("End of script");
+        }
+        String text = lines.get(line);
+        int end = tokenEnd(text, position);
+        String token = text.substring(position, end);
+        position = end;
+        return token;
+    }
+
+    @Override
+    public String nextLine() {
+        if (line >= lines.size()) {
+            throw new NoSuchElementException("End of script");
+        }
+        String rest = lines.get(line).substring(position);
+        line++;
+        position = 0;
+        return rest;
+    }
+
+    @Override
+    public boolean hasNextInt() {
+        int savedLine = line;
+        int savedPosition = position;
+        try {
+            if (!skipToToken()) {
+                return false;
+            }
+            String text = lines.get(line);
+            return parseInt(text, position, tokenEnd(text, position)) != null;
+        } finally {
+            line = savedLine;
+            position = savedPosition;
+        }
+    }
+
+    @Override
+    public int nextInt() {
+        int savedLine = line;
+        int savedPosition = position;
+        String token = next();
+        Integer value = parseInt(token, 0, token.length());
+        if (value == null) {
+            // Like a scanner, leave the token unread if it is not an int
+            line = savedLine;
+            position = savedPosition;
+            throw new InputMismatchException(token);
+        }
+        return value;
+    }
+
+    /**
+     * Returns true if the whole script has been read.
+     * @return True if no lines are left
+     */
+    public boolean isExhausted() {
+        return line >= lines.size();
+    }
+
+    /**
+     * Moves to the start of the next token, across line breaks if needed.
+     * @return False if there are no more tokens
+     */
+    private boolean skipToToken() {
+        while (line < lines.size()) {
+            String text = lines.get(line);
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            if (position < text.length()) {
+                return true;
+            }
+            line++;
+            position = 0;
+        }
+        return false;
+    }
+
+    private static int tokenEnd(String text, int start) {
+        int end = start;
+        while (end < text.length() && !Character.isWhitespace(text.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static Integer parseInt(String text, int start, int end) {
+        try {
+            return Integer.parseInt(text.substring(start, end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
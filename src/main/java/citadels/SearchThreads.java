@@ -0,0 +1,24 @@
+package citadels;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The threads that search AIs run their parallel work on. The pool has one
+ * daemon thread per core and is shared by every search, so several search
+ * players in one game do not start more threads than there are cores.
+ */
+final class SearchThreads {
+    /** Number of threads, one per available core */
+    static final int COUNT = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    /** The shared pool */
+    static final ExecutorService POOL = Executors.newFixedThreadPool(COUNT, runnable -> {
+        Thread thread = new Thread(runnable, "citadels-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SearchThreads() {
+    }
+}
@@ -0,0 +1,14 @@
+package citadels;
+
+/**
+ * Creates the player sitting in each seat of a new game.
+ */
+interface SeatFactory {
+    /**
+     * Creates a player.
+     * @param playerNumber The 1-based seat number
+     * @param random A generator split from the game's generator for this seat
+     * @return The player for the seat
+     */
+    Player create(int playerNumber, GameRandom random);
+}
@@ -0,0 +1,33 @@
+package citadels;
+
+/**
+ * Receives what a {@link GameSession} publishes. Every method is called on the
+ * session's worker thread, in the order things happened in the game, so a
+ * listener must not block; one that forwards to a slow client should hand the
+ * data to another thread.
+ */
+public interface SessionListener {
+    /**
+     * Called with the text the game printed since the last flush.
+     * @param text The text, one or more lines
+     */
+    default void onOutput(String text) {
+    }
+
+    /**
+     * Called for each game event, after its change has been made.
+     * The event types and arguments are those of {@link GameJournal}.
+     * @param type The event type
+     * @param seat The 0-based seat of the player the event concerns, or -1
+     * @param value The first argument
+     * @param extra The second argument
+     */
+    default void onEvent(int type, int seat, int value, int extra) {
+    }
+
+    /**
+     * Called once when the game is over or the session was closed before it ended.
+     */
+    default void onEnd() {
+    }
+}
@@ -0,0 +1,656 @@
+package citadels;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps many {@link GameSession}s while only a bounded number of them are in memory.
+ * <p>
+ * Most games sit idle waiting for their human player. A session that has not been
+ * used for a while, or that is chosen to make room when too many sessions are in
+ * memory, is evicted: its {@link GameSession.Checkpoint} is written to disk and the
+ * session is closed, so its game and worker thread are freed. The checkpoint is a
+ * snapshot in the {@link SaveFile} format taken at the start of the round, which
+ * holds the deck, the discard pile, the characters and every generator, plus the
+ * lines the player sent since. The next command or question for an evicted session
+ * resumes it from the checkpoint: the snapshot is loaded and the lines are read
+ * again without publishing anything, so the game continues exactly where it was
+ * and the player cannot tell it was ever gone.
+ * <p>
+ * Sessions to make room are chosen by the clock policy: sessions in memory sit on a
+ * ring, every use sets a session's reference bit, and a hand moving round the ring
+ * evicts the first session whose bit is clear, clearing the bits it passes. That
+ * is close to least recently used without reordering a list on every command.
+ * <p>
+ * Evictions run on the registry's own evictor thread, never on a caller's: the
+ * request that found too many sessions in memory only queues the victims. An
+ * eviction waits for the victim's checkpoint without holding it, and gives up if
+ * the victim is used again meanwhile. Each checkpoint's snapshot and lines are
+ * written to files numbered with the checkpoint's version, which the registry
+ * switches to only once both are on disk, so a session always resumes from a
+ * snapshot and the lines that belong to it.
+ * <p>
+ * A session's listener is kept by the registry and attached to each session that
+ * runs its game, so it sees one game from start to end. Resumed sessions seat
+ * {@link AIPlayer}s, as {@link Game#loadGame} does.
+ */
+public final class SessionRegistry implements AutoCloseable {
+    /** Number of sessions kept in memory when none is given */
+    public static final int DEFAULT_MAX_RESIDENT = 1024;
+
+    /** Time a session may be idle before it is evicted, when none is given */
+    public static final long DEFAULT_IDLE_MILLIS = 5 * 60 * 1000L;
+
+    /** How long an eviction waits for the game to reach a point where it waits for input */
+    private static final long CHECKPOINT_TIMEOUT_SECONDS = 10;
+
+    /** The directory the checkpoints are written to */
+    private final Path directory;
+
+    /** Number of sessions kept in memory */
+    private final int maxResident;
+
+    /** Time a session may be idle before it is evicted, in nanoseconds */
+    private final long idleNanos;
+
+    /** Generator the new games' generators are split from; guarded by this */
+    private final GameRandom random;
+
+    /** The time in nanoseconds */
+    private final LongSupplier clock;
+
+    /** Runs the sessions' workers, or null to give each its own daemon thread */
+    private final ExecutorService workers;
+
+    /** Every session by id, in memory or not */
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /** The sessions in memory, in the order the clock hand visits them; guarded by this */
+    private final List<Entry> ring = new ArrayList<>();
+
+    /** Position of the clock hand in the ring; guarded by this */
+    private int hand;
+
+    /** Sessions chosen to make room that the evictor has not finished with; guarded by this */
+    private final ArrayDeque<Entry> victims = new ArrayDeque<>();
+
+    /** Runs the evictions and the idle sweeps */
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "citadels-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The id of the last session created */
+    private final AtomicLong lastId = new AtomicLong();
+
+    /** Number of evictions */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /** Number of sessions resumed from a checkpoint */
+    private final AtomicLong resumes = new AtomicLong();
+
+    /** True once the idle sweeps are scheduled; guarded by this */
+    private boolean started;
+
+    /** Set once the registry is closed */
+    private volatile boolean closed;
+
+    /**
+     * Creates a registry.
+     *
+     * @param directory The directory checkpoints are written to; it must exist
+     * @param maxResident The number of sessions kept in memory
+     * @param idleMillis The time a session may be idle before it is evicted
+     */
+    public SessionRegistry(Path directory, int maxResident, long idleMillis) {
+        this(directory, maxResident, idleMillis, new GameRandom(), System::nanoTime);
+    }
+
+    /**
+     * Creates a registry with a given generator and clock.
+     *
+     * @param directory The directory checkpoints are written to; it must exist
+     * @param maxResident The number of sessions kept in memory
+     * @param idleMillis The time a session may be idle before it is evicted
+     * @param random The generator the games' generators are split from
+     * @param clock The time in nanoseconds
+     */
+    SessionRegistry(Path directory, int maxResident, long idleMillis, GameRandom random, LongSupplier clock) {
+        if (maxResident < 1) {
+            throw new IllegalArgumentException("At least one session must fit in memory");
+        }
+        this.directory = directory;
+        this.maxResident = maxResident;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.random = random;
+        this.clock = clock;
+        this.workers = GameServer.newVirtualThreadExecutor();
+    }
+
+    /**
+     * Starts evicting idle sessions in the background.
+     *
+     * @return This registry
+     */
+    public synchronized SessionRegistry start() {
+        if (started) {
+            throw new IllegalStateException("Registry already started");
+        }
+        started = true;
+        long interval = Math.max(10, TimeUnit.NANOSECONDS.toMillis(idleNanos) / 4);
+        evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * Creates a session for a game between one human player in seat 1 and AI players, and starts it.
+     *
+     * @param numPlayers The number of players (between 4 and 7)
+     * @return The session's id
+     */
+    public long create(int numPlayers) {
+        return create(numPlayers, null);
+    }
+
+    /**
+     * Creates a session and starts it.
+     *
+     * @param numPlayers The number of players (between 4 and 7)
+     * @param listener Receives the game's output and events, or null
+     * @return The session's id
+     */
+    public long create(int numPlayers, SessionListener listener) {
+        if (closed) {
+            throw new IllegalStateException("Registry is closed");
+        }
+        GameRandom gameRandom;
+        synchronized (this) {
+            gameRandom = random.split();
+        }
+        GameSession session = new GameSession(numPlayers, Game::defaultSeat, gameRandom,
+            GameSession.DEFAULT_MAILBOX_CAPACITY);
+        Entry entry = new Entry(lastId.incrementAndGet(), numPlayers, listener);
+        entries.put(entry.id, entry);
+        synchronized (entry) {
+            attach(entry, session);
+        }
+        makeRoom();
+        return entry.id;
+    }
+
+    /**
+     * Sends a command line to a session's game, resuming the session if it was evicted.
+     *
+     * @param id The session's id
+     * @param line The line, as the player would type it
+     * @return False if the mailbox is full or the session is closed
+     * @throws IllegalArgumentException if there is no such session
+     * @throws UncheckedIOException if the session's checkpoint cannot be read
+     */
+    public boolean offer(long id, String line) {
+        Entry entry = entry(id);
+        boolean accepted;
+        synchronized (entry) {
+            accepted = resident(entry).offer(line);
+        }
+        makeRoom();
+        return accepted;
+    }
+
+    /**
+     * Asks a question about a session's game, resuming the session if it was evicted.
+     *
+     * @param id The session's id
+     * @param question A function of the game, as for {@link GameSession#query}
+     * @return The answer
+     * @throws IllegalArgumentException if there is no such session
+     * @throws UncheckedIOException if the session's checkpoint cannot be read
+     */
+    public <T> CompletableFuture<T> query(long id, Function<Game, T> question) {
+        Entry entry = entry(id);
+        CompletableFuture<T> answer;
+        synchronized (entry) {
+            answer = resident(entry).query(question);
+        }
+        makeRoom();
+        return answer;
+    }
+
+    /**
+     * Returns true if a session exists.
+     *
+     * @param id The session's id
+     * @return True if the session was created and not removed
+     */
+    public boolean contains(long id) {
+        return entries.containsKey(id);
+    }
+
+    /**
+     * Returns true once a session's game is over.
+     *
+     * @param id The session's id
+     * @return True if the game ended
+     * @throws IllegalArgumentException if there is no such session
+     */
+    public boolean isGameEnded(long id) {
+        return entry(id).ended;
+    }
+
+    /**
+     * Returns true if a session is in memory.
+     *
+     * @param id The session's id
+     * @return False if the session is evicted
+     * @throws IllegalArgumentException if there is no such session
+     */
+    public boolean isResident(long id) {
+        Entry entry = entry(id);
+        synchronized (entry) {
+            return entry.session != null;
+        }
+    }
+
+    /**
+     * Ends a session and deletes its checkpoint.
+     *
+     * @param id The session's id
+     * @return False if there was no such session
+     */
+    public boolean remove(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            entry.removed = true;
+            detach(entry);
+            deleteCheckpoint(entry, entry.checkpoint);
+        }
+        return true;
+    }
+
+    /**
+     * Evicts every session that has been idle for longer than the threshold.
+     *
+     * @return The number of sessions evicted
+     */
+    public int evictIdle() {
+        List<Entry> resident;
+        synchronized (this) {
+            resident = new ArrayList<>(ring);
+        }
+        long now = clock.getAsLong();
+        int evicted = 0;
+        for (Entry entry : resident) {
+            if (now - entry.lastUsed > idleNanos && evict(entry)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Gets the number of sessions, in memory or not.
+     *
+     * @return The number of sessions
+     */
+    public int getSessionCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of sessions in memory.
+     *
+     * @return The number of resident sessions
+     */
+    public synchronized int getResidentCount() {
+        return ring.size();
+    }
+
+    /**
+     * Gets the number of times a session was evicted.
+     *
+     * @return The number of evictions
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the number of times a session was resumed from its checkpoint.
+     *
+     * @return The number of resumes
+     */
+    public long getResumeCount() {
+        return resumes.get();
+    }
+
+    /**
+     * Ends every session and deletes their checkpoints.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        for (Long id : new ArrayList<>(entries.keySet())) {
+            remove(id);
+        }
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    private Entry entry(long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            throw new IllegalArgumentException("No session " + id);
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the session of an entry, resuming it from its checkpoint if needed. Called holding the entry's lock.
+     */
+    private GameSession resident(Entry entry) {
+        if (entry.removed) {
+            throw new IllegalArgumentException("No session " + entry.id);
+        }
+        if (entry.session == null) {
+            List<String> lines;
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(linesFile(entry, entry.checkpoint)))) {
+                int count = in.readInt();
+                lines = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    lines.add(in.readUTF());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error resuming session " + entry.id, e);
+            }
+            attach(entry, GameSession.resume(entry.numPlayers, snapshotFile(entry, entry.checkpoint), lines,
+                GameSession.DEFAULT_MAILBOX_CAPACITY));
+            resumes.incrementAndGet();
+        }
+        entry.lastUsed = clock.getAsLong();
+        entry.referenced = true;
+        entry.uses++;
+        return entry.session;
+    }
+
+    /**
+     * Puts a session in memory for an entry and starts it. Called holding the entry's lock.
+     */
+    private void attach(Entry entry, GameSession session) {
+        session.addListener(entry);
+        entry.session = session;
+        entry.lastUsed = clock.getAsLong();
+        entry.referenced = true;
+        synchronized (this) {
+            ring.add(entry);
+        }
+        if (workers != null) {
+            session.start(workers);
+        } else {
+            session.start();
+        }
+    }
+
+    /**
+     * Closes an entry's session, if it is in memory, without publishing anything
+     * more from it. Called holding the entry's lock.
+     */
+    private void detach(Entry entry) {
+        GameSession session = entry.session;
+        if (session == null) {
+            return;
+        }
+        // The game plays on without input once closed; its listener must not see that
+        session.removeListener(entry);
+        session.close();
+        entry.session = null;
+        synchronized (this) {
+            int index = ring.indexOf(entry);
+            ring.remove(index);
+            if (index < hand) {
+                hand--;
+            }
+        }
+    }
+
+    /**
+     * Queues sessions chosen by the clock for the evictor until the sessions in memory
+     * that are not already queued fit.
+     */
+    private void makeRoom() {
+        synchronized (this) {
+            int queued = victims.size();
+            while (ring.size() - victims.size() > maxResident) {
+                Entry victim = nextVictim();
+                if (!victims.contains(victim)) {
+                    victims.add(victim);
+                }
+            }
+            if (victims.size() == queued) {
+                return;
+            }
+        }
+        try {
+            evictor.execute(this::evictVictims);
+        } catch (RejectedExecutionException e) {
+            // The registry is closed
+        }
+    }
+
+    /**
+     * Evicts the queued sessions, on the evictor thread. A session stays in the queue
+     * until it is done, so the sessions chosen meanwhile are not chosen twice.
+     */
+    private void evictVictims() {
+        while (true) {
+            Entry victim;
+            synchronized (this) {
+                victim = victims.peek();
+            }
+            if (victim == null) {
+                return;
+            }
+            evict(victim);
+            synchronized (this) {
+                victims.remove(victim);
+            }
+        }
+    }
+
+    /**
+     * Moves the clock hand to the first session whose reference bit is clear,
+     * clearing the bits it passes. Called holding this registry's lock.
+     */
+    private Entry nextVictim() {
+        while (true) {
+            if (hand >= ring.size()) {
+                hand = 0;
+            }
+            Entry entry = ring.get(hand);
+            if (!entry.referenced) {
+                hand++;
+                return entry;
+            }
+            entry.referenced = false;
+            hand++;
+        }
+    }
+
+    /**
+     * Writes a session's checkpoint to disk and closes it. The entry is not locked while
+     * the game gets to its checkpoint or the files are written, so its player is not held
+     * up; if the session is used meanwhile, the new checkpoint is thrown away.
+     * @return False if the session was not in memory, was used again or could not be checkpointed
+     */
+    private boolean evict(Entry entry) {
+        GameSession session;
+        long uses;
+        int version;
+        synchronized (entry) {
+            session = entry.session;
+            if (session == null || entry.removed) {
+                return false;
+            }
+            uses = entry.uses;
+            version = ++entry.lastVersion;
+        }
+        GameSession.Checkpoint checkpoint;
+        try {
+            checkpoint = session.checkpoint().get(CHECKPOINT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            // The game is busy or closed; try again later
+            return false;
+        }
+        try {
+            writeCheckpoint(entry, version, checkpoint);
+        } catch (IOException e) {
+            deleteCheckpoint(entry, version);
+            return false;
+        }
+        synchronized (entry) {
+            if (entry.session != session || entry.removed || entry.uses != uses) {
+                deleteCheckpoint(entry, version);
+                return false;
+            }
+            int previous = entry.checkpoint;
+            entry.checkpoint = version;
+            detach(entry);
+            deleteCheckpoint(entry, previous);
+        }
+        evictions.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Writes the files of one version of a checkpoint and flushes them to the disk.
+     */
+    private void writeCheckpoint(Entry entry, int version, GameSession.Checkpoint checkpoint) throws IOException {
+        checkpoint.snapshot.writeTo(snapshotFile(entry, version));
+        try (FileOutputStream file = new FileOutputStream(linesFile(entry, version).toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(checkpoint.lines.size());
+            for (String line : checkpoint.lines) {
+                out.writeUTF(line);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+    }
+
+    private void deleteCheckpoint(Entry entry, int version) {
+        if (version == 0) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(snapshotFile(entry, version));
+            Files.deleteIfExists(linesFile(entry, version));
+        } catch (IOException e) {
+            // Left for whoever cleans the directory
+        }
+    }
+
+    private Path snapshotFile(Entry entry, int version) {
+        return directory.resolve("session-" + entry.id + "-" + version + ".save");
+    }
+
+    private Path linesFile(Entry entry, int version) {
+        return directory.resolve("session-" + entry.id + "-" + version + ".lines");
+    }
+
+    /**
+     * A session of the registry. It forwards what each of its sessions publishes to
+     * the listener given when it was created.
+     */
+    private static final class Entry implements SessionListener {
+        /** The session's id */
+        private final long id;
+
+        /** The number of players */
+        private final int numPlayers;
+
+        /** The listener, or null */
+        private final SessionListener listener;
+
+        /** The session running the game, or null while evicted; guarded by this */
+        private GameSession session;
+
+        /** Set once the session is removed; guarded by this */
+        private boolean removed;
+
+        /** Version of the checkpoint the session resumes from, or 0 if none was written; guarded by this */
+        private int checkpoint;
+
+        /** The last checkpoint version handed out; guarded by this */
+        private int lastVersion;
+
+        /** Number of times the session was used; guarded by this */
+        private long uses;
+
+        /** When the session was last used, in clock nanoseconds */
+        private volatile long lastUsed;
+
+        /** The clock's reference bit, set on every use */
+        private volatile boolean referenced;
+
+        /** Set once the game is over */
+        private volatile boolean ended;
+
+        private Entry(long id, int numPlayers, SessionListener listener) {
+            this.id = id;
+            this.numPlayers = numPlayers;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onOutput(String text) {
+            if (listener != null) {
+                listener.onOutput(text);
+            }
+        }
+
+        @Override
+        public void onEvent(int type, int seat, int value, int extra) {
+            if (listener != null) {
+                listener.onEvent(type, seat, value, extra);
+            }
+        }
+
+        @Override
+        public void onEnd() {
+            ended = true;
+            if (listener != null) {
+                listener.onEnd();
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package citadels;
+
+/**
+ * Game output that discards everything, for games nobody is watching.
+ */
+public final class SilentOutput implements GameOutput {
+    /** The shared instance */
+    public static final SilentOutput INSTANCE = new SilentOutput();
+
+    private SilentOutput() {
+    }
+
+    @Override
+    public void print(String text) {
+    }
+
+    @Override
+    public void println(String text) {
+    }
+
+    @Override
+    public void error(String message) {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+}
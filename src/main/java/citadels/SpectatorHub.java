@@ -0,0 +1,419 @@
+package citadels;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends a game's public events to any number of spectators.
+ * <p>
+ * Spectators see what the {@code all} and {@code city} commands show every player:
+ * the cities, each player's gold and number of cards, the characters whose turn
+ * has come, the Assassin's target and the final scores. They never see a hand, the
+ * deck or a character that has not been revealed.
+ * <p>
+ * Each event is written once as a line of JSON into a read-only direct buffer, a
+ * frame, and every spectator's channel is given a duplicate of that frame: its own
+ * position over the same bytes. Adding a spectator costs a queue slot per frame,
+ * not another rendering of the event. The frame types are:
+ * <ul>
+ *   <li>{@code reveal}: a character's turn began, and who holds it</li>
+ *   <li>{@code build}: a player built a district</li>
+ *   <li>{@code kill}: the Assassin chose a target</li>
+ *   <li>{@code destroy}: a district was removed from a city</li>
+ *   <li>{@code state}: every player's public state, at the start of each round</li>
+ *   <li>{@code end}: the game ended, with every player's score</li>
+ * </ul>
+ * A spectator who joins mid-game is first sent the last {@code state} frame and
+ * then the frames sent since, so they catch up without the hub rendering the
+ * whole state after every event: the state is rendered once per round.
+ * <p>
+ * The hub is a listener of the game, called on the game's thread, so it never
+ * blocks: each spectator has a bounded queue of frames that its own writer thread
+ * (a virtual thread on Java 21 and later) drains into the channel. A spectator
+ * whose queue is full has fallen too far behind and is dropped, which closes its
+ * channel, so a slow reader never slows the game or the other spectators.
+ */
+public final class SpectatorHub implements GameEventListener, AutoCloseable {
+    /** Number of frames a spectator may fall behind when none is given */
+    public static final int DEFAULT_QUEUE_FRAMES = 1024;
+
+    /** Put in a queue to stop its writer */
+    private static final ByteBuffer STOP = ByteBuffer.allocate(0);
+
+    /** Number of frames each spectator may fall behind */
+    private final int queueFrames;
+
+    /** Runs the writers */
+    private final ExecutorService writers;
+
+    /** The spectators; guarded by this */
+    private final List<Subscription> subscribers = new ArrayList<>();
+
+    /** The public state at the start of the round, or null in the first round; guarded by this */
+    private ByteBuffer latestState;
+
+    /** The frames sent since {@link #latestState}, for spectators who join mid-round; guarded by this */
+    private final List<ByteBuffer> roundFrames = new ArrayList<>();
+
+    /** Number of frames sent to the spectators */
+    private final AtomicLong frames = new AtomicLong();
+
+    /** Number of spectators dropped for falling behind */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** Set once the hub is closed; guarded by this */
+    private boolean closed;
+
+    /**
+     * Creates a hub.
+     */
+    public SpectatorHub() {
+        this(DEFAULT_QUEUE_FRAMES);
+    }
+
+    /**
+     * Creates a hub with a given queue size.
+     *
+     * @param queueFrames The number of frames each spectator may fall behind
+     */
+    SpectatorHub(int queueFrames) {
+        if (queueFrames < 1) {
+            throw new IllegalArgumentException("Queue must hold at least one frame");
+        }
+        this.queueFrames = queueFrames;
+        ExecutorService virtual = GameServer.newVirtualThreadExecutor();
+        this.writers = virtual != null ? virtual : Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "citadels-spectator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sends a session's public events to this hub's spectators.
+     *
+     * @param session The session
+     * @return This hub
+     */
+    public SpectatorHub watch(GameSession session) {
+        session.addGameListener(this);
+        return this;
+    }
+
+    /**
+     * Adds a spectator.
+     *
+     * @param channel The channel the spectator's frames are written to; the hub
+     *                closes it when the spectator leaves or is dropped
+     * @return The spectator's subscription
+     * @throws IllegalStateException if the hub is closed
+     */
+    public synchronized Subscription subscribe(WritableByteChannel channel) {
+        if (closed) {
+            throw new IllegalStateException("Hub is closed");
+        }
+        Subscription subscription = new Subscription(channel, queueFrames + 1);
+        if (latestState != null) {
+            subscription.queue.add(latestState.duplicate());
+        }
+        // One slot is kept free for the stop marker
+        for (int i = 0; i < roundFrames.size() && subscription.queue.remainingCapacity() > 1; i++) {
+            subscription.queue.add(roundFrames.get(i).duplicate());
+        }
+        subscribers.add(subscription);
+        writers.execute(subscription::writeLoop);
+        return subscription;
+    }
+
+    /**
+     * Gets the number of spectators.
+     *
+     * @return The number of subscriptions that are open
+     */
+    public synchronized int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Gets the number of frames sent to the spectators, each counted once however many spectators there are.
+     *
+     * @return The number of frames
+     */
+    public long getFrameCount() {
+        return frames.get();
+    }
+
+    /**
+     * Gets the number of spectators dropped for falling behind.
+     *
+     * @return The number of dropped spectators
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Turns public events into frames for the spectators. Called on the game's thread.
+     */
+    @Override
+    public void onEvent(Game game, int type, int seat, int value, int extra) {
+        JsonWriter json;
+        switch (type) {
+            case GameJournal.REVEAL:
+                json = frame("reveal", game)
+                    .field("player", seat + 1)
+                    .field("character", characterName(value))
+                    .field("number", value);
+                break;
+            case GameJournal.BUILD: {
+                Player player = game.getPlayers().get(seat);
+                json = frame("build", game).field("player", seat + 1).name("district");
+                writeDistrict(json, CardCatalog.getInstance().getCard(extra));
+                json.field("citySize", player.getCitySize()).field("gold", player.getGold());
+                break;
+            }
+            case GameJournal.KILL:
+                json = frame("kill", game)
+                    .field("character", characterName(value))
+                    .field("number", value);
+                break;
+            case GameJournal.DESTROY:
+                json = frame("destroy", game).field("player", seat + 1).name("district");
+                writeDistrict(json, CardCatalog.getInstance().getCard(extra));
+                json.field("citySize", game.getPlayers().get(seat).getCitySize());
+                break;
+            case GameJournal.ROUND_END:
+                json = null;
+                break;
+            case GameJournal.GAME_END:
+                json = frame("end", game).name("scores").beginArray();
+                for (Player player : game.getPlayers()) {
+                    json.beginObject()
+                        .field("player", player.getPlayerNumber())
+                        .field("score", player.calculateScore())
+                        .endObject();
+                }
+                json.endArray();
+                break;
+            default:
+                // Everything else changes hands, the deck or hidden characters, or is already in a frame
+                return;
+        }
+        synchronized (this) {
+            if (type == GameJournal.ROUND_END) {
+                latestState = encode(stateFrame(game));
+                roundFrames.clear();
+                broadcast(latestState);
+            } else {
+                ByteBuffer frame = encode(json.endObject());
+                roundFrames.add(frame);
+                broadcast(frame);
+            }
+        }
+    }
+
+    /**
+     * Drops every spectator after their writers have sent the frames already queued.
+     */
+    @Override
+    public void close() {
+        List<Subscription> leaving;
+        synchronized (this) {
+            closed = true;
+            leaving = new ArrayList<>(subscribers);
+        }
+        for (Subscription subscription : leaving) {
+            subscription.finish();
+        }
+        writers.shutdown();
+        try {
+            writers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts a frame with its type and round.
+     */
+    private JsonWriter frame(String type, Game game) {
+        return new JsonWriter().beginObject()
+            .field("type", type)
+            .field("round", game.getCurrentRound());
+    }
+
+    /**
+     * Writes every player's public state, as {@code all} shows it.
+     */
+    private static JsonWriter stateFrame(Game game) {
+        JsonWriter json = new JsonWriter().beginObject()
+            .field("type", "state")
+            .field("round", game.getCurrentRound())
+            .name("players").beginArray();
+        for (Player player : game.getPlayers()) {
+            json.beginObject()
+                .field("player", player.getPlayerNumber())
+                .field("crown", player.hasCrown())
+                .field("gold", player.getGold())
+                .field("cards", player.getHand().size())
+                .name("city").beginArray();
+            for (DistrictCard card : player.getCity()) {
+                writeDistrict(json, card);
+            }
+            json.endArray().endObject();
+        }
+        return json.endArray().endObject();
+    }
+
+    private static void writeDistrict(JsonWriter json, DistrictCard card) {
+        json.beginObject()
+            .field("name", card.getName())
+            .field("color", card.getColor())
+            .field("cost", card.getCost())
+            .endObject();
+    }
+
+    private static String characterName(int number) {
+        CharacterRole role = CharacterRole.fromNumber(number);
+        return role != null ? CardCatalog.getInstance().getCharacterCard(role).getName() : null;
+    }
+
+    /**
+     * Encodes a frame into a read-only direct buffer ending with a line break.
+     */
+    private static ByteBuffer encode(JsonWriter json) {
+        byte[] bytes = (json.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Queues a frame for every spectator, dropping those whose queue is full. Called holding this hub's lock.
+     */
+    private void broadcast(ByteBuffer frame) {
+        frames.incrementAndGet();
+        for (int i = subscribers.size() - 1; i >= 0; i--) {
+            Subscription subscription = subscribers.get(i);
+            // One slot is kept free for the stop marker
+            if (subscription.queue.remainingCapacity() <= 1 || !subscription.queue.offer(frame.duplicate())) {
+                subscribers.remove(i);
+                dropped.incrementAndGet();
+                subscription.abort();
+            }
+        }
+    }
+
+    /**
+     * One spectator's place in the hub.
+     */
+    public final class Subscription implements AutoCloseable {
+        /** The channel frames are written to */
+        private final WritableByteChannel channel;
+
+        /** Frames waiting to be written, then possibly {@link #STOP} */
+        private final BlockingQueue<ByteBuffer> queue;
+
+        /** Number of frames written to the channel */
+        private final AtomicLong written = new AtomicLong();
+
+        /** Cleared when the writer stops */
+        private volatile boolean open = true;
+
+        private Subscription(WritableByteChannel channel, int capacity) {
+            this.channel = channel;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /**
+         * Returns true until the spectator leaves, is dropped or their channel fails.
+         *
+         * @return True while frames are written
+         */
+        public boolean isOpen() {
+            return open;
+        }
+
+        /**
+         * Gets the number of frames written to the channel.
+         *
+         * @return The number of frames
+         */
+        public long getFramesWritten() {
+            return written.get();
+        }
+
+        /**
+         * Stops sending frames to this spectator, after the frames already queued, and closes the channel.
+         */
+        @Override
+        public void close() {
+            synchronized (SpectatorHub.this) {
+                subscribers.remove(this);
+            }
+            finish();
+        }
+
+        /**
+         * Tells the writer to stop once the queue is written.
+         */
+        private void finish() {
+            // The broadcast keeps one slot free, so the marker always fits
+            queue.offer(STOP);
+        }
+
+        /**
+         * Drops the queued frames and closes the channel, which also ends a write
+         * the writer is blocked in.
+         */
+        private void abort() {
+            queue.clear();
+            queue.offer(STOP);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+
+        private void writeLoop() {
+            try {
+                while (true) {
+                    ByteBuffer frame = queue.take();
+                    if (frame == STOP) {
+                        break;
+                    }
+                    while (frame.hasRemaining()) {
+                        channel.write(frame);
+                    }
+                    written.incrementAndGet();
+                }
+            } catch (IOException e) {
+                // The spectator went away
+                synchronized (SpectatorHub.this) {
+                    subscribers.remove(this);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                open = false;
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Already closed
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package citadels;
+
+/**
+ * Aggregated results of a batch of games played by a {@link TournamentRunner}.
+ * Reports from separate batches can be merged, so each worker can collect its
+ * own report and combine it with the others at the end.
+ */
+public class TournamentReport {
+    /** Number of games recorded */
+    private int games;
+    /** Number of games that ended with a finished city rather than the round limit */
+    private int completedGames;
+    /** Number of games without a winner */
+    private int noWinner;
+    /** Total rounds over all games */
+    private long totalRounds;
+    /** Wins per seat, indexed by player number - 1 */
+    private final int[] wins;
+    /** Total score per seat, indexed by player number - 1 */
+    private final long[] totalScores;
+
+    /**
+     * Constructs an empty report.
+     * @param numPlayers The number of players in each game
+     */
+    public TournamentReport(int numPlayers) {
+        this.wins = new int[numPlayers];
+        this.totalScores = new long[numPlayers];
+    }
+
+    /**
+     * Records the result of one game.
+     * @param result The game result
+     */
+    void add(GameResult result) {
+        games++;
+        totalRounds += result.getRounds();
+        if (result.isCompleted()) {
+            completedGames++;
+        }
+        if (result.getWinner() == 0) {
+            noWinner++;
+        } else {
+            wins[result.getWinner() - 1]++;
+        }
+        for (int i = 0; i < wins.length; i++) {
+            totalScores[i] += result.getScore(i + 1);
+        }
+    }
+
+    /**
+     * Adds all results from another report into this one.
+     * @param other The report to merge
+     * @return This report
+     */
+    TournamentReport merge(TournamentReport other) {
+        games += other.games;
+        completedGames += other.completedGames;
+        noWinner += other.noWinner;
+        totalRounds += other.totalRounds;
+        for (int i = 0; i < wins.length; i++) {
+            wins[i] += other.wins[i];
+            totalScores[i] += other.totalScores[i];
+        }
+        return this;
+    }
+
+    /**
+     * Gets the number of games recorded.
+     * @return The game count
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the number of games that ended with a player building 8 districts.
+     * @return The completed game count
+     */
+    public int getCompletedGames() {
+        return completedGames;
+    }
+
+    /**
+     * Gets the number of games that ended without a winner.
+     * @return The count of games without a winner
+     */
+    public int getNoWinnerGames() {
+        return noWinner;
+    }
+
+    /**
+     * Gets the number of games won by a seat.
+     * @param playerNumber The 1-based player number
+     * @return The number of wins
+     */
+    public int getWins(int playerNumber) {
+        return wins[playerNumber - 1];
+    }
+
+    /**
+     * Gets the average final score of a seat.
+     * @param playerNumber The 1-based player number
+     * @return The average score, or 0 if no games were recorded
+     */
+    public double getAverageScore(int playerNumber) {
+        return games == 0 ? 0 : (double) totalScores[playerNumber - 1] / games;
+    }
+
+    /**
+     * Gets the average number of rounds per game.
+     * @return The average round count, or 0 if no games were recorded
+     */
+    public double getAverageRounds() {
+        return games == 0 ? 0 : (double) totalRounds / games;
+    }
+
+    /**
+     * Returns a summary of the report, one line per seat.
+     * @return The report text
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Games: ").append(games)
+          .append(" (completed ").append(completedGames)
+          .append(", no winner ").append(noWinner).append(")\n");
+        sb.append(String.format("Average rounds: %.2f%n", getAverageRounds()));
+        for (int i = 1; i <= wins.length; i++) {
+            sb.append(String.format("Player %d: wins=%d (%.1f%%) avg score=%.2f%n", i, getWins(i),
+                    games == 0 ? 0.0 : 100.0 * getWins(i) / games, getAverageScore(i)));
+        }
+        return sb.toString();
+    }
+}
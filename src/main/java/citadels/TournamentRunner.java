@@ -0,0 +1,118 @@
+package citadels;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays large batches of independent AI-only games across all available cores.
+ * The batch is split recursively on a work-stealing {@link ForkJoinPool}; every
+ * game is created and played by a single worker and shares no state with the
+ * others. Each worker fills its own {@link TournamentReport}, and the reports
+ * are merged as the tasks join.
+ * <p>
+ * Game seeds are derived from a root seed and the game's index with
+ * {@link GameRandom#seedFor(long, long)}, so a batch gives the same report
+ * however it is split, and any single game can be replayed from its seed.
+ */
+public class TournamentRunner {
+    /** Number of games below which a task plays its games instead of splitting */
+    private static final int GAMES_PER_TASK = 32;
+
+    /** The engine that creates and plays each game */
+    private final GameEngine engine;
+    /** The pool that runs the games */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a runner that uses the common fork-join pool.
+     * @param engine The engine used to play each game
+     */
+    public TournamentRunner(GameEngine engine) {
+        this(engine, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a runner that uses the given pool.
+     * @param engine The engine used to play each game
+     * @param pool The pool to run the games on
+     */
+    public TournamentRunner(GameEngine engine, ForkJoinPool pool) {
+        this.engine = engine;
+        this.pool = pool;
+    }
+
+    /**
+     * Plays a batch of games with a random root seed and merges their results.
+     * @param numGames The number of games to play
+     * @return The merged report
+     */
+    public TournamentReport run(int numGames) {
+        return run(numGames, new GameRandom().nextLong());
+    }
+
+    /**
+     * Plays a batch of games and merges their results.
+     * @param numGames The number of games to play
+     * @param rootSeed The seed every game's seed is derived from
+     * @return The merged report
+     */
+    public TournamentReport run(int numGames, long rootSeed) {
+        if (numGames < 0) {
+            throw new IllegalArgumentException("Number of games cannot be negative");
+        }
+        return pool.invoke(new BatchTask(rootSeed, 0, numGames));
+    }
+
+    /**
+     * Plays the games with indices in [from, to), splitting the range while it is large.
+     */
+    private final class BatchTask extends RecursiveTask<TournamentReport> {
+        private static final long serialVersionUID = 1L;
+
+        private final long rootSeed;
+        private final int from;
+        private final int to;
+
+        BatchTask(long rootSeed, int from, int to) {
+            this.rootSeed = rootSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TournamentReport compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                TournamentReport report = new TournamentReport(engine.getNumPlayers());
+                for (int i = from; i < to; i++) {
+                    report.add(engine.playGame(GameRandom.seedFor(rootSeed, i)));
+                }
+                return report;
+            }
+            int mid = (from + to) >>> 1;
+            BatchTask left = new BatchTask(rootSeed, from, mid);
+            left.fork();
+            TournamentReport right = new BatchTask(rootSeed, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * Runs a tournament from the command line.
+     * Usage: TournamentRunner [games] [players] [seed]
+     *
+     * @param args Optional game count (default 10000), player count (default 4) and root seed
+     */
+    public static void main(String[] args) {
+        int numGames = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int numPlayers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long rootSeed = args.length > 2 ? Long.parseLong(args[2]) : new GameRandom().nextLong();
+        TournamentRunner runner = new TournamentRunner(new GameEngine(numPlayers));
+        long start = System.nanoTime();
+        TournamentReport report = runner.run(numGames, rootSeed);
+        System.out.println("Root seed: " + rootSeed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.print(report);
+        System.out.printf("%d games in %.2f s (%.0f games/s) on %d threads%n", report.getGames(), seconds,
+                report.getGames() / seconds, ForkJoinPool.getCommonPoolParallelism());
+    }
+}
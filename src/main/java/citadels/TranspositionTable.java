@@ -0,0 +1,134 @@
+package citadels;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size table of position evaluations keyed by {@link Game#getHash()},
+ * shared without locks by the threads of a search.
+ * <p>
+ * Many orders of moves lead to the same position; during the character draft in
+ * particular, different orders of picks end with the same character in each seat.
+ * A search that stores what it learned about a position here can reuse it
+ * instead of evaluating the position again.
+ * <p>
+ * Each entry is two longs in an {@link AtomicLongArray}: the data, packing the mean
+ * value and the number of samples, and the hash XORed with the data. A reader
+ * accepts an entry only if the two XOR back to the hash it looks for, so an entry
+ * torn by two threads writing at once reads as a miss instead of as wrong data
+ * (lockless hashing). An entry goes in the slot chosen by the low bits of its hash
+ * and replaces whatever was there. Concurrent updates of one entry can lose
+ * samples, which only makes the mean a little less precise.
+ */
+public final class TranspositionTable {
+    /** Returned by {@link #probe} when the table has no entry for a hash */
+    public static final long MISS = 0L;
+
+    /** The entries, two longs each */
+    private final AtomicLongArray entries;
+
+    /** Slot count minus one; the slot count is a power of two */
+    private final int mask;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param capacity The number of entries, rounded up to a power of two
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity < 1 || capacity > (1 << 29)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^29");
+        }
+        int slots = Integer.highestOneBit(capacity);
+        if (slots < capacity) {
+            slots <<= 1;
+        }
+        this.entries = new AtomicLongArray(slots * 2);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Gets the number of entries the table can hold.
+     *
+     * @return The capacity
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param hash The position's hash
+     * @return The entry's data, read with {@link #value} and {@link #samples}, or {@link #MISS}
+     */
+    public long probe(long hash) {
+        int slot = ((int) hash & mask) << 1;
+        long data = entries.get(slot + 1);
+        long check = entries.get(slot);
+        return data != MISS && (check ^ data) == hash ? data : MISS;
+    }
+
+    /**
+     * Stores the evaluation of a position, replacing the slot's entry.
+     *
+     * @param hash The position's hash
+     * @param value The mean value of the position
+     * @param samples The number of samples the mean is based on, must be positive
+     */
+    public void store(long hash, double value, int samples) {
+        if (samples < 1) {
+            throw new IllegalArgumentException("Sample count must be positive");
+        }
+        long data = (long) Float.floatToIntBits((float) value) << 32 | samples;
+        int slot = ((int) hash & mask) << 1;
+        entries.set(slot, hash ^ data);
+        entries.set(slot + 1, data);
+    }
+
+    /**
+     * Adds one sample to the mean value of a position.
+     *
+     * @param hash The position's hash
+     * @param value The sampled value
+     */
+    public void addSample(long hash, double value) {
+        long data = probe(hash);
+        if (data == MISS) {
+            store(hash, value, 1);
+        } else {
+            int samples = samples(data);
+            if (samples < Integer.MAX_VALUE) {
+                store(hash, value(data) + (value - value(data)) / (samples + 1), samples + 1);
+            }
+        }
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, 0L);
+        }
+    }
+
+    /**
+     * Gets the mean value of an entry returned by {@link #probe}.
+     *
+     * @param data The entry's data
+     * @return The mean value
+     */
+    public static double value(long data) {
+        return Float.intBitsToFloat((int) (data >>> 32));
+    }
+
+    /**
+     * Gets the number of samples of an entry returned by {@link #probe}.
+     *
+     * @param data The entry's data, or {@link #MISS}
+     * @return The number of samples, 0 for a miss
+     */
+    public static int samples(long data) {
+        return (int) data;
+    }
+}
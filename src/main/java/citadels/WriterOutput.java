@@ -0,0 +1,75 @@
+package citadels;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Game output for a remote player. Like {@link ConsoleOutput} it collects text in a
+ * buffer and writes it in one piece when the game flushes, but it writes to any
+ * {@link Writer}, such as one over a network connection, and errors go to the same
+ * writer since the player has no other console.
+ */
+public class WriterOutput implements GameOutput {
+    /** Buffered text is written out early once it grows past this many characters */
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    /** Line separator sent to the player, the same on every platform */
+    private static final String LINE_SEPARATOR = "\n";
+
+    /** The writer that buffered text is written to */
+    private final Writer writer;
+    /** Text printed since the last flush */
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Creates an output that writes to a writer.
+     * @param writer The writer to write to
+     */
+    public WriterOutput(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void print(String text) {
+        buffer.append(text);
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    @Override
+    public void println(String text) {
+        print(text);
+        print(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void error(String message) {
+        println(message);
+        flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws UncheckedIOException if the writer fails, for example because the player disconnected
+     */
+    @Override
+    public void flush() {
+        try {
+            if (buffer.length() > 0) {
+                writer.append(buffer);
+                buffer.setLength(0);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            buffer.setLength(0);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,96 @@
+package citadels;
+
+/**
+ * Keys for hashing game positions (Zobrist hashing).
+ * <p>
+ * Every fact about a position, such as "seat 2 has 5 gold" or "seat 0 has a
+ * Temple in hand", has a fixed random 64-bit key, and the hash of a position is
+ * the sum of the keys of its facts. A change to the position changes the hash
+ * by subtracting the old fact's key and adding the new one, so players keep
+ * their part of the hash up to date as they change and the game's hash is
+ * cheap to read. Keys are added rather than XORed so that two copies of a card
+ * in one hand do not cancel out.
+ * <p>
+ * Instead of tables of random numbers the keys are computed by mixing the fact
+ * with the SplitMix64 finalizer, which is a bijection on 64-bit values, so
+ * distinct facts always get distinct keys and card IDs and gold amounts need no
+ * upper bound.
+ */
+final class Zobrist {
+    private static final int GOLD = 1;
+    private static final int HAND = 2;
+    private static final int CITY = 3;
+    private static final int CHARACTER = 4;
+    private static final int CROWN = 5;
+    private static final int ROUND = 6;
+    private static final int DECK = 7;
+    private static final int AVAILABLE = 8;
+    private static final int KILLED = 9;
+    private static final int ROBBED = 10;
+    private static final int HAND_SIZE = 11;
+
+    private Zobrist() {
+    }
+
+    /** Key of a seat holding an amount of gold */
+    static long gold(int seat, int gold) {
+        return key(GOLD, seat, gold);
+    }
+
+    /** Key of one copy of a card in a seat's hand */
+    static long hand(int seat, int cardId) {
+        return key(HAND, seat, cardId);
+    }
+
+    /** Key of a card built in a seat's city */
+    static long city(int seat, int cardId) {
+        return key(CITY, seat, cardId);
+    }
+
+    /** Key of a seat's character, 0 for none */
+    static long character(int seat, int number) {
+        return key(CHARACTER, seat, number);
+    }
+
+    /** Key of a seat holding the crown */
+    static long crown(int seat) {
+        return key(CROWN, seat, 0);
+    }
+
+    /** Key of a seat's hand size, used in place of the hand when the hand is hidden */
+    static long handSize(int seat, int size) {
+        return key(HAND_SIZE, seat, size);
+    }
+
+    /** Key of the round number */
+    static long round(int round) {
+        return key(ROUND, 0, round);
+    }
+
+    /** Key of the number of cards left in the deck */
+    static long deckSize(int size) {
+        return key(DECK, 0, size);
+    }
+
+    /** Key of a character being left to choose from */
+    static long available(int number) {
+        return key(AVAILABLE, 0, number);
+    }
+
+    /** Key of the killed character, 0 for none */
+    static long killed(int number) {
+        return key(KILLED, 0, number);
+    }
+
+    /** Key of the robbed character, 0 for none */
+    static long robbed(int number) {
+        return key(ROBBED, 0, number);
+    }
+
+    private static long key(int kind, int seat, int value) {
+        long z = ((long) kind << 56 | (long) (seat & 0xFF) << 48 | (value & 0xFFFFFFFFL)) + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
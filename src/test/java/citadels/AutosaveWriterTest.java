@@ -0,0 +1,85 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class AutosaveWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testWritesLatestSnapshot() throws IOException {
+        Path path = dir.resolve("auto.sav");
+        Game game = new GameEngine(4).newGame(2L);
+        AutosaveWriter writer = new AutosaveWriter(path);
+        for (int i = 0; i < 3; i++) {
+            game.playRound();
+            writer.submit(game.snapshot());
+        }
+        writer.close();
+        assertNull(writer.getLastError());
+        assertTrue(writer.getWriteCount() >= 1 && writer.getWriteCount() <= 3);
+        assertFalse(Files.exists(dir.resolve("auto.sav.tmp")), "The temporary file should be renamed");
+
+        Game loaded = new GameEngine(4).newGame(3L);
+        loaded.loadGame(path.toString());
+        assertEquals(game.getCurrentRound(), loaded.getCurrentRound());
+        assertEquals(game.getPlayers().get(0).getCity(), loaded.getPlayers().get(0).getCity());
+    }
+
+    @Test
+    void testSubmitAfterCloseFails() {
+        AutosaveWriter writer = new AutosaveWriter(dir.resolve("closed.sav"));
+        writer.close();
+        assertEquals(0, writer.getWriteCount());
+        assertThrows(IllegalStateException.class, () -> writer.submit(new SaveFile.Writer()));
+    }
+
+    @Test
+    void testWriteErrorIsKept() {
+        AutosaveWriter writer = new AutosaveWriter(dir.resolve("missing").resolve("auto.sav"));
+        writer.submit(new SaveFile.Writer());
+        writer.close();
+        assertNotNull(writer.getLastError());
+        assertEquals(0, writer.getWriteCount());
+    }
+
+    @Test
+    void testWritersShareOneThread() throws IOException {
+        Game game = new GameEngine(4).newGame(6L);
+        AutosaveWriter[] writers = new AutosaveWriter[8];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new AutosaveWriter(dir.resolve("shared" + i + ".sav"));
+            writers[i].submit(game.snapshot());
+        }
+        int threads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("citadels-autosave")) {
+                threads++;
+            }
+        }
+        assertTrue(threads <= 1, "Autosave writers should share a thread, found " + threads);
+        for (AutosaveWriter writer : writers) {
+            writer.close();
+            assertEquals(1, writer.getWriteCount());
+            assertTrue(Files.size(writer.getTarget()) > 0);
+        }
+    }
+
+    @Test
+    void testGameAutosavesEachRound() throws IOException {
+        Path path = dir.resolve("game.sav");
+        Game game = new GameEngine(5).newGame(9L);
+        game.setMaxRounds(4);
+        game.setAutosave(path.toString());
+        game.startGame();
+        Game loaded = new GameEngine(5).newGame(1L);
+        loaded.loadGame(path.toString());
+        assertEquals(game.getCurrentRound(), loaded.getCurrentRound());
+        assertTrue(loaded.isGameEnded(), "The last autosave is taken after the final round");
+    }
+}
@@ -0,0 +1,58 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+public class CardCatalogTest {
+    @Test
+    void testCatalogIsLoadedOnce() {
+        assertSame(CardCatalog.getInstance(), CardCatalog.getInstance());
+    }
+
+    @Test
+    void testDeckSharesCardInstances() {
+        CardCatalog catalog = CardCatalog.getInstance();
+        List<DistrictCard> deck = catalog.newDistrictDeck();
+        assertEquals(catalog.getDeckSize(), deck.size());
+        assertTrue(deck.size() > catalog.getDistrictCards().size());
+        DistrictCard temple = catalog.findDistrict("Temple");
+        assertNotNull(temple);
+        long templeCount = deck.stream().filter(c -> c == temple).count();
+        assertEquals(3, templeCount, "Every copy should be the shared Temple instance");
+        assertNotSame(deck, catalog.newDistrictDeck(), "Each game gets its own deck list");
+    }
+
+    @Test
+    void testCharacterCards() {
+        List<CharacterCard> characters = CardCatalog.getInstance().getCharacterCards();
+        assertEquals(8, characters.size());
+        for (int i = 0; i < characters.size(); i++) {
+            assertEquals(i + 1, characters.get(i).getNumber());
+        }
+        assertThrows(UnsupportedOperationException.class, () -> characters.remove(0));
+    }
+
+    @Test
+    void testGamesShareCatalogCards() {
+        Game first = new GameEngine(4).newGame(1);
+        Game second = new GameEngine(4).newGame(2);
+        DistrictCard card = first.getPlayers().get(0).getHand().get(0);
+        assertSame(CardCatalog.getInstance().findDistrict(card.getName()), card);
+        assertSame(CardCatalog.getInstance().findDistrict(
+                second.getPlayers().get(0).getHand().get(0).getName()),
+                second.getPlayers().get(0).getHand().get(0));
+    }
+
+    @Test
+    void testCustomCardsStayOutOfCatalog() {
+        CardCatalog catalog = CardCatalog.getInstance();
+        int count = catalog.getCardCount();
+        DistrictCard custom = new DistrictCard("Catalog Test Tower", "red", 7, "");
+        assertEquals(count, catalog.getCardCount());
+        assertTrue(custom.getId() >= count);
+        assertNull(catalog.findDistrict("Catalog Test Tower"));
+        assertSame(CustomCards.get(custom.getId()), catalog.getCard(custom.getId()));
+        assertSame(catalog.findDistrict("Temple"), catalog.getCard(new DistrictCard("Temple", "blue", 1, "").getId()));
+    }
+}
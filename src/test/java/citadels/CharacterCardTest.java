@@ -14,6 +14,25 @@ public class CharacterCardTest {
         assertEquals("King", card.getName());
         assertEquals(4, card.getNumber());
         assertEquals("Take crown", card.getSpecialAbility());
+        assertEquals(CharacterRole.KING, card.getRole());
+    }
+
+    @Test
+    void testRoleFromNumber() {
+        assertNull(new CharacterCard("Queen", 9, "").getRole());
+        for (CharacterCard card : CardCatalog.getInstance().getCharacterCards()) {
+            assertEquals(card.getNumber(), card.getRole().getNumber());
+            assertEquals(card.getName(), card.getRole().getDisplayName());
+            assertSame(card, CardCatalog.getInstance().getCharacterCard(card.getRole()));
+        }
+    }
+
+    @Test
+    void testRoleFromName() {
+        assertEquals(CharacterRole.KING, CharacterRole.fromName("king"));
+        assertEquals(CharacterRole.WARLORD, CharacterRole.fromName("WARLORD"));
+        assertNull(CharacterRole.fromName("queen"));
+        assertNull(CharacterRole.fromName(null));
     }
 
     @Test
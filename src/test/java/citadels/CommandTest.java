@@ -0,0 +1,44 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class CommandTest {
+    @Test
+    void testParse() {
+        Command command = Command.parse("  ACTION\tdestroy 2   -3 ");
+        assertEquals("action", command.getVerb());
+        assertEquals(3, command.argCount());
+        assertEquals("destroy", command.arg(0));
+        assertFalse(command.isInt(0));
+        assertEquals(2, command.intArg(1));
+        assertEquals(-3, command.intArg(2));
+        assertEquals(Command.NOT_A_NUMBER, command.intArg(3), "Missing arguments are not numbers");
+    }
+
+    @Test
+    void testBlankLine() {
+        Command command = Command.parse("   ");
+        assertEquals("", command.getVerb());
+        assertEquals(0, command.argCount());
+    }
+
+    @Test
+    void testNumbersMatchParseInt() {
+        String[] samples = {"0", "+7", "-12", "2147483647", "2147483648", "12a", "-", "99999999999"};
+        for (String sample : samples) {
+            Command command = Command.parse("build " + sample);
+            Integer expected;
+            try {
+                expected = Integer.parseInt(sample);
+            } catch (NumberFormatException e) {
+                expected = null;
+            }
+            if (expected == null) {
+                assertFalse(command.isInt(0), sample);
+            } else {
+                assertEquals(expected.intValue(), command.intArg(0), sample);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import org.junit.jupiter.api.Test;
+
+public class DeterminizerTest {
+    /** Sorted IDs of the deck and every hand but one seat's. */
+    private static List<Integer> hiddenCards(Game game, int observerSeat) {
+        List<Integer> ids = new ArrayList<>();
+        DistrictDeck deck = game.getDistrictDeck();
+        for (int i = 0; i < deck.size(); i++) {
+            ids.add(deck.get(i).getId());
+        }
+        for (int seat = 0; seat < game.getPlayers().size(); seat++) {
+            if (seat != observerSeat) {
+                for (DistrictCard card : game.getPlayers().get(seat).getHand()) {
+                    ids.add(card.getId());
+                }
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    @Test
+    void testSampleKeepsWhatObserverSees() {
+        Game game = new GameEngine(5).newGame(21L);
+        game.playRound();
+        game.playRound();
+        assertNull(game.getKilledCharacter());
+        Player observer = game.getPlayers().get(2);
+        Determinizer determinizer = new Determinizer(game, observer);
+        Game world = new GameEngine(5).newGame(99L);
+        GameRandom random = new GameRandom(4L);
+
+        boolean handChanged = false;
+        for (int n = 0; n < 20; n++) {
+            determinizer.sample(world, random);
+            assertEquals(hiddenCards(game, 2), hiddenCards(world, 2));
+            assertEquals(game.getDistrictDeck().size(), world.getDistrictDeck().size());
+            for (int seat = 0; seat < 5; seat++) {
+                Player real = game.getPlayers().get(seat);
+                Player sampled = world.getPlayers().get(seat);
+                assertEquals(real.getGold(), sampled.getGold());
+                assertEquals(real.getCity(), sampled.getCity());
+                assertEquals(real.getHand().size(), sampled.getHand().size());
+                // Nobody was killed, so every character was revealed during the turn phase
+                assertEquals(real.getCharacter(), sampled.getCharacter());
+                if (seat != 2) {
+                    handChanged |= !real.getHand().equals(sampled.getHand());
+                }
+            }
+            assertEquals(observer.getHand(), world.getPlayers().get(2).getHand());
+        }
+        assertTrue(handChanged);
+    }
+
+    @Test
+    void testSampleHidesCharactersChosenBeforeObserver() {
+        List<int[]> samples = new ArrayList<>();
+        int[] seen = new int[1];
+        Game game = new Game(4, null, SilentOutput.INSTANCE, (number, random) -> new AIPlayer(number, random) {
+            @Override
+            public CharacterCard chooseCharacter(Game g, List<CharacterCard> available) {
+                if (g.getSelectionPick() == 3) {
+                    // The last player to choose sees everyone else's picks removed
+                    seen[0] = g.getAvailableMask();
+                    Determinizer determinizer = new Determinizer(g, this);
+                    Game world = new GameEngine(4).newGame(1L);
+                    GameRandom random = new GameRandom(8L);
+                    for (int n = 0; n < 50; n++) {
+                        determinizer.sample(world, random);
+                        int[] characters = new int[5];
+                        for (int seat = 0; seat < 4; seat++) {
+                            CharacterCard c = world.getPlayers().get(seat).getCharacter();
+                            characters[seat] = c != null ? c.getNumber() : 0;
+                        }
+                        characters[4] = world.getAvailableMask();
+                        samples.add(characters);
+                    }
+                }
+                return super.chooseCharacter(g, available);
+            }
+        }, new GameRandom(17L));
+        game.playRound();
+
+        int faceUp = Game.characterMask(game.getFaceUpRemoved());
+        assertEquals(2, game.getFaceUpRemoved().size());
+        assertFalse(samples.isEmpty());
+        int lastSeat = (game.getSelectionStart() + 3) % 4;
+        boolean varied = false;
+        int[] first = samples.get(0);
+        for (int[] characters : samples) {
+            int used = 0;
+            for (int seat = 0; seat < 4; seat++) {
+                if (seat == lastSeat) {
+                    continue;
+                }
+                int bit = 1 << characters[seat];
+                assertEquals(0, bit & seen[0], "Earlier picks were not available to the observer");
+                assertEquals(0, bit & faceUp);
+                assertEquals(0, bit & used);
+                used |= bit;
+                varied |= characters[seat] != first[seat];
+            }
+            assertEquals(seen[0], characters[4]);
+        }
+        assertTrue(varied);
+    }
+
+    @Test
+    void testSampleHidesKilledCharacterHolder() {
+        Game game = new GameEngine(5).newGame(21L);
+        int observerSeat = 0;
+        int[] killed = {0, -1};
+        List<Integer> sampled = new ArrayList<>();
+        game.addEventListener((g, type, seat, value, extra) -> {
+            if (type != GameJournal.REVEAL) {
+                return;
+            }
+            if (killed[0] == 0) {
+                // Kill the lowest character after this one that another player holds
+                for (int s = 0; s < 5; s++) {
+                    int number = g.getPlayers().get(s).getCharacter().getNumber();
+                    if (s != observerSeat && number > value && (killed[0] == 0 || number < killed[0])) {
+                        killed[0] = number;
+                        killed[1] = s;
+                    }
+                }
+                g.record(GameJournal.KILL, seat, killed[0], 0);
+            } else if (value > killed[0] && sampled.isEmpty()) {
+                Determinizer determinizer = new Determinizer(g, g.getPlayers().get(observerSeat));
+                Game world = new GameEngine(5).newGame(99L);
+                GameRandom random = new GameRandom(4L);
+                for (int n = 0; n < 50; n++) {
+                    determinizer.sample(world, random);
+                    int number = world.getPlayers().get(killed[1]).getCharacter().getNumber();
+                    assertTrue(number == killed[0] || number > value, "Holder of " + killed[0] + " sampled " + number);
+                    sampled.add(number);
+                }
+            }
+        });
+        game.playRound();
+
+        // The killed character's turn was skipped unseen, so its holder is drawn like any hidden seat
+        assertFalse(sampled.isEmpty());
+        assertTrue(sampled.contains(killed[0]));
+        assertTrue(sampled.stream().anyMatch(number -> number != killed[0]));
+    }
+
+    @Test
+    void testEvaluateIsReproducible() {
+        Game game = new GameEngine(4).newGame(6L);
+        game.playRound();
+        Determinizer determinizer = new Determinizer(game, game.getPlayers().get(0));
+        ToDoubleFunction<Game> goldAfterRound = world -> {
+            world.playRound();
+            return world.getPlayers().get(0).getGold();
+        };
+        double first = determinizer.evaluate(64, goldAfterRound, new GameRandom(3L));
+        double second = determinizer.evaluate(64, goldAfterRound, new GameRandom(3L));
+        assertEquals(first, second);
+        assertTrue(first >= 0);
+        assertThrows(IllegalArgumentException.class, () -> determinizer.evaluate(0, goldAfterRound, new GameRandom()));
+    }
+
+    @Test
+    void testObserverMustBeSeated() {
+        Game game = new GameEngine(4).newGame(2L);
+        Player stranger = new GameEngine(4).newGame(3L).getPlayers().get(1);
+        assertThrows(IllegalArgumentException.class, () -> new Determinizer(game, stranger));
+    }
+}
@@ -45,4 +45,12 @@ public class DistrictCardTest {
         String expected = "Tavern [green] (1) - Gain 1 gold";
         assertEquals(expected, card.toString(), "toString should match expected format");
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testDistrictColor() {
+        assertEquals(DistrictColor.YELLOW, new DistrictCard("Noble House", "Noble", 3, "None").getDistrictColor());
+        assertEquals(DistrictColor.GREEN, new DistrictCard("Tavern", "green", 1, "").getDistrictColor());
+        assertEquals(DistrictColor.PURPLE, DistrictColor.parse("SPECIAL"));
+        assertNull(new DistrictCard("Odd Tower", "orange", 2, "").getDistrictColor());
+    }
+}
@@ -0,0 +1,83 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+public class DistrictDeckTest {
+    private static DistrictCard card(int i) {
+        return new DistrictCard("District " + i, "blue", 1, "");
+    }
+
+    @Test
+    void testTopAndBottom() {
+        DistrictDeck deck = new DistrictDeck();
+        deck.putBottom(card(1));
+        deck.putBottom(card(2));
+        deck.putTop(card(0));
+        assertEquals(3, deck.size());
+        assertEquals(card(0), deck.get(0));
+        assertEquals(card(2), deck.get(2));
+        assertEquals(card(0), deck.drawTop());
+        assertEquals(card(2), deck.drawBottom());
+        assertEquals(card(1), deck.drawTop());
+        assertTrue(deck.isEmpty());
+        assertThrows(NoSuchElementException.class, deck::drawTop);
+        assertThrows(NoSuchElementException.class, deck::drawBottom);
+    }
+
+    @Test
+    void testGrowsAndWrapsAround() {
+        DistrictDeck deck = new DistrictDeck();
+        for (int i = 0; i < 300; i++) {
+            deck.putTop(card(i));
+        }
+        assertEquals(300, deck.size());
+        for (int i = 299; i >= 0; i--) {
+            assertEquals(card(i), deck.drawTop());
+        }
+    }
+
+    @Test
+    void testReturnedCardGoesToBottom() {
+        DistrictDeck deck = new DistrictDeck();
+        for (int i = 0; i < 5; i++) {
+            deck.putBottom(card(i));
+        }
+        DistrictCard drawn = deck.drawTop();
+        deck.putBottom(drawn);
+        assertEquals(card(1), deck.get(0));
+        assertEquals(drawn, deck.get(deck.size() - 1));
+    }
+
+    @Test
+    void testShuffleKeepsCards() {
+        DistrictDeck deck = new DistrictDeck();
+        List<DistrictCard> cards = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            cards.add(card(i));
+        }
+        deck.putTop(card(99));
+        deck.drawTop();
+        deck.putAllBottom(cards);
+        deck.shuffle(new GameRandom(5));
+        Set<DistrictCard> seen = new HashSet<>();
+        while (!deck.isEmpty()) {
+            seen.add(deck.drawTop());
+        }
+        assertEquals(new HashSet<>(cards), seen);
+    }
+
+    @Test
+    void testClear() {
+        DistrictDeck deck = new DistrictDeck();
+        deck.putBottom(card(1));
+        deck.clear();
+        assertTrue(deck.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> deck.get(0));
+    }
+}
@@ -0,0 +1,221 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+public class GameApiServerTest {
+    @TempDir
+    Path tempDir;
+
+    /** The status and body of a response */
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private SessionRegistry newRegistry() {
+        return new SessionRegistry(tempDir, 16, 60_000, new GameRandom(7L), System::nanoTime);
+    }
+
+    private GameApiServer newServer() throws IOException {
+        return newServer(newRegistry());
+    }
+
+    private static GameApiServer newServer(SessionRegistry registry) throws IOException {
+        return new GameApiServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), registry).start();
+    }
+
+    private static Response send(GameApiServer server, String method, String path, String body) throws IOException {
+        URL url = new URL("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(30_000);
+        connection.setReadTimeout(30_000);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        assertTrue(connection.getContentType().startsWith("application/json"));
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            text.write(buffer, 0, n);
+        }
+        in.close();
+        return new Response(status, new String(text.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    void testCreateGameAndReadState() throws Exception {
+        try (GameApiServer server = newServer()) {
+            Response created = send(server, "POST", "/games?players=5", null);
+            assertEquals(201, created.status);
+            assertEquals("{\"game\":1,\"players\":5}", created.body);
+            assertEquals(1, server.getGameCount());
+
+            Response all = send(server, "GET", "/games/1/all", null);
+            assertEquals(200, all.status);
+            assertEquals(5, count(all.body, "\"human\":"));
+            assertEquals(1, count(all.body, "\"human\":true"));
+            // Nobody has a character before the selection
+            assertEquals(5, count(all.body, "\"character\":null"));
+
+            Response hand = send(server, "GET", "/games/1/hand", null);
+            assertEquals(200, hand.status);
+            assertTrue(hand.body.startsWith("{\"player\":1,\"gold\":2,\"hand\":["), hand.body);
+            assertEquals(4, count(hand.body, "\"cost\":"));
+
+            Response gold = send(server, "GET", "/games/1/gold?player=3", null);
+            assertEquals("{\"player\":3,\"gold\":2}", gold.body);
+
+            assertEquals(200, send(server, "DELETE", "/games/1", null).status);
+            assertEquals(0, server.getGameCount());
+            assertEquals(404, send(server, "GET", "/games/1/hand", null).status);
+        }
+    }
+
+    @Test
+    void testCommandsReturnOutputAndState() throws Exception {
+        try (GameApiServer server = newServer()) {
+            send(server, "POST", "/games", null);
+            // The first response holds everything printed since the game started
+            Response first = send(server, "POST", "/games/1/input", "t");
+            assertEquals(200, first.status, first.body);
+            assertTrue(first.body.startsWith("{\"game\":1,\"command\":\"t\",\"output\":["), first.body);
+            assertTrue(first.body.contains("\"player\":{\"player\":1,\"human\":true"), first.body);
+            assertTrue(first.body.contains("SELECTION PHASE"), first.body);
+
+            Response build = send(server, "POST", "/games/1/build?district=1", null);
+            assertEquals(200, build.status);
+            assertTrue(build.body.contains("\"command\":\"build 1\""), build.body);
+            // The output was returned by the first response, so it is not repeated
+            assertFalse(build.body.contains("SELECTION PHASE"), build.body);
+
+            Response kill = send(server, "POST", "/games/1/action/kill?character=4", null);
+            assertTrue(kill.body.contains("\"command\":\"action kill 4\""), kill.body);
+            Response destroy = send(server, "POST", "/games/1/action/destroy?player=2&district=1", null);
+            assertTrue(destroy.body.contains("\"command\":\"action destroy 2 1\""), destroy.body);
+            Response redraw = send(server, "POST", "/games/1/action/redraw?cards=1%2C3", null);
+            assertTrue(redraw.body.contains("\"command\":\"action redraw 1,3\""), redraw.body);
+        }
+    }
+
+    @Test
+    void testBadRequests() throws Exception {
+        try (GameApiServer server = newServer()) {
+            assertEquals(400, send(server, "POST", "/games?players=9", null).status);
+            assertEquals(404, send(server, "GET", "/games/7/hand", null).status);
+            send(server, "POST", "/games", null);
+            assertEquals(405, send(server, "GET", "/games/1/build", null).status);
+            assertEquals(405, send(server, "POST", "/games/1/hand", null).status);
+            Response missing = send(server, "POST", "/games/1/build", null);
+            assertEquals(400, missing.status);
+            assertEquals("{\"error\":\"Missing parameter district\"}", missing.body);
+            assertEquals(400, send(server, "POST", "/games/1/action/kill?character=x", null).status);
+            assertEquals(400, send(server, "POST", "/games/1/action/redraw?cards=1;2", null).status);
+            assertEquals(404, send(server, "POST", "/games/1/action/fly", null).status);
+            assertEquals(400, send(server, "GET", "/games/1/gold?player=8", null).status);
+            assertEquals(404, send(server, "GET", "/nothing", null).status);
+        }
+    }
+
+    @Test
+    void testInputOnlyAnswersPrompts() throws Exception {
+        Path file = tempDir.resolve("remote.sav");
+        try (GameApiServer server = newServer()) {
+            send(server, "POST", "/games", null);
+            assertEquals(400, send(server, "POST", "/games/1/input", "save " + file).status);
+            assertEquals(400, send(server, "POST", "/games/1/input", "load " + file).status);
+            assertEquals(400, send(server, "POST", "/games/1/input", "debug").status);
+            assertEquals(200, send(server, "POST", "/games/1/input", "King").status);
+            assertEquals(200, send(server, "POST", "/games/1/input", "gold").status);
+            assertEquals(200, send(server, "POST", "/games/1/input", "2").status);
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void testAllHidesKilledCharacter() throws Exception {
+        SessionRegistry registry = newRegistry();
+        try (GameApiServer server = newServer(registry)) {
+            send(server, "POST", "/games", null);
+            // Continue through the removals to the character choice
+            for (int i = 0; i < 4; i++) {
+                send(server, "POST", "/games/1/input", "t");
+            }
+            // Nobody takes the Assassin in this game, so the kill of the Thief is recorded directly
+            registry.query(1, g -> {
+                g.record(GameJournal.KILL, 0, CharacterRole.THIEF.getNumber(), 0);
+                return null;
+            }).get(30, TimeUnit.SECONDS);
+            Response turn = send(server, "POST", "/games/1/input", "Warlord");
+            for (int i = 0; i < 20 && !turn.body.contains("gold or draw"); i++) {
+                turn = send(server, "POST", "/games/1/input", "t");
+            }
+            assertTrue(turn.body.contains("gold or draw"), turn.body);
+            assertEquals("Thief", registry.query(1, g -> g.getPlayers().get(2).getCharacter().getName())
+                .get(30, TimeUnit.SECONDS));
+
+            Response all = send(server, "GET", "/games/1/all", null);
+            assertTrue(all.body.contains("\"character\":\"Warlord\""), all.body);
+            assertTrue(all.body.contains("\"character\":\"Merchant\""), all.body);
+            // The Thief's turn has passed, but who held it was never shown
+            assertFalse(all.body.contains("Thief"), all.body);
+            assertEquals(1, count(all.body, "\"character\":null"), all.body);
+        }
+    }
+
+    @Test
+    void testLatencyIsMeasuredPerEndpoint() throws Exception {
+        try (GameApiServer server = newServer()) {
+            send(server, "POST", "/games", null);
+            send(server, "POST", "/games", null);
+            send(server, "GET", "/games/1/hand", null);
+            send(server, "GET", "/games/2/hand", null);
+            send(server, "GET", "/games/1/all", null);
+            send(server, "GET", "/unknown/path", null);
+            send(server, "GET", "/another", null);
+
+            assertEquals(2, server.getLatency("POST /games").getCount());
+            assertEquals(2, server.getLatency("GET /games/{id}/hand").getCount());
+            assertEquals(1, server.getLatency("GET /games/{id}/all").getCount());
+            assertEquals(2, server.getLatency("unmatched").getCount());
+            assertNull(server.getLatency("GET /unknown/path"));
+
+            Response metrics = send(server, "GET", "/metrics", null);
+            assertEquals(200, metrics.status);
+            assertTrue(metrics.body.contains("\"GET /games/{id}/hand\":{\"count\":2,"), metrics.body);
+            assertTrue(metrics.body.contains("\"p99Micros\":"), metrics.body);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class GameEngineTest {
+    @Test
+    void testPlayGameWithoutConsole() {
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured));
+        GameResult result;
+        try {
+            result = new GameEngine(5).playGame();
+        } finally {
+            System.setOut(originalOut);
+        }
+        assertEquals(0, captured.size(), "Headless games should not print");
+        assertEquals(5, result.getNumPlayers());
+        assertTrue(result.getRounds() >= 1);
+        assertTrue(result.getWinner() >= 0 && result.getWinner() <= 5);
+    }
+
+    @Test
+    void testRoundLimit() {
+        GameEngine engine = new GameEngine(4);
+        engine.setMaxRounds(1);
+        GameResult result = engine.playGame();
+        assertEquals(1, result.getRounds());
+    }
+
+    @Test
+    void testInvalidPlayerCount() {
+        assertThrows(IllegalArgumentException.class, () -> new GameEngine(3));
+        assertThrows(IllegalArgumentException.class, () -> new GameEngine(4).setMaxRounds(0));
+    }
+}
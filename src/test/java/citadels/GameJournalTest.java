@@ -0,0 +1,92 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class GameJournalTest {
+    @Test
+    void testAppendAndRead() {
+        GameJournal journal = new GameJournal();
+        journal.append(GameJournal.GOLD, 2, -3, 0);
+        journal.append(GameJournal.BUILD, 0, 1, 17);
+        assertEquals(2, journal.size());
+        assertEquals(GameJournal.GOLD, journal.type(0));
+        assertEquals(2, journal.seat(0));
+        assertEquals(-3, journal.value(0));
+        assertEquals(GameJournal.BUILD, journal.type(1));
+        assertEquals(17, journal.extra(1));
+        assertEquals("BUILD 0 1 17", journal.describe(1));
+    }
+
+    @Test
+    void testGrowsAndClears() {
+        GameJournal journal = new GameJournal();
+        for (int i = 0; i < 1000; i++) {
+            journal.append(GameJournal.ROUND_END, -1, i, 0);
+        }
+        assertEquals(1000, journal.size());
+        assertEquals(999, journal.value(999));
+        journal.clear();
+        assertEquals(0, journal.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> journal.type(0));
+    }
+
+    @Test
+    void testTypeName() {
+        assertEquals("DRAW_CHOICE", GameJournal.typeName(GameJournal.DRAW_CHOICE));
+        assertEquals("REVEAL", GameJournal.typeName(GameJournal.REVEAL));
+        assertEquals("UNKNOWN", GameJournal.typeName(0));
+    }
+
+    @Test
+    void testGameRecordsEvents() {
+        Game game = new GameEngine(4).newGame(11L);
+        game.setMaxRounds(3);
+        game.startGame();
+        GameJournal journal = game.getJournal();
+        assertTrue(journal.size() > 0);
+        int picks = 0;
+        for (int i = 0; i < journal.size(); i++) {
+            if (journal.type(i) == GameJournal.PICK) {
+                picks++;
+            }
+        }
+        assertEquals(4 * game.getCurrentRound(), picks, "Every player picks a character each round");
+        assertEquals(GameJournal.GAME_END, journal.type(journal.size() - 1));
+    }
+
+    @Test
+    void testListenersSeeEveryEvent() {
+        Game game = new GameEngine(5).newGame(4L);
+        game.setMaxRounds(2);
+        int[] recorded = new int[1];
+        int[] reveals = new int[1];
+        int[] killed = new int[1];
+        game.addEventListener((g, type, seat, value, extra) -> {
+            if (type == GameJournal.REVEAL) {
+                reveals[0]++;
+                assertNotEquals(killed[0], value, "The killed character is not revealed");
+            } else {
+                recorded[0]++;
+            }
+            if (type == GameJournal.KILL) {
+                killed[0] = value;
+            } else if (type == GameJournal.ROUND_END) {
+                killed[0] = 0;
+            }
+        });
+        game.startGame();
+        // Seats are recorded before the listener was added, and generator moves are not sent
+        GameJournal journal = game.getJournal();
+        int published = 0;
+        for (int i = 0; i < journal.size(); i++) {
+            if (journal.type(i) != GameJournal.SEAT && journal.type(i) != GameJournal.RANDOM) {
+                published++;
+            }
+        }
+        assertEquals(published, recorded[0]);
+        // Each chosen character is revealed once per round, except the one that was killed
+        assertTrue(reveals[0] <= 5 * game.getCurrentRound() && reveals[0] >= 4 * game.getCurrentRound(),
+            "Reveals: " + reveals[0]);
+    }
+}
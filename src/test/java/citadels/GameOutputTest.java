@@ -0,0 +1,49 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+public class GameOutputTest {
+    @Test
+    void testConsoleOutputBuffersUntilFlush() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConsoleOutput output = new ConsoleOutput(new PrintStream(bytes));
+        output.print("> ");
+        output.println("Round 1");
+        assertEquals(0, bytes.size(), "Nothing should be written before a flush");
+        output.flush();
+        assertEquals("> Round 1" + System.lineSeparator(), bytes.toString());
+    }
+
+    @Test
+    void testCapturingOutput() {
+        CapturingOutput output = new CapturingOutput();
+        output.println("first");
+        output.print("second");
+        output.error("oops");
+        assertEquals(Arrays.asList("first", "second"), output.getLines());
+        assertEquals(Arrays.asList("oops"), output.getErrors());
+        output.clear();
+        assertTrue(output.getLines().isEmpty());
+        assertTrue(output.getErrors().isEmpty());
+    }
+
+    @Test
+    void testSilentOutputIsDisabled() {
+        assertFalse(SilentOutput.INSTANCE.isEnabled());
+        assertTrue(new CapturingOutput().isEnabled());
+    }
+
+    @Test
+    void testGameWritesToItsOutput() {
+        CapturingOutput output = new CapturingOutput();
+        Game game = new Game(4, null, output, AIPlayer::new, new GameRandom(3L));
+        game.setMaxRounds(2);
+        game.startGame();
+        assertTrue(output.getLines().contains("SELECTION PHASE"));
+        assertTrue(output.getLines().contains("GAME ENDED"));
+    }
+}
@@ -0,0 +1,63 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class GameRandomTest {
+    @Test
+    void testSameSeedSameSequence() {
+        GameRandom a = new GameRandom(42);
+        GameRandom b = new GameRandom(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(a.nextLong(), b.nextLong());
+        }
+    }
+
+    @Test
+    void testSplitIsDeterministicAndIndependent() {
+        GameRandom a = new GameRandom(7).split();
+        GameRandom b = new GameRandom(7).split();
+        assertEquals(a.nextLong(), b.nextLong());
+        GameRandom parent = new GameRandom(7);
+        GameRandom child = parent.split();
+        assertNotEquals(parent.nextLong(), child.nextLong());
+    }
+
+    @Test
+    void testBounds() {
+        GameRandom random = new GameRandom(1);
+        for (int i = 0; i < 1000; i++) {
+            int n = random.nextInt(7);
+            assertTrue(n >= 0 && n < 7);
+            double d = random.nextDouble();
+            assertTrue(d >= 0 && d < 1);
+        }
+        assertThrows(IllegalArgumentException.class, () -> random.nextInt(0));
+    }
+
+    @Test
+    void testShuffleKeepsElements() {
+        List<Integer> list = new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8));
+        new GameRandom(3).shuffle(list);
+        List<Integer> sorted = new ArrayList<>(list);
+        sorted.sort(null);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), sorted);
+    }
+
+    @Test
+    void testGamesReplayFromSeed() {
+        GameEngine engine = new GameEngine(5);
+        long seed = GameRandom.seedFor(99, 3);
+        GameResult first = engine.playGame(seed);
+        GameResult second = engine.playGame(seed);
+        assertEquals(seed, first.getSeed());
+        assertEquals(first.getRounds(), second.getRounds());
+        assertEquals(first.getWinner(), second.getWinner());
+        for (int p = 1; p <= 5; p++) {
+            assertEquals(first.getScore(p), second.getScore(p));
+        }
+    }
+}
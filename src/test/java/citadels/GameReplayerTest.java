@@ -0,0 +1,115 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class GameReplayerTest {
+    private static void assertSameState(Game expected, Game actual) {
+        assertEquals(expected.getCurrentRound(), actual.getCurrentRound());
+        assertEquals(expected.isGameEnded(), actual.isGameEnded());
+        assertEquals(expected.getKilledCharacter(), actual.getKilledCharacter());
+        assertEquals(expected.getRobbedCharacter(), actual.getRobbedCharacter());
+        assertEquals(expected.getDistrictDeck().size(), actual.getDistrictDeck().size());
+        for (int i = 0; i < expected.getDistrictDeck().size(); i++) {
+            assertSame(expected.getDistrictDeck().get(i), actual.getDistrictDeck().get(i), "Deck card " + i);
+        }
+        for (int i = 0; i < expected.getPlayers().size(); i++) {
+            Player e = expected.getPlayers().get(i);
+            Player a = actual.getPlayers().get(i);
+            assertEquals(e.getGold(), a.getGold(), "Gold of player " + (i + 1));
+            assertEquals(e.getHand(), a.getHand(), "Hand of player " + (i + 1));
+            assertEquals(e.getCity(), a.getCity(), "City of player " + (i + 1));
+            assertEquals(e.getCharacter(), a.getCharacter(), "Character of player " + (i + 1));
+            assertEquals(e.hasCrown(), a.hasCrown());
+            assertEquals(e.isHuman(), a.isHuman(), "Type of player " + (i + 1));
+        }
+        assertEquals(GameState.capture(expected), GameState.capture(actual));
+    }
+
+    @Test
+    void testReplayAIGame() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Game game = new GameEngine(4 + (int) (seed % 4)).newGame(seed);
+            game.setMaxRounds(30);
+            game.startGame();
+            assertSameState(game, GameReplayer.replay(game));
+        }
+    }
+
+    @Test
+    void testReplayScriptedHumanGame() {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            script.append("king\nmerchant\nbishop\nwarlord\narchitect\nmagician\nthief\nassassin\n");
+            script.append("t\nt\nt\ncards\n1\nbuild 1\nbuild 2\nend\nt\nt\nt\nt\ngold\nbuild 1\nend\n");
+        }
+        Game game = new Game(5, ScriptedInput.fromText(script.toString()), SilentOutput.INSTANCE,
+            (n, random) -> n == 1 ? new Player(n, true) : new AIPlayer(n, random), new GameRandom(21L));
+        game.setMaxRounds(10);
+        try {
+            game.startGame();
+        } catch (java.util.NoSuchElementException e) {
+            // Expected if the script runs out mid-round
+        }
+        assertSameState(game, GameReplayer.replay(game));
+    }
+
+    @Test
+    void testReplayPartOfJournal() {
+        Game game = new GameEngine(4).newGame(8L);
+        game.setMaxRounds(5);
+        game.startGame();
+        GameJournal journal = game.getJournal();
+        int firstRoundEnd = 0;
+        while (journal.type(firstRoundEnd) != GameJournal.ROUND_END) {
+            firstRoundEnd++;
+        }
+        Game replayed = GameReplayer.replay(4, game.getInitialSeed(), game.getInitialGamma(), journal, firstRoundEnd + 1);
+        assertEquals(2, replayed.getCurrentRound());
+        assertEquals(firstRoundEnd + 1, replayed.getJournal().size());
+    }
+
+    @Test
+    void testReplayMidSelection() {
+        // Stop while the human player chooses a character, after the removals
+        Game game = new Game(4, ScriptedInput.fromText("king\nt\n"), SilentOutput.INSTANCE,
+            Game::defaultSeat, new GameRandom(5L));
+        try {
+            game.startGame();
+        } catch (java.util.NoSuchElementException e) {
+            // Expected: the script runs out
+        }
+        Game replayed = GameReplayer.replay(game);
+        assertSameState(game, replayed);
+    }
+
+    @Test
+    void testReplayAfterJournalCut() {
+        Game game = new GameEngine(5).newGame(13L);
+        game.setMaxRounds(3);
+        game.startGame();
+        game.cutJournal();
+        assertEquals(0, game.getJournal().size());
+        assertSameState(game, GameReplayer.replay(game));
+
+        // Cut at every round end, as a session does at its checkpoints
+        Game cut = new GameEngine(6).newGame(14L);
+        cut.setMaxRounds(6);
+        cut.addEventListener((g, type, seat, value, extra) -> {
+            if (type == GameJournal.ROUND_END && g.getCurrentRound() == 4) {
+                g.cutJournal();
+            }
+        });
+        cut.startGame();
+        assertNotNull(cut.getJournalBase());
+        assertTrue(cut.getJournal().size() > 0);
+        assertSameState(cut, GameReplayer.replay(cut));
+    }
+
+    @Test
+    void testReplayRejectsMismatchedJournal() {
+        GameJournal journal = new GameJournal();
+        journal.append(GameJournal.BUILD, 0, 0, -1);
+        assertThrows(IllegalStateException.class, () -> GameReplayer.replay(4, 1L, 0x9e3779b97f4a7c15L, journal, 1));
+    }
+}
@@ -0,0 +1,141 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class GameServerTest {
+    @TempDir
+    Path dir;
+
+    /** Sends input to a session, closes the sending side and reads everything the session writes. */
+    private static String talk(int port, String input) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setSoTimeout(30_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(input.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            socket.shutdownOutput();
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                text.write(buffer, 0, n);
+            }
+            return new String(text.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void awaitNoSessions(GameServer server) throws InterruptedException {
+        for (int i = 0; i < 200 && server.getActiveSessions() > 0; i++) {
+            Thread.sleep(25);
+        }
+        assertEquals(0, server.getActiveSessions());
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    void testConcurrentSessionsAreIndependent() throws Exception {
+        try (GameServer server = new GameServer(0).start()) {
+            ExecutorService clients = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<String>> outputs = new ArrayList<>();
+                for (int i = 0; i < 16; i++) {
+                    String players = String.valueOf(4 + i % 4);
+                    outputs.add(clients.submit(() -> talk(server.getPort(), players + "\n")));
+                }
+                for (Future<String> output : outputs) {
+                    String text = output.get();
+                    assertTrue(text.startsWith("Welcome to Citadels!"), text);
+                    assertEquals(1, count(text, "Initial Setup"), "Each connection sees only its own game");
+                }
+            } finally {
+                clients.shutdown();
+            }
+            awaitNoSessions(server);
+            assertEquals(16, server.getTotalSessions());
+        }
+    }
+
+    @Test
+    void testInvalidPlayerCountAsksAgain() throws Exception {
+        try (GameServer server = new GameServer(0).start()) {
+            String text = talk(server.getPort(), "nine\n9\n5\n");
+            assertEquals(1, count(text, "Please enter a number between 4 and 7."));
+            assertEquals(2, count(text, "Enter how many players [4-7]: "));
+            assertTrue(text.contains("Initial Setup"));
+            awaitNoSessions(server);
+        }
+    }
+
+    @Test
+    void testRemotePlayerCannotSaveOrDebug() throws Exception {
+        Path file = dir.resolve("remote.sav");
+        StringBuilder input = new StringBuilder("4\n");
+        for (int i = 0; i < 40; i++) {
+            input.append("save ").append(file).append("\ndebug\n");
+        }
+        try (GameServer server = new GameServer(0).start()) {
+            String text = talk(server.getPort(), input.toString());
+            assertTrue(text.contains("Unknown command"), text);
+            assertFalse(text.contains("Game saved"), text);
+            assertFalse(text.contains("Debug mode is now"), text);
+            awaitNoSessions(server);
+        }
+        assertFalse(Files.exists(file), "A remote player must not write files on the server");
+    }
+
+    @Test
+    void testCloseEndsWaitingSessions() throws Exception {
+        GameServer server = new GameServer(0).start();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            socket.setSoTimeout(10_000);
+            InputStream in = socket.getInputStream();
+            // Wait for the prompt, so the session is blocked reading the player count
+            while (in.read() != ':') {
+                // Skip the greeting
+            }
+            assertEquals(1, server.getActiveSessions());
+            server.close();
+            while (in.read() >= 0) {
+                // Drain until the server closes the connection
+            }
+        }
+        assertEquals(0, server.getActiveSessions());
+    }
+
+    @Test
+    void testVirtualThreadsOnlyWhenAvailable() throws IOException {
+        boolean available;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            available = true;
+        } catch (NoSuchMethodException e) {
+            available = false;
+        }
+        try (GameServer server = new GameServer(0)) {
+            assertEquals(available, server.usesVirtualThreads());
+        }
+    }
+}
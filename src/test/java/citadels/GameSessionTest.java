@@ -0,0 +1,119 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameSessionTest {
+    @Test
+    void testAiSessionPlaysLikeEngine() throws Exception {
+        GameSession session = new GameSession(4, AIPlayer::new, new GameRandom(11L), 16);
+        AtomicInteger gameEnds = new AtomicInteger();
+        StringBuilder output = new StringBuilder();
+        CountDownLatch ended = new CountDownLatch(1);
+        session.addListener(new SessionListener() {
+            @Override
+            public void onOutput(String text) {
+                output.append(text);
+            }
+
+            @Override
+            public void onEvent(int type, int seat, int value, int extra) {
+                if (type == GameJournal.GAME_END) {
+                    gameEnds.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void onEnd() {
+                ended.countDown();
+            }
+        });
+        session.start();
+        // Nobody reads input, so the question is answered once the game is over
+        GameState state = session.query(GameState::capture).get(30, TimeUnit.SECONDS);
+        assertTrue(ended.await(5, TimeUnit.SECONDS));
+        assertTrue(session.isGameEnded());
+        assertEquals(1, gameEnds.get());
+        assertTrue(output.toString().contains("TURN PHASE"));
+
+        Game engineGame = new Game(4, null, SilentOutput.INSTANCE, AIPlayer::new, new GameRandom(11L));
+        engineGame.startGame();
+        assertEquals(GameState.capture(engineGame), state);
+        session.close();
+    }
+
+    @Test
+    void testBurstIsTakenInOneBatch() throws Exception {
+        GameSession session = new GameSession(4, Game::defaultSeat, new GameRandom(5L), 64);
+        int lines = 0;
+        for (int i = 0; i < 4; i++) {
+            for (String line : new String[] {"assassin", "t", "gold", "t", "end", "t", "king", "t", "gold", "end"}) {
+                assertTrue(session.offer(line));
+                lines++;
+            }
+        }
+        session.start();
+        // The question queues behind every line, so it is answered after they are read
+        int round = session.query(Game::getCurrentRound).get(30, TimeUnit.SECONDS);
+        assertTrue(round >= 1);
+        assertEquals(lines, session.getLineCount());
+        assertTrue(session.getBatchCount() <= 2, "Batches: " + session.getBatchCount());
+        session.close();
+    }
+
+    @Test
+    void testSessionCommandsAreRemote() throws Exception {
+        GameSession session = new GameSession(4, Game::defaultSeat, new GameRandom(6L), 8);
+        StringBuilder output = new StringBuilder();
+        session.addListener(new SessionListener() {
+            @Override
+            public void onOutput(String text) {
+                output.append(text);
+            }
+        });
+        assertTrue(session.offer("t"));
+        assertTrue(session.offer("debug"));
+        session.start();
+        assertTrue(session.query(Game::isRemote).get(30, TimeUnit.SECONDS));
+        session.close();
+        assertFalse(output.toString().contains("Debug mode is now"), output.toString());
+    }
+
+    @Test
+    void testMailboxIsBounded() {
+        GameSession session = new GameSession(4, Game::defaultSeat, new GameRandom(1L), 3);
+        assertTrue(session.offer("a"));
+        assertTrue(session.offer("b"));
+        assertTrue(session.offer("c"));
+        assertFalse(session.offer("d"));
+        CompletableFuture<Integer> answer = session.query(Game::getCurrentRound);
+        ExecutionException e = assertThrows(ExecutionException.class, answer::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    void testCloseEndsWaitingGame() throws Exception {
+        GameSession session = new GameSession(5, Game::defaultSeat, new GameRandom(3L), 8);
+        CountDownLatch ended = new CountDownLatch(1);
+        session.addListener(new SessionListener() {
+            @Override
+            public void onEnd() {
+                ended.countDown();
+            }
+        });
+        session.start();
+        // Answered while the game waits for the human player's first character
+        assertEquals(5, (int) session.query(game -> game.getPlayers().size()).get(30, TimeUnit.SECONDS));
+        session.close();
+        // Without input the game plays on with its fallback choices, then the worker stops
+        assertTrue(ended.await(30, TimeUnit.SECONDS));
+        assertFalse(session.offer("gold"));
+        assertThrows(ExecutionException.class, () -> session.query(Game::getCurrentRound).get());
+    }
+}
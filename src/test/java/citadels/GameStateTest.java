@@ -0,0 +1,68 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class GameStateTest {
+    @Test
+    void testCopyIsEqualAndIndependent() {
+        Game game = new GameEngine(5).newGame(12L);
+        game.playRound();
+        GameState state = GameState.capture(game);
+        GameState copy = state.copy();
+        assertEquals(state, copy);
+        assertEquals(state.hashCode(), copy.hashCode());
+
+        game.playRound();
+        GameState later = GameState.capture(game);
+        assertNotEquals(state, later);
+        copy.copyFrom(later);
+        assertEquals(later, copy);
+        assertNotEquals(state, copy);
+    }
+
+    @Test
+    void testRestoreThenPlayMatchesOriginal() {
+        Game game = new GameEngine(4).newGame(30L);
+        game.playRound();
+        game.playRound();
+        GameState saved = GameState.capture(game);
+        for (int i = 0; i < 3; i++) {
+            game.playRound();
+        }
+        GameState expected = GameState.capture(game);
+
+        // Rewind the same game, and restore into a different game
+        game.restoreState(saved);
+        assertEquals(saved, GameState.capture(game));
+        Game other = new GameEngine(4).newGame(31L);
+        other.restoreState(saved);
+        for (int i = 0; i < 3; i++) {
+            game.playRound();
+            other.playRound();
+        }
+        assertEquals(expected, GameState.capture(game));
+        assertEquals(expected, GameState.capture(other));
+    }
+
+    @Test
+    void testRestoreKeepsPlayerObjects() {
+        Game game = new GameEngine(4).newGame(2L);
+        Player first = game.getPlayers().get(0);
+        GameState start = GameState.capture(game);
+        game.playRound();
+        game.restoreState(start);
+        assertSame(first, game.getPlayers().get(0));
+        assertEquals(2, first.getGold());
+        assertEquals(4, first.getHand().size());
+        assertTrue(first.getCity().isEmpty());
+        assertEquals(1, game.getCurrentRound());
+    }
+
+    @Test
+    void testRestoreRejectsOtherPlayerCount() {
+        GameState state = GameState.capture(new GameEngine(4).newGame(1L));
+        Game game = new GameEngine(5).newGame(1L);
+        assertThrows(IllegalArgumentException.class, () -> game.restoreState(state));
+    }
+}
@@ -384,6 +384,25 @@ public class GameTest {
         assertEquals(0, target.getCity().size(), "Target's city should be empty after armory action");
     }
 
+    @Test
+    public void testActionLaboratoryNeedsCardNumber() {
+        Game testGame = new Game(4, new Scanner(new ByteArrayInputStream(new byte[0])));
+        Player human = testGame.getPlayers().get(0);
+        human.getHand().clear();
+        human.addGold(10);
+        DistrictCard laboratory = CardCatalog.getInstance().findDistrict("Laboratory");
+        human.addToHand(laboratory);
+        human.buildDistrict(laboratory);
+        human.addToHand(new DistrictCard("Temple", "blue", 1, ""));
+        int gold = human.getGold();
+        testGame.processCommand("action laboratory first", human);
+        assertEquals(1, human.getHand().size(), "A card number that is not a number discards nothing");
+        assertEquals(gold, human.getGold());
+        testGame.processCommand("action laboratory 1", human);
+        assertEquals(0, human.getHand().size());
+        assertEquals(gold + 1, human.getGold());
+    }
+
     @Test
     public void testInvalidBuildIndex() {
         Game testGame = new Game(4, new Scanner(new ByteArrayInputStream(new byte[0])));
@@ -487,4 +506,43 @@ public class GameTest {
             assertTrue(player.getCity().size() >= 0, "Player should have non-negative city size");
         }
     }
+
+    @Test
+    public void testScriptedHumanSeat() {
+        // Each block answers every prompt: the pick reads names until one is free,
+        // the basic action often reads "gold" and the command loop reads until "end"
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            for (CharacterRole role : CharacterRole.values()) {
+                script.append(role.getDisplayName().toLowerCase()).append("\ngold\n");
+            }
+            script.append("end\n");
+        }
+        ScriptedInput input = ScriptedInput.fromText(script.toString());
+        Game testGame = new Game(4, input, SilentOutput.INSTANCE, Game::defaultSeat, new GameRandom(33L));
+        testGame.setMaxRounds(6);
+        testGame.startGame();
+
+        assertTrue(testGame.isGameEnded());
+        assertFalse(input.isExhausted(), "The script should last the whole game");
+        Player human = testGame.getPlayers().get(0);
+        assertTrue(human.isHuman());
+        assertNotNull(human.getCharacter(), "The scripted human should have picked a character");
+        GameJournal journal = testGame.getJournal();
+        int picks = 0;
+        int goldTaken = 0;
+        for (int i = 0; i < journal.size(); i++) {
+            if (journal.seat(i) == 0 && journal.type(i) == GameJournal.PICK) {
+                picks++;
+            } else if (journal.seat(i) == 0 && journal.type(i) == GameJournal.GOLD && journal.value(i) == 2) {
+                goldTaken++;
+            }
+        }
+        assertEquals(testGame.getCurrentRound(), picks, "The human should pick once every round");
+        assertTrue(goldTaken > 0, "The human should have taken gold");
+        Player replayed = GameReplayer.replay(testGame).getPlayers().get(0);
+        assertEquals(replayed.getGold(), human.getGold());
+        assertEquals(replayed.getHand(), human.getHand());
+        assertEquals(replayed.getCity(), human.getCity());
+    }
 }
@@ -0,0 +1,29 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class JsonWriterTest {
+    @Test
+    void testNestedValuesAreSeparated() {
+        String json = new JsonWriter().beginObject()
+            .field("a", 1)
+            .name("b").beginArray().value(true).value("x").beginObject().endObject().endArray()
+            .field("c", (String) null)
+            .name("d").value(1.5)
+            .endObject().toString();
+        assertEquals("{\"a\":1,\"b\":[true,\"x\",{}],\"c\":null,\"d\":1.5}", json);
+    }
+
+    @Test
+    void testStringsAreEscaped() {
+        String json = new JsonWriter().value("say \"hi\"\\\n\t\u0001").toString();
+        assertEquals("\"say \\\"hi\\\"\\\\\\n\\t\\u0001\"", json);
+    }
+
+    @Test
+    void testNonFiniteNumbersAreNull() {
+        assertEquals("[null,null]", new JsonWriter().beginArray()
+            .value(Double.NaN).value(Double.POSITIVE_INFINITY).endArray().toString());
+    }
+}
@@ -0,0 +1,31 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class LatencyStatsTest {
+    @Test
+    void testPercentilesAreBucketBounds() {
+        LatencyStats stats = new LatencyStats();
+        assertEquals(0, stats.getPercentileMicros(99));
+        for (int i = 0; i < 99; i++) {
+            stats.record(3_000);
+        }
+        stats.record(5_000_000);
+        assertEquals(100, stats.getCount());
+        assertEquals(4, stats.getPercentileMicros(50));
+        assertEquals(4, stats.getPercentileMicros(99));
+        assertEquals(8192, stats.getPercentileMicros(100));
+        assertEquals(5000.0, stats.getMaxMicros(), 1e-9);
+        assertEquals((99 * 3 + 5000) / 100.0, stats.getMeanMicros(), 1e-9);
+    }
+
+    @Test
+    void testWritesJson() {
+        LatencyStats stats = new LatencyStats();
+        stats.record(1_500);
+        JsonWriter json = new JsonWriter();
+        stats.writeTo(json);
+        assertEquals("{\"count\":1,\"meanMicros\":1.5,\"maxMicros\":1.5,\"p50Micros\":2,\"p99Micros\":2}", json.toString());
+    }
+}
@@ -0,0 +1,161 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+public class MctsAIPlayerTest {
+    /** Creates a game whose first seat is an MCTS player with a fixed rollout budget. */
+    private static Game newGame(long seed, int rollouts, int workers) {
+        Game game = new Game(4, null, SilentOutput.INSTANCE, (number, random) -> {
+            if (number != 1) {
+                return new AIPlayer(number, random);
+            }
+            MctsAIPlayer player = new MctsAIPlayer(number, random, workers);
+            player.setTimeBudget(60_000);
+            player.setRolloutBudget(rollouts);
+            return player;
+        }, new GameRandom(seed));
+        game.setMaxRounds(3);
+        return game;
+    }
+
+    @Test
+    void testGameWithMctsSeatCompletes() {
+        Game game = newGame(5L, 16, 2);
+        game.startGame();
+        assertTrue(game.isGameEnded());
+        MctsAIPlayer player = (MctsAIPlayer) game.getPlayers().get(0);
+        assertTrue(player.getRolloutCount() > 0);
+    }
+
+    @Test
+    void testRolloutBudgetIsDeterministic() {
+        Game first = newGame(8L, 24, 1);
+        Game second = newGame(8L, 24, 1);
+        first.startGame();
+        second.startGame();
+        assertEquals(GameState.capture(first), GameState.capture(second));
+    }
+
+    @Test
+    void testTimeBudgetBoundsEachDecision() {
+        Game game = new Game(4, null, SilentOutput.INSTANCE, (number, random) -> {
+            if (number != 1) {
+                return new AIPlayer(number, random);
+            }
+            MctsAIPlayer player = new MctsAIPlayer(number, random);
+            player.setTimeBudget(20);
+            return player;
+        }, new GameRandom(3L));
+        game.setMaxRounds(2);
+        long start = System.nanoTime();
+        game.startGame();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        MctsAIPlayer player = (MctsAIPlayer) game.getPlayers().get(0);
+        assertTrue(player.getRolloutCount() > 0);
+        // Two rounds are at most four decisions of 20 ms each
+        assertTrue(millis < 5_000, "Game took " + millis + " ms");
+    }
+
+    @Test
+    void testDecisionDoesNotWaitForBusyPool() throws Exception {
+        long[] slowest = new long[1];
+        Game game = new Game(4, null, SilentOutput.INSTANCE, (number, random) -> {
+            if (number != 1) {
+                return new AIPlayer(number, random);
+            }
+            MctsAIPlayer player = new MctsAIPlayer(number, random) {
+                @Override
+                public CharacterCard chooseCharacter(Game g, List<CharacterCard> available) {
+                    long start = System.nanoTime();
+                    CharacterCard chosen = super.chooseCharacter(g, available);
+                    slowest[0] = Math.max(slowest[0], System.nanoTime() - start);
+                    return chosen;
+                }
+
+                @Override
+                public boolean chooseTakeGold(Game g) {
+                    long start = System.nanoTime();
+                    boolean gold = super.chooseTakeGold(g);
+                    slowest[0] = Math.max(slowest[0], System.nanoTime() - start);
+                    return gold;
+                }
+            };
+            player.setTimeBudget(20);
+            return player;
+        }, new GameRandom(3L));
+        game.setMaxRounds(2);
+        // Keep every search thread busy for longer than the whole game should take
+        List<Future<?>> blockers = new ArrayList<>();
+        for (int i = 0; i < SearchThreads.COUNT; i++) {
+            blockers.add(SearchThreads.POOL.submit(() -> {
+                try {
+                    Thread.sleep(600);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        try {
+            game.startGame();
+        } finally {
+            for (Future<?> blocker : blockers) {
+                blocker.get();
+            }
+        }
+        long millis = slowest[0] / 1_000_000;
+        assertTrue(millis < 300, "Slowest decision took " + millis + " ms with a 20 ms budget");
+    }
+
+    @Test
+    void testNodeSelectTriesEveryOptionFirst() {
+        MctsAIPlayer.Node node = MctsAIPlayer.Node.forCharacters(3);
+        assertEquals(0, node.select(1.4));
+        node.update(0, 1.0);
+        assertEquals(1, node.select(1.4));
+        node.update(1, 0.0);
+        assertEquals(2, node.select(1.4));
+        node.update(2, 0.5);
+        assertEquals(0, node.select(1.4));
+        assertNotNull(node.children[0]);
+    }
+
+    @Test
+    void testTwoCharacterChoiceKeepsSubtrees() {
+        MctsAIPlayer.Node characters = MctsAIPlayer.Node.forCharacters(2);
+        assertNotNull(characters.children[0]);
+        assertNotNull(characters.children[1]);
+        assertNull(MctsAIPlayer.Node.forBasicAction().children[0]);
+    }
+
+    @Test
+    void testMergeAddsOnlyNewVisits() {
+        MctsAIPlayer.Node base = MctsAIPlayer.Node.forBasicAction();
+        base.update(0, 1.0);
+        MctsAIPlayer.Node a = base.copy();
+        MctsAIPlayer.Node b = base.copy();
+        a.update(1, 0.5);
+        b.update(1, 0.25);
+        b.update(0, 1.0);
+        MctsAIPlayer.Node merged = base.copy();
+        merged.addDifference(a, base);
+        merged.addDifference(b, base);
+        assertEquals(2, merged.visits[0]);
+        assertEquals(2, merged.visits[1]);
+        assertEquals(0.75, merged.rewards[1], 1e-9);
+        assertEquals(4, merged.totalVisits());
+    }
+
+    @Test
+    void testEvaluateFavorsLeader() {
+        Game game = new GameEngine(4).newGame(4L);
+        double even = MctsAIPlayer.evaluate(game, 0);
+        assertEquals(0.5, even, 1e-9);
+        game.getPlayers().get(0).addGold(6);
+        assertTrue(MctsAIPlayer.evaluate(game, 0) > even);
+        assertTrue(MctsAIPlayer.evaluate(game, 1) < even);
+    }
+}
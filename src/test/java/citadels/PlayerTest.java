@@ -168,4 +168,76 @@ public class PlayerTest {
         int score = player.calculateScore();
         assertEquals(18, score); // 16 points for districts (3+2+2+3+6) + 2 points for having all 5 colors
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testHandAndCityViews() {
+        DistrictCard temple = new DistrictCard("Temple", "blue", 1, "");
+        player.getHand().add(temple);
+        player.getHand().add(tradeCard);
+        player.getHand().add(temple);
+        assertEquals(3, player.getHand().size());
+        assertSame(CardCatalog.getInstance().findDistrict("Temple"), player.getHand().get(0),
+            "Views should return the shared catalog card");
+        assertTrue(player.getHand().remove(temple));
+        assertEquals(2, player.getHand().size());
+        assertTrue(player.getHand().contains(temple), "One Temple should remain");
+        assertEquals(tradeCard, player.getHand().get(0));
+
+        player.getCity().add(militaryCard);
+        player.getCity().removeIf(card -> card.getName().equals("Barracks"));
+        assertTrue(player.getCity().isEmpty());
+
+        player.getHand().clear();
+        assertFalse(player.getHand().contains(temple));
+    }
+
+    @Test
+    void testEqualCardsShareId() {
+        DistrictCard first = new DistrictCard("Custom Tower", "red", 4, "");
+        DistrictCard second = new DistrictCard("Custom Tower", "red", 4, "");
+        assertEquals(first.getId(), second.getId());
+        assertNotEquals(first.getId(), religiousCard.getId());
+        assertEquals(CardCatalog.getInstance().findDistrict("Temple").getId(),
+            new DistrictCard("Temple", "blue", 1, "").getId());
+    }
+
+    @Test
+    void testDistrictCountsFollowCity() {
+        player.getCity().add(nobleCard);
+        player.getCity().add(new DistrictCard("Manor", "yellow", 3, ""));
+        player.getCity().add(specialCard);
+        assertEquals(2, player.getDistrictCount(DistrictColor.YELLOW));
+        assertEquals(1, player.getDistrictCount(DistrictColor.PURPLE));
+        assertEquals(0, player.getDistrictCount(DistrictColor.RED));
+        assertTrue(player.hasDistrict(specialCard));
+
+        player.getCity().remove(specialCard);
+        assertEquals(0, player.getDistrictCount(DistrictColor.PURPLE));
+        assertFalse(player.hasDistrict(specialCard));
+        assertEquals(6, player.calculateScore());
+
+        player.getCity().set(0, militaryCard);
+        assertEquals(1, player.getDistrictCount(DistrictColor.YELLOW));
+        assertEquals(1, player.getDistrictCount(DistrictColor.RED));
+
+        player.getCity().clear();
+        assertEquals(0, player.getDistrictCount(DistrictColor.YELLOW));
+        assertEquals(0, player.calculateScore());
+    }
+
+    @Test
+    void testAbilitiesFollowCity() {
+        DistrictCard keep = CardCatalog.getInstance().findDistrict("Keep");
+        player.getCity().add(keep);
+        player.getCity().add(keep);
+        player.getCity().add(religiousCard);
+        assertTrue(player.hasAbility(PurpleAbility.KEEP));
+        assertEquals(1, player.getAbilities().size());
+
+        player.getCity().remove(keep);
+        assertTrue(player.hasAbility(PurpleAbility.KEEP), "The second Keep still has the ability");
+        player.getCity().remove(keep);
+        assertFalse(player.hasAbility(PurpleAbility.KEEP));
+        assertTrue(player.getAbilities().isEmpty());
+    }
+}
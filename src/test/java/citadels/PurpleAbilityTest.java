@@ -0,0 +1,43 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class PurpleAbilityTest {
+    @Test
+    void testEveryPurpleDistrictHasAnAbility() {
+        for (DistrictCard card : CardCatalog.getInstance().getDistrictCards()) {
+            if (card.getDistrictColor() == DistrictColor.PURPLE) {
+                assertNotNull(card.getPurpleAbility(), card.getName());
+                assertEquals(card.getName(), card.getPurpleAbility().getDistrictName());
+            } else {
+                assertNull(card.getPurpleAbility(), card.getName());
+            }
+        }
+    }
+
+    @Test
+    void testEndGameBonus() {
+        Game game = new GameEngine(4).newGame(1L);
+        Player player = game.getPlayers().get(0);
+        player.addGold(5);
+        DistrictCard treasury = CardCatalog.getInstance().findDistrict("Imperial Treasury");
+        DistrictCard well = CardCatalog.getInstance().findDistrict("Wishing Well");
+        player.getCity().add(treasury);
+        player.getCity().add(well);
+        assertEquals(player.getGold(), PurpleAbility.IMPERIAL_TREASURY.endGameBonus(game, player, treasury));
+        assertEquals(1, PurpleAbility.WISHING_WELL.endGameBonus(game, player, well));
+        assertEquals(0, PurpleAbility.KEEP.endGameBonus(game, player, treasury));
+    }
+
+    @Test
+    void testParkDrawsOnEmptyHand() {
+        Game game = new GameEngine(4).newGame(1L);
+        Player player = game.getPlayers().get(0);
+        player.getHand().clear();
+        PurpleAbility.PARK.onTurnEnd(game, player);
+        assertEquals(2, player.getHand().size());
+        PurpleAbility.PARK.onTurnEnd(game, player);
+        assertEquals(2, player.getHand().size(), "Park only draws when the hand is empty");
+    }
+}
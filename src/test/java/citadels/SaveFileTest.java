@@ -0,0 +1,177 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+public class SaveFileTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void testNumbersRoundTrip() throws IOException {
+        SaveFile.Writer writer = new SaveFile.Writer();
+        int[] values = {0, 1, 127, 128, 300, 16384, Integer.MAX_VALUE};
+        for (int value : values) {
+            writer.writeVarint(value);
+        }
+        writer.writeSignedVarint(-5);
+        writer.writeSignedVarint(Integer.MIN_VALUE);
+        writer.writeLong(0x9e3779b97f4a7c15L);
+        writer.writeBoolean(true);
+        Path path = dir.resolve("numbers.sav");
+        writer.writeTo(path);
+
+        SaveFile.Reader reader = SaveFile.Reader.open(path);
+        for (int value : values) {
+            assertEquals(value, reader.readVarint());
+        }
+        assertEquals(-5, reader.readSignedVarint());
+        assertEquals(Integer.MIN_VALUE, reader.readSignedVarint());
+        assertEquals(0x9e3779b97f4a7c15L, reader.readLong());
+        assertTrue(reader.readBoolean());
+        assertThrows(IOException.class, reader::readBoolean);
+    }
+
+    @Test
+    void testCardsRoundTrip() throws IOException {
+        DistrictCard temple = CardCatalog.getInstance().findDistrict("Temple");
+        DistrictCard custom = new DistrictCard("Save Test Tower", "purple", 9, "Only exists in this test");
+        SaveFile.Writer writer = new SaveFile.Writer();
+        writer.writeCards(Arrays.asList(temple, custom, custom));
+        Path path = dir.resolve("cards.sav");
+        writer.writeTo(path);
+
+        List<DistrictCard> cards = SaveFile.Reader.open(path).readCards();
+        assertSame(temple, cards.get(0));
+        assertEquals(custom.getId(), cards.get(1).getId());
+        assertEquals(custom, cards.get(2));
+    }
+
+    @Test
+    void testRejectsCardsThatWereNeverCreated() throws IOException {
+        CardCatalog catalog = CardCatalog.getInstance();
+        byte[] name = "Crafted Tower".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer file = ByteBuffer.allocate(64);
+        file.putInt(SaveFile.MAGIC);
+        file.put((byte) SaveFile.VERSION);
+        file.put((byte) catalog.getCardCount());
+        file.put((byte) 1);
+        file.put((byte) name.length).put(name);
+        file.put((byte) 6).put("purple".getBytes(StandardCharsets.UTF_8));
+        file.put((byte) 9);
+        file.put((byte) 0);
+        Path path = dir.resolve("crafted.sav");
+        Files.write(path, Arrays.copyOf(file.array(), file.position()));
+
+        assertThrows(IOException.class, () -> SaveFile.Reader.open(path));
+        assertNull(CustomCards.find("Crafted Tower", "purple", 9, ""));
+        assertNull(catalog.findDistrict("Crafted Tower"));
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws IOException {
+        Path text = dir.resolve("text.sav");
+        Files.write(text, "{\"currentRound\":1}".getBytes());
+        assertThrows(IOException.class, () -> SaveFile.Reader.open(text));
+
+        Path empty = dir.resolve("empty.sav");
+        Files.write(empty, new byte[0]);
+        assertThrows(IOException.class, () -> SaveFile.Reader.open(empty));
+    }
+
+    @Test
+    void testGameRoundTrip() throws IOException {
+        Game game = new GameEngine(5).newGame(17L);
+        game.setMaxRounds(3);
+        game.startGame();
+        Path path = dir.resolve("game.sav");
+        game.saveGame(path.toString());
+
+        Game loaded = new GameEngine(5).newGame(99L);
+        loaded.loadGame(path.toString());
+        assertEquals(game.getCurrentRound(), loaded.getCurrentRound());
+        assertEquals(game.isGameEnded(), loaded.isGameEnded());
+        assertEquals(game.getKilledCharacter(), loaded.getKilledCharacter());
+        assertEquals(game.getRobbedCharacter(), loaded.getRobbedCharacter());
+        assertEquals(game.getDistrictDeck().size(), loaded.getDistrictDeck().size());
+        for (int i = 0; i < game.getDistrictDeck().size(); i++) {
+            assertSame(game.getDistrictDeck().get(i), loaded.getDistrictDeck().get(i));
+        }
+        for (int i = 0; i < 5; i++) {
+            Player expected = game.getPlayers().get(i);
+            Player actual = loaded.getPlayers().get(i);
+            assertTrue(actual instanceof AIPlayer);
+            assertEquals(expected.getGold(), actual.getGold());
+            assertEquals(expected.getHand(), actual.getHand());
+            assertEquals(expected.getCity(), actual.getCity());
+            assertEquals(expected.getCharacter(), actual.getCharacter());
+            assertEquals(expected.hasCrown(), actual.hasCrown());
+        }
+        assertTrue(Files.size(path) < 400, "A 5 player save should be small, was " + Files.size(path));
+    }
+
+    @Test
+    void testLoadedGameContinuesLikeTheOriginal() throws IOException {
+        Game game = new GameEngine(4).newGame(5L);
+        game.playRound();
+        game.playRound();
+        Path path = dir.resolve("resume.sav");
+        game.saveGame(path.toString());
+        Game copy = new GameEngine(4).newGame(6L);
+        copy.loadGame(path.toString());
+
+        for (int round = 0; round < 3; round++) {
+            game.playRound();
+            copy.playRound();
+        }
+        assertEquals(game.getCurrentRound(), copy.getCurrentRound());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(game.getPlayers().get(i).getCity(), copy.getPlayers().get(i).getCity());
+            assertEquals(game.getPlayers().get(i).getHand(), copy.getPlayers().get(i).getHand());
+            assertEquals(game.getPlayers().get(i).getGold(), copy.getPlayers().get(i).getGold());
+        }
+    }
+
+    @Test
+    void testSaveDuringCharacterSelection() throws IOException {
+        // Save in the first round, once three of four players have chosen
+        Game game = new GameEngine(4).newGame(12L);
+        Path path = dir.resolve("selection.sav");
+        GameState[] saved = new GameState[1];
+        game.addEventListener((g, type, seat, value, extra) -> {
+            if (type == GameJournal.PICK && saved[0] == null && seat == (g.getSelectionStart() + 2) % 4) {
+                saved[0] = GameState.capture(g);
+                try {
+                    g.saveGame(path.toString());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        game.setMaxRounds(1);
+        game.startGame();
+
+        Game loaded = new GameEngine(4).newGame(1L);
+        loaded.loadGame(path.toString());
+        assertEquals(saved[0], GameState.capture(loaded));
+    }
+
+    @Test
+    void testFailedLoadKeepsGame() throws IOException {
+        Game game = new GameEngine(4).newGame(3L);
+        Player first = game.getPlayers().get(0);
+        Path path = dir.resolve("bad.sav");
+        Files.write(path, new byte[] {0x43, 0x49, 0x54, 0x44, 1, 0});
+        assertThrows(IOException.class, () -> game.loadGame(path.toString()));
+        assertSame(first, game.getPlayers().get(0));
+    }
+}
@@ -0,0 +1,54 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+public class ScriptedInputTest {
+    @Test
+    void testMatchesScanner() {
+        String text = "king\n  t \n\n3 build 2\ngold\n";
+        Scanner scanner = new Scanner(text);
+        ScriptedInput input = ScriptedInput.fromText(text);
+        assertEquals(scanner.next(), input.next());
+        assertEquals(scanner.nextLine(), input.nextLine());
+        assertEquals(scanner.nextLine(), input.nextLine());
+        assertEquals(scanner.hasNextInt(), input.hasNextInt());
+        assertEquals(scanner.nextInt(), input.nextInt());
+        assertEquals(scanner.nextLine(), input.nextLine());
+        assertEquals(scanner.next(), input.next());
+        assertEquals(scanner.nextLine(), input.nextLine());
+        assertThrows(NoSuchElementException.class, scanner::nextLine);
+        assertThrows(NoSuchElementException.class, input::nextLine);
+        assertTrue(input.isExhausted());
+    }
+
+    @Test
+    void testNextIntLeavesOtherTokens() {
+        ScriptedInput input = ScriptedInput.of("gold");
+        assertFalse(input.hasNextInt());
+        assertThrows(InputMismatchException.class, input::nextInt);
+        assertEquals("gold", input.next());
+        assertThrows(NoSuchElementException.class, input::next);
+    }
+
+    @Test
+    void testFromFile() throws IOException {
+        Path file = Files.createTempFile("citadels-script", ".txt");
+        try {
+            Files.write(file, Arrays.asList("assassin", "t"), StandardCharsets.UTF_8);
+            ScriptedInput input = ScriptedInput.fromFile(file);
+            assertEquals("assassin", input.nextLine());
+            assertEquals("t", input.next());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class SessionRegistryTest {
+    /** Lines a player might send over a few rounds */
+    private static final String[] SCRIPT = {"assassin", "t", "gold", "t", "end", "t", "king", "t", "gold", "end"};
+
+    @TempDir
+    Path tempDir;
+
+    /** Collects everything a session publishes. */
+    private static final class Recorder implements SessionListener {
+        final StringBuffer output = new StringBuffer();
+        final StringBuffer events = new StringBuffer();
+
+        @Override
+        public void onOutput(String text) {
+            output.append(text);
+        }
+
+        @Override
+        public void onEvent(int type, int seat, int value, int extra) {
+            events.append(type).append(' ').append(seat).append(' ').append(value).append(' ').append(extra).append('\n');
+        }
+    }
+
+    private static void awaitEvictions(SessionRegistry registry, long count) throws InterruptedException {
+        for (int i = 0; i < 400 && registry.getEvictionCount() < count; i++) {
+            Thread.sleep(25);
+        }
+        assertEquals(count, registry.getEvictionCount());
+    }
+
+    private int checkpointFiles(long id) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return (int) files.filter(file -> file.getFileName().toString().startsWith("session-" + id + "-")).count();
+        }
+    }
+
+    private static GameState play(SessionRegistry registry, long id, int chunks, Runnable between) throws Exception {
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            for (String line : SCRIPT) {
+                assertTrue(registry.offer(id, line));
+            }
+            // Wait until the game has read the chunk, then let the test evict it
+            registry.query(id, Game::getCurrentRound).get(30, TimeUnit.SECONDS);
+            between.run();
+        }
+        return registry.query(id, GameState::capture).get(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testEvictedSessionContinuesWhereItLeftOff() throws Exception {
+        Path plainDir = Files.createDirectory(tempDir.resolve("plain"));
+        Path evictedDir = Files.createDirectory(tempDir.resolve("evicted"));
+        AtomicLong time = new AtomicLong();
+        try (SessionRegistry plain = new SessionRegistry(plainDir, 8, 1000, new GameRandom(21L), time::get);
+             SessionRegistry evicting = new SessionRegistry(evictedDir, 8, 1000, new GameRandom(21L), time::get)) {
+            Recorder expected = new Recorder();
+            Recorder actual = new Recorder();
+            long plainId = plain.create(4, expected);
+            long id = evicting.create(4, actual);
+
+            GameState plainState = play(plain, plainId, 6, () -> { });
+            GameState state = play(evicting, id, 6, () -> {
+                time.addAndGet(TimeUnit.SECONDS.toNanos(2));
+                assertEquals(1, evicting.evictIdle());
+                assertFalse(evicting.isResident(id));
+            });
+
+            // The evictions fell in different rounds, so some resumed from a later snapshot
+            int round = evicting.query(id, Game::getCurrentRound).get(30, TimeUnit.SECONDS);
+            assertTrue(round >= 3, "Round " + round);
+            assertEquals(6, evicting.getEvictionCount());
+            assertEquals(6, evicting.getResumeCount());
+            assertEquals(plain.query(plainId, Game::getCurrentRound).get(30, TimeUnit.SECONDS).intValue(), round);
+            assertEquals(plainState, state);
+            // Reading the lines again publishes nothing twice
+            assertEquals(expected.output.toString(), actual.output.toString());
+            assertEquals(expected.events.toString(), actual.events.toString());
+        }
+    }
+
+    @Test
+    void testClockKeepsResidentSessionsBounded() throws Exception {
+        try (SessionRegistry registry = new SessionRegistry(tempDir, 2, 60_000, new GameRandom(4L), System::nanoTime)) {
+            long first = registry.create(4);
+            long second = registry.create(5);
+            long third = registry.create(6);
+            assertEquals(3, registry.getSessionCount());
+            awaitEvictions(registry, 1);
+            assertEquals(2, registry.getResidentCount());
+            assertFalse(registry.isResident(first));
+            assertTrue(registry.isResident(second));
+            assertTrue(registry.isResident(third));
+            assertTrue(Files.exists(tempDir.resolve("session-" + first + "-1.save")));
+            assertTrue(Files.exists(tempDir.resolve("session-" + first + "-1.lines")));
+
+            // Using an evicted session brings it back and evicts another one
+            assertEquals(4, (int) registry.query(first, game -> game.getPlayers().size()).get(30, TimeUnit.SECONDS));
+            assertTrue(registry.isResident(first));
+            assertEquals(1, registry.getResumeCount());
+            awaitEvictions(registry, 2);
+            assertEquals(2, registry.getResidentCount());
+        }
+    }
+
+    @Test
+    void testMakingRoomDoesNotWaitForBusyGame() throws Exception {
+        try (SessionRegistry registry = new SessionRegistry(tempDir, 1, 60_000, new GameRandom(9L), System::nanoTime)) {
+            long first = registry.create(4);
+            CountDownLatch release = new CountDownLatch(1);
+            // Keep the first game's worker busy, so it cannot take a checkpoint
+            CompletableFuture<Boolean> busy = registry.query(first, game -> {
+                try {
+                    return release.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            });
+            long start = System.nanoTime();
+            registry.create(5);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(millis < 2_000, "Creating a session took " + millis + " ms");
+            assertTrue(registry.isResident(first));
+
+            release.countDown();
+            assertTrue(busy.get(30, TimeUnit.SECONDS));
+            awaitEvictions(registry, 1);
+            assertFalse(registry.isResident(first));
+            assertEquals(2, checkpointFiles(first));
+        }
+    }
+
+    @Test
+    void testRemoveDeletesCheckpoint() throws Exception {
+        AtomicLong time = new AtomicLong();
+        try (SessionRegistry registry = new SessionRegistry(tempDir, 4, 10, new GameRandom(8L), time::get)) {
+            long id = registry.create(4);
+            registry.query(id, Game::getCurrentRound).get(30, TimeUnit.SECONDS);
+            assertEquals(0, registry.evictIdle());
+            time.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+            assertEquals(1, registry.evictIdle());
+            assertEquals(2, checkpointFiles(id));
+
+            // Each eviction writes a new version and deletes the one before it
+            registry.query(id, Game::getCurrentRound).get(30, TimeUnit.SECONDS);
+            time.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+            assertEquals(1, registry.evictIdle());
+            assertTrue(Files.exists(tempDir.resolve("session-" + id + "-2.save")));
+            assertEquals(2, checkpointFiles(id));
+
+            assertTrue(registry.remove(id));
+            assertFalse(registry.contains(id));
+            assertEquals(0, checkpointFiles(id));
+            assertThrows(IllegalArgumentException.class, () -> registry.offer(id, "gold"));
+            assertFalse(registry.remove(id));
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class SpectatorHubTest {
+    /** A channel that keeps everything written to it. */
+    private static final class CollectingChannel implements WritableByteChannel {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private volatile boolean open = true;
+        private volatile boolean allReadOnly = true;
+
+        @Override
+        public synchronized int write(ByteBuffer src) {
+            allReadOnly &= src.isReadOnly();
+            int n = src.remaining();
+            byte[] data = new byte[n];
+            src.get(data);
+            bytes.write(data, 0, n);
+            return n;
+        }
+
+        synchronized String[] lines() {
+            String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+            return text.isEmpty() ? new String[0] : text.split("\n");
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+
+    /** A channel whose reader never reads: writes block until it is closed. */
+    private static final class StuckChannel implements WritableByteChannel {
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public int write(ByteBuffer src) throws AsynchronousCloseException {
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new AsynchronousCloseException();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return closed.getCount() > 0;
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+
+    @Test
+    void testEverySpectatorGetsTheSamePublicFrames() throws Exception {
+        SpectatorHub hub = new SpectatorHub();
+        GameSession session = new GameSession(4, AIPlayer::new, new GameRandom(12L), 16);
+        hub.watch(session);
+        CountDownLatch ended = new CountDownLatch(1);
+        session.addListener(new SessionListener() {
+            @Override
+            public void onEnd() {
+                ended.countDown();
+            }
+        });
+        CollectingChannel first = new CollectingChannel();
+        CollectingChannel second = new CollectingChannel();
+        hub.subscribe(first);
+        hub.subscribe(second);
+        session.start();
+        assertTrue(ended.await(30, TimeUnit.SECONDS));
+        hub.close();
+        session.close();
+
+        String[] lines = first.lines();
+        assertArrayEquals(lines, second.lines());
+        assertEquals(hub.getFrameCount(), lines.length);
+        assertTrue(first.allReadOnly && second.allReadOnly);
+        assertFalse(first.isOpen());
+        int builds = 0;
+        int reveals = 0;
+        for (String line : lines) {
+            assertTrue(line.startsWith("{\"type\":\""), line);
+            assertFalse(line.contains("\"hand\""), line);
+            builds += line.startsWith("{\"type\":\"build\"") ? 1 : 0;
+            reveals += line.startsWith("{\"type\":\"reveal\"") ? 1 : 0;
+        }
+        assertTrue(builds > 0);
+        assertTrue(reveals >= 4);
+        assertTrue(lines[lines.length - 1].startsWith("{\"type\":\"end\""), lines[lines.length - 1]);
+        assertTrue(lines[lines.length - 1].contains("\"scores\":[{\"player\":1,\"score\":"));
+    }
+
+    @Test
+    void testLateSpectatorStartsWithState() throws Exception {
+        SpectatorHub hub = new SpectatorHub();
+        Game game = new Game(4, null, SilentOutput.INSTANCE, AIPlayer::new, new GameRandom(5L));
+        game.addEventListener(hub);
+        game.playRound();
+        CollectingChannel late = new CollectingChannel();
+        hub.subscribe(late);
+        hub.close();
+
+        String[] lines = late.lines();
+        assertEquals(1, lines.length, String.join("\n", lines));
+        assertTrue(lines[0].startsWith("{\"type\":\"state\",\"round\":2,\"players\":[{\"player\":1,"), lines[0]);
+        assertEquals(4, lines[0].split("\"cards\":", -1).length - 1);
+    }
+
+    @Test
+    void testMidRoundSpectatorCatchesUp() throws Exception {
+        SpectatorHub hub = new SpectatorHub();
+        Game game = new Game(4, null, SilentOutput.INSTANCE, AIPlayer::new, new GameRandom(5L));
+        game.addEventListener(hub);
+        game.playRound();
+        CollectingChannel early = new CollectingChannel();
+        CollectingChannel late = new CollectingChannel();
+        hub.subscribe(early);
+        boolean[] joined = {false};
+        game.addEventListener((g, type, seat, value, extra) -> {
+            if (type == GameJournal.REVEAL && !joined[0]) {
+                joined[0] = true;
+                hub.subscribe(late);
+            }
+        });
+        game.playRound();
+        hub.close();
+
+        // The late spectator gets the round's state and the reveal it joined after
+        String[] lines = late.lines();
+        assertTrue(joined[0]);
+        assertArrayEquals(early.lines(), lines);
+        assertTrue(lines[0].startsWith("{\"type\":\"state\",\"round\":2,"), lines[0]);
+        assertTrue(lines[1].startsWith("{\"type\":\"reveal\""), lines[1]);
+    }
+
+    @Test
+    void testDestroyFrameNamesTheDistrict() throws Exception {
+        SpectatorHub hub = new SpectatorHub();
+        Game game = new Game(4, new Scanner(new ByteArrayInputStream(new byte[0])));
+        game.addEventListener(hub);
+        CollectingChannel spectator = new CollectingChannel();
+        hub.subscribe(spectator);
+        Player warlord = game.getPlayers().get(0);
+        Player target = game.getPlayers().get(1);
+        warlord.setCharacter(new CharacterCard("Warlord", 8, "Gain gold for red districts, destroy districts"));
+        DistrictCard temple = new DistrictCard("Temple", "blue", 1, "");
+        target.addToHand(temple);
+        target.addGold(1);
+        assertTrue(target.buildDistrict(temple));
+        warlord.addGold(5);
+        game.processCommand("action destroy 2 1", warlord);
+        hub.close();
+
+        String[] lines = spectator.lines();
+        assertEquals(1, lines.length, String.join("\n", lines));
+        assertEquals("{\"type\":\"destroy\",\"round\":1,\"player\":2,"
+            + "\"district\":{\"name\":\"Temple\",\"color\":\"blue\",\"cost\":1},\"citySize\":0}", lines[0]);
+    }
+
+    @Test
+    void testSlowSpectatorIsDropped() throws Exception {
+        SpectatorHub hub = new SpectatorHub(4);
+        StuckChannel stuck = new StuckChannel();
+        CollectingChannel fast = new CollectingChannel();
+        SpectatorHub.Subscription slow = hub.subscribe(stuck);
+        SpectatorHub.Subscription kept = hub.subscribe(fast);
+        Game game = new Game(4, null, SilentOutput.INSTANCE, AIPlayer::new, new GameRandom(6L));
+        for (int i = 1; i <= 10; i++) {
+            hub.onEvent(game, GameJournal.KILL, -1, 4, 0);
+            // Let the fast spectator keep up, so only the stuck one falls behind
+            for (int wait = 0; wait < 200 && kept.getFramesWritten() < i; wait++) {
+                Thread.sleep(5);
+            }
+            assertEquals(i, kept.getFramesWritten());
+        }
+
+        assertEquals(10, hub.getFrameCount());
+        assertEquals(1, hub.getDroppedCount());
+        assertEquals(1, hub.getSubscriberCount());
+        assertFalse(stuck.isOpen());
+        for (int i = 0; i < 200 && slow.isOpen(); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(slow.isOpen());
+        assertEquals(0, slow.getFramesWritten());
+        hub.close();
+        String[] lines = fast.lines();
+        assertEquals(10, lines.length);
+        assertEquals("{\"type\":\"kill\",\"round\":1,\"character\":\"King\",\"number\":4}", lines[9]);
+    }
+}
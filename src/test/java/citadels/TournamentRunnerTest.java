@@ -0,0 +1,44 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.ForkJoinPool;
+
+public class TournamentRunnerTest {
+    @Test
+    void testRunMergesAllGames() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            TournamentReport report = new TournamentRunner(new GameEngine(4), pool).run(200);
+            assertEquals(200, report.getGames());
+            int wins = report.getNoWinnerGames();
+            for (int p = 1; p <= 4; p++) {
+                wins += report.getWins(p);
+                assertTrue(report.getAverageScore(p) >= 0);
+            }
+            assertEquals(200, wins, "Every game has a winner or no winner");
+            assertTrue(report.getAverageRounds() >= 1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testSameRootSeedSameReport() {
+        TournamentRunner runner = new TournamentRunner(new GameEngine(4));
+        TournamentReport first = runner.run(100, 12345L);
+        TournamentReport second = runner.run(100, 12345L);
+        for (int p = 1; p <= 4; p++) {
+            assertEquals(first.getWins(p), second.getWins(p));
+            assertEquals(first.getAverageScore(p), second.getAverageScore(p));
+        }
+        assertEquals(first.getAverageRounds(), second.getAverageRounds());
+    }
+
+    @Test
+    void testEmptyAndInvalidBatch() {
+        TournamentRunner runner = new TournamentRunner(new GameEngine(5));
+        assertEquals(0, runner.run(0).getGames());
+        assertThrows(IllegalArgumentException.class, () -> runner.run(-1));
+    }
+}
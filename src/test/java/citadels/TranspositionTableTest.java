@@ -0,0 +1,74 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTest {
+    @Test
+    void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(100);
+        assertEquals(128, table.capacity());
+        assertEquals(TranspositionTable.MISS, table.probe(42L));
+        table.store(42L, 0.75, 3);
+        long data = table.probe(42L);
+        assertEquals(0.75, TranspositionTable.value(data), 1e-6);
+        assertEquals(3, TranspositionTable.samples(data));
+        // Same slot, different hash
+        assertEquals(TranspositionTable.MISS, table.probe(42L + 128));
+        table.store(42L + 128, 0.25, 1);
+        assertEquals(TranspositionTable.MISS, table.probe(42L));
+        table.clear();
+        assertEquals(TranspositionTable.MISS, table.probe(42L + 128));
+    }
+
+    @Test
+    void testAddSampleKeepsMean() {
+        TranspositionTable table = new TranspositionTable(16);
+        table.addSample(-7L, 1.0);
+        table.addSample(-7L, 0.0);
+        table.addSample(-7L, 0.5);
+        long data = table.probe(-7L);
+        assertEquals(3, TranspositionTable.samples(data));
+        assertEquals(0.5, TranspositionTable.value(data), 1e-6);
+        assertThrows(IllegalArgumentException.class, () -> table.store(1L, 0.5, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    }
+
+    @Test
+    void testConcurrentWritersNeverShowTornEntries() throws InterruptedException {
+        // A tiny table so that threads keep overwriting each other's slots
+        TranspositionTable table = new TranspositionTable(4);
+        AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            threads.add(new Thread(() -> {
+                GameRandom random = new GameRandom(offset);
+                for (int i = 0; i < 200_000; i++) {
+                    long hash = random.nextInt(64) * 0x9e3779b97f4a7c15L;
+                    if ((i & 1) == 0) {
+                        table.store(hash, (hash >>> 40) / 16777216.0, (int) (hash >>> 33) | 1);
+                    } else {
+                        long data = table.probe(hash);
+                        if (data != TranspositionTable.MISS
+                                && (TranspositionTable.samples(data) != ((int) (hash >>> 33) | 1)
+                                || TranspositionTable.value(data) != (float) ((hash >>> 40) / 16777216.0))) {
+                            wrong.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+    }
+}
@@ -0,0 +1,129 @@
+package citadels;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ZobristTest {
+    /** Hashes a game from scratch, to check the incremental hash against. */
+    private static long fullHash(Game game) {
+        long hash = Zobrist.round(game.getCurrentRound()) + Zobrist.deckSize(game.getDistrictDeck().size());
+        hash += Zobrist.killed(game.getKilledCharacter() != null ? game.getKilledCharacter().getNumber() : 0);
+        hash += Zobrist.robbed(game.getRobbedCharacter() != null ? game.getRobbedCharacter().getNumber() : 0);
+        int available = game.getAvailableMask();
+        for (int number = 1; number <= 8; number++) {
+            if ((available & (1 << number)) != 0) {
+                hash += Zobrist.available(number);
+            }
+        }
+        List<Player> players = game.getPlayers();
+        for (int seat = 0; seat < players.size(); seat++) {
+            Player player = players.get(seat);
+            hash += Zobrist.gold(seat, player.getGold());
+            hash += Zobrist.character(seat, player.getCharacter() != null ? player.getCharacter().getNumber() : 0);
+            if (player.hasCrown()) {
+                hash += Zobrist.crown(seat);
+            }
+            for (DistrictCard card : player.getHand()) {
+                hash += Zobrist.hand(seat, card.getId());
+            }
+            for (DistrictCard card : player.getCity()) {
+                hash += Zobrist.city(seat, card.getId());
+            }
+        }
+        return hash;
+    }
+
+    @Test
+    void testIncrementalHashMatchesFullHash() {
+        Game game = new GameEngine(5).newGame(14L);
+        assertEquals(fullHash(game), game.getHash());
+        for (int i = 0; i < 6 && !game.isGameEnded(); i++) {
+            game.playRound();
+            assertEquals(fullHash(game), game.getHash());
+        }
+    }
+
+    @Test
+    void testRestoreGivesSameHash() {
+        Game game = new GameEngine(4).newGame(9L);
+        game.playRound();
+        long hash = game.getHash();
+        GameState state = GameState.capture(game);
+        game.playRound();
+        assertNotEquals(hash, game.getHash());
+        Game other = new GameEngine(4).newGame(10L);
+        other.restoreState(state);
+        assertEquals(hash, other.getHash());
+    }
+
+    @Test
+    void testMoveOrderDoesNotMatter() {
+        CardCatalog catalog = CardCatalog.getInstance();
+        DistrictCard a = catalog.getCard(3);
+        DistrictCard b = catalog.getCard(17);
+        Player first = new Player(2, false);
+        Player second = new Player(2, false);
+
+        first.addGold(5);
+        first.addToHand(a);
+        first.addToHand(b);
+        first.addToHand(b);
+        first.setHasCrown(true);
+        second.setHasCrown(true);
+        second.addToHand(b);
+        second.addGold(2);
+        second.addToHand(a);
+        second.addToHand(b);
+        second.addGold(3);
+        assertEquals(first.getHash(), second.getHash());
+
+        // Two copies of a card must not cancel out
+        second.discardCard(b);
+        assertNotEquals(first.getHash(), second.getHash());
+        second.addToHand(b);
+        assertEquals(first.getHash(), second.getHash());
+    }
+
+    @Test
+    void testEachFactChangesHash() {
+        Player player = new Player(1, false);
+        long hash = player.getHash();
+        player.addGold(1);
+        assertNotEquals(hash, hash = player.getHash());
+        player.setCharacter(CardCatalog.getInstance().getCharacterCard(CharacterRole.fromNumber(4)));
+        assertNotEquals(hash, hash = player.getHash());
+        player.setHasCrown(true);
+        assertNotEquals(hash, hash = player.getHash());
+        DistrictCard card = CardCatalog.getInstance().getCard(0);
+        player.addGold(card.getCost());
+        hash = player.getHash();
+        player.addToHand(card);
+        assertNotEquals(hash, hash = player.getHash());
+        assertTrue(player.buildDistrict(card));
+        assertNotEquals(hash, player.getHash());
+
+        // The same card in a hand or in a city, or in another seat, is a different fact
+        assertNotEquals(Zobrist.hand(0, 5), Zobrist.city(0, 5));
+        assertNotEquals(Zobrist.hand(0, 5), Zobrist.hand(1, 5));
+    }
+
+    @Test
+    void testObserverHashIgnoresHiddenHands() {
+        Game game = new GameEngine(4).newGame(23L);
+        game.playRound();
+        Determinizer determinizer = new Determinizer(game, game.getPlayers().get(1));
+        Game world = new GameEngine(4).newGame(1L);
+        GameRandom random = new GameRandom(2L);
+        long known = game.getHash(1);
+        boolean differs = false;
+        for (int i = 0; i < 10; i++) {
+            determinizer.sample(world, random);
+            // After the turn phase every character is known, so only hands and deck order vary
+            assertEquals(known, world.getHash(1));
+            differs |= world.getHash() != game.getHash();
+        }
+        assertTrue(differs);
+    }
+}